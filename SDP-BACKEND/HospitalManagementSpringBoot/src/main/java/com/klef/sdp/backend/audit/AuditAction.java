@@ -0,0 +1,35 @@
+package com.klef.sdp.backend.audit;
+
+/**
+ * Audited mutations. The code is what is stored in the log, so existing codes
+ * must never be renumbered.
+ */
+public enum AuditAction {
+
+    APPOINTMENT_STATUS(1, "appointment"),
+    PRESCRIPTION_UPDATE(2, "prescription"),
+    PRESCRIPTION_DELETE(3, "prescription"),
+    DOCTOR_DELETE(4, "doctor"),
+    PATIENT_DELETE(5, "patient");
+
+    private final byte code;
+    private final String entity;
+
+    AuditAction(int code, String entity) {
+        this.code = (byte) code;
+        this.entity = entity;
+    }
+
+    public byte getCode() { return code; }
+
+    public String getEntity() { return entity; }
+
+    public static AuditAction fromCode(byte code) {
+        for (AuditAction action : values()) {
+            if (action.code == code) {
+                return action;
+            }
+        }
+        return null;
+    }
+}
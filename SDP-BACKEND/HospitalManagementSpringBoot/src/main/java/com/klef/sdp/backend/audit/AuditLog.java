@@ -0,0 +1,167 @@
+package com.klef.sdp.backend.audit;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Write-behind audit trail for status changes, prescription edits and admin
+ * deletes. Callers only put a record on a lock-free ring buffer; a single
+ * writer thread appends it to memory-mapped segments under
+ * {@code audit.dir}/&lt;instance&gt; and forces them to disk every
+ * {@code audit.force-interval-ms}. Records inside a transaction are enqueued
+ * after it commits, so rolled-back changes are never audited.
+ *
+ * A process crash loses at most what is still in the ring; an OS crash also
+ * loses pages written since the last force. When the ring is full, callers
+ * wait for the writer rather than drop records.
+ */
+@Component
+public class AuditLog {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    @Value("${audit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${audit.dir:audit-log}")
+    private String dir;
+
+    @Value("${audit.buffer-size:65536}")
+    private int bufferSize;
+
+    @Value("${audit.segment-size-mb:64}")
+    private int segmentSizeMb;
+
+    @Value("${audit.force-interval-ms:1000}")
+    private long forceIntervalMs;
+
+    private AuditRingBuffer ring;
+    private AuditSegmentWriter writer;
+    private Thread writerThread;
+    private volatile boolean running;
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong fullWaits = new AtomicLong();
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        ring = new AuditRingBuffer(bufferSize);
+        writer = new AuditSegmentWriter(Paths.get(dir).resolve(instanceName()), segmentSizeMb * 1024 * 1024);
+        running = true;
+        writerThread = new Thread(this::drain, "audit-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    public void record(AuditAction action, int entityId, String detail) {
+        if (!enabled) {
+            return;
+        }
+        AuditRecord record = new AuditRecord(System.currentTimeMillis(), action, entityId, detail);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueue(record);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                enqueue(record);
+            }
+        });
+    }
+
+    private void enqueue(AuditRecord record) {
+        while (!ring.offer(record)) {
+            if (!running) {
+                System.out.println("Audit log stopped, record not written: " + record.getAction() + " " + record.getEntityId());
+                return;
+            }
+            fullWaits.incrementAndGet();
+            LockSupport.parkNanos(FULL_PARK_NANOS);
+        }
+    }
+
+    private void drain() {
+        long lastForce = System.nanoTime();
+        long forceIntervalNanos = TimeUnit.MILLISECONDS.toNanos(forceIntervalMs);
+        while (true) {
+            AuditRecord record = ring.poll();
+            if (record != null) {
+                try {
+                    writer.append(record);
+                    written.incrementAndGet();
+                } catch (IOException | RuntimeException e) {
+                    System.out.println("Audit log write failed: " + e);
+                }
+                if ((written.get() & 1023) != 0) {
+                    continue;
+                }
+            } else if (!running) {
+                break;
+            }
+            long now = System.nanoTime();
+            if (now - lastForce >= forceIntervalNanos) {
+                writer.force();
+                lastForce = now;
+            }
+            if (record == null) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    /**
+     * Reads the segments of every instance sharing {@code audit.dir}. Records
+     * still in the ring, or not yet visible on a shared volume, are missed.
+     */
+    public List<AuditRecord> query(AuditQuery query) throws IOException {
+        return AuditLogReader.query(Paths.get(dir), query);
+    }
+
+    public long getWritten() { return written.get(); }
+
+    public long getFullWaits() { return fullWaits.get(); }
+
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        if (writerThread == null) {
+            return;
+        }
+        running = false;
+        writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        if (!writerThread.isAlive()) {
+            writer.close();
+        }
+    }
+
+    // Pod name under Kubernetes, so each replica writes its own segments
+    private static Path instanceName() {
+        String host = System.getenv("HOSTNAME");
+        if (host == null || host.isBlank()) {
+            try {
+                host = InetAddress.getLocalHost().getHostName();
+            } catch (UnknownHostException e) {
+                host = UUID.randomUUID().toString();
+            }
+        }
+        return Paths.get(host);
+    }
+}
@@ -0,0 +1,56 @@
+package com.klef.sdp.backend.audit;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Command-line reader for audit segments copied off a server or mounted from
+ * its volume. From the packaged jar:
+ * <pre>
+ * java -cp app.jar -Dloader.main=com.klef.sdp.backend.audit.AuditLogCli \
+ *     org.springframework.boot.loader.launch.PropertiesLauncher \
+ *     --dir audit-log --entity appointment --id 42 --from 2025-01-01 --to 2025-01-31T18:00
+ * </pre>
+ * Prints one tab-separated line per record, newest first.
+ */
+public final class AuditLogCli {
+
+    private AuditLogCli() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path dir = Paths.get("audit-log");
+        AuditQuery query = new AuditQuery();
+        query.setLimit(1000);
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : null;
+            switch (args[i]) {
+                case "--dir" -> dir = Paths.get(value);
+                case "--entity" -> query.setEntity(value);
+                case "--id" -> query.setEntityId(Integer.valueOf(value));
+                case "--action" -> query.setAction(AuditAction.valueOf(value.toUpperCase(Locale.ROOT)));
+                case "--from" -> query.setFrom(AuditQuery.parseTime(value, false));
+                case "--to" -> query.setTo(AuditQuery.parseTime(value, true));
+                case "--limit" -> query.setLimit(Integer.parseInt(value));
+                default -> {
+                    usage();
+                    return;
+                }
+            }
+            i++;
+        }
+        List<AuditRecord> records = AuditLogReader.query(dir, query);
+        for (AuditRecord r : records) {
+            System.out.println(Instant.ofEpochMilli(r.getTimestamp()) + "\t" + r.getAction() + "\t"
+                    + r.getEntity() + "\t" + r.getEntityId() + "\t" + r.getDetail());
+        }
+    }
+
+    private static void usage() {
+        System.out.println("Usage: AuditLogCli [--dir path] [--entity appointment|prescription|doctor|patient] [--id n]"
+                + " [--action name] [--from yyyy-MM-dd[THH:mm]] [--to yyyy-MM-dd[THH:mm]] [--limit n]");
+    }
+}
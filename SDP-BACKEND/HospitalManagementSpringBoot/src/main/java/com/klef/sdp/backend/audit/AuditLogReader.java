@@ -0,0 +1,84 @@
+package com.klef.sdp.backend.audit;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Scans audit segments under a root directory, including the per-instance
+ * subdirectories, and returns the newest records matching a query. Safe to
+ * run against segments that are still being written: a record is only
+ * returned once its length and checksum are in place.
+ */
+public final class AuditLogReader {
+
+    static final Pattern SEGMENT_NAME = Pattern.compile("audit-(\\d+)\\.log");
+
+    private AuditLogReader() {
+    }
+
+    /**
+     * @return up to {@code query.getLimit()} matching records, newest first
+     */
+    public static List<AuditRecord> query(Path root, AuditQuery query) throws IOException {
+        int limit = Math.max(1, query.getLimit());
+        PriorityQueue<AuditRecord> newest = new PriorityQueue<>(Comparator.comparingLong(AuditRecord::getTimestamp));
+        if (Files.isDirectory(root)) {
+            for (Path segment : segments(root)) {
+                scan(segment, query, newest, limit);
+            }
+        }
+        List<AuditRecord> result = new ArrayList<>(newest);
+        result.sort(Comparator.comparingLong(AuditRecord::getTimestamp).reversed());
+        return result;
+    }
+
+    private static List<Path> segments(Path root) throws IOException {
+        try (Stream<Path> files = Files.walk(root, 2)) {
+            return files.filter(p -> SEGMENT_NAME.matcher(p.getFileName().toString()).matches()).toList();
+        }
+    }
+
+    private static void scan(Path segment, AuditQuery query, PriorityQueue<AuditRecord> newest, int limit) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < AuditSegmentWriter.HEADER_BYTES) {
+                return;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(0) != AuditSegmentWriter.MAGIC || buffer.getInt(4) != AuditSegmentWriter.VERSION) {
+                return;
+            }
+            long min = buffer.getLong(AuditSegmentWriter.MIN_TS_OFFSET);
+            long max = buffer.getLong(AuditSegmentWriter.MAX_TS_OFFSET);
+            if (max == 0 || !query.overlaps(min, max)) {
+                return;
+            }
+            if (newest.size() == limit && max < newest.peek().getTimestamp()) {
+                return; // everything in here is older than what we already have
+            }
+            buffer.position(AuditSegmentWriter.HEADER_BYTES);
+            AuditRecord record;
+            while ((record = AuditRecord.readFrom(buffer)) != null) {
+                if (!query.matches(record)) {
+                    continue;
+                }
+                if (newest.size() < limit) {
+                    newest.add(record);
+                } else if (record.getTimestamp() > newest.peek().getTimestamp()) {
+                    newest.poll();
+                    newest.add(record);
+                }
+            }
+        }
+    }
+}
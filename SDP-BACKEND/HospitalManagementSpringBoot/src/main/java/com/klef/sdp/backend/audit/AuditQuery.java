@@ -0,0 +1,63 @@
+package com.klef.sdp.backend.audit;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Filter for reading the audit log. Unset fields match everything; the time
+ * range is inclusive and in epoch millis.
+ */
+public class AuditQuery {
+
+    private String entity;
+    private Integer entityId;
+    private AuditAction action;
+    private Long from;
+    private Long to;
+    private int limit = 100;
+
+    public boolean matches(AuditRecord record) {
+        return (entity == null || entity.equalsIgnoreCase(record.getEntity()))
+                && (entityId == null || entityId == record.getEntityId())
+                && (action == null || action == record.getAction())
+                && (from == null || record.getTimestamp() >= from)
+                && (to == null || record.getTimestamp() <= to);
+    }
+
+    // Segment header range check
+    boolean overlaps(long minTimestamp, long maxTimestamp) {
+        return (from == null || maxTimestamp >= from) && (to == null || minTimestamp <= to);
+    }
+
+    // yyyy-MM-dd covers the whole day; yyyy-MM-ddTHH:mm[:ss] is exact. Local time zone.
+    public static long parseTime(String value, boolean endOfRange) {
+        ZoneId zone = ZoneId.systemDefault();
+        if (value.length() == 10) {
+            LocalDate date = LocalDate.parse(value);
+            return endOfRange
+                    ? date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli() - 1
+                    : date.atStartOfDay(zone).toInstant().toEpochMilli();
+        }
+        return LocalDateTime.parse(value).atZone(zone).toInstant().toEpochMilli();
+    }
+
+    // Getters & Setters
+    public String getEntity() { return entity; }
+    public void setEntity(String entity) { this.entity = entity; }
+
+    public Integer getEntityId() { return entityId; }
+    public void setEntityId(Integer entityId) { this.entityId = entityId; }
+
+    public AuditAction getAction() { return action; }
+    public void setAction(AuditAction action) { this.action = action; }
+
+    public Long getFrom() { return from; }
+    public void setFrom(Long from) { this.from = from; }
+
+    public Long getTo() { return to; }
+    public void setTo(Long to) { this.to = to; }
+
+    public int getLimit() { return limit; }
+    public void setLimit(int limit) { this.limit = limit; }
+}
@@ -0,0 +1,118 @@
+package com.klef.sdp.backend.audit;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * One audited mutation. On disk a record is
+ * <pre>
+ *   int   length of everything after this field, including the checksum
+ *   long  timestamp (epoch millis)
+ *   byte  action code
+ *   int   entity id
+ *   short detail length, followed by the UTF-8 detail bytes
+ *   int   CRC32 of timestamp..detail
+ * </pre>
+ * A zero length marks the end of the written part of a segment.
+ */
+public final class AuditRecord {
+
+    public static final int MAX_DETAIL_BYTES = 1024;
+
+    // timestamp + action + entity id + detail length + checksum
+    private static final int FIXED_BYTES = 8 + 1 + 4 + 2 + 4;
+
+    private final long timestamp;
+    private final AuditAction action;
+    private final int entityId;
+    private final String detail;
+
+    public AuditRecord(long timestamp, AuditAction action, int entityId, String detail) {
+        this.timestamp = timestamp;
+        this.action = action;
+        this.entityId = entityId;
+        this.detail = detail == null ? "" : detail;
+    }
+
+    // Getters
+    public long getTimestamp() { return timestamp; }
+
+    public AuditAction getAction() { return action; }
+
+    public String getEntity() { return action.getEntity(); }
+
+    public int getEntityId() { return entityId; }
+
+    public String getDetail() { return detail; }
+
+    byte[] detailBytes() {
+        byte[] bytes = detail.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= MAX_DETAIL_BYTES) {
+            return bytes;
+        }
+        byte[] cut = new byte[MAX_DETAIL_BYTES];
+        System.arraycopy(bytes, 0, cut, 0, MAX_DETAIL_BYTES);
+        return cut;
+    }
+
+    static int encodedSize(byte[] detailBytes) {
+        return 4 + FIXED_BYTES + detailBytes.length;
+    }
+
+    /**
+     * Writes the record at the buffer's position. The length prefix goes in
+     * last, so a reader never sees a non-zero length ahead of its body.
+     */
+    void writeTo(ByteBuffer buffer, byte[] detailBytes) {
+        int start = buffer.position();
+        int bodyStart = start + 4;
+        buffer.position(bodyStart);
+        buffer.putLong(timestamp);
+        buffer.put(action.getCode());
+        buffer.putInt(entityId);
+        buffer.putShort((short) detailBytes.length);
+        buffer.put(detailBytes);
+        buffer.putInt(checksum(buffer, bodyStart, buffer.position() - bodyStart));
+        int end = buffer.position();
+        buffer.putInt(start, end - bodyStart);
+    }
+
+    /**
+     * Reads the record at the buffer's position and advances past it.
+     *
+     * @return the record, or null at the end of the written data or at a torn record
+     */
+    static AuditRecord readFrom(ByteBuffer buffer) {
+        if (buffer.remaining() < 4 + FIXED_BYTES) {
+            return null;
+        }
+        int start = buffer.position();
+        int length = buffer.getInt(start);
+        if (length < FIXED_BYTES || length > FIXED_BYTES + MAX_DETAIL_BYTES || length > buffer.remaining() - 4) {
+            return null;
+        }
+        int bodyStart = start + 4;
+        int stored = buffer.getInt(bodyStart + length - 4);
+        if (stored != checksum(buffer, bodyStart, length - 4)) {
+            return null;
+        }
+        long timestamp = buffer.getLong(bodyStart);
+        AuditAction action = AuditAction.fromCode(buffer.get(bodyStart + 8));
+        int entityId = buffer.getInt(bodyStart + 9);
+        int detailLength = buffer.getShort(bodyStart + 13);
+        byte[] detail = new byte[detailLength];
+        buffer.get(bodyStart + 15, detail);
+        buffer.position(bodyStart + length);
+        if (action == null) {
+            return readFrom(buffer); // written by a newer version; skip it
+        }
+        return new AuditRecord(timestamp, action, entityId, new String(detail, StandardCharsets.UTF_8));
+    }
+
+    private static int checksum(ByteBuffer buffer, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+}
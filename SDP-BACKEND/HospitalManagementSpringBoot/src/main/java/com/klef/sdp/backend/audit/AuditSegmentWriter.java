@@ -0,0 +1,108 @@
+package com.klef.sdp.backend.audit;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.regex.Matcher;
+import java.util.stream.Stream;
+
+/**
+ * Appends records to memory-mapped segment files audit-NNNNNNNNNN.log in one
+ * directory. A segment is mapped at its full size up front and a new one is
+ * started when the next record does not fit; segments are never rewritten.
+ *
+ * Each segment starts with a header holding a magic number, the format
+ * version and the smallest and largest record timestamps, which lets readers
+ * skip segments outside a queried time range. Not thread-safe: only the
+ * audit writer thread uses it.
+ */
+final class AuditSegmentWriter implements Closeable {
+
+    static final int MAGIC = 0x41554454; // "AUDT"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 32;
+    static final int MIN_TS_OFFSET = 8;
+    static final int MAX_TS_OFFSET = 16;
+
+    private final Path dir;
+    private final int segmentSize;
+    private long sequence;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long minTimestamp;
+    private long maxTimestamp;
+    private boolean dirty;
+
+    AuditSegmentWriter(Path dir, int segmentSize) throws IOException {
+        this.dir = dir;
+        this.segmentSize = Math.max(segmentSize, HEADER_BYTES + AuditRecord.encodedSize(new byte[AuditRecord.MAX_DETAIL_BYTES]));
+        Files.createDirectories(dir);
+        try (Stream<Path> files = Files.list(dir)) {
+            // Never append to a segment from a previous run; its tail may be torn
+            sequence = files.map(p -> AuditLogReader.SEGMENT_NAME.matcher(p.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .mapToLong(m -> Long.parseLong(m.group(1)))
+                    .max().orElse(0);
+        }
+    }
+
+    void append(AuditRecord record) throws IOException {
+        byte[] detail = record.detailBytes();
+        int size = AuditRecord.encodedSize(detail);
+        if (buffer == null || buffer.remaining() < size) {
+            rotate();
+        }
+        // Widen the header range before the record lands, so readers never skip it
+        long ts = record.getTimestamp();
+        if (minTimestamp == 0 || ts < minTimestamp) {
+            minTimestamp = ts;
+            buffer.putLong(MIN_TS_OFFSET, ts);
+        }
+        if (ts > maxTimestamp) {
+            maxTimestamp = ts;
+            buffer.putLong(MAX_TS_OFFSET, ts);
+        }
+        record.writeTo(buffer, detail);
+        dirty = true;
+    }
+
+    // Flushes written pages to disk; cheap when nothing changed since the last call
+    void force() {
+        if (dirty) {
+            buffer.force();
+            dirty = false;
+        }
+    }
+
+    private void rotate() throws IOException {
+        closeSegment();
+        sequence++;
+        Path file = dir.resolve(String.format("audit-%010d.log", sequence));
+        channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.position(HEADER_BYTES);
+        minTimestamp = 0;
+        maxTimestamp = 0;
+        dirty = true;
+    }
+
+    private void closeSegment() throws IOException {
+        if (channel != null) {
+            force();
+            channel.close(); // the mapping stays valid until it is collected
+            channel = null;
+            buffer = null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeSegment();
+    }
+}
@@ -0,0 +1,182 @@
+package com.klef.sdp.backend.auth;
+
+import com.klef.sdp.backend.repository.AppointmentRepository;
+import com.klef.sdp.backend.repository.ArchiveRepository;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Authenticates every request from its token and applies the access rules
+ * below, first match wins. The token comes from {@code Authorization: Bearer}
+ * or, on the appointment streams only (EventSource cannot send headers), the
+ * access_token query parameter. Anywhere else a token in the URL would end up
+ * in access logs, browser history and Referer headers.
+ *
+ * Rules cover what the path alone decides. Endpoints that take the acting
+ * user's id in the body check it against the AuthPrincipal themselves.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 20)
+public class AuthFilter extends OncePerRequestFilter {
+
+    private enum Access {
+        PUBLIC,         // no token needed
+        AUTHENTICATED,  // any valid token
+        STAFF,          // doctors and admins
+        ADMIN,
+        PATIENT_SELF,   // the patient in {id}, a doctor they have had an appointment with, or an admin
+        DOCTOR_SELF     // the doctor in {id}, or an admin
+    }
+
+    private record Rule(String method, PathPattern pattern, Access access) {
+        static Rule of(String method, String pattern, Access access) {
+            return new Rule(method, PathPatternParser.defaultInstance.parse(pattern), access);
+        }
+    }
+
+    private static final List<Rule> RULES = List.of(
+            Rule.of("POST", "/admin/login", Access.PUBLIC),
+            Rule.of("POST", "/patient/checklogin", Access.PUBLIC),
+            Rule.of("POST", "/doctor/checkdoctorlogin", Access.PUBLIC),
+            Rule.of("POST", "/patient/registration", Access.PUBLIC),
+            Rule.of("POST", "/doctor/registration", Access.PUBLIC),
+            Rule.of("GET", "/patient/", Access.PUBLIC),
+            Rule.of("GET", "/doctor/all", Access.PUBLIC),
+            Rule.of("GET", "/doctor/doctors", Access.PUBLIC),
+            Rule.of("GET", "/doctor/search", Access.PUBLIC),
+            Rule.of("GET", "/doctor/recommend", Access.PUBLIC),
+            Rule.of("GET", "/doctor/available", Access.PUBLIC),
+            Rule.of(null, "/error", Access.PUBLIC),
+
+            Rule.of(null, "/admin/**", Access.ADMIN),
+
+            Rule.of("GET", "/appointments/patient/{id}", Access.PATIENT_SELF),
+            Rule.of("GET", "/appointments/patient/{id}/**", Access.PATIENT_SELF),
+            Rule.of("GET", "/appointments/stream/patient/{id}", Access.PATIENT_SELF),
+            Rule.of("GET", "/prescription/patient/{id}", Access.PATIENT_SELF),
+            Rule.of("GET", "/prescription/patient/{id}/**", Access.PATIENT_SELF),
+            Rule.of("GET", "/appointments/doctor/{id}", Access.DOCTOR_SELF),
+            Rule.of("GET", "/appointments/doctor/{id}/**", Access.DOCTOR_SELF),
+            Rule.of("GET", "/appointments/stream/doctor/{id}", Access.DOCTOR_SELF),
+            Rule.of("GET", "/prescription/doctor/{id}", Access.DOCTOR_SELF),
+            Rule.of("GET", "/prescription/doctor/{id}/**", Access.DOCTOR_SELF),
+
+            // Which patients take a drug, across all doctors
+            Rule.of("GET", "/prescription/drugs/**", Access.ADMIN),
+            Rule.of("PUT", "/appointments/{id}/status", Access.STAFF),
+            Rule.of("PUT", "/appointments/status/batch", Access.STAFF),
+            Rule.of("POST", "/prescription/add", Access.STAFF),
+            Rule.of("PUT", "/prescription/update", Access.STAFF),
+            Rule.of("PATCH", "/prescription/{id}", Access.STAFF),
+            Rule.of("DELETE", "/prescription/delete/{id}", Access.STAFF),
+            Rule.of("POST", "/schedule/add", Access.STAFF),
+            Rule.of("PUT", "/schedule/update", Access.STAFF),
+            Rule.of("PATCH", "/schedule/{id}", Access.STAFF),
+            Rule.of("DELETE", "/schedule/delete/{id}", Access.STAFF)
+    );
+
+    private static final PathPattern STREAMS = PathPatternParser.defaultInstance.parse("/appointments/stream/**");
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private ArchiveRepository archiveRepository;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if ("OPTIONS".equals(request.getMethod())) {
+            chain.doFilter(request, response); // CORS preflight, answered by the CORS filter
+            return;
+        }
+        PathContainer path = PathContainer.parsePath(request.getRequestURI().substring(request.getContextPath().length()));
+        Access access = Access.AUTHENTICATED;
+        Map<String, String> variables = Map.of();
+        for (Rule rule : RULES) {
+            if (rule.method() != null && !rule.method().equals(request.getMethod())) {
+                continue;
+            }
+            PathPattern.PathMatchInfo match = rule.pattern().matchAndExtract(path);
+            if (match != null) {
+                access = rule.access();
+                variables = match.getUriVariables();
+                break;
+            }
+        }
+        if (access == Access.PUBLIC) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        AuthPrincipal principal = tokenService.verify(token(request, path));
+        if (principal == null) {
+            response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer");
+            reject(response, 401, "Please log in again");
+            return;
+        }
+        if (!allowed(access, principal, variables.get("id"))) {
+            reject(response, 403, "Not allowed");
+            return;
+        }
+        request.setAttribute(AuthPrincipal.ATTRIBUTE, principal);
+        chain.doFilter(request, response);
+    }
+
+    private boolean allowed(Access access, AuthPrincipal principal, String id) {
+        return switch (access) {
+            case PUBLIC, AUTHENTICATED -> true;
+            case STAFF -> principal.role() != Role.PATIENT;
+            case ADMIN -> principal.role() == Role.ADMIN;
+            case PATIENT_SELF -> principal.canActAs(Role.PATIENT, parseId(id)) || treats(principal, parseId(id));
+            case DOCTOR_SELF -> principal.canActAs(Role.DOCTOR, parseId(id));
+        };
+    }
+
+    // Booked with the doctor at some point, including appointments already archived
+    private boolean treats(AuthPrincipal principal, Integer patientId) {
+        return principal.role() == Role.DOCTOR && patientId != null
+                && (appointmentRepository.existsByDoctorIdAndPatientId(principal.id(), patientId)
+                        || archiveRepository.hasAppointment(principal.id(), patientId));
+    }
+
+    private static Integer parseId(String id) {
+        try {
+            return id == null ? null : Integer.valueOf(id);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String token(HttpServletRequest request, PathContainer path) {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            return header.substring(7).trim();
+        }
+        return "GET".equals(request.getMethod()) && STREAMS.matches(path) ? request.getParameter("access_token") : null;
+    }
+
+    private static void reject(HttpServletResponse response, int status, String message) throws IOException {
+        response.setStatus(status);
+        response.setContentType("text/plain;charset=UTF-8");
+        response.getWriter().write(message);
+    }
+}
@@ -0,0 +1,18 @@
+package com.klef.sdp.backend.auth;
+
+/**
+ * Who sent the request, as proven by its token. AuthFilter stores it as the
+ * request attribute {@link #ATTRIBUTE}; controllers read it with
+ * {@code @RequestAttribute(AuthPrincipal.ATTRIBUTE)}.
+ */
+public record AuthPrincipal(Role role, int id, String tokenId, long expiresAt) {
+
+    public static final String ATTRIBUTE = "authPrincipal";
+
+    /**
+     * True for an admin, or for the {@code role} user with this {@code id}.
+     */
+    public boolean canActAs(Role role, Integer id) {
+        return this.role == Role.ADMIN || (this.role == role && id != null && this.id == id);
+    }
+}
@@ -0,0 +1,72 @@
+package com.klef.sdp.backend.auth;
+
+import com.klef.sdp.backend.service.JobLeases;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hashes passwords still stored in plaintext from before PasswordHasher,
+ * a small batch per table per run so the scheduler thread is never held
+ * for long. Users who log in first are upgraded at login instead. Each row
+ * is only overwritten if it still holds the plaintext that was hashed, so a
+ * concurrent profile update wins. One instance runs it at a time.
+ */
+@Component
+public class LegacyPasswordUpgrader {
+
+    private static final String JOB = "password-upgrade";
+    private static final int BATCH_SIZE = 50;
+
+    private record Table(String name, String idColumn, String passwordColumn) { }
+
+    private static final List<Table> TABLES = List.of(
+            new Table("admin_table", "admin_id", "admin_password"),
+            new Table("doctor_table", "doctor_id", "password"),
+            new Table("patient_table", "patient_id", "patient_pwd"));
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    @Autowired
+    private JobLeases jobLeases;
+
+    @Scheduled(fixedDelayString = "${auth.password.upgrade-interval-ms:60000}",
+            initialDelayString = "${auth.password.upgrade-initial-delay-ms:60000}")
+    public void upgrade() {
+        if (!jobLeases.tryAcquire(JOB, 300_000)) {
+            return;
+        }
+        try {
+            int upgraded = 0;
+            for (Table table : TABLES) {
+                upgraded += upgrade(table);
+            }
+            if (upgraded > 0) {
+                System.out.println("Hashed " + upgraded + " plaintext passwords");
+            }
+        } finally {
+            jobLeases.release(JOB);
+        }
+    }
+
+    private int upgrade(Table t) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList("SELECT " + t.idColumn() + " AS id, " + t.passwordColumn()
+                + " AS pwd FROM " + t.name() + " WHERE " + t.passwordColumn() + " NOT LIKE '" + PasswordHasher.PREFIX + "%'"
+                + " AND " + t.passwordColumn() + " <> '' ORDER BY " + t.idColumn() + " LIMIT " + BATCH_SIZE);
+        int upgraded = 0;
+        for (Map<String, Object> row : rows) {
+            String plain = (String) row.get("pwd");
+            upgraded += jdbcTemplate.update("UPDATE " + t.name() + " SET " + t.passwordColumn() + " = ? WHERE "
+                    + t.idColumn() + " = ? AND " + t.passwordColumn() + " = ?", passwordHasher.hash(plain), row.get("id"), plain);
+        }
+        return upgraded;
+    }
+}
@@ -0,0 +1,82 @@
+package com.klef.sdp.backend.auth;
+
+import com.klef.sdp.backend.dto.LoginResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Runs logins on a small fixed pool. Password hashing is deliberately slow,
+ * so a burst of logins waits in this pool's bounded queue instead of tying
+ * up request threads; once the queue is full further logins get 503 with
+ * Retry-After rather than queueing without limit.
+ */
+@Component
+public class LoginService {
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Value("${auth.login.threads:2}")
+    private int threads;
+
+    @Value("${auth.login.queue-size:64}")
+    private int queueSize;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    void start() {
+        AtomicInteger count = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize), r -> {
+            Thread t = new Thread(r, "login-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdown();
+    }
+
+    /**
+     * Runs {@code check} (look the user up and verify the password) on the
+     * login pool. Completes with the user and a fresh token, 401 when check
+     * returns null, or 503 when the pool is saturated.
+     */
+    public <T> CompletableFuture<ResponseEntity<?>> login(Role role, Supplier<T> check, ToIntFunction<T> idOf) {
+        try {
+            return CompletableFuture.<ResponseEntity<?>>supplyAsync(() -> respond(role, check.get(), idOf), executor)
+                    .exceptionally(e -> {
+                        System.out.println("Login failed: " + e.getMessage());
+                        return ResponseEntity.status(500).body("Login failed");
+                    });
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(503)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body("Too many logins in progress, please retry"));
+        }
+    }
+
+    private <T> ResponseEntity<?> respond(Role role, T user, ToIntFunction<T> idOf) {
+        if (user == null) {
+            return ResponseEntity.status(401).body("Invalid Username or Password");
+        }
+        TokenService.IssuedToken token = tokenService.issue(role, idOf.applyAsInt(user));
+        return ResponseEntity.ok(new LoginResponse<>(user, token.token(), token.expiresAt()));
+    }
+}
@@ -0,0 +1,112 @@
+package com.klef.sdp.backend.auth;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Salted PBKDF2-HMAC-SHA256 password hashes, stored as
+ * {@code pbkdf2-sha256$<iterations>$<salt>$<hash>}.
+ *
+ * auth.password.iterations sets the cost of new hashes; a stored hash with a
+ * lower count still verifies and is reported by needsUpgrade, as is a
+ * plaintext password left over from before hashing was introduced.
+ */
+@Component
+public class PasswordHasher {
+
+    public static final String PREFIX = "pbkdf2-sha256$";
+
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+
+    @Value("${auth.password.iterations:310000}")
+    private int iterations;
+
+    private final SecureRandom random = new SecureRandom();
+    private volatile String unknownUserHash;
+
+    public String hash(String password) {
+        if (password == null || password.isEmpty()) {
+            throw new IllegalArgumentException("Password must not be empty");
+        }
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        Base64.Encoder b64 = Base64.getEncoder().withoutPadding();
+        return PREFIX + iterations + "$" + b64.encodeToString(salt) + "$"
+                + b64.encodeToString(pbkdf2(password, salt, iterations));
+    }
+
+    /**
+     * Whether {@code password} matches {@code stored}. A null stored value
+     * (no such user) still costs one full hash, so response times do not
+     * reveal which usernames exist.
+     */
+    public boolean matches(String password, String stored) {
+        if (password == null) {
+            return false;
+        }
+        if (stored == null) {
+            String dummy = unknownUserHash;
+            if (dummy == null) {
+                unknownUserHash = dummy = hash("unknown-user");
+            }
+            verify(password, dummy);
+            return false;
+        }
+        if (!isHashed(stored)) {
+            return MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8), stored.getBytes(StandardCharsets.UTF_8));
+        }
+        return verify(password, stored);
+    }
+
+    public boolean needsUpgrade(String stored) {
+        return !isHashed(stored) || iterationsOf(stored) < iterations;
+    }
+
+    public static boolean isHashed(String stored) {
+        return stored != null && stored.startsWith(PREFIX);
+    }
+
+    private static boolean verify(String password, String stored) {
+        String[] parts = stored.substring(PREFIX.length()).split("\\$");
+        if (parts.length != 3) {
+            return false;
+        }
+        try {
+            Base64.Decoder b64 = Base64.getDecoder();
+            byte[] expected = b64.decode(parts[2]);
+            byte[] actual = pbkdf2(password, b64.decode(parts[1]), Integer.parseInt(parts[0]));
+            return MessageDigest.isEqual(expected, actual);
+        } catch (IllegalArgumentException e) {
+            return false; // corrupt hash
+        }
+    }
+
+    private static int iterationsOf(String stored) {
+        int end = stored.indexOf('$', PREFIX.length());
+        try {
+            return Integer.parseInt(stored.substring(PREFIX.length(), end));
+        } catch (RuntimeException e) {
+            return 0;
+        }
+    }
+
+    private static byte[] pbkdf2(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("PBKDF2WithHmacSHA256 is not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
@@ -0,0 +1,3 @@
+package com.klef.sdp.backend.auth;
+
+public enum Role { ADMIN, DOCTOR, PATIENT }
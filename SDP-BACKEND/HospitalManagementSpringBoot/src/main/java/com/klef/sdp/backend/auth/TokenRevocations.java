@@ -0,0 +1,65 @@
+package com.klef.sdp.backend.auth;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tokens revoked before they expire (logout). Kept in memory for the token
+ * check and in revoked_token for the other instances, which pick new rows up
+ * on their next poll. Entries are dropped once the token would have expired
+ * anyway, so the set only ever holds the sessions ended early in the last
+ * token lifetime.
+ */
+@Component
+public class TokenRevocations {
+
+    // Re-read rows a little older than the last poll, in case an insert committed late
+    private static final long POLL_OVERLAP_MS = 30_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>(); // token id -> expiry
+    private volatile long polledAt = -1;
+
+    public boolean isRevoked(String tokenId) {
+        if (polledAt < 0) {
+            poll(); // first use before the scheduler has run
+        }
+        return revoked.containsKey(tokenId);
+    }
+
+    public void revoke(AuthPrincipal principal) {
+        long now = System.currentTimeMillis();
+        revoked.put(principal.tokenId(), principal.expiresAt());
+        jdbcTemplate.update("INSERT INTO revoked_token (token_id, expires_at, revoked_at) VALUES (?, ?, ?)",
+                principal.tokenId(), principal.expiresAt(), now);
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    @Scheduled(fixedDelayString = "${auth.revocation.poll-interval-ms:2000}")
+    public synchronized void poll() {
+        long start = System.currentTimeMillis();
+        String sql = "SELECT token_id, expires_at FROM revoked_token WHERE expires_at > ?"
+                + (polledAt < 0 ? "" : " AND revoked_at >= ?");
+        Object[] args = polledAt < 0 ? new Object[] { start } : new Object[] { start, polledAt - POLL_OVERLAP_MS };
+        jdbcTemplate.query(sql, rs -> {
+            revoked.put(rs.getString(1), rs.getLong(2));
+        }, args);
+        revoked.values().removeIf(expiresAt -> expiresAt <= start);
+        polledAt = start;
+    }
+
+    @Scheduled(fixedDelayString = "${auth.revocation.purge-interval-ms:3600000}")
+    public void purge() {
+        jdbcTemplate.update("DELETE FROM revoked_token WHERE expires_at <= ?", System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,122 @@
+package com.klef.sdp.backend.auth;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Stateless session tokens: {@code base64url(role:id:expiresAt:tokenId)}
+ * followed by a dot and its HMAC-SHA256. Verifying one is a MAC over a few
+ * dozen bytes and a lookup in the in-memory revocation set, with no database
+ * access.
+ *
+ * Every instance must share auth.token.secret, or tokens issued by one are
+ * rejected by the others.
+ */
+@Component
+public class TokenService {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MIN_SECRET_BYTES = 32;
+
+    // The example value once shipped in k8/fullstack-deployment.yml; anyone can sign tokens with it
+    private static final String PLACEHOLDER_SECRET = "change-this-to-a-long-random-string-before-deploying";
+
+    @Value("${auth.token.secret:}")
+    private String secret;
+
+    @Value("${auth.token.ttl-minutes:480}")
+    private long ttlMinutes;
+
+    @Autowired
+    private TokenRevocations revocations;
+
+    private final SecureRandom random = new SecureRandom();
+    private SecretKeySpec key;
+    private ThreadLocal<Mac> macs;
+
+    public record IssuedToken(String token, long expiresAt) { }
+
+    @PostConstruct
+    void init() {
+        byte[] bytes;
+        if (secret == null || secret.isBlank()) {
+            bytes = new byte[MIN_SECRET_BYTES];
+            random.nextBytes(bytes);
+            System.out.println("auth.token.secret is not set; using a random key, so tokens only work on this instance until it restarts");
+        } else {
+            if (secret.trim().equals(PLACEHOLDER_SECRET)) {
+                throw new IllegalStateException("auth.token.secret is still the published example value; set a random one");
+            }
+            bytes = secret.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length < MIN_SECRET_BYTES) {
+                throw new IllegalStateException("auth.token.secret must be at least " + MIN_SECRET_BYTES + " bytes");
+            }
+        }
+        key = new SecretKeySpec(bytes, ALGORITHM);
+        macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(ALGORITHM + " is not available", e);
+            }
+        });
+    }
+
+    public IssuedToken issue(Role role, int id) {
+        long expiresAt = System.currentTimeMillis() / 1000 + ttlMinutes * 60;
+        byte[] tokenId = new byte[12];
+        random.nextBytes(tokenId);
+        Base64.Encoder b64 = Base64.getUrlEncoder().withoutPadding();
+        String payload = b64.encodeToString((role.name() + ":" + id + ":" + expiresAt + ":" + b64.encodeToString(tokenId))
+                .getBytes(StandardCharsets.US_ASCII));
+        return new IssuedToken(payload + "." + b64.encodeToString(sign(payload)), expiresAt * 1000);
+    }
+
+    /**
+     * The principal a token was issued to, or null if the token is malformed,
+     * forged, expired or revoked.
+     */
+    public AuthPrincipal verify(String token) {
+        if (token == null) {
+            return null;
+        }
+        int dot = token.indexOf('.');
+        if (dot <= 0) {
+            return null;
+        }
+        String payload = token.substring(0, dot);
+        try {
+            Base64.Decoder b64 = Base64.getUrlDecoder();
+            if (!MessageDigest.isEqual(sign(payload), b64.decode(token.substring(dot + 1)))) {
+                return null;
+            }
+            String[] parts = new String(b64.decode(payload), StandardCharsets.US_ASCII).split(":");
+            if (parts.length != 4) {
+                return null;
+            }
+            long expiresAt = Long.parseLong(parts[2]) * 1000;
+            if (expiresAt <= System.currentTimeMillis() || revocations.isRevoked(parts[3])) {
+                return null;
+            }
+            return new AuthPrincipal(Role.valueOf(parts[0]), Integer.parseInt(parts[1]), parts[3], expiresAt);
+        } catch (IllegalArgumentException e) {
+            return null; // bad base64, number or role
+        }
+    }
+
+    private byte[] sign(String payload) {
+        return macs.get().doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+    }
+}
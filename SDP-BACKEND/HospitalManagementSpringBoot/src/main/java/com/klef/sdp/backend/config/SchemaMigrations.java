@@ -0,0 +1,330 @@
+package com.klef.sdp.backend.config;
+
+import com.klef.sdp.backend.model.Prescription;
+import com.klef.sdp.backend.model.PrescriptionItem;
+import com.klef.sdp.backend.util.ScheduleTimes;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * One-time data and schema changes that spring.jpa.hibernate.ddl-auto=update
+ * cannot express (it only ever adds tables and columns).
+ *
+ * Runs at startup after Hibernate has updated the schema and before the web
+ * server accepts requests. Each step runs once per database and is recorded
+ * in schema_migration; steps are written to be safe if two instances race.
+ */
+@Component
+public class SchemaMigrations {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Injected only so Hibernate's schema update has finished before we start
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PostConstruct
+    public void migrate() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS schema_migration ("
+                + "migration_id VARCHAR(100) NOT NULL PRIMARY KEY, "
+                + "applied_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)");
+
+        apply("001_appointment_table_ids", () -> alignIdGenerator("appointment", "appointment_table", "appointment_id"));
+        apply("002_typed_temporal_columns", () -> {
+            convertColumn("appointment_table", "appointment_id", "date", "DATE", false, SchemaMigrations::canonicalDate);
+            convertColumn("appointment_table", "appointment_id", "confirmed_time", "TIME", true, SchemaMigrations::canonicalTime);
+            convertColumn("schedule_table", "schedule_id", "start_time", "TIME", false, SchemaMigrations::canonicalTime);
+            convertColumn("schedule_table", "schedule_id", "end_time", "TIME", false, SchemaMigrations::canonicalTime);
+            convertColumn("prescription_table", "prescription_id", "date", "DATE", false, SchemaMigrations::canonicalDate);
+            convertColumn("slot_capacity_table", "slot_id", "slot_date", "DATE", false, SchemaMigrations::canonicalDate);
+            backfillSlotBounds();
+        });
+        apply("003_archive_tables", this::createArchiveTables);
+        apply("004_cache_version", () -> jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS cache_version ("
+                + "cache_name VARCHAR(64) NOT NULL PRIMARY KEY, version BIGINT NOT NULL)"));
+        // Lets instances poll only the versions bumped since their last look
+        apply("005_cache_version_updated_at", () -> {
+            if (columnType("cache_version", "updated_at") != null) {
+                return;
+            }
+            try {
+                jdbcTemplate.execute("ALTER TABLE cache_version ADD COLUMN updated_at BIGINT NOT NULL DEFAULT 0");
+                jdbcTemplate.execute("CREATE INDEX idx_cache_version_updated ON cache_version (updated_at)");
+            } catch (DataAccessException e) {
+                if (columnType("cache_version", "updated_at") == null) {
+                    throw e;
+                }
+                // Another instance added it first
+            }
+        });
+        // Room for PasswordHasher hashes (ddl-auto never widens a column), and the logout list for TokenRevocations
+        apply("006_password_hashes", () -> {
+            widenColumn("admin_table", "admin_password");
+            widenColumn("doctor_table", "password");
+            widenColumn("patient_table", "patient_pwd");
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS revoked_token ("
+                    + "token_id VARCHAR(32) NOT NULL PRIMARY KEY, expires_at BIGINT NOT NULL, revoked_at BIGINT NOT NULL, "
+                    + "KEY idx_revoked_token_revoked (revoked_at))");
+        });
+        apply("007_prescription_items", this::backfillPrescriptionItems);
+        // Word search for PrescriptionSearchRepository; other databases fall back to LIKE
+        apply("008_prescription_fulltext", () -> {
+            if (!isMySql() || indexExists("prescription_table", "ft_prescription_text")) {
+                return;
+            }
+            try {
+                jdbcTemplate.execute("CREATE FULLTEXT INDEX ft_prescription_text ON prescription_table (diagnosis, instructions, notes)");
+            } catch (DataAccessException e) {
+                if (!indexExists("prescription_table", "ft_prescription_text")) {
+                    throw e;
+                }
+                // Another instance created it first
+            }
+        });
+    }
+
+    private void widenColumn(String table, String column) {
+        if (columnType(table, column) != null) {
+            jdbcTemplate.execute("ALTER TABLE " + table + " MODIFY COLUMN `" + column + "` VARCHAR(255) NOT NULL");
+        }
+    }
+
+    private void apply(String id, Runnable step) {
+        Integer done = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM schema_migration WHERE migration_id = ?", Integer.class, id);
+        if (done != null && done > 0) {
+            return;
+        }
+        step.run();
+        try {
+            jdbcTemplate.update("INSERT INTO schema_migration (migration_id) VALUES (?)", id);
+        } catch (DuplicateKeyException e) {
+            // Another instance finished the same step first
+        }
+        System.out.println("Applied schema migration " + id);
+    }
+
+    /*
+     * Moves the id_generator row for an entity that used to be IDENTITY past
+     * the highest existing id. With the pooled optimizer the stored value is the
+     * top of the next block, so max + allocation size + 1 keeps every new id
+     * above the old ones.
+     */
+    private void alignIdGenerator(String name, String table, String idColumn) {
+        Long max = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(" + idColumn + "), 0) FROM " + table, Long.class);
+        long next = (max == null ? 0 : max) + 51;
+        int updated = jdbcTemplate.update(
+                "UPDATE id_generator SET gen_value = GREATEST(gen_value, ?) WHERE gen_name = ?", next, name);
+        if (updated == 0) {
+            try {
+                jdbcTemplate.update("INSERT INTO id_generator (gen_name, gen_value) VALUES (?, ?)", name, next);
+            } catch (DuplicateKeyException e) {
+                jdbcTemplate.update("UPDATE id_generator SET gen_value = GREATEST(gen_value, ?) WHERE gen_name = ?", next, name);
+            }
+        }
+    }
+
+    /*
+     * Cold storage for AppointmentArchiver. Not JPA entities: on MySQL the tables
+     * are RANGE COLUMNS partitioned by month, which needs the partition column in
+     * the primary key and a layout ddl-auto cannot produce. They start with a
+     * single catch-all partition that the archiver splits month by month.
+     */
+    private void createArchiveTables() {
+        String partitioned = isMySql() ? " PARTITION BY RANGE COLUMNS(`date`) (PARTITION p_max VALUES LESS THAN (MAXVALUE))" : "";
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS appointment_archive ("
+                + "appointment_id INT NOT NULL, patient_id INT NOT NULL, patient_name VARCHAR(255) NOT NULL, "
+                + "patient_contact VARCHAR(255) NOT NULL, doctor_id INT NOT NULL, doctor_name VARCHAR(255) NOT NULL, "
+                + "`date` DATE NOT NULL, time_range VARCHAR(255) NOT NULL, slot_start TIME, slot_end TIME, "
+                + "reason VARCHAR(255) NOT NULL, status VARCHAR(255) NOT NULL, confirmed_time TIME, "
+                + "doctor_feedback VARCHAR(255), schedule_id INT, archived_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, "
+                + "PRIMARY KEY (appointment_id, `date`), "
+                + "KEY idx_appointment_archive_patient (patient_id, `date`), "
+                + "KEY idx_appointment_archive_doctor (doctor_id, `date`))" + partitioned);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS prescription_archive ("
+                + "prescription_id INT NOT NULL, doctor_id INT NOT NULL, doctor_name VARCHAR(100) NOT NULL, patient_id INT, "
+                + "patient_name VARCHAR(100) NOT NULL, appointment_id INT, `date` DATE NOT NULL, medications TEXT NOT NULL, "
+                + "dosage TEXT, instructions TEXT, diagnosis TEXT, notes TEXT, "
+                + "archived_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, "
+                + "PRIMARY KEY (prescription_id, `date`), "
+                + "KEY idx_prescription_archive_patient (patient_id, `date`), "
+                + "KEY idx_prescription_archive_appointment (appointment_id))" + partitioned);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS job_lease ("
+                + "job_name VARCHAR(64) NOT NULL PRIMARY KEY, owner VARCHAR(64), lease_until BIGINT NOT NULL)");
+    }
+
+    private boolean isMySql() {
+        return jdbcTemplate.execute((ConnectionCallback<Boolean>) con ->
+                con.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT).contains("mysql"));
+    }
+
+    /*
+     * Turns a VARCHAR column written by the old String mappings into a real
+     * DATE/TIME column. Values are first rewritten to ISO form; any value that
+     * changes is copied to temporal_migration_backup first. Values that cannot
+     * be parsed become NULL, or the epoch/midnight in NOT NULL columns.
+     */
+    private void convertColumn(String table, String idColumn, String column, String sqlType, boolean nullable,
+                               Function<String, String> canonical) {
+        if (sqlType.equalsIgnoreCase(columnType(table, column))) {
+            return;
+        }
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS temporal_migration_backup ("
+                + "table_name VARCHAR(64) NOT NULL, row_id BIGINT NOT NULL, column_name VARCHAR(64) NOT NULL, "
+                + "original_value VARCHAR(255))");
+        String fallback = nullable ? null : ("DATE".equals(sqlType) ? "1970-01-01" : "00:00:00");
+
+        List<Object[]> backups = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        jdbcTemplate.query("SELECT " + idColumn + ", `" + column + "` FROM " + table, rs -> {
+            long id = rs.getLong(1);
+            String value = rs.getString(2);
+            String iso = value == null ? null : canonical.apply(value.trim());
+            if (iso == null && value != null) {
+                iso = fallback;
+            }
+            if (iso == null ? value != null : !iso.equals(value)) {
+                backups.add(new Object[] { table, id, column, value });
+                updates.add(new Object[] { iso, id });
+            }
+        });
+        jdbcTemplate.batchUpdate("INSERT INTO temporal_migration_backup (table_name, row_id, column_name, original_value) "
+                + "VALUES (?, ?, ?, ?)", backups);
+        jdbcTemplate.batchUpdate("UPDATE " + table + " SET `" + column + "` = ? WHERE " + idColumn + " = ?", updates);
+        jdbcTemplate.execute("ALTER TABLE " + table + " MODIFY COLUMN `" + column + "` " + sqlType
+                + (nullable ? " NULL" : " NOT NULL"));
+        System.out.println("Converted " + table + "." + column + " to " + sqlType + ", rewrote " + updates.size() + " values");
+    }
+
+    private String columnType(String table, String column) {
+        return jdbcTemplate.execute((ConnectionCallback<String>) con -> {
+            DatabaseMetaData meta = con.getMetaData();
+            try (ResultSet rs = meta.getColumns(con.getCatalog(), null, table, column)) {
+                return rs.next() ? rs.getString("TYPE_NAME") : null;
+            }
+        });
+    }
+
+    private boolean indexExists(String table, String index) {
+        return jdbcTemplate.execute((ConnectionCallback<Boolean>) con -> {
+            try (ResultSet rs = con.getMetaData().getIndexInfo(con.getCatalog(), null, table, false, false)) {
+                while (rs.next()) {
+                    if (index.equalsIgnoreCase(rs.getString("INDEX_NAME"))) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        });
+    }
+
+    // Fills the typed slot bounds of appointments booked before they existed
+    private void backfillSlotBounds() {
+        List<Object[]> updates = new ArrayList<>();
+        jdbcTemplate.query("SELECT appointment_id, time_range FROM appointment_table WHERE slot_start IS NULL", rs -> {
+            int[] range = ScheduleTimes.parseRange(rs.getString(2));
+            if (range != null) {
+                updates.add(new Object[] {
+                        ScheduleTimes.fromMinutes(range[0]).format(SQL_TIME), ScheduleTimes.fromMinutes(range[1]).format(SQL_TIME),
+                        rs.getInt(1)
+                });
+            }
+        });
+        jdbcTemplate.batchUpdate("UPDATE appointment_table SET slot_start = ?, slot_end = ? WHERE appointment_id = ?", updates);
+    }
+
+    /*
+     * Parses the medications text of prescriptions written before
+     * prescription_item existed, a chunk at a time in id order. Two instances
+     * racing here compute the same rows, so a duplicate key only means the
+     * other one inserted that chunk first; it is re-read and whatever is still
+     * missing is inserted.
+     */
+    private void backfillPrescriptionItems() {
+        int after = 0;
+        int items = 0;
+        while (true) {
+            List<Prescription> chunk = jdbcTemplate.query("SELECT p.prescription_id, p.doctor_id, p.patient_id, p.`date`, "
+                    + "p.medications FROM prescription_table p WHERE p.prescription_id > ? AND NOT EXISTS "
+                    + "(SELECT 1 FROM prescription_item i WHERE i.prescription_id = p.prescription_id) "
+                    + "ORDER BY p.prescription_id LIMIT " + BACKFILL_CHUNK, (rs, i) -> {
+                Prescription p = new Prescription();
+                p.setId(rs.getInt(1));
+                p.setDoctorId(rs.getInt(2));
+                p.setPatientId(rs.getObject(3, Integer.class));
+                p.setDate(rs.getObject(4, LocalDate.class));
+                p.setMedications(rs.getString(5));
+                return p;
+            }, after);
+            if (chunk.isEmpty()) {
+                break;
+            }
+            List<Object[]> rows = new ArrayList<>();
+            for (Prescription p : chunk) {
+                for (PrescriptionItem item : PrescriptionItem.of(p)) {
+                    rows.add(new Object[] { item.getPrescriptionId(), item.getLineNo(), item.getDoctorId(), item.getPatientId(),
+                            item.getDate(), item.getDrug(), item.getDrugKey(), item.getDose(), item.getFrequency(), item.getDuration() });
+                }
+            }
+            try {
+                jdbcTemplate.batchUpdate("INSERT INTO prescription_item (prescription_id, line_no, doctor_id, patient_id, `date`, "
+                        + "drug, drug_key, dose, frequency, duration) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", rows);
+            } catch (DuplicateKeyException e) {
+                continue;
+            }
+            items += rows.size();
+            after = chunk.get(chunk.size() - 1).getId();
+        }
+        System.out.println("Parsed " + items + " medication line items from existing prescriptions");
+    }
+
+    private static final int BACKFILL_CHUNK = 500;
+
+    private static final DateTimeFormatter SQL_TIME = DateTimeFormatter.ofPattern("HH:mm:ss", Locale.ROOT);
+
+    private static final DateTimeFormatter[] LEGACY_DATES = {
+            DateTimeFormatter.ofPattern("d-M-uuuu", Locale.ROOT),
+            DateTimeFormatter.ofPattern("d/M/uuuu", Locale.ROOT),
+            DateTimeFormatter.ofPattern("uuuu/M/d", Locale.ROOT)
+    };
+
+    static String canonicalDate(String value) {
+        String text = value.length() > 10 && (value.charAt(10) == 'T' || value.charAt(10) == ' ') ? value.substring(0, 10) : value;
+        try {
+            return LocalDate.parse(text).toString();
+        } catch (DateTimeParseException e) {
+            // fall through to the day-first formats the forms used to accept
+        }
+        for (DateTimeFormatter format : LEGACY_DATES) {
+            try {
+                return LocalDate.parse(text, format).toString();
+            } catch (DateTimeParseException e) {
+                // try the next one
+            }
+        }
+        return null;
+    }
+
+    static String canonicalTime(String value) {
+        LocalTime time = ScheduleTimes.toLocalTime(value);
+        return time == null ? null : time.format(SQL_TIME);
+    }
+}
@@ -1,14 +1,41 @@
 package com.klef.sdp.backend.controller;
 
+import com.klef.sdp.backend.audit.AuditAction;
+import com.klef.sdp.backend.audit.AuditLog;
+import com.klef.sdp.backend.audit.AuditQuery;
+import com.klef.sdp.backend.auth.LoginService;
+import com.klef.sdp.backend.auth.Role;
+import com.klef.sdp.backend.dto.PatientSummary;
+import com.klef.sdp.backend.importer.BulkImporter;
+import com.klef.sdp.backend.importer.ImportKind;
+import com.klef.sdp.backend.importer.ImportRowReader;
 import com.klef.sdp.backend.model.Admin;
 import com.klef.sdp.backend.model.Doctor;
-import com.klef.sdp.backend.model.Patient;
 import com.klef.sdp.backend.service.AdminService;
+import com.klef.sdp.backend.service.DoctorDirectoryCache;
+import com.klef.sdp.backend.service.PatientExporter;
+import com.klef.sdp.backend.service.PatientSearchIndex;
+import com.klef.sdp.backend.service.ReportExporter;
+import com.klef.sdp.backend.service.ResourceETags;
+import com.klef.sdp.backend.service.ScheduleConflicts;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/admin")
@@ -18,14 +45,40 @@ public class AdminController
     @Autowired
     private AdminService adminService;
 
+    @Autowired
+    private AuditLog auditLog;
+
+    @Autowired
+    private DoctorDirectoryCache doctorDirectoryCache;
+
+    @Autowired
+    private ResourceETags resourceETags;
+
+    @Autowired
+    private PatientExporter patientExporter;
+
+    @Autowired
+    private ReportExporter reportExporter;
+
+    @Autowired
+    private PatientSearchIndex patientSearchIndex;
+
+    @Autowired
+    private BulkImporter bulkImporter;
+
+    @Autowired
+    private LoginService loginService;
+
+    @Autowired
+    private ScheduleConflicts scheduleConflicts;
+
+    private static final MediaType CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     @PostMapping("/login")
-    public ResponseEntity<?> checkAdminLogin(@RequestBody Admin admin) {
-        Admin a = adminService.checkAdminLogin(admin.getUsername(), admin.getPassword());
-        if (a != null) {
-            return ResponseEntity.ok(a);
-        } else {
-            return ResponseEntity.status(401).body("Invalid Username or Password");
-        }
+    public CompletableFuture<ResponseEntity<?>> checkAdminLogin(@RequestBody Admin admin) {
+        return loginService.login(Role.ADMIN,
+                () -> adminService.checkAdminLogin(admin.getUsername(), admin.getPassword()), Admin::getId);
     }
 
     @PostMapping("/adddoctor")
@@ -34,8 +87,25 @@ public class AdminController
     }
 
     @GetMapping("/alldoctors")
-    public ResponseEntity<List<Doctor>> displayDoctors() {
-        return ResponseEntity.ok(adminService.displayDoctors());
+    public ResponseEntity<?> displayDoctors(WebRequest request) {
+        try {
+            String etag = resourceETags.etag(DoctorDirectoryCache.CACHE_NAME);
+            if (request.checkNotModified(etag)) {
+                return null;
+            }
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache().cachePrivate())
+                    .body(doctorDirectoryCache.getJson(DoctorDirectoryCache.View.ADMIN));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("Failed to fetch doctors");
+        }
+    }
+
+    @GetMapping("/cache/doctors")
+    public ResponseEntity<Map<String, Object>> doctorDirectoryStats() {
+        return ResponseEntity.ok(doctorDirectoryCache.stats());
     }
 
     @DeleteMapping("/deletedoctor/{id}")
@@ -49,10 +119,136 @@ public class AdminController
     }
 
     @GetMapping("/allpatients")
-    public ResponseEntity<List<Patient>> displayPatients() {
+    public ResponseEntity<List<PatientSummary>> displayPatients() {
         return ResponseEntity.ok(adminService.displayPatients());
     }
 
+    // Keyset-paginated: pass nextCursor back as ?cursor= to fetch the next page
+    @GetMapping("/patients")
+    public ResponseEntity<?> displayPatients(@RequestParam(required = false) String cursor,
+                                             @RequestParam(defaultValue = "100") int limit) {
+        try {
+            return ResponseEntity.ok(adminService.displayPatients(cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Lookup by a fragment (3+ characters) of name, mobile number or email, from the in-memory index
+    @GetMapping("/patients/search")
+    public ResponseEntity<?> searchPatients(@RequestParam String q, @RequestParam(defaultValue = "20") int limit) {
+        try {
+            return ResponseEntity.ok(patientSearchIndex.search(q, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Every patient as NDJSON (default) or CSV, written while it is read
+    @GetMapping("/patients/export")
+    public ResponseEntity<StreamingResponseBody> exportPatients(@RequestParam(defaultValue = "ndjson") String format) {
+        PatientExporter.Format f;
+        try {
+            f = PatientExporter.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .contentType(MediaType.TEXT_PLAIN)
+                    .body(out -> out.write("Format must be ndjson or csv".getBytes(StandardCharsets.UTF_8)));
+        }
+        StreamingResponseBody body = out -> patientExporter.export(f, out);
+        return ResponseEntity.ok()
+                .contentType(f == PatientExporter.Format.CSV ? CSV : NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"patients." + format.toLowerCase(Locale.ROOT) + "\"")
+                .body(body);
+    }
+
+    /*
+     * Appointments or prescriptions dated from..to (default: this month), optionally one doctor's, as NDJSON
+     * (default) or CSV, written while they are read. gzip=true sends a .gz file instead.
+     */
+    @GetMapping("/{dataset:appointments|prescriptions}/export")
+    public ResponseEntity<StreamingResponseBody> exportReport(@PathVariable String dataset,
+                                                              @RequestParam(defaultValue = "ndjson") String format,
+                                                              @RequestParam(required = false) String from,
+                                                              @RequestParam(required = false) String to,
+                                                              @RequestParam(required = false) Integer doctorId,
+                                                              @RequestParam(defaultValue = "false") boolean includeArchived,
+                                                              @RequestParam(defaultValue = "false") boolean gzip) {
+        ReportExporter.Format f;
+        LocalDate end;
+        LocalDate start;
+        try {
+            f = ReportExporter.Format.valueOf(format.toUpperCase(Locale.ROOT));
+            end = to == null || to.isBlank() ? LocalDate.now() : LocalDate.parse(to.trim());
+            start = from == null || from.isBlank() ? end.withDayOfMonth(1) : LocalDate.parse(from.trim());
+        } catch (DateTimeParseException e) {
+            return badRequest("Dates must be yyyy-MM-dd: " + e.getParsedString());
+        } catch (IllegalArgumentException e) {
+            return badRequest("Format must be ndjson or csv");
+        }
+        if (start.isAfter(end)) {
+            return badRequest("from must not be after to");
+        }
+        ReportExporter.Dataset d = ReportExporter.Dataset.valueOf(dataset.toUpperCase(Locale.ROOT));
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream zipped = new GZIPOutputStream(out, 65536);
+                reportExporter.export(d, f, start, end, doctorId, includeArchived, zipped);
+                zipped.finish();
+            } else {
+                reportExporter.export(d, f, start, end, doctorId, includeArchived, out);
+            }
+        };
+        String filename = dataset + "-" + start + "-" + end + "." + format.toLowerCase(Locale.ROOT) + (gzip ? ".gz" : "");
+        return ResponseEntity.ok()
+                .contentType(gzip ? MediaType.parseMediaType("application/gzip") : f == ReportExporter.Format.CSV ? CSV : NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(body);
+    }
+
+    private static ResponseEntity<StreamingResponseBody> badRequest(String message) {
+        return ResponseEntity.badRequest()
+                .contentType(MediaType.TEXT_PLAIN)
+                .body(out -> out.write(message.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /*
+     * Bulk creation of patients or doctors. The request body is the file itself
+     * (Content-Type text/csv or application/x-ndjson), read as it arrives; the
+     * report lists each rejected row and why.
+     */
+    @PostMapping("/import/{kind}")
+    public ResponseEntity<?> bulkImport(@PathVariable String kind,
+                                        @RequestParam(defaultValue = "csv") String format,
+                                        HttpServletRequest request) {
+        try {
+            ImportKind k = ImportKind.parse(kind);
+            ImportRowReader.Format f;
+            try {
+                f = ImportRowReader.Format.valueOf(format.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body("Format must be csv or ndjson");
+            }
+            return ResponseEntity.ok(bulkImporter.run(k, f, request.getInputStream()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("Import failed: " + e.getMessage());
+        }
+    }
+
+    // Every pair of overlapping schedules of the same doctor, from one read of the schedule table
+    @GetMapping("/schedules/conflicts")
+    public ResponseEntity<?> scheduleConflicts() {
+        try {
+            return ResponseEntity.ok(scheduleConflicts.sweep());
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("Failed to check schedules");
+        }
+    }
+
     @DeleteMapping("/deletepatient/{id}")
     public ResponseEntity<String> deletePatient(@PathVariable int id) {
         return ResponseEntity.ok(adminService.deletePatient(id));
@@ -62,4 +258,30 @@ public class AdminController
     public ResponseEntity<Long> patientCount() {
         return ResponseEntity.ok(adminService.displayPatientCount());
     }
+
+    // from/to accept yyyy-MM-dd (whole day) or yyyy-MM-ddTHH:mm[:ss]; newest records first
+    @GetMapping("/audit")
+    public ResponseEntity<?> audit(@RequestParam(required = false) String entity,
+                                   @RequestParam(required = false) Integer id,
+                                   @RequestParam(required = false) String action,
+                                   @RequestParam(required = false) String from,
+                                   @RequestParam(required = false) String to,
+                                   @RequestParam(defaultValue = "100") int limit) {
+        try {
+            AuditQuery query = new AuditQuery();
+            query.setEntity(entity);
+            query.setEntityId(id);
+            query.setAction(action == null ? null : AuditAction.valueOf(action.toUpperCase(Locale.ROOT)));
+            query.setFrom(from == null ? null : AuditQuery.parseTime(from, false));
+            query.setTo(to == null ? null : AuditQuery.parseTime(to, true));
+            query.setLimit(Math.min(Math.max(limit, 1), 1000));
+            return ResponseEntity.ok(auditLog.query(query));
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().body("Times must be yyyy-MM-dd or yyyy-MM-ddTHH:mm");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Unknown audit action: " + action);
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("Failed to read audit log");
+        }
+    }
 }
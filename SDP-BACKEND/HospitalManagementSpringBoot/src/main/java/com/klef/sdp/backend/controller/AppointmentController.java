@@ -1,11 +1,23 @@
 package com.klef.sdp.backend.controller;
 
+import com.klef.sdp.backend.auth.AuthPrincipal;
+import com.klef.sdp.backend.auth.Role;
 import com.klef.sdp.backend.dto.AppointmentDTO;
+import com.klef.sdp.backend.dto.AppointmentQuery;
+import com.klef.sdp.backend.dto.AppointmentStatusUpdate;
+import com.klef.sdp.backend.exception.SlotUnavailableException;
 import com.klef.sdp.backend.model.Appointment;
 import com.klef.sdp.backend.service.AppointmentService;
+import com.klef.sdp.backend.service.AppointmentStreamBroker;
+import com.klef.sdp.backend.util.ScheduleTimes;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 
 @RestController
@@ -16,9 +28,47 @@ public class AppointmentController {
     @Autowired
     private AppointmentService appointmentService;
 
+    @Autowired
+    private AppointmentStreamBroker streamBroker;
+
     @PostMapping("/book")
-    public Appointment bookAppointment(@RequestBody AppointmentDTO dto) {
-        return appointmentService.bookAppointment(dto);
+    public ResponseEntity<?> bookAppointment(@RequestBody AppointmentDTO dto,
+                                             @RequestAttribute(AuthPrincipal.ATTRIBUTE) AuthPrincipal principal) {
+        if (principal.role() == Role.PATIENT && !principal.canActAs(Role.PATIENT, dto.getPatientId())) {
+            return ResponseEntity.status(403).body("Patients can only book for themselves");
+        }
+        try {
+            return ResponseEntity.ok(appointmentService.bookAppointment(dto));
+        } catch (SlotUnavailableException e) {
+            return ResponseEntity.status(409).body(e.getMessage());
+        }
+    }
+
+    // Per-item results; items that fail validation or find their slot full do not affect the rest
+    @PostMapping("/book/batch")
+    public ResponseEntity<?> bookAppointments(@RequestBody List<AppointmentDTO> dtos,
+                                              @RequestAttribute(AuthPrincipal.ATTRIBUTE) AuthPrincipal principal) {
+        if (principal.role() == Role.PATIENT
+                && dtos.stream().anyMatch(dto -> !principal.canActAs(Role.PATIENT, dto.getPatientId()))) {
+            return ResponseEntity.status(403).body("Patients can only book for themselves");
+        }
+        try {
+            return ResponseEntity.ok(appointmentService.bookAppointments(dtos));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(400).body(e.getMessage());
+        }
+    }
+
+    @PutMapping("/status/batch")
+    public ResponseEntity<?> updateStatuses(@RequestBody List<AppointmentStatusUpdate> updates,
+                                            @RequestAttribute(AuthPrincipal.ATTRIBUTE) AuthPrincipal principal) {
+        // Doctors' items for other doctors' appointments fail; admins may change any
+        Integer doctorId = principal.role() == Role.ADMIN ? null : principal.id();
+        try {
+            return ResponseEntity.ok(appointmentService.updateStatuses(updates, doctorId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(400).body(e.getMessage());
+        }
     }
 
     @GetMapping("/doctor/{doctorId}")
@@ -26,17 +76,164 @@ public class AppointmentController {
         return appointmentService.getAppointmentsByDoctor(doctorId);
     }
 
+    // includeArchived=true adds appointments moved to the archive, oldest first
     @GetMapping("/patient/{patientId}")
-    public List<Appointment> getAppointmentsByPatient(@PathVariable int patientId) {
-        return appointmentService.getAppointmentsByPatient(patientId);
+    public List<Appointment> getAppointmentsByPatient(@PathVariable int patientId,
+                                                      @RequestParam(defaultValue = "false") boolean includeArchived) {
+        return appointmentService.getAppointmentsByPatient(patientId, includeArchived);
+    }
+
+    // Inclusive date range, ordered by date and slot; with no parameters returns today's appointments
+    @GetMapping("/doctor/{doctorId}/range")
+    public ResponseEntity<?> getAppointmentsByDoctorBetween(
+            @PathVariable int doctorId,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
+        try {
+            LocalDate start = parseDate(from, LocalDate.now());
+            return ResponseEntity.ok(appointmentService.getAppointmentsByDoctorBetween(doctorId, start, parseDate(to, start)));
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.status(400).body("Dates must be yyyy-MM-dd: " + e.getParsedString());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(400).body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/patient/{patientId}/range")
+    public ResponseEntity<?> getAppointmentsByPatientBetween(
+            @PathVariable int patientId,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
+        try {
+            LocalDate start = parseDate(from, LocalDate.now());
+            return ResponseEntity.ok(appointmentService.getAppointmentsByPatientBetween(patientId, start, parseDate(to, start)));
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.status(400).body("Dates must be yyyy-MM-dd: " + e.getParsedString());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(400).body(e.getMessage());
+        }
+    }
+
+    // Filtered, keyset-paginated variants: pass nextCursor back as ?cursor= to fetch the next page
+    @GetMapping("/doctor/{doctorId}/search")
+    public ResponseEntity<?> searchAppointmentsByDoctor(
+            @PathVariable int doctorId,
+            @RequestParam(required = false) List<String> status,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "asc") String order) {
+        try {
+            AppointmentQuery query = buildQuery(status, from, to, q, cursor, limit, order);
+            return ResponseEntity.ok(appointmentService.searchAppointmentsByDoctor(doctorId, query));
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.status(400).body("Dates must be yyyy-MM-dd: " + e.getParsedString());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(400).body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/patient/{patientId}/search")
+    public ResponseEntity<?> searchAppointmentsByPatient(
+            @PathVariable int patientId,
+            @RequestParam(required = false) List<String> status,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "asc") String order) {
+        try {
+            AppointmentQuery query = buildQuery(status, from, to, q, cursor, limit, order);
+            return ResponseEntity.ok(appointmentService.searchAppointmentsByPatient(patientId, query));
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.status(400).body("Dates must be yyyy-MM-dd: " + e.getParsedString());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(400).body(e.getMessage());
+        }
+    }
+
+    // Appointments newest first with their prescriptions nested; pass nextCursor back as ?cursor=
+    @GetMapping("/patient/{patientId}/history")
+    public ResponseEntity<?> getPatientHistory(
+            @PathVariable int patientId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        try {
+            return ResponseEntity.ok(appointmentService.getPatientHistory(patientId, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(400).body(e.getMessage());
+        }
+    }
+
+    private AppointmentQuery buildQuery(List<String> status, String from, String to, String q,
+                                        String cursor, int limit, String order) {
+        AppointmentQuery query = new AppointmentQuery();
+        query.setStatuses(status);
+        query.setFromDate(parseDate(from, null));
+        query.setToDate(parseDate(to, null));
+        query.setReason(q);
+        query.setCursor(cursor);
+        query.setLimit(limit);
+        query.setDescending("desc".equalsIgnoreCase(order));
+        return query;
+    }
+
+    private static LocalDate parseDate(String text, LocalDate fallback) {
+        return text == null || text.isBlank() ? fallback : LocalDate.parse(text.trim());
+    }
+
+    // Server-Sent Events: "appointment" events carry {type, previousStatus, appointment};
+    // "resync" means too much was missed and the client should reload its list
+    @GetMapping(value = "/stream/doctor/{doctorId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<?> streamDoctorAppointments(
+            @PathVariable int doctorId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return openStream(AppointmentStreamBroker.doctorTopic(doctorId), lastEventId);
+    }
+
+    @GetMapping(value = "/stream/patient/{patientId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<?> streamPatientAppointments(
+            @PathVariable int patientId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return openStream(AppointmentStreamBroker.patientTopic(patientId), lastEventId);
+    }
+
+    private ResponseEntity<?> openStream(String topic, String lastEventId) {
+        try {
+            Long resumeFrom = lastEventId == null || lastEventId.isBlank() ? null : Long.valueOf(lastEventId.trim());
+            return ResponseEntity.ok(streamBroker.subscribe(topic, resumeFrom));
+        } catch (NumberFormatException e) {
+            return ResponseEntity.status(400).body("Invalid Last-Event-ID: " + lastEventId);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(503).body(e.getMessage());
+        }
     }
 
     @PutMapping("/{id}/status")
-    public Appointment updateStatus(
+    public ResponseEntity<?> updateStatus(
             @PathVariable int id,
             @RequestParam String status,
             @RequestParam(required = false) String feedback,
-            @RequestParam(required = false) String confirmedTime) {
-        return appointmentService.updateStatus(id, status, feedback, confirmedTime);
+            @RequestParam(required = false) String confirmedTime,
+            @RequestAttribute(AuthPrincipal.ATTRIBUTE) AuthPrincipal principal) {
+        Appointment appointment = appointmentService.getAppointmentById(id);
+        if (appointment == null) {
+            return ResponseEntity.status(404).body("Appointment not found");
+        }
+        if (!principal.canActAs(Role.DOCTOR, appointment.getDoctorId())) {
+            return ResponseEntity.status(403).body("Doctors can only update their own appointments");
+        }
+        LocalTime time = ScheduleTimes.toLocalTime(confirmedTime);
+        if (time == null && confirmedTime != null && !confirmedTime.isBlank()) {
+            return ResponseEntity.status(400).body("Invalid confirmed time: " + confirmedTime);
+        }
+        try {
+            return ResponseEntity.ok(appointmentService.updateStatus(id, status, feedback, time));
+        } catch (SlotUnavailableException e) {
+            return ResponseEntity.status(409).body(e.getMessage());
+        }
     }
 }
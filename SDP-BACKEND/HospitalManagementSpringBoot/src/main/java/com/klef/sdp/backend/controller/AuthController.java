@@ -0,0 +1,27 @@
+package com.klef.sdp.backend.controller;
+
+import com.klef.sdp.backend.auth.AuthPrincipal;
+import com.klef.sdp.backend.auth.TokenRevocations;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/auth")
+@CrossOrigin("*")
+public class AuthController {
+
+    @Autowired
+    private TokenRevocations tokenRevocations;
+
+    // Ends the session on every instance; the token is refused from the next poll on
+    @PostMapping("/logout")
+    public ResponseEntity<String> logout(@RequestAttribute(AuthPrincipal.ATTRIBUTE) AuthPrincipal principal) {
+        try {
+            tokenRevocations.revoke(principal);
+            return ResponseEntity.ok("Logged out");
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("Logout failed");
+        }
+    }
+}
@@ -1,22 +1,59 @@
 package com.klef.sdp.backend.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.klef.sdp.backend.auth.AuthPrincipal;
+import com.klef.sdp.backend.auth.LoginService;
+import com.klef.sdp.backend.auth.Role;
+import com.klef.sdp.backend.dto.ProfileVersion;
+import com.klef.sdp.backend.exception.InvalidPatchException;
 import com.klef.sdp.backend.model.Doctor;
+import com.klef.sdp.backend.service.DoctorDirectoryCache;
+import com.klef.sdp.backend.service.DoctorRecommender;
+import com.klef.sdp.backend.service.DoctorSearchIndex;
 import com.klef.sdp.backend.service.DoctorService;
+import com.klef.sdp.backend.service.ResourceETags;
+import com.klef.sdp.backend.util.ScheduleTimes;
 
-import java.util.List;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/doctor")
 @CrossOrigin("*")
 public class DoctorController 
 {
+    private static final String PROFILE_CONFLICT = "This profile was changed elsewhere. Reload it and try again.";
+
     @Autowired
     private DoctorService doctorService;
 
+    @Autowired
+    private DoctorDirectoryCache doctorDirectoryCache;
+
+    @Autowired
+    private DoctorSearchIndex doctorSearchIndex;
+
+    @Autowired
+    private ResourceETags resourceETags;
+
+    @Autowired
+    private DoctorRecommender doctorRecommender;
+
+    @Autowired
+    private LoginService loginService;
+
     @PostMapping("/registration")
     public ResponseEntity<String> doctorRegistration(@RequestBody Doctor doctor) {
         try {
@@ -28,57 +65,148 @@ public class DoctorController
     }
 
     @PostMapping("/checkdoctorlogin")
-    public ResponseEntity<?> checkDoctorLogin(@RequestBody Doctor doctor) {
-        try {
-            Doctor d = doctorService.checkDoctorLogin(doctor.getUsername(), doctor.getPassword());
-            if (d != null) {
-                return ResponseEntity.ok(d);
-            } else {
-                return ResponseEntity.status(401).body("Invalid Username or Password");
-            }
-        } catch (Exception e) {
-            return ResponseEntity.status(500).body("Login Failed");
-        }
+    public CompletableFuture<ResponseEntity<?>> checkDoctorLogin(@RequestBody Doctor doctor) {
+        return loginService.login(Role.DOCTOR,
+                () -> doctorService.checkDoctorLogin(doctor.getUsername(), doctor.getPassword()), Doctor::getId);
     }
 
     @GetMapping("/profile/{id}")
-    public ResponseEntity<?> getDoctorProfile(@PathVariable int id) {
+    public ResponseEntity<?> getDoctorProfile(@PathVariable int id, WebRequest request) {
+        String etag = resourceETags.etag(ResourceETags.doctorKey(id));
+        if (request.checkNotModified(etag)) {
+            return null; // 304, nothing loaded
+        }
         Doctor d = doctorService.getDoctorById(id);
         if (d != null) {
-            return ResponseEntity.ok(d);
+            return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache().cachePrivate()).body(d);
         } else {
             return ResponseEntity.status(404).body("Doctor Not Found");
         }
     }
 
     @PutMapping("/updateprofile")
-    public ResponseEntity<String> updateDoctorProfile(@RequestBody Doctor doctor) {
+    public ResponseEntity<String> updateDoctorProfile(@RequestBody Doctor doctor,
+                                                      @RequestAttribute(AuthPrincipal.ATTRIBUTE) AuthPrincipal principal) {
+        if (!principal.canActAs(Role.DOCTOR, doctor.getId())) {
+            return ResponseEntity.status(403).body("You can only update your own profile");
+        }
         try {
             String result = doctorService.updateDoctorProfile(doctor);
             return ResponseEntity.ok(result);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(409).body(PROFILE_CONFLICT);
         } catch (Exception e) {
             return ResponseEntity.status(500).body("Failed to Update Doctor Profile");
         }
     }
 
-    // ✅ Fetch all doctors
-    @GetMapping("/all")
-    public ResponseEntity<?> getAllDoctors() {
+    // Only the fields sent change; the body must carry the version last read and gets the new one back
+    @PatchMapping("/{id}")
+    public ResponseEntity<?> patchDoctorProfile(@PathVariable int id, @RequestBody JsonNode changes,
+                                                @RequestAttribute(AuthPrincipal.ATTRIBUTE) AuthPrincipal principal) {
+        if (!principal.canActAs(Role.DOCTOR, id)) {
+            return ResponseEntity.status(403).body("You can only update your own profile");
+        }
         try {
-            List<Doctor> doctors = doctorService.getAllDoctors();
-            return ResponseEntity.ok(doctors);
+            Long version = doctorService.patchDoctorProfile(id, changes);
+            if (version == null) {
+                return ResponseEntity.status(404).body("Doctor Not Found");
+            }
+            return ResponseEntity.ok(new ProfileVersion(id, version));
+        } catch (InvalidPatchException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(409).body(PROFILE_CONFLICT);
         } catch (Exception e) {
-            return ResponseEntity.status(500).body("Failed to fetch doctors");
+            return ResponseEntity.status(500).body("Failed to Update Doctor Profile");
         }
     }
+
+    // ✅ Fetch all doctors (served from the directory cache)
+    @GetMapping("/all")
+    public ResponseEntity<?> getAllDoctors(WebRequest request) {
+        return doctorDirectory(request);
+    }
  // Add this endpoint to your existing DoctorController.java
     @GetMapping("/doctors")
-    public ResponseEntity<?> getAllDoctorsForBooking() {
+    public ResponseEntity<?> getAllDoctorsForBooking(WebRequest request) {
+        return doctorDirectory(request);
+    }
+
+    // The roster changes a few times a day, so browsers may reuse it for a minute before revalidating
+    private ResponseEntity<?> doctorDirectory(WebRequest request) {
         try {
-            List<Doctor> doctors = doctorService.getAllDoctors();
-            return ResponseEntity.ok(doctors);
+            String etag = resourceETags.etag(DoctorDirectoryCache.CACHE_NAME);
+            if (request.checkNotModified(etag)) {
+                return null;
+            }
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .eTag(etag)
+                    .cacheControl(CacheControl.maxAge(60, TimeUnit.SECONDS).cachePublic())
+                    .body(doctorDirectoryCache.getJson(DoctorDirectoryCache.View.DIRECTORY));
         } catch (Exception e) {
             return ResponseEntity.status(500).body("Failed to fetch doctors");
         }
     }
+
+    // Typeahead: name matches word prefixes ("jo sm" finds "John Smith"); the other filters match whole values
+    @GetMapping("/search")
+    public ResponseEntity<?> searchDoctors(@RequestParam(required = false) String name,
+                                           @RequestParam(required = false) String specialization,
+                                           @RequestParam(required = false) String qualification,
+                                           @RequestParam(required = false) String location,
+                                           @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(doctorSearchIndex.search(name, specialization, qualification, location, limit));
+    }
+
+    // Least loaded doctors with a free place on the date (default today), from in-memory booking counters
+    @GetMapping("/recommend")
+    public ResponseEntity<?> recommendDoctors(@RequestParam(required = false) String specialization,
+                                              @RequestParam(required = false) String location,
+                                              @RequestParam(required = false) String date,
+                                              @RequestParam(defaultValue = "5") int limit) {
+        try {
+            LocalDate day = (date == null || date.isBlank()) ? LocalDate.now() : LocalDate.parse(date);
+            return ResponseEntity.ok(doctorRecommender.recommend(specialization, location, day, limit));
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.status(400).body("Invalid date: " + date);
+        }
+    }
+
+    /*
+     * Doctors whose weekly schedule covers a time, e.g. ?specialization=Cardiology&day=Tuesday&time=10:30 AM.
+     * date=yyyy-MM-dd may be given instead of day; minutes (default 15) is how long from time they must work.
+     */
+    @GetMapping("/available")
+    public ResponseEntity<?> availableDoctors(@RequestParam(required = false) String specialization,
+                                              @RequestParam(required = false) String location,
+                                              @RequestParam(required = false) String day,
+                                              @RequestParam(required = false) String date,
+                                              @RequestParam String time,
+                                              @RequestParam(defaultValue = "15") int minutes,
+                                              @RequestParam(defaultValue = "20") int limit) {
+        DayOfWeek dayOfWeek;
+        try {
+            if (date != null && !date.isBlank()) {
+                dayOfWeek = LocalDate.parse(date.trim()).getDayOfWeek();
+            } else if (day != null && !day.isBlank()) {
+                dayOfWeek = DayOfWeek.valueOf(day.trim().toUpperCase(Locale.ROOT));
+            } else {
+                return ResponseEntity.status(400).body("Give a day or a date");
+            }
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.status(400).body("Invalid date: " + date);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(400).body("Invalid day: " + day);
+        }
+        int start = ScheduleTimes.parseTime(time);
+        if (start < 0 || start >= 24 * 60) {
+            return ResponseEntity.status(400).body("Invalid time: " + time);
+        }
+        if (minutes < 1 || start + minutes > 24 * 60) {
+            return ResponseEntity.status(400).body("minutes must be at least 1 and end by midnight");
+        }
+        return ResponseEntity.ok(doctorRecommender.working(specialization, location, dayOfWeek, start, start + minutes, limit));
+    }
 }
@@ -1,20 +1,34 @@
 package com.klef.sdp.backend.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.klef.sdp.backend.auth.AuthPrincipal;
+import com.klef.sdp.backend.auth.LoginService;
+import com.klef.sdp.backend.auth.Role;
+import com.klef.sdp.backend.dto.ProfileVersion;
+import com.klef.sdp.backend.exception.InvalidPatchException;
 import com.klef.sdp.backend.model.Patient;
 import com.klef.sdp.backend.service.PatientService;
 
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping("/patient")
 @CrossOrigin("*")
 public class PatientController 
 {
+    private static final String PROFILE_CONFLICT = "Your profile was changed elsewhere. Reload it and try again.";
+
     @Autowired
     private PatientService patientService;
 
+    @Autowired
+    private LoginService loginService;
+
     @GetMapping("/")
     public String home() {
         return "Patient Module Running Successfully";
@@ -31,24 +45,44 @@ public class PatientController
     }
 
     @PostMapping("/checklogin")
-    public ResponseEntity<?> checkPatientLogin(@RequestBody Patient patient) {
-        try {
-            Patient p = patientService.checkPatientLogin(patient.getUsername(), patient.getPassword());
-            if (p != null) {
-                return ResponseEntity.ok(p);
-            } else {
-                return ResponseEntity.status(401).body("Invalid Username or Password");
-            }
-        } catch (Exception e) {
-            return ResponseEntity.status(500).body("Login failed: " + e.getMessage());
-        }
+    public CompletableFuture<ResponseEntity<?>> checkPatientLogin(@RequestBody Patient patient) {
+        return loginService.login(Role.PATIENT,
+                () -> patientService.checkPatientLogin(patient.getUsername(), patient.getPassword()), Patient::getId);
     }
 
     @PutMapping("/updateprofile")
-    public ResponseEntity<String> updateProfile(@RequestBody Patient patient) {
+    public ResponseEntity<String> updateProfile(@RequestBody Patient patient,
+                                                @RequestAttribute(AuthPrincipal.ATTRIBUTE) AuthPrincipal principal) {
+        if (!principal.canActAs(Role.PATIENT, patient.getId())) {
+            return ResponseEntity.status(403).body("You can only update your own profile");
+        }
         try {
             String output = patientService.patientUpdateProfile(patient);
             return ResponseEntity.ok(output);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(409).body(PROFILE_CONFLICT);
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("Failed to Update Patient ... !!");
+        }
+    }
+
+    // Changes only the fields sent; include the version you last read, the response has the new one
+    @PatchMapping("/{id}")
+    public ResponseEntity<?> patchProfile(@PathVariable int id, @RequestBody JsonNode changes,
+                                          @RequestAttribute(AuthPrincipal.ATTRIBUTE) AuthPrincipal principal) {
+        if (!principal.canActAs(Role.PATIENT, id)) {
+            return ResponseEntity.status(403).body("You can only update your own profile");
+        }
+        try {
+            Long version = patientService.patchPatientProfile(id, changes);
+            if (version == null) {
+                return ResponseEntity.status(404).body("Patient ID Not Found to Update");
+            }
+            return ResponseEntity.ok(new ProfileVersion(id, version));
+        } catch (InvalidPatchException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(409).body(PROFILE_CONFLICT);
         } catch (Exception e) {
             return ResponseEntity.status(500).body("Failed to Update Patient ... !!");
         }
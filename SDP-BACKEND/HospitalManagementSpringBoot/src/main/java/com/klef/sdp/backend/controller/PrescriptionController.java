@@ -1,11 +1,22 @@
 package com.klef.sdp.backend.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.klef.sdp.backend.auth.AuthPrincipal;
+import com.klef.sdp.backend.auth.Role;
+import com.klef.sdp.backend.exception.InvalidPatchException;
 import com.klef.sdp.backend.model.Prescription;
+import com.klef.sdp.backend.repository.PrescriptionSearchRepository;
 import com.klef.sdp.backend.service.PrescriptionService;
+import com.klef.sdp.backend.service.ResourceETags;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 
 @RestController
@@ -13,11 +24,21 @@ import java.util.List;
 @CrossOrigin("*")
 public class PrescriptionController {
     
+    private static final String CONFLICT = "This prescription was changed by someone else. Reload it and try again.";
+    private static final String NOT_YOURS = "Doctors can only change their own prescriptions";
+    
     @Autowired
     private PrescriptionService prescriptionService;
     
+    @Autowired
+    private ResourceETags resourceETags;
+    
     @PostMapping("/add")
-    public ResponseEntity<?> addPrescription(@RequestBody Prescription prescription) {
+    public ResponseEntity<?> addPrescription(@RequestBody Prescription prescription,
+                                             @RequestAttribute(AuthPrincipal.ATTRIBUTE) AuthPrincipal principal) {
+        if (!principal.canActAs(Role.DOCTOR, prescription.getDoctorId())) {
+            return ResponseEntity.status(403).body("Doctors can only write prescriptions under their own name");
+        }
         try {
             Prescription saved = prescriptionService.addPrescription(prescription);
             return ResponseEntity.ok(saved);
@@ -38,28 +59,78 @@ public class PrescriptionController {
     }
     
     @GetMapping("/patient/{patientId}")
-    public ResponseEntity<List<Prescription>> getPrescriptionsByPatient(@PathVariable Integer patientId) {
+    public ResponseEntity<List<Prescription>> getPrescriptionsByPatient(@PathVariable Integer patientId,
+                                                                        @RequestParam(defaultValue = "false") boolean includeArchived,
+                                                                        WebRequest request) {
         try {
-            List<Prescription> prescriptions = prescriptionService.getPrescriptionsByPatient(patientId);
-            return ResponseEntity.ok(prescriptions);
+            String etag = resourceETags.etag(ResourceETags.prescriptionsKey(patientId));
+            if (request.checkNotModified(etag)) {
+                return null;
+            }
+            List<Prescription> prescriptions = prescriptionService.getPrescriptionsByPatient(patientId, includeArchived);
+            return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache().cachePrivate()).body(prescriptions);
         } catch (Exception e) {
             return ResponseEntity.status(500).build();
         }
     }
     
     @PutMapping("/update")
-    public ResponseEntity<Prescription> updatePrescription(@RequestBody Prescription prescription) {
+    public ResponseEntity<?> updatePrescription(@RequestBody Prescription prescription,
+                                                @RequestAttribute(AuthPrincipal.ATTRIBUTE) AuthPrincipal principal) {
         try {
+            Prescription existing = prescription.getId() == null ? null : prescriptionService.getPrescriptionById(prescription.getId());
+            if (existing == null) {
+                return ResponseEntity.status(404).body("Prescription not found");
+            }
+            if (!principal.canActAs(Role.DOCTOR, existing.getDoctorId())) {
+                return ResponseEntity.status(403).body(NOT_YOURS);
+            }
+            if (!principal.canActAs(Role.DOCTOR, prescription.getDoctorId())) {
+                return ResponseEntity.status(403).body("Doctors cannot move a prescription to another doctor");
+            }
             Prescription updated = prescriptionService.updatePrescription(prescription);
             return ResponseEntity.ok(updated);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(409).body(CONFLICT);
+        } catch (Exception e) {
+            return ResponseEntity.status(500).build();
+        }
+    }
+    
+    // Only the fields sent are written, and only if the prescription is still at the version sent with them
+    @PatchMapping("/{id}")
+    public ResponseEntity<?> patchPrescription(@PathVariable Integer id, @RequestBody JsonNode changes,
+                                               @RequestAttribute(AuthPrincipal.ATTRIBUTE) AuthPrincipal principal) {
+        try {
+            Prescription existing = prescriptionService.getPrescriptionById(id);
+            if (existing == null) {
+                return ResponseEntity.status(404).body("Prescription not found");
+            }
+            if (!principal.canActAs(Role.DOCTOR, existing.getDoctorId())) {
+                return ResponseEntity.status(403).body(NOT_YOURS);
+            }
+            Prescription updated = prescriptionService.patchPrescription(id, changes);
+            if (updated == null) {
+                return ResponseEntity.status(404).body("Prescription not found");
+            }
+            return ResponseEntity.ok(updated);
+        } catch (InvalidPatchException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(409).body(CONFLICT);
         } catch (Exception e) {
             return ResponseEntity.status(500).build();
         }
     }
     
     @DeleteMapping("/delete/{id}")
-    public ResponseEntity<String> deletePrescription(@PathVariable Integer id) {
+    public ResponseEntity<String> deletePrescription(@PathVariable Integer id,
+                                                     @RequestAttribute(AuthPrincipal.ATTRIBUTE) AuthPrincipal principal) {
         try {
+            Prescription existing = prescriptionService.getPrescriptionById(id);
+            if (existing != null && !principal.canActAs(Role.DOCTOR, existing.getDoctorId())) {
+                return ResponseEntity.status(403).body(NOT_YOURS);
+            }
             String result = prescriptionService.deletePrescription(id);
             return ResponseEntity.ok(result);
         } catch (Exception e) {
@@ -67,11 +138,69 @@ public class PrescriptionController {
         }
     }
     
+    // Word search over diagnosis, instructions and notes, newest first; pass nextCursor back as ?cursor= for the next page
+    @GetMapping("/doctor/{doctorId}/search")
+    public ResponseEntity<?> searchDoctorPrescriptions(@PathVariable int doctorId, @RequestParam String q,
+                                                       @RequestParam(required = false) String cursor,
+                                                       @RequestParam(defaultValue = "20") int limit) {
+        return search(PrescriptionSearchRepository.Owner.DOCTOR, doctorId, q, cursor, limit);
+    }
+    
+    @GetMapping("/patient/{patientId}/search")
+    public ResponseEntity<?> searchPatientPrescriptions(@PathVariable int patientId, @RequestParam String q,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam(defaultValue = "20") int limit) {
+        return search(PrescriptionSearchRepository.Owner.PATIENT, patientId, q, cursor, limit);
+    }
+    
+    private ResponseEntity<?> search(PrescriptionSearchRepository.Owner owner, int ownerId, String q, String cursor, int limit) {
+        try {
+            return ResponseEntity.ok(prescriptionService.searchPrescriptions(owner, ownerId, q, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(400).body(e.getMessage());
+        }
+    }
+    
+    // Patients prescribed a drug (case-insensitive name prefix) between from and to, most recent first;
+    // the period defaults to the year up to today
+    @GetMapping("/drugs/patients")
+    public ResponseEntity<?> getPatientsByDrug(@RequestParam String drug,
+                                               @RequestParam(required = false) String from,
+                                               @RequestParam(required = false) String to,
+                                               @RequestParam(defaultValue = "100") int limit) {
+        if (drug.isBlank()) {
+            return ResponseEntity.status(400).body("drug is required");
+        }
+        try {
+            LocalDate end = parseDate(to, LocalDate.now());
+            return ResponseEntity.ok(prescriptionService.findPatientsByDrug(drug, parseDate(from, end.minusYears(1)), end, limit));
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.status(400).body("Dates must be yyyy-MM-dd: " + e.getParsedString());
+        }
+    }
+    
+    // Most prescribed drugs between from and to, for one doctor or everyone; the period defaults to this month
+    @GetMapping("/drugs/top")
+    public ResponseEntity<?> getTopDrugs(@RequestParam(required = false) Integer doctorId,
+                                         @RequestParam(required = false) String from,
+                                         @RequestParam(required = false) String to,
+                                         @RequestParam(defaultValue = "10") int limit) {
+        try {
+            LocalDate end = parseDate(to, LocalDate.now());
+            return ResponseEntity.ok(prescriptionService.findTopDrugs(doctorId, parseDate(from, end.withDayOfMonth(1)), end, limit));
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.status(400).body("Dates must be yyyy-MM-dd: " + e.getParsedString());
+        }
+    }
+    
+    // Only its patient, its doctor or an admin; anyone else gets 404, so ids cannot be probed
     @GetMapping("/{id}")
-    public ResponseEntity<Prescription> getPrescriptionById(@PathVariable Integer id) {
+    public ResponseEntity<Prescription> getPrescriptionById(@PathVariable Integer id,
+                                                            @RequestAttribute(AuthPrincipal.ATTRIBUTE) AuthPrincipal principal) {
         try {
             Prescription prescription = prescriptionService.getPrescriptionById(id);
-            if (prescription != null) {
+            if (prescription != null && (principal.canActAs(Role.PATIENT, prescription.getPatientId())
+                    || principal.canActAs(Role.DOCTOR, prescription.getDoctorId()))) {
                 return ResponseEntity.ok(prescription);
             }
             return ResponseEntity.status(404).build();
@@ -79,5 +208,8 @@ public class PrescriptionController {
             return ResponseEntity.status(500).build();
         }
     }
+    
+    private static LocalDate parseDate(String text, LocalDate fallback) {
+        return text == null || text.isBlank() ? fallback : LocalDate.parse(text.trim());
+    }
 }
-
@@ -1,11 +1,22 @@
 package com.klef.sdp.backend.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.klef.sdp.backend.auth.AuthPrincipal;
+import com.klef.sdp.backend.auth.Role;
+import com.klef.sdp.backend.exception.InvalidPatchException;
+import com.klef.sdp.backend.exception.ScheduleConflictException;
 import com.klef.sdp.backend.model.Schedule;
+import com.klef.sdp.backend.service.ResourceETags;
 import com.klef.sdp.backend.service.ScheduleService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 
 @RestController
@@ -13,27 +24,29 @@ import java.util.List;
 @CrossOrigin("*")
 public class ScheduleController {
     
+    private static final String CONFLICT = "This schedule was changed by someone else. Reload it and try again.";
+    private static final String NOT_YOURS = "Doctors can only change their own schedules";
+    
     @Autowired
     private ScheduleService scheduleService;
+
+    @Autowired
+    private ResourceETags resourceETags;
     
     @PostMapping("/add")
-    public ResponseEntity<?> addSchedule(@RequestBody Schedule schedule) {
+    public ResponseEntity<?> addSchedule(@RequestBody Schedule schedule,
+                                         @RequestAttribute(AuthPrincipal.ATTRIBUTE) AuthPrincipal principal) {
         try {
             // Validate required fields
             if (schedule.getDoctorId() == null) {
                 return ResponseEntity.status(400).body("Doctor ID is required");
             }
-            if (schedule.getDayOfWeek() == null || schedule.getDayOfWeek().trim().isEmpty()) {
-                return ResponseEntity.status(400).body("Day of week is required");
-            }
-            if (schedule.getStartTime() == null || schedule.getStartTime().trim().isEmpty()) {
-                return ResponseEntity.status(400).body("Start time is required");
-            }
-            if (schedule.getEndTime() == null || schedule.getEndTime().trim().isEmpty()) {
-                return ResponseEntity.status(400).body("End time is required");
+            if (!principal.canActAs(Role.DOCTOR, schedule.getDoctorId())) {
+                return ResponseEntity.status(403).body("Doctors can only add their own schedules");
             }
-            if (schedule.getMaxAppointments() == null || schedule.getMaxAppointments() < 1) {
-                return ResponseEntity.status(400).body("Max appointments must be at least 1");
+            String invalid = validate(schedule);
+            if (invalid != null) {
+                return ResponseEntity.status(400).body(invalid);
             }
             
             // Set default values if not provided
@@ -43,6 +56,8 @@ public class ScheduleController {
             
             Schedule saved = scheduleService.addSchedule(schedule);
             return ResponseEntity.status(201).body(saved);
+        } catch (ScheduleConflictException e) {
+            return ResponseEntity.status(409).body(e.getMessage());
         } catch (Exception e) {
             e.printStackTrace();
             System.err.println("Error adding schedule: " + e.getMessage());
@@ -51,10 +66,14 @@ public class ScheduleController {
     }
     
     @GetMapping("/doctor/{doctorId}")
-    public ResponseEntity<?> getSchedulesByDoctor(@PathVariable Integer doctorId) {
+    public ResponseEntity<?> getSchedulesByDoctor(@PathVariable Integer doctorId, WebRequest request) {
         try {
+            String etag = resourceETags.etag(ResourceETags.schedulesKey(doctorId));
+            if (request.checkNotModified(etag)) {
+                return null;
+            }
             List<Schedule> schedules = scheduleService.getSchedulesByDoctor(doctorId);
-            return ResponseEntity.ok(schedules);
+            return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(schedules);
         } catch (Exception e) {
             e.printStackTrace();
             System.err.println("Error fetching schedules for doctor " + doctorId + ": " + e.getMessage());
@@ -62,19 +81,85 @@ public class ScheduleController {
         }
     }
     
+    // Served from the in-memory availability index
+    @GetMapping("/doctor/{doctorId}/available")
+    public ResponseEntity<?> getAvailableSlots(
+            @PathVariable Integer doctorId,
+            @RequestParam(required = false) String from,
+            @RequestParam(defaultValue = "7") int days) {
+        try {
+            LocalDate start = (from == null || from.isBlank()) ? LocalDate.now() : LocalDate.parse(from);
+            return ResponseEntity.ok(scheduleService.getAvailableSlots(doctorId, start, days));
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.status(400).body("Invalid from date: " + from);
+        }
+    }
+
     @PutMapping("/update")
-    public ResponseEntity<Schedule> updateSchedule(@RequestBody Schedule schedule) {
+    public ResponseEntity<?> updateSchedule(@RequestBody Schedule schedule,
+                                            @RequestAttribute(AuthPrincipal.ATTRIBUTE) AuthPrincipal principal) {
         try {
+            Schedule existing = schedule.getId() == null ? null : scheduleService.getScheduleById(schedule.getId());
+            if (existing == null) {
+                return ResponseEntity.status(404).body("Schedule not found");
+            }
+            if (!principal.canActAs(Role.DOCTOR, existing.getDoctorId())) {
+                return ResponseEntity.status(403).body(NOT_YOURS);
+            }
+            if (!principal.canActAs(Role.DOCTOR, schedule.getDoctorId())) {
+                return ResponseEntity.status(403).body("Doctors cannot move a schedule to another doctor");
+            }
+            String invalid = validate(schedule);
+            if (invalid != null) {
+                return ResponseEntity.status(400).body(invalid);
+            }
             Schedule updated = scheduleService.updateSchedule(schedule);
             return ResponseEntity.ok(updated);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(409).body(CONFLICT);
+        } catch (ScheduleConflictException e) {
+            return ResponseEntity.status(409).body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(500).build();
+        }
+    }
+    
+    // Only the fields sent are written, and only if the schedule is still at the version sent with them
+    @PatchMapping("/{id}")
+    public ResponseEntity<?> patchSchedule(@PathVariable Integer id, @RequestBody JsonNode changes,
+                                           @RequestAttribute(AuthPrincipal.ATTRIBUTE) AuthPrincipal principal) {
+        try {
+            Schedule existing = scheduleService.getScheduleById(id);
+            if (existing == null) {
+                return ResponseEntity.status(404).body("Schedule not found");
+            }
+            if (!principal.canActAs(Role.DOCTOR, existing.getDoctorId())) {
+                return ResponseEntity.status(403).body(NOT_YOURS);
+            }
+            Schedule updated = scheduleService.patchSchedule(id, changes);
+            if (updated == null) {
+                return ResponseEntity.status(404).body("Schedule not found");
+            }
+            return ResponseEntity.ok(updated);
+        } catch (InvalidPatchException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(409).body(CONFLICT);
+        } catch (ScheduleConflictException e) {
+            return ResponseEntity.status(409).body(e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(500).build();
         }
     }
     
     @DeleteMapping("/delete/{id}")
-    public ResponseEntity<String> deleteSchedule(@PathVariable Integer id) {
+    public ResponseEntity<String> deleteSchedule(@PathVariable Integer id,
+                                                 @RequestAttribute(AuthPrincipal.ATTRIBUTE) AuthPrincipal principal) {
         try {
+            Schedule existing = scheduleService.getScheduleById(id);
+            if (existing != null && !principal.canActAs(Role.DOCTOR, existing.getDoctorId())) {
+                return ResponseEntity.status(403).body(NOT_YOURS);
+            }
             String result = scheduleService.deleteSchedule(id);
             return ResponseEntity.ok(result);
         } catch (Exception e) {
@@ -94,5 +179,24 @@ public class ScheduleController {
             return ResponseEntity.status(500).build();
         }
     }
-}
 
+    // The fields a whole schedule must have, shared by add and update; null if it is fine
+    private static String validate(Schedule schedule) {
+        if (schedule.getDayOfWeek() == null || schedule.getDayOfWeek().trim().isEmpty()) {
+            return "Day of week is required";
+        }
+        if (schedule.getStartTime() == null) {
+            return "Start time is required";
+        }
+        if (schedule.getEndTime() == null) {
+            return "End time is required";
+        }
+        if (!schedule.getEndTime().isAfter(schedule.getStartTime())) {
+            return "End time must be after start time";
+        }
+        if (schedule.getMaxAppointments() == null || schedule.getMaxAppointments() < 1) {
+            return "Max appointments must be at least 1";
+        }
+        return null;
+    }
+}
@@ -1,9 +1,11 @@
 package com.klef.sdp.backend.dto;
 
+import java.time.LocalDate;
+
 public class AppointmentDTO {
     private Integer patientId;
     private Integer doctorId;
-    private String date;
+    private LocalDate date;
     private String timeRange;
     private String reason;
 
@@ -14,8 +16,8 @@ public class AppointmentDTO {
     public Integer getDoctorId() { return doctorId; }
     public void setDoctorId(Integer doctorId) { this.doctorId = doctorId; }
 
-    public String getDate() { return date; }
-    public void setDate(String date) { this.date = date; }
+    public LocalDate getDate() { return date; }
+    public void setDate(LocalDate date) { this.date = date; }
 
     public String getTimeRange() { return timeRange; }
     public void setTimeRange(String timeRange) { this.timeRange = timeRange; }
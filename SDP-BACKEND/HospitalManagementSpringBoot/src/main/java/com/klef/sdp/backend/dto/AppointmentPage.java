@@ -0,0 +1,22 @@
+package com.klef.sdp.backend.dto;
+
+import com.klef.sdp.backend.model.Appointment;
+
+import java.util.List;
+
+public class AppointmentPage {
+    private List<Appointment> appointments;
+    private String nextCursor; // null when there are no more rows
+
+    public AppointmentPage(List<Appointment> appointments, String nextCursor) {
+        this.appointments = appointments;
+        this.nextCursor = nextCursor;
+    }
+
+    // Getters
+    public List<Appointment> getAppointments() { return appointments; }
+
+    public String getNextCursor() { return nextCursor; }
+
+    public boolean isHasMore() { return nextCursor != null; }
+}
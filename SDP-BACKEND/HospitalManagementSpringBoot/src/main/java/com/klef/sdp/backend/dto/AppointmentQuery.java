@@ -0,0 +1,36 @@
+package com.klef.sdp.backend.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public class AppointmentQuery {
+    private List<String> statuses;
+    private LocalDate fromDate;
+    private LocalDate toDate;
+    private String reason;
+    private String cursor;
+    private int limit = 20;
+    private boolean descending;
+
+    // Getters & Setters
+    public List<String> getStatuses() { return statuses; }
+    public void setStatuses(List<String> statuses) { this.statuses = statuses; }
+
+    public LocalDate getFromDate() { return fromDate; }
+    public void setFromDate(LocalDate fromDate) { this.fromDate = fromDate; }
+
+    public LocalDate getToDate() { return toDate; }
+    public void setToDate(LocalDate toDate) { this.toDate = toDate; }
+
+    public String getReason() { return reason; }
+    public void setReason(String reason) { this.reason = reason; }
+
+    public String getCursor() { return cursor; }
+    public void setCursor(String cursor) { this.cursor = cursor; }
+
+    public int getLimit() { return limit; }
+    public void setLimit(int limit) { this.limit = limit; }
+
+    public boolean isDescending() { return descending; }
+    public void setDescending(boolean descending) { this.descending = descending; }
+}
@@ -0,0 +1,27 @@
+package com.klef.sdp.backend.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.klef.sdp.backend.util.LenientTimeDeserializer;
+
+import java.time.LocalTime;
+
+public class AppointmentStatusUpdate {
+    private Integer id;
+    private String status;
+    private String feedback;
+    @JsonDeserialize(using = LenientTimeDeserializer.class)
+    private LocalTime confirmedTime;
+
+    // Getters & Setters
+    public Integer getId() { return id; }
+    public void setId(Integer id) { this.id = id; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public String getFeedback() { return feedback; }
+    public void setFeedback(String feedback) { this.feedback = feedback; }
+
+    public LocalTime getConfirmedTime() { return confirmedTime; }
+    public void setConfirmedTime(LocalTime confirmedTime) { this.confirmedTime = confirmedTime; }
+}
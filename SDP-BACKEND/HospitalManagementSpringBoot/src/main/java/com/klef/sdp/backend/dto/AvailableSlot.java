@@ -0,0 +1,46 @@
+package com.klef.sdp.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+public class AvailableSlot {
+    private Integer scheduleId;
+    private LocalDate date;
+    private String dayOfWeek;
+    @JsonFormat(pattern = "hh:mm a", locale = "en")
+    private LocalTime startTime;
+    @JsonFormat(pattern = "hh:mm a", locale = "en")
+    private LocalTime endTime;
+    private int capacity;
+    private int booked;
+
+    public AvailableSlot(Integer scheduleId, LocalDate date, String dayOfWeek, LocalTime startTime, LocalTime endTime,
+                         int capacity, int booked) {
+        this.scheduleId = scheduleId;
+        this.date = date;
+        this.dayOfWeek = dayOfWeek;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.capacity = capacity;
+        this.booked = booked;
+    }
+
+    // Getters
+    public Integer getScheduleId() { return scheduleId; }
+
+    public LocalDate getDate() { return date; }
+
+    public String getDayOfWeek() { return dayOfWeek; }
+
+    public LocalTime getStartTime() { return startTime; }
+
+    public LocalTime getEndTime() { return endTime; }
+
+    public int getCapacity() { return capacity; }
+
+    public int getBooked() { return booked; }
+
+    public int getRemaining() { return Math.max(capacity - booked, 0); }
+}
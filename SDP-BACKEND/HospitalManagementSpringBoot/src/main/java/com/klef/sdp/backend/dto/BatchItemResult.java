@@ -0,0 +1,33 @@
+package com.klef.sdp.backend.dto;
+
+public class BatchItemResult {
+    private int index;          // position in the request array
+    private Integer id;         // appointment id, when known
+    private boolean success;
+    private String message;
+
+    public BatchItemResult(int index, Integer id, boolean success, String message) {
+        this.index = index;
+        this.id = id;
+        this.success = success;
+        this.message = message;
+    }
+
+    public static BatchItemResult ok(int index, Integer id) {
+        return new BatchItemResult(index, id, true, null);
+    }
+
+    public static BatchItemResult failed(int index, Integer id, String message) {
+        return new BatchItemResult(index, id, false, message);
+    }
+
+    // Getters & Setters
+    public int getIndex() { return index; }
+
+    public Integer getId() { return id; }
+    public void setId(Integer id) { this.id = id; }
+
+    public boolean isSuccess() { return success; }
+
+    public String getMessage() { return message; }
+}
@@ -0,0 +1,8 @@
+package com.klef.sdp.backend.dto;
+
+/**
+ * Row of the admin doctor table: everything but the password and date of birth.
+ */
+public record DoctorAdminSummary(int id, String name, String gender, String email, String username, String mobileno,
+                                 String specialization, String qualification, int experience, String location) {
+}
@@ -0,0 +1,11 @@
+package com.klef.sdp.backend.dto;
+
+import java.time.LocalDate;
+
+/**
+ * A doctor suggested for booking on {@code date}, with their live bookings
+ * (pending, approved and rescheduled) against the places in that day's sessions.
+ */
+public record DoctorRecommendation(int id, String name, String specialization, String location, LocalDate date,
+                                   int booked, int capacity, int remaining) {
+}
@@ -0,0 +1,11 @@
+package com.klef.sdp.backend.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of doctor search matches plus, per field, how many of all
+ * {@code total} matches have each value.
+ */
+public record DoctorSearchResult(int total, List<DoctorSummary> doctors, Map<String, Map<String, Integer>> facets) {
+}
@@ -0,0 +1,7 @@
+package com.klef.sdp.backend.dto;
+
+/**
+ * Public doctor directory entry, as used by the booking page's doctor list.
+ */
+public record DoctorSummary(int id, String name, String specialization, String location) {
+}
@@ -0,0 +1,7 @@
+package com.klef.sdp.backend.dto;
+
+/**
+ * How often a drug was prescribed in a period: line items and distinct patients.
+ */
+public record DrugCount(String drug, long prescriptions, long patients) {
+}
@@ -0,0 +1,9 @@
+package com.klef.sdp.backend.dto;
+
+import java.time.LocalDate;
+
+/**
+ * A patient prescribed a drug in a period, with the latest such prescription.
+ */
+public record DrugPatient(int patientId, String patientName, String drug, LocalDate lastPrescribed, long prescriptions) {
+}
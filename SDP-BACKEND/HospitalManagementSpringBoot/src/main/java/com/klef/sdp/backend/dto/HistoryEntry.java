@@ -0,0 +1,15 @@
+package com.klef.sdp.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import com.klef.sdp.backend.model.Appointment;
+import com.klef.sdp.backend.model.Prescription;
+
+import java.util.List;
+
+/**
+ * One appointment of a patient's history with the prescriptions written
+ * against it. Serialized as the appointment's own fields plus
+ * {@code prescriptions}.
+ */
+public record HistoryEntry(@JsonUnwrapped Appointment appointment, List<Prescription> prescriptions) {
+}
@@ -0,0 +1,20 @@
+package com.klef.sdp.backend.dto;
+
+import java.util.List;
+
+public class HistoryPage {
+    private List<HistoryEntry> entries;
+    private String nextCursor; // null when there are no more rows
+
+    public HistoryPage(List<HistoryEntry> entries, String nextCursor) {
+        this.entries = entries;
+        this.nextCursor = nextCursor;
+    }
+
+    // Getters
+    public List<HistoryEntry> getEntries() { return entries; }
+
+    public String getNextCursor() { return nextCursor; }
+
+    public boolean isHasMore() { return nextCursor != null; }
+}
@@ -0,0 +1,10 @@
+package com.klef.sdp.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+
+/**
+ * Successful login: the user's own fields, plus the token to send as
+ * {@code Authorization: Bearer <token>} and when it expires (epoch millis).
+ */
+public record LoginResponse<T>(@JsonUnwrapped T user, String token, long expiresAt) {
+}
@@ -0,0 +1,20 @@
+package com.klef.sdp.backend.dto;
+
+import java.util.List;
+
+public class PatientPage {
+    private List<PatientSummary> patients;
+    private String nextCursor; // null when there are no more rows
+
+    public PatientPage(List<PatientSummary> patients, String nextCursor) {
+        this.patients = patients;
+        this.nextCursor = nextCursor;
+    }
+
+    // Getters
+    public List<PatientSummary> getPatients() { return patients; }
+
+    public String getNextCursor() { return nextCursor; }
+
+    public boolean isHasMore() { return nextCursor != null; }
+}
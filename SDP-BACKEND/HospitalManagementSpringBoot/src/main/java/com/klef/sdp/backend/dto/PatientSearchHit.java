@@ -0,0 +1,8 @@
+package com.klef.sdp.backend.dto;
+
+/**
+ * A patient found by the lookup, with the field the query matched
+ * ("name", "mobileno" or "email").
+ */
+public record PatientSearchHit(int id, String name, String gender, String mobileno, String email, String matched) {
+}
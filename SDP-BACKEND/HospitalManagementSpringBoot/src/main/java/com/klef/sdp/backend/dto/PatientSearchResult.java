@@ -0,0 +1,9 @@
+package com.klef.sdp.backend.dto;
+
+import java.util.List;
+
+/**
+ * The best {@code patients} of all {@code total} matches, best first.
+ */
+public record PatientSearchResult(int total, List<PatientSearchHit> patients) {
+}
@@ -0,0 +1,8 @@
+package com.klef.sdp.backend.dto;
+
+/**
+ * Row of the admin patient table: everything but the password.
+ */
+public record PatientSummary(int id, String name, String gender, String dob, String email, String username,
+                             String mobileno, String location) {
+}
@@ -0,0 +1,15 @@
+package com.klef.sdp.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import com.klef.sdp.backend.model.Prescription;
+
+import java.util.Map;
+
+/**
+ * A prescription matching a text search. Serialized as the prescription's
+ * own fields plus {@code highlights}: for each of diagnosis, instructions and
+ * notes that matched, an HTML-escaped excerpt with the matching words in
+ * {@code <mark>}.
+ */
+public record PrescriptionSearchHit(@JsonUnwrapped Prescription prescription, Map<String, String> highlights) {
+}
@@ -0,0 +1,20 @@
+package com.klef.sdp.backend.dto;
+
+import java.util.List;
+
+public class PrescriptionSearchPage {
+    private List<PrescriptionSearchHit> hits;
+    private String nextCursor; // null when there are no more rows
+
+    public PrescriptionSearchPage(List<PrescriptionSearchHit> hits, String nextCursor) {
+        this.hits = hits;
+        this.nextCursor = nextCursor;
+    }
+
+    // Getters
+    public List<PrescriptionSearchHit> getHits() { return hits; }
+
+    public String getNextCursor() { return nextCursor; }
+
+    public boolean isHasMore() { return nextCursor != null; }
+}
@@ -0,0 +1,7 @@
+package com.klef.sdp.backend.dto;
+
+/**
+ * A profile's version after a PATCH; send it with the next one.
+ */
+public record ProfileVersion(int id, long version) {
+}
@@ -0,0 +1,13 @@
+package com.klef.sdp.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalTime;
+
+/**
+ * Two schedules of one doctor that overlap, and the time they share.
+ */
+public record ScheduleConflict(int doctorId, String dayOfWeek, int scheduleId, int otherScheduleId,
+                               @JsonFormat(pattern = "hh:mm a", locale = "en") LocalTime from,
+                               @JsonFormat(pattern = "hh:mm a", locale = "en") LocalTime to) {
+}
@@ -0,0 +1,11 @@
+package com.klef.sdp.backend.dto;
+
+import java.util.List;
+
+/**
+ * Result of checking every schedule: overlapping pairs, plus the schedules
+ * that could not be checked because their day or times are not usable.
+ */
+public record ScheduleConflictReport(int schedules, int doctors, List<ScheduleConflict> conflicts,
+                                     List<Integer> unreadable) {
+}
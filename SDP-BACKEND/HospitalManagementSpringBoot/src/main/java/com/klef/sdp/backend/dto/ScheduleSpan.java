@@ -0,0 +1,9 @@
+package com.klef.sdp.backend.dto;
+
+import java.time.LocalTime;
+
+/**
+ * The columns of a schedule that decide whether it overlaps another.
+ */
+public record ScheduleSpan(int id, int doctorId, String dayOfWeek, LocalTime startTime, LocalTime endTime) {
+}
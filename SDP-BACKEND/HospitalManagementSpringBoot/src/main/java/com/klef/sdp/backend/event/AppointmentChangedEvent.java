@@ -0,0 +1,40 @@
+package com.klef.sdp.backend.event;
+
+import com.klef.sdp.backend.model.Appointment;
+
+/**
+ * Published by the appointment service whenever a booking is created or its
+ * status changes. Listeners receive it after the surrounding transaction commits.
+ */
+public class AppointmentChangedEvent {
+
+    public enum Type { CREATED, STATUS_CHANGED }
+
+    private final Type type;
+    private final Appointment appointment;
+    private final String previousStatus;
+    private final Integer previousScheduleId;
+
+    public AppointmentChangedEvent(Type type, Appointment appointment, String previousStatus, Integer previousScheduleId) {
+        this.type = type;
+        this.appointment = appointment;
+        this.previousStatus = previousStatus;
+        this.previousScheduleId = previousScheduleId;
+    }
+
+    public static AppointmentChangedEvent created(Appointment appointment) {
+        return new AppointmentChangedEvent(Type.CREATED, appointment, null, null);
+    }
+
+    public static AppointmentChangedEvent statusChanged(Appointment appointment, String previousStatus, Integer previousScheduleId) {
+        return new AppointmentChangedEvent(Type.STATUS_CHANGED, appointment, previousStatus, previousScheduleId);
+    }
+
+    public Type getType() { return type; }
+
+    public Appointment getAppointment() { return appointment; }
+
+    public String getPreviousStatus() { return previousStatus; }
+
+    public Integer getPreviousScheduleId() { return previousScheduleId; }
+}
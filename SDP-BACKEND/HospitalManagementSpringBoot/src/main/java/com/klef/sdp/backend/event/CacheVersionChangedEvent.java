@@ -0,0 +1,16 @@
+package com.klef.sdp.backend.event;
+
+/**
+ * Published by CacheVersions when another instance has bumped the version of
+ * a cached data set, so local copies of it are stale.
+ */
+public class CacheVersionChangedEvent {
+
+    private final String cacheName;
+
+    public CacheVersionChangedEvent(String cacheName) {
+        this.cacheName = cacheName;
+    }
+
+    public String getCacheName() { return cacheName; }
+}
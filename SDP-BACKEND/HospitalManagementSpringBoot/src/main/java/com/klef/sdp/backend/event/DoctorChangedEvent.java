@@ -0,0 +1,16 @@
+package com.klef.sdp.backend.event;
+
+/**
+ * Published when a doctor is registered, added by an admin, updates their
+ * profile or is deleted.
+ */
+public class DoctorChangedEvent {
+
+    private final Integer doctorId;
+
+    public DoctorChangedEvent(Integer doctorId) {
+        this.doctorId = doctorId;
+    }
+
+    public Integer getDoctorId() { return doctorId; }
+}
@@ -0,0 +1,22 @@
+package com.klef.sdp.backend.event;
+
+/**
+ * Published when a patient registers, updates their profile or is deleted
+ * by an admin.
+ */
+public class PatientChangedEvent {
+
+    public enum Type { REGISTERED, UPDATED, DELETED }
+
+    private final Type type;
+    private final Integer patientId;
+
+    public PatientChangedEvent(Type type, Integer patientId) {
+        this.type = type;
+        this.patientId = patientId;
+    }
+
+    public Type getType() { return type; }
+
+    public Integer getPatientId() { return patientId; }
+}
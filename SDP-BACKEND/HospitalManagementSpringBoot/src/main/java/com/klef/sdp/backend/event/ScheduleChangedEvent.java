@@ -0,0 +1,19 @@
+package com.klef.sdp.backend.event;
+
+/**
+ * Published when a doctor's schedules are added, updated or deleted.
+ */
+public class ScheduleChangedEvent {
+
+    private final int doctorId;
+    private final Integer scheduleId;
+
+    public ScheduleChangedEvent(int doctorId, Integer scheduleId) {
+        this.doctorId = doctorId;
+        this.scheduleId = scheduleId;
+    }
+
+    public int getDoctorId() { return doctorId; }
+
+    public Integer getScheduleId() { return scheduleId; }
+}
@@ -0,0 +1,8 @@
+package com.klef.sdp.backend.exception;
+
+// A PATCH body that cannot be applied; the message says why and is sent back with a 400
+public class InvalidPatchException extends RuntimeException {
+    public InvalidPatchException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.klef.sdp.backend.exception;
+
+public class ScheduleConflictException extends RuntimeException {
+    public ScheduleConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,71 @@
+package com.klef.sdp.backend.importer;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Uploads an import file to a running server, streaming it from disk, and
+ * prints the report. From the packaged jar:
+ * <pre>
+ * java -cp app.jar -Dloader.main=com.klef.sdp.backend.importer.BulkImportCli \
+ *     org.springframework.boot.loader.launch.PropertiesLauncher \
+ *     --url http://localhost:2000 --token $ADMIN_TOKEN --kind patients --file clinic-patients.csv
+ * </pre>
+ * The format follows the file extension (.csv or .ndjson) unless --format is given.
+ * The token is the one returned by an admin login (/admin/login).
+ */
+public final class BulkImportCli {
+
+    private BulkImportCli() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String url = "http://localhost:2000";
+        String kind = null;
+        Path file = null;
+        String format = null;
+        String token = null;
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : null;
+            switch (args[i]) {
+                case "--url" -> url = value;
+                case "--kind" -> kind = value;
+                case "--file" -> file = Paths.get(value);
+                case "--format" -> format = value;
+                case "--token" -> token = value;
+                default -> {
+                    usage();
+                    return;
+                }
+            }
+            i++;
+        }
+        if (kind == null || file == null || token == null) {
+            usage();
+            return;
+        }
+        if (format == null) {
+            format = file.toString().toLowerCase(Locale.ROOT).endsWith(".csv") ? "csv" : "ndjson";
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url + "/admin/import/" + kind + "?format=" + format))
+                .header("Content-Type", "csv".equals(format) ? "text/csv" : "application/x-ndjson")
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofMinutes(30))
+                .POST(HttpRequest.BodyPublishers.ofFile(file))
+                .build();
+        HttpResponse<String> response = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
+        System.out.println(response.statusCode());
+        System.out.println(response.body());
+    }
+
+    private static void usage() {
+        System.out.println("Usage: BulkImportCli --token admin-token --kind patients|doctors --file path [--format csv|ndjson]"
+                + " [--url http://host:port]");
+    }
+}
@@ -0,0 +1,249 @@
+package com.klef.sdp.backend.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.klef.sdp.backend.auth.PasswordHasher;
+import com.klef.sdp.backend.event.DoctorChangedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Creates patients or doctors in bulk from a CSV or NDJSON stream.
+ *
+ * Rows are read and validated one at a time: required fields, column
+ * lengths, and the unique email, username and mobile number against key
+ * sets loaded from the table once up front and extended with every accepted
+ * row, so duplicates inside the file are caught as well. Valid rows are
+ * inserted in chunks, each one JDBC batch in its own short transaction, with
+ * a pause in between so regular traffic keeps its share of the database. A
+ * chunk that fails as a whole (typically someone registered the same email
+ * meanwhile) is retried row by row, so only the offending rows are reported.
+ *
+ * Plaintext passwords are hashed just before their chunk is inserted, on
+ * import.hash-threads threads; at the default hashing cost this dominates the
+ * import time, so files may carry PasswordHasher hashes instead, which are
+ * stored as they are.
+ *
+ * One import runs at a time per instance.
+ */
+@Component
+public class BulkImporter {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${import.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${import.pause-ms:20}")
+    private long pauseMs;
+
+    @Value("${import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    @Value("${import.hash-threads:2}")
+    private int hashThreads;
+
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    private final Semaphore running = new Semaphore(1);
+
+    /**
+     * @throws IllegalStateException if another import is running
+     * @throws IllegalArgumentException if the CSV header lacks a required field
+     */
+    public ImportReport run(ImportKind kind, ImportRowReader.Format format, InputStream in) throws IOException {
+        if (!running.tryAcquire()) {
+            throw new IllegalStateException("Another import is already running");
+        }
+        long start = System.currentTimeMillis();
+        ImportReport report = new ImportReport(kind.name().toLowerCase(Locale.ROOT));
+        ForkJoinPool hashPool = new ForkJoinPool(hashThreads);
+        try {
+            ImportRowReader reader = ImportRowReader.open(format, in, objectMapper);
+            if (reader instanceof ImportRowReader.Csv csv) {
+                checkHeader(kind, csv.header());
+            }
+            Map<String, Set<String>> taken = loadKeys(kind);
+            List<Object[]> chunk = new ArrayList<>(chunkSize);
+            List<Integer> chunkRows = new ArrayList<>(chunkSize);
+            ImportRow row;
+            while ((row = reader.next()) != null) {
+                report.rowRead();
+                String error = row.error() != null ? row.error() : validate(kind, row.values(), taken);
+                if (error != null) {
+                    report.failed(row.number(), error, maxReportedErrors);
+                    continue;
+                }
+                chunk.add(toArgs(kind, row.values()));
+                chunkRows.add(row.number());
+                if (chunk.size() >= chunkSize) {
+                    hashPasswords(kind, chunk, hashPool);
+                    flush(kind, chunk, chunkRows, report);
+                    pause();
+                }
+            }
+            hashPasswords(kind, chunk, hashPool);
+            flush(kind, chunk, chunkRows, report);
+        } finally {
+            hashPool.shutdown();
+            running.release();
+        }
+        if (kind == ImportKind.DOCTORS && report.getImported() > 0) {
+            eventPublisher.publishEvent(new DoctorChangedEvent(null)); // whole directory reloads
+        }
+        // New patients reach the patient search index through its poll for new ids
+        report.setElapsedMs(System.currentTimeMillis() - start);
+        return report;
+    }
+
+    private static void checkHeader(ImportKind kind, List<String> header) {
+        List<String> missing = new ArrayList<>();
+        for (ImportKind.Field f : kind.getFields()) {
+            if (!header.contains(f.name())) {
+                missing.add(f.name());
+            }
+        }
+        if (!missing.isEmpty()) {
+            throw new IllegalArgumentException("Missing columns: " + String.join(", ", missing));
+        }
+    }
+
+    private Map<String, Set<String>> loadKeys(ImportKind kind) {
+        Map<String, Set<String>> taken = new HashMap<>();
+        for (ImportKind.Field f : kind.getFields()) {
+            if (f.unique()) {
+                Set<String> keys = new HashSet<>();
+                jdbcTemplate.query("SELECT " + f.column() + " FROM " + kind.getTable(),
+                        (RowCallbackHandler) rs -> keys.add(key(rs.getString(1))));
+                taken.put(f.name(), keys);
+            }
+        }
+        return taken;
+    }
+
+    // Returns the first problem with the row, or null after claiming its unique keys
+    private static String validate(ImportKind kind, Map<String, String> values, Map<String, Set<String>> taken) {
+        for (ImportKind.Field f : kind.getFields()) {
+            String value = values.get(f.name());
+            value = value == null ? "" : value.trim();
+            if (value.isEmpty()) {
+                return f.name() + " is required";
+            }
+            if (f.number()) {
+                try {
+                    if (Integer.parseInt(value) < 0) {
+                        return f.name() + " must not be negative";
+                    }
+                } catch (NumberFormatException e) {
+                    return f.name() + " must be a whole number";
+                }
+            } else if (value.length() > f.maxLength()) {
+                return f.name() + " is longer than " + f.maxLength() + " characters";
+            }
+            if ("email".equals(f.name()) && value.indexOf('@') <= 0) {
+                return "email is not a valid address";
+            }
+            if (f.unique() && taken.get(f.name()).contains(key(value))) {
+                return f.name() + " " + value + " is already in use";
+            }
+        }
+        for (ImportKind.Field f : kind.getFields()) {
+            if (f.unique()) {
+                taken.get(f.name()).add(key(values.get(f.name())));
+            }
+        }
+        return null;
+    }
+
+    private static Object[] toArgs(ImportKind kind, Map<String, String> values) {
+        List<ImportKind.Field> fields = kind.getFields();
+        Object[] args = new Object[fields.size()];
+        for (int i = 0; i < args.length; i++) {
+            String value = values.get(fields.get(i).name()).trim();
+            args[i] = fields.get(i).number() ? Integer.valueOf(value) : value;
+        }
+        return args;
+    }
+
+    private void hashPasswords(ImportKind kind, List<Object[]> chunk, ForkJoinPool pool) {
+        List<ImportKind.Field> fields = kind.getFields();
+        for (int i = 0; i < fields.size(); i++) {
+            if (!fields.get(i).password()) {
+                continue;
+            }
+            int column = i;
+            pool.submit(() -> chunk.parallelStream().forEach(args -> {
+                String value = (String) args[column];
+                if (!PasswordHasher.isHashed(value)) {
+                    args[column] = passwordHasher.hash(value);
+                }
+            })).join();
+        }
+    }
+
+    private void flush(ImportKind kind, List<Object[]> chunk, List<Integer> rows, ImportReport report) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        String sql = kind.insertSql();
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> jdbcTemplate.batchUpdate(sql, chunk));
+            report.imported(chunk.size());
+        } catch (DataAccessException batchFailure) {
+            for (int i = 0; i < chunk.size(); i++) {
+                try {
+                    jdbcTemplate.update(sql, chunk.get(i));
+                    report.imported(1);
+                } catch (DuplicateKeyException e) {
+                    report.failed(rows.get(i), "email, username or mobile number is already in use", maxReportedErrors);
+                } catch (DataAccessException e) {
+                    report.failed(rows.get(i), "could not be saved: " + e.getMostSpecificCause().getMessage(), maxReportedErrors);
+                }
+            }
+        }
+        chunk.clear();
+        rows.clear();
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(pauseMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String key(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,88 @@
+package com.klef.sdp.backend.importer;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * What a bulk import can create, with the columns each input field goes to.
+ * Lengths and unique flags mirror the JPA mappings of Patient and Doctor.
+ */
+public enum ImportKind {
+
+    PATIENTS("patient_table", List.of(
+            Field.text("name", "patient_name", 50),
+            Field.text("gender", "patient_gender", 10),
+            Field.text("dob", "patient_dob", 20),
+            Field.unique("email", "patient_email", 50),
+            Field.unique("username", "patient_uname", 50),
+            Field.password("password", "patient_pwd", 255),
+            Field.unique("mobileno", "patient_mobileno", 20),
+            Field.text("location", "patient_location", 50))),
+
+    DOCTORS("doctor_table", List.of(
+            Field.text("name", "name", 50),
+            Field.text("gender", "gender", 10),
+            Field.text("dob", "dob", 20),
+            Field.unique("email", "email", 50),
+            Field.unique("username", "username", 50),
+            Field.password("password", "password", 255),
+            Field.unique("mobileno", "mobileno", 20),
+            Field.text("specialization", "specialization", 50),
+            Field.text("qualification", "qualification", 50),
+            Field.number("experience", "experience"),
+            Field.text("location", "location", 100)));
+
+    private final String table;
+    private final List<Field> fields;
+
+    ImportKind(String table, List<Field> fields) {
+        this.table = table;
+        this.fields = fields;
+    }
+
+    public String getTable() { return table; }
+
+    public List<Field> getFields() { return fields; }
+
+    public String insertSql() {
+        StringBuilder columns = new StringBuilder();
+        StringBuilder values = new StringBuilder();
+        for (Field f : fields) {
+            columns.append(columns.isEmpty() ? "" : ", ").append(f.column());
+            values.append(values.isEmpty() ? "?" : ", ?");
+        }
+        return "INSERT INTO " + table + " (" + columns + ") VALUES (" + values + ")";
+    }
+
+    public static ImportKind parse(String value) {
+        try {
+            return valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Can import patients or doctors, not " + value);
+        }
+    }
+
+    /**
+     * One required input field. Unique fields are checked against the table
+     * and the rest of the file, ignoring case as MySQL's collation does.
+     * Password fields are hashed before insert unless already hashed.
+     */
+    public record Field(String name, String column, int maxLength, boolean unique, boolean number, boolean password) {
+
+        static Field text(String name, String column, int maxLength) {
+            return new Field(name, column, maxLength, false, false, false);
+        }
+
+        static Field unique(String name, String column, int maxLength) {
+            return new Field(name, column, maxLength, true, false, false);
+        }
+
+        static Field number(String name, String column) {
+            return new Field(name, column, 0, false, true, false);
+        }
+
+        static Field password(String name, String column, int maxLength) {
+            return new Field(name, column, maxLength, false, false, true);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.klef.sdp.backend.importer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of one bulk import. Rows are numbered as in {@link ImportRow}; only
+ * the first {@code import.max-reported-errors} failures are listed.
+ */
+public class ImportReport {
+
+    public record RowError(int row, String message) { }
+
+    private final String kind;
+    private int total;
+    private int imported;
+    private int failed;
+    private final List<RowError> errors = new ArrayList<>();
+    private boolean errorsTruncated;
+    private long elapsedMs;
+
+    public ImportReport(String kind) {
+        this.kind = kind;
+    }
+
+    void rowRead() { total++; }
+
+    void imported(int rows) { imported += rows; }
+
+    void failed(int row, String message, int maxErrors) {
+        failed++;
+        if (errors.size() < maxErrors) {
+            errors.add(new RowError(row, message));
+        } else {
+            errorsTruncated = true;
+        }
+    }
+
+    void setElapsedMs(long elapsedMs) { this.elapsedMs = elapsedMs; }
+
+    // Getters
+    public String getKind() { return kind; }
+
+    public int getTotal() { return total; }
+
+    public int getImported() { return imported; }
+
+    public int getFailed() { return failed; }
+
+    public List<RowError> getErrors() { return errors; }
+
+    public boolean isErrorsTruncated() { return errorsTruncated; }
+
+    public long getElapsedMs() { return elapsedMs; }
+}
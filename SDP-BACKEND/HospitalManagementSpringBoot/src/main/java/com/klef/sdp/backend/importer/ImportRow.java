@@ -0,0 +1,10 @@
+package com.klef.sdp.backend.importer;
+
+import java.util.Map;
+
+/**
+ * One input record, numbered from 1 in file order (the CSV header does not
+ * count). {@code error} is set when the record could not even be parsed.
+ */
+public record ImportRow(int number, Map<String, String> values, String error) {
+}
@@ -0,0 +1,162 @@
+package com.klef.sdp.backend.importer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads import records one at a time from CSV (RFC 4180, header row naming
+ * the fields) or NDJSON (one JSON object per line). Field names are matched
+ * case-insensitively; unknown fields are ignored.
+ */
+public abstract class ImportRowReader {
+
+    public enum Format { CSV, NDJSON }
+
+    protected final BufferedReader in;
+    protected int number;
+
+    protected ImportRowReader(InputStream in) {
+        this.in = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    public static ImportRowReader open(Format format, InputStream in, ObjectMapper objectMapper) throws IOException {
+        return format == Format.CSV ? new Csv(in) : new Ndjson(in, objectMapper);
+    }
+
+    /**
+     * @return the next record, or null at the end of the input
+     */
+    public abstract ImportRow next() throws IOException;
+
+    static final class Csv extends ImportRowReader {
+        private final List<String> header = new ArrayList<>();
+
+        Csv(InputStream in) throws IOException {
+            super(in);
+            List<String> names = readRecord();
+            if (names == null) {
+                throw new IllegalArgumentException("The CSV file is empty");
+            }
+            for (String name : names) {
+                header.add(name.replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT));
+            }
+        }
+
+        List<String> header() { return header; }
+
+        @Override
+        public ImportRow next() throws IOException {
+            List<String> fields;
+            do {
+                fields = readRecord();
+                if (fields == null) {
+                    return null;
+                }
+            } while (fields.size() == 1 && fields.get(0).isBlank());
+            number++;
+            if (fields.size() != header.size()) {
+                return new ImportRow(number, Map.of(), "Expected " + header.size() + " columns, found " + fields.size());
+            }
+            Map<String, String> values = new HashMap<>();
+            for (int i = 0; i < fields.size(); i++) {
+                values.put(header.get(i), fields.get(i));
+            }
+            return new ImportRow(number, values, null);
+        }
+
+        // Fields of the next record, or null at end of input; quoted fields may span lines
+        private List<String> readRecord() throws IOException {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean read = false;
+            int c;
+            while ((c = in.read()) != -1) {
+                read = true;
+                if (quoted) {
+                    if (c != '"') {
+                        field.append((char) c);
+                        continue;
+                    }
+                    in.mark(1);
+                    if (in.read() == '"') {
+                        field.append('"');
+                    } else {
+                        in.reset();
+                        quoted = false;
+                    }
+                } else if (c == '"' && field.isEmpty()) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n') {
+                    break;
+                } else if (c == '\r') {
+                    in.mark(1);
+                    if (in.read() != '\n') {
+                        in.reset();
+                    }
+                    break;
+                } else {
+                    field.append((char) c);
+                }
+            }
+            if (!read) {
+                return null;
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+
+    static final class Ndjson extends ImportRowReader {
+        private final ObjectMapper objectMapper;
+
+        Ndjson(InputStream in, ObjectMapper objectMapper) {
+            super(in);
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        public ImportRow next() throws IOException {
+            String line;
+            do {
+                line = in.readLine();
+                if (line == null) {
+                    return null;
+                }
+            } while (line.isBlank());
+            number++;
+            JsonNode node;
+            try {
+                node = objectMapper.readTree(line);
+            } catch (IOException e) {
+                return new ImportRow(number, Map.of(), "Not valid JSON");
+            }
+            if (node == null || !node.isObject()) {
+                return new ImportRow(number, Map.of(), "Expected a JSON object");
+            }
+            Map<String, String> values = new HashMap<>();
+            for (Iterator<Map.Entry<String, JsonNode>> it = node.fields(); it.hasNext(); ) {
+                Map.Entry<String, JsonNode> e = it.next();
+                if (!e.getValue().isNull()) {
+                    values.put(e.getKey().toLowerCase(Locale.ROOT), e.getValue().asText());
+                }
+            }
+            return new ImportRow(number, values, null);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.klef.sdp.backend.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 
 @Entity
@@ -13,7 +14,9 @@ public class Admin {
     @Column(name = "admin_username", length = 50, nullable = false, unique = true)
     private String username;
 
-    @Column(name = "admin_password", length = 50, nullable = false)
+    // Accepted on registration and updates, never sent back
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+    @Column(name = "admin_password", length = 255, nullable = false)
     private String password;
 
     // --- Getters & Setters ---
@@ -1,13 +1,29 @@
 package com.klef.sdp.backend.model;
 
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.klef.sdp.backend.util.LenientTimeDeserializer;
+import com.klef.sdp.backend.util.ScheduleTimes;
 import jakarta.persistence.*;
 
+import java.time.LocalDate;
+import java.time.LocalTime;
+
 @Entity
-@Table(name = "appointment_table")
+@Table(name = "appointment_table", indexes = {
+        @Index(name = "idx_appointment_doctor_date", columnList = "doctor_id, date, appointment_id"),
+        @Index(name = "idx_appointment_patient_date", columnList = "patient_id, date, appointment_id"),
+        @Index(name = "idx_appointment_date", columnList = "date, appointment_id")
+})
 public class Appointment {
 
+    // Table-backed pooled ids let Hibernate batch inserts, which IDENTITY rules out
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "appointment_id_gen")
+    @TableGenerator(name = "appointment_id_gen", table = "id_generator", pkColumnName = "gen_name",
+            valueColumnName = "gen_value", pkColumnValue = "appointment", allocationSize = 50)
     @Column(name = "appointment_id")
     private Integer id;
 
@@ -27,10 +43,19 @@ public class Appointment {
     private String doctorName;
 
     @Column(name = "date", nullable = false)
-    private String date;
+    private LocalDate date; // "yyyy-MM-dd" in JSON
 
     @Column(name = "time_range", nullable = false)
-    private String timeRange;
+    private String timeRange; // label picked by the patient, e.g. "9AM-12PM"
+
+    // Typed bounds of timeRange, kept in step by setTimeRange
+    @JsonIgnore
+    @Column(name = "slot_start")
+    private LocalTime slotStart;
+
+    @JsonIgnore
+    @Column(name = "slot_end")
+    private LocalTime slotEnd;
 
     @Column(name = "reason", nullable = false)
     private String reason;
@@ -39,11 +64,21 @@ public class Appointment {
     private String status;
 
     @Column(name = "confirmed_time")
-    private String confirmedTime;
+    @JsonFormat(pattern = "h:mm a", locale = "en")
+    @JsonDeserialize(using = LenientTimeDeserializer.class)
+    private LocalTime confirmedTime; // "9:15 AM" in JSON
 
     @Column(name = "doctor_feedback")
     private String doctorFeedback;
 
+    @Column(name = "schedule_id")
+    private Integer scheduleId; // schedule whose capacity this booking holds, null if unscheduled
+
+    // Set on rows read back from the archive tables; only appears in JSON when true
+    @Transient
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private boolean archived;
+
     // Getters & Setters
     public Integer getId() { return id; }
     public void setId(Integer id) { this.id = id; }
@@ -63,11 +98,20 @@ public class Appointment {
     public String getDoctorName() { return doctorName; }
     public void setDoctorName(String doctorName) { this.doctorName = doctorName; }
 
-    public String getDate() { return date; }
-    public void setDate(String date) { this.date = date; }
+    public LocalDate getDate() { return date; }
+    public void setDate(LocalDate date) { this.date = date; }
 
     public String getTimeRange() { return timeRange; }
-    public void setTimeRange(String timeRange) { this.timeRange = timeRange; }
+    public void setTimeRange(String timeRange) {
+        this.timeRange = timeRange;
+        int[] range = ScheduleTimes.parseRange(timeRange);
+        this.slotStart = range == null ? null : ScheduleTimes.fromMinutes(range[0]);
+        this.slotEnd = range == null ? null : ScheduleTimes.fromMinutes(range[1]);
+    }
+
+    public LocalTime getSlotStart() { return slotStart; }
+
+    public LocalTime getSlotEnd() { return slotEnd; }
 
     public String getReason() { return reason; }
     public void setReason(String reason) { this.reason = reason; }
@@ -75,9 +119,15 @@ public class Appointment {
     public String getStatus() { return status; }
     public void setStatus(String status) { this.status = status; }
 
-    public String getConfirmedTime() { return confirmedTime; }
-    public void setConfirmedTime(String confirmedTime) { this.confirmedTime = confirmedTime; }
+    public LocalTime getConfirmedTime() { return confirmedTime; }
+    public void setConfirmedTime(LocalTime confirmedTime) { this.confirmedTime = confirmedTime; }
 
     public String getDoctorFeedback() { return doctorFeedback; }
     public void setDoctorFeedback(String doctorFeedback) { this.doctorFeedback = doctorFeedback; }
+
+    public Integer getScheduleId() { return scheduleId; }
+    public void setScheduleId(Integer scheduleId) { this.scheduleId = scheduleId; }
+
+    public boolean isArchived() { return archived; }
+    public void setArchived(boolean archived) { this.archived = archived; }
 }
@@ -0,0 +1,63 @@
+package com.klef.sdp.backend.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Outbox row for the appointment stream: one per booking or status change,
+ * written in the same transaction as the change itself. Every backend instance
+ * tails this table, so a subscriber sees changes made on any instance, and
+ * event ids double as SSE ids for Last-Event-ID resume.
+ */
+@Entity
+@Table(name = "appointment_event_table", indexes = {
+        @Index(name = "idx_appointment_event_doctor", columnList = "doctor_id, event_id"),
+        @Index(name = "idx_appointment_event_patient", columnList = "patient_id, event_id"),
+        @Index(name = "idx_appointment_event_created", columnList = "created_at")
+})
+public class AppointmentEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "event_id")
+    private Long id;
+
+    @Column(name = "event_type", nullable = false, length = 20)
+    private String eventType;
+
+    @Column(name = "appointment_id", nullable = false)
+    private Integer appointmentId;
+
+    @Column(name = "doctor_id", nullable = false)
+    private Integer doctorId;
+
+    @Column(name = "patient_id", nullable = false)
+    private Integer patientId;
+
+    @Column(name = "payload", nullable = false, columnDefinition = "TEXT")
+    private String payload; // JSON sent as the SSE data field
+
+    @Column(name = "created_at", nullable = false)
+    private long createdAt; // epoch millis
+
+    // Getters & Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getEventType() { return eventType; }
+    public void setEventType(String eventType) { this.eventType = eventType; }
+
+    public Integer getAppointmentId() { return appointmentId; }
+    public void setAppointmentId(Integer appointmentId) { this.appointmentId = appointmentId; }
+
+    public Integer getDoctorId() { return doctorId; }
+    public void setDoctorId(Integer doctorId) { this.doctorId = doctorId; }
+
+    public Integer getPatientId() { return patientId; }
+    public void setPatientId(Integer patientId) { this.patientId = patientId; }
+
+    public String getPayload() { return payload; }
+    public void setPayload(String payload) { this.payload = payload; }
+
+    public long getCreatedAt() { return createdAt; }
+    public void setCreatedAt(long createdAt) { this.createdAt = createdAt; }
+}
@@ -0,0 +1,24 @@
+package com.klef.sdp.backend.model;
+
+/**
+ * Status values stored in appointment_table.status.
+ */
+public final class AppointmentStatus {
+
+    public static final String PENDING = "PENDING";
+    public static final String APPROVED = "APPROVED";
+    public static final String RESCHEDULED = "RESCHEDULED";
+    public static final String DENIED = "DENIED";
+    public static final String REJECTED = "REJECTED";
+    public static final String CANCELLED = "CANCELLED";
+    public static final String COMPLETED = "COMPLETED";
+
+    private AppointmentStatus() {
+    }
+
+    // An appointment occupies a place in its slot until it is denied, rejected or cancelled; a completed
+    // one keeps it, so seeing a patient does not open the session to more bookings than maxAppointments
+    public static boolean holdsCapacity(String status) {
+        return PENDING.equals(status) || APPROVED.equals(status) || RESCHEDULED.equals(status) || COMPLETED.equals(status);
+    }
+}
@@ -1,6 +1,8 @@
 package com.klef.sdp.backend.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
 @Table(name="doctor_table")
@@ -26,7 +28,9 @@ public class Doctor
     @Column(length = 50, nullable = false, unique = true)
     private String username;
 
-    @Column(length = 50, nullable = false)
+    // Accepted on registration and updates, never sent back
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+    @Column(length = 255, nullable = false)
     private String password;
 
     @Column(length = 20, nullable = false, unique = true)
@@ -44,6 +48,12 @@ public class Doctor
     @Column(length = 100, nullable = false)
     private String location;         // e.g., Hospital/Clinic name or City
 
+    // Bumped on every update, so a doctor and an admin editing the profile at once cannot overwrite each other
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     // ---------------- Getters & Setters ----------------
     public int getId() { return id; }
     public void setId(int id) { this.id = id; }
@@ -80,4 +90,7 @@ public class Doctor
 
     public String getLocation() { return location; }
     public void setLocation(String location) { this.location = location; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
 }
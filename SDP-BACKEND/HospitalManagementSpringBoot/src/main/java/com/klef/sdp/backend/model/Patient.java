@@ -1,6 +1,8 @@
 package com.klef.sdp.backend.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
 @Table(name = "patient_table")
@@ -26,7 +28,9 @@ public class Patient
     @Column(name = "patient_uname", length = 50, nullable = false, unique = true)
     private String username;
 
-    @Column(name = "patient_pwd", length = 50, nullable = false)
+    // Accepted on registration and updates, never sent back
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+    @Column(name = "patient_pwd", length = 255, nullable = false)
     private String password;
 
     @Column(name = "patient_mobileno", length = 20, nullable = false, unique = true)
@@ -35,6 +39,12 @@ public class Patient
     @Column(name = "patient_location", length = 50, nullable = false)
     private String location;
 
+    // Optimistic lock; clients send back the version they read (see PartialUpdateRepository)
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     // Getters & Setters
     public int getId() { return id; }
     public void setId(int id) { this.id = id; }
@@ -62,4 +72,7 @@ public class Patient
 
     public String getLocation() { return location; }
     public void setLocation(String location) { this.location = location; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
 }
\ No newline at end of file
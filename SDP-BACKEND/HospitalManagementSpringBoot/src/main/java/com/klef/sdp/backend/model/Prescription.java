@@ -1,9 +1,17 @@
 package com.klef.sdp.backend.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.LocalDate;
 
 @Entity
-@Table(name = "prescription_table")
+@Table(name = "prescription_table", indexes = {
+        @Index(name = "idx_prescription_doctor_date", columnList = "doctor_id, date"),
+        @Index(name = "idx_prescription_patient_date", columnList = "patient_id, date"),
+        @Index(name = "idx_prescription_date", columnList = "date, prescription_id")
+})
 public class Prescription {
     
     @Id
@@ -26,8 +34,8 @@ public class Prescription {
     @Column(name = "appointment_id")
     private Integer appointmentId;
     
-    @Column(name = "date", nullable = false, length = 20)
-    private String date;
+    @Column(name = "date", nullable = false)
+    private LocalDate date; // "yyyy-MM-dd" in JSON
     
     @Column(name = "medications", nullable = false, columnDefinition = "TEXT")
     private String medications; // JSON or comma-separated
@@ -44,6 +52,17 @@ public class Prescription {
     @Column(name = "notes", columnDefinition = "TEXT")
     private String notes;
     
+    // An edit made against an older version is refused with 409
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+    
+    // Set on rows read back from the archive tables; only appears in JSON when true
+    @Transient
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private boolean archived;
+    
     // Getters & Setters
     public Integer getId() { return id; }
     public void setId(Integer id) { this.id = id; }
@@ -63,8 +82,8 @@ public class Prescription {
     public Integer getAppointmentId() { return appointmentId; }
     public void setAppointmentId(Integer appointmentId) { this.appointmentId = appointmentId; }
     
-    public String getDate() { return date; }
-    public void setDate(String date) { this.date = date; }
+    public LocalDate getDate() { return date; }
+    public void setDate(LocalDate date) { this.date = date; }
     
     public String getMedications() { return medications; }
     public void setMedications(String medications) { this.medications = medications; }
@@ -80,5 +99,10 @@ public class Prescription {
     
     public String getNotes() { return notes; }
     public void setNotes(String notes) { this.notes = notes; }
+    
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+    
+    public boolean isArchived() { return archived; }
+    public void setArchived(boolean archived) { this.archived = archived; }
 }
-
@@ -0,0 +1,123 @@
+package com.klef.sdp.backend.model;
+
+import com.klef.sdp.backend.util.MedicationParser;
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One drug of a prescription, parsed from its medications text by
+ * MedicationParser. Rewritten whenever the prescription is saved; the text
+ * stays the source of truth. Doctor, patient and date are copied from the
+ * prescription so drug lookups and per-doctor counts are served from this
+ * table's indexes alone.
+ */
+@Entity
+@Table(name = "prescription_item", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_prescription_item_line", columnNames = { "prescription_id", "line_no" })
+}, indexes = {
+        @Index(name = "idx_prescription_item_drug_date", columnList = "drug_key, date"),
+        @Index(name = "idx_prescription_item_doctor_date", columnList = "doctor_id, date, drug_key"),
+        @Index(name = "idx_prescription_item_date", columnList = "date, drug_key")
+})
+public class PrescriptionItem {
+
+    private static final int DRUG_LENGTH = 100;
+    private static final int DETAIL_LENGTH = 50;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "item_id")
+    private Long id;
+
+    @Column(name = "prescription_id", nullable = false)
+    private Integer prescriptionId;
+
+    @Column(name = "line_no", nullable = false)
+    private int lineNo;
+
+    @Column(name = "doctor_id", nullable = false)
+    private Integer doctorId;
+
+    @Column(name = "patient_id")
+    private Integer patientId;
+
+    @Column(name = "date", nullable = false)
+    private LocalDate date;
+
+    @Column(name = "drug", nullable = false, length = DRUG_LENGTH)
+    private String drug;
+
+    // Lower-cased drug, what lookups match on
+    @Column(name = "drug_key", nullable = false, length = DRUG_LENGTH)
+    private String drugKey;
+
+    @Column(name = "dose", length = DETAIL_LENGTH)
+    private String dose;
+
+    @Column(name = "frequency", length = DETAIL_LENGTH)
+    private String frequency;
+
+    @Column(name = "duration", length = DETAIL_LENGTH)
+    private String duration;
+
+    /** The line items of a saved prescription's medications text, numbered from 1. */
+    public static List<PrescriptionItem> of(Prescription prescription) {
+        List<PrescriptionItem> items = new ArrayList<>();
+        for (MedicationParser.Line line : MedicationParser.parse(prescription.getMedications())) {
+            PrescriptionItem item = new PrescriptionItem();
+            item.prescriptionId = prescription.getId();
+            item.lineNo = items.size() + 1;
+            item.doctorId = prescription.getDoctorId();
+            item.patientId = prescription.getPatientId();
+            item.date = prescription.getDate();
+            item.drug = truncate(line.drug(), DRUG_LENGTH);
+            item.drugKey = truncate(MedicationParser.drugKey(line.drug()), DRUG_LENGTH);
+            item.dose = truncate(line.dose(), DETAIL_LENGTH);
+            item.frequency = truncate(line.frequency(), DETAIL_LENGTH);
+            item.duration = truncate(line.duration(), DETAIL_LENGTH);
+            items.add(item);
+        }
+        return items;
+    }
+
+    private static String truncate(String text, int length) {
+        return text == null || text.length() <= length ? text : text.substring(0, length);
+    }
+
+    // Getters & Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Integer getPrescriptionId() { return prescriptionId; }
+    public void setPrescriptionId(Integer prescriptionId) { this.prescriptionId = prescriptionId; }
+
+    public int getLineNo() { return lineNo; }
+    public void setLineNo(int lineNo) { this.lineNo = lineNo; }
+
+    public Integer getDoctorId() { return doctorId; }
+    public void setDoctorId(Integer doctorId) { this.doctorId = doctorId; }
+
+    public Integer getPatientId() { return patientId; }
+    public void setPatientId(Integer patientId) { this.patientId = patientId; }
+
+    public LocalDate getDate() { return date; }
+    public void setDate(LocalDate date) { this.date = date; }
+
+    public String getDrug() { return drug; }
+    public void setDrug(String drug) { this.drug = drug; }
+
+    public String getDrugKey() { return drugKey; }
+    public void setDrugKey(String drugKey) { this.drugKey = drugKey; }
+
+    public String getDose() { return dose; }
+    public void setDose(String dose) { this.dose = dose; }
+
+    public String getFrequency() { return frequency; }
+    public void setFrequency(String frequency) { this.frequency = frequency; }
+
+    public String getDuration() { return duration; }
+    public void setDuration(String duration) { this.duration = duration; }
+}
@@ -1,10 +1,18 @@
 package com.klef.sdp.backend.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.klef.sdp.backend.util.LenientTimeDeserializer;
+
+import java.time.LocalTime;
 
 @Entity
-@Table(name = "schedule_table")
+@Table(name = "schedule_table", indexes = {
+        @Index(name = "idx_schedule_doctor", columnList = "doctor_id, schedule_id")
+})
 public class Schedule {
     
     @Id
@@ -18,11 +26,15 @@ public class Schedule {
     @Column(name = "day_of_week", nullable = false, length = 20)
     private String dayOfWeek; // Monday, Tuesday, etc.
     
-    @Column(name = "start_time", nullable = false, length = 20)
-    private String startTime; // e.g., "09:00 AM"
+    @Column(name = "start_time", nullable = false)
+    @JsonFormat(pattern = "hh:mm a", locale = "en")
+    @JsonDeserialize(using = LenientTimeDeserializer.class)
+    private LocalTime startTime; // e.g., "09:00 AM" in JSON
     
-    @Column(name = "end_time", nullable = false, length = 20)
-    private String endTime; // e.g., "05:00 PM"
+    @Column(name = "end_time", nullable = false)
+    @JsonFormat(pattern = "hh:mm a", locale = "en")
+    @JsonDeserialize(using = LenientTimeDeserializer.class)
+    private LocalTime endTime; // e.g., "05:00 PM" in JSON
     
     @Column(name = "is_available", nullable = false)
     @JsonProperty("isAvailable")
@@ -31,6 +43,11 @@ public class Schedule {
     @Column(name = "max_appointments", nullable = false)
     private Integer maxAppointments = 10;
     
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+    
     // Getters & Setters
     public Integer getId() { return id; }
     public void setId(Integer id) { this.id = id; }
@@ -41,11 +58,11 @@ public class Schedule {
     public String getDayOfWeek() { return dayOfWeek; }
     public void setDayOfWeek(String dayOfWeek) { this.dayOfWeek = dayOfWeek; }
     
-    public String getStartTime() { return startTime; }
-    public void setStartTime(String startTime) { this.startTime = startTime; }
+    public LocalTime getStartTime() { return startTime; }
+    public void setStartTime(LocalTime startTime) { this.startTime = startTime; }
     
-    public String getEndTime() { return endTime; }
-    public void setEndTime(String endTime) { this.endTime = endTime; }
+    public LocalTime getEndTime() { return endTime; }
+    public void setEndTime(LocalTime endTime) { this.endTime = endTime; }
     
     public Boolean getIsAvailable() { return isAvailable; }
     public void setIsAvailable(Boolean isAvailable) { this.isAvailable = isAvailable; }
@@ -55,5 +72,8 @@ public class Schedule {
     
     public Integer getMaxAppointments() { return maxAppointments; }
     public void setMaxAppointments(Integer maxAppointments) { this.maxAppointments = maxAppointments; }
+    
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
 }
 
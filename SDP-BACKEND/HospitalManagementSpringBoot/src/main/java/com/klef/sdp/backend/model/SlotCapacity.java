@@ -0,0 +1,56 @@
+package com.klef.sdp.backend.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+
+/**
+ * Capacity ledger: one row per schedule and calendar date. {@code booked} only
+ * moves through conditional UPDATEs so concurrent backends can never push it
+ * past {@code capacity}.
+ */
+@Entity
+@Table(name = "slot_capacity_table", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_slot_schedule_date", columnNames = { "schedule_id", "slot_date" })
+})
+public class SlotCapacity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "slot_id")
+    private Long id;
+
+    @Column(name = "schedule_id", nullable = false)
+    private Integer scheduleId;
+
+    @Column(name = "doctor_id", nullable = false)
+    private Integer doctorId;
+
+    @Column(name = "slot_date", nullable = false)
+    private LocalDate slotDate;
+
+    @Column(name = "capacity", nullable = false)
+    private int capacity;
+
+    @Column(name = "booked", nullable = false)
+    private int booked;
+
+    // Getters & Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Integer getScheduleId() { return scheduleId; }
+    public void setScheduleId(Integer scheduleId) { this.scheduleId = scheduleId; }
+
+    public Integer getDoctorId() { return doctorId; }
+    public void setDoctorId(Integer doctorId) { this.doctorId = doctorId; }
+
+    public LocalDate getSlotDate() { return slotDate; }
+    public void setSlotDate(LocalDate slotDate) { this.slotDate = slotDate; }
+
+    public int getCapacity() { return capacity; }
+    public void setCapacity(int capacity) { this.capacity = capacity; }
+
+    public int getBooked() { return booked; }
+    public void setBooked(int booked) { this.booked = booked; }
+}
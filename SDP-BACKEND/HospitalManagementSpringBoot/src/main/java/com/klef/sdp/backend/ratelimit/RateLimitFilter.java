@@ -0,0 +1,221 @@
+package com.klef.sdp.backend.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.klef.sdp.backend.auth.AuthPrincipal;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate limits logins and bookings per client IP and per account, answering
+ * 429 with Retry-After before the request reaches a controller (and so
+ * before any repository call).
+ *
+ * Login attempts are counted against the username in the body, so guessing
+ * one account's password from many addresses is limited too. Bookings are
+ * counted against the logged-in user, so this runs after AuthFilter.
+ *
+ * The IP is the connection's remote address. X-Forwarded-For is ignored
+ * because clients can set it to anything.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 30)
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final int MAX_LOGIN_BODY_BYTES = 4096;
+
+    private record Limit(RateLimiter perIp, RateLimiter perAccount) { }
+
+    private record Endpoint(Limit limit, String accountPrefix) { }   // accountPrefix set for logins
+
+    @Value("${ratelimit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ratelimit.max-keys:100000}")
+    private int maxKeys;
+
+    @Value("${ratelimit.login.ip.capacity:20}")
+    private int loginIpCapacity;
+
+    @Value("${ratelimit.login.ip.per-minute:30}")
+    private int loginIpPerMinute;
+
+    @Value("${ratelimit.login.account.capacity:5}")
+    private int loginAccountCapacity;
+
+    @Value("${ratelimit.login.account.per-minute:5}")
+    private int loginAccountPerMinute;
+
+    @Value("${ratelimit.booking.ip.capacity:30}")
+    private int bookingIpCapacity;
+
+    @Value("${ratelimit.booking.ip.per-minute:60}")
+    private int bookingIpPerMinute;
+
+    @Value("${ratelimit.booking.account.capacity:10}")
+    private int bookingAccountCapacity;
+
+    @Value("${ratelimit.booking.account.per-minute:20}")
+    private int bookingAccountPerMinute;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Map<String, Endpoint> endpoints = Map.of(); // POST path -> endpoint
+
+    @PostConstruct
+    void init() {
+        Limit login = new Limit(new RateLimiter(loginIpCapacity, loginIpPerMinute, maxKeys),
+                new RateLimiter(loginAccountCapacity, loginAccountPerMinute, maxKeys));
+        Limit booking = new Limit(new RateLimiter(bookingIpCapacity, bookingIpPerMinute, maxKeys),
+                new RateLimiter(bookingAccountCapacity, bookingAccountPerMinute, maxKeys));
+        endpoints = Map.of(
+                "/admin/login", new Endpoint(login, "ADMIN:"),
+                "/doctor/checkdoctorlogin", new Endpoint(login, "DOCTOR:"),
+                "/patient/checklogin", new Endpoint(login, "PATIENT:"),
+                "/appointments/book", new Endpoint(booking, null),
+                "/appointments/book/batch", new Endpoint(booking, null));
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !"POST".equals(request.getMethod())
+                || !endpoints.containsKey(request.getRequestURI().substring(request.getContextPath().length()));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Endpoint endpoint = endpoints.get(request.getRequestURI().substring(request.getContextPath().length()));
+        if (reject(response, endpoint.limit().perIp().tryAcquire(request.getRemoteAddr()))) {
+            return;
+        }
+        String account;
+        if (endpoint.accountPrefix() != null) {
+            byte[] body = request.getInputStream().readNBytes(MAX_LOGIN_BODY_BYTES + 1);
+            if (body.length > MAX_LOGIN_BODY_BYTES) {
+                response.setStatus(413);
+                response.setContentType("text/plain;charset=UTF-8");
+                response.getWriter().write("Request body too large");
+                return;
+            }
+            request = new CachedBodyRequest(request, body);
+            String username = username(body);
+            account = username == null ? null : endpoint.accountPrefix() + username;
+        } else {
+            AuthPrincipal principal = (AuthPrincipal) request.getAttribute(AuthPrincipal.ATTRIBUTE);
+            account = principal == null ? null : principal.role() + ":" + principal.id();
+        }
+        if (account != null && reject(response, endpoint.limit().perAccount().tryAcquire(account))) {
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    private String username(byte[] body) {
+        try {
+            String username = objectMapper.readTree(body).path("username").asText("");
+            return username.isEmpty() ? null : username;
+        } catch (IOException e) {
+            return null; // malformed JSON, which the controller answers with 400
+        }
+    }
+
+    private static boolean reject(HttpServletResponse response, long waitNanos) throws IOException {
+        if (waitNanos == 0) {
+            return false;
+        }
+        response.setStatus(429);
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos - 1) + 1)));
+        response.setContentType("text/plain;charset=UTF-8");
+        response.getWriter().write("Too many requests, please retry later");
+        return true;
+    }
+
+    // Login bodies are read here for the username, then replayed to the controller
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                // The whole body is already in memory, so it is available at once and always ready
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    try {
+                        if (!isFinished()) {
+                            listener.onDataAvailable();
+                        }
+                        if (isFinished()) {
+                            listener.onAllDataRead();
+                        }
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.klef.sdp.backend.ratelimit;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets per key, for example one per client IP. Each bucket holds up
+ * to {@code capacity} requests and earns one back every
+ * {@code 60 / perMinute} seconds.
+ *
+ * A bucket is a single AtomicLong: the time at which it would be full again
+ * (GCRA). A check is one read and one compare-and-set, with no locks, and
+ * a key seen before needs no allocation.
+ *
+ * The map is bounded. Once it holds {@code maxKeys} buckets, the full (idle)
+ * ones are swept out, since an idle bucket behaves exactly like a new one.
+ * If every bucket is still in use after the sweep, keys without a bucket
+ * share a single overflow bucket until room frees up.
+ */
+public class RateLimiter {
+
+    // Sweep at most this often, so a map full of active buckets is not rescanned on every new key
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final long intervalNanos;   // time to earn one request back
+    private final long toleranceNanos;  // how far ahead of now a bucket may run: (capacity - 1) intervals
+    private final int maxKeys;
+
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong overflow;
+    private final AtomicLong nextSweep;
+
+    public RateLimiter(int capacity, int perMinute, int maxKeys) {
+        if (capacity < 1 || perMinute < 1 || maxKeys < 1) {
+            throw new IllegalArgumentException("capacity, perMinute and maxKeys must be positive");
+        }
+        this.intervalNanos = TimeUnit.MINUTES.toNanos(1) / perMinute;
+        this.toleranceNanos = (capacity - 1) * intervalNanos;
+        this.maxKeys = maxKeys;
+        long now = System.nanoTime();
+        this.overflow = new AtomicLong(now);
+        this.nextSweep = new AtomicLong(now);
+    }
+
+    /**
+     * Takes one request from {@code key}'s bucket. Returns 0 if it was
+     * allowed, otherwise how many nanoseconds until the next request would be.
+     */
+    public long tryAcquire(String key) {
+        return tryAcquire(key, System.nanoTime());
+    }
+
+    long tryAcquire(String key, long now) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = insert(key, now);
+        }
+        while (true) {
+            long fullAt = bucket.get();
+            long wait = fullAt - toleranceNanos - now;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(fullAt, Math.max(fullAt, now) + intervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    private AtomicLong insert(String key, long now) {
+        if (buckets.size() >= maxKeys) {
+            sweep(now);
+            if (buckets.size() >= maxKeys) {
+                return overflow;
+            }
+        }
+        AtomicLong fresh = new AtomicLong(now);
+        AtomicLong existing = buckets.putIfAbsent(key, fresh);
+        return existing != null ? existing : fresh;
+    }
+
+    // A bucket refilled between the check and the removal loses that one request's
+    // worth of history, which at worst lets its key through once more.
+    private void sweep(long now) {
+        long due = nextSweep.get();
+        if (now - due < 0 || !nextSweep.compareAndSet(due, now + SWEEP_INTERVAL_NANOS)) {
+            return; // swept recently, or another thread is sweeping
+        }
+        buckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+    }
+}
@@ -1,12 +1,22 @@
 package com.klef.sdp.backend.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import com.klef.sdp.backend.model.Admin;
 
 @Repository
 public interface AdminRepository extends JpaRepository<Admin, Integer>
 {
-    // Used for login
-    public Admin findByUsernameAndPassword(String username, String password);
+    // Login looks the user up by name only; the password is checked against its hash
+    public Admin findByUsername(String username);
+
+    // Rehash on login; only applies if nobody changed the password meanwhile
+    @Modifying
+    @Transactional
+    @Query("update Admin a set a.password = :hash where a.id = :id and a.password = :old")
+    public int updatePassword(@Param("id") int id, @Param("old") String old, @Param("hash") String hash);
 }
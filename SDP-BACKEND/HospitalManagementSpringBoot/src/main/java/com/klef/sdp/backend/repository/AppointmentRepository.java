@@ -2,12 +2,21 @@ package com.klef.sdp.backend.repository;
 
 import com.klef.sdp.backend.model.Appointment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @Repository
-public interface AppointmentRepository extends JpaRepository<Appointment, Integer> {
+public interface AppointmentRepository extends JpaRepository<Appointment, Integer>, JpaSpecificationExecutor<Appointment> {
     List<Appointment> findByDoctorId(Integer doctorId);
     List<Appointment> findByPatientId(Integer patientId);
+    List<Appointment> findByDoctorIdAndDate(Integer doctorId, LocalDate date);
+
+    // Date-range reads served by the (owner, date, appointment_id) indexes
+    List<Appointment> findByDoctorIdAndDateBetweenOrderByDateAscSlotStartAscIdAsc(Integer doctorId, LocalDate from, LocalDate to);
+    List<Appointment> findByPatientIdAndDateBetweenOrderByDateAscSlotStartAscIdAsc(Integer patientId, LocalDate from, LocalDate to);
+    boolean existsByDoctorIdAndPatientId(Integer doctorId, Integer patientId);
+    long countByDoctorIdAndDate(Integer doctorId, LocalDate date);
 }
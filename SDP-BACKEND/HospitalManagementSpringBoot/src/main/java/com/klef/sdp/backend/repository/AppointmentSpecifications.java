@@ -0,0 +1,60 @@
+package com.klef.sdp.backend.repository;
+
+import com.klef.sdp.backend.model.Appointment;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+/**
+ * Filter and seek predicates for the paginated appointment queries.
+ * Every query is anchored on doctor_id or patient_id so it is served by the
+ * (owner, date, appointment_id) indexes declared on {@link Appointment}.
+ */
+public final class AppointmentSpecifications {
+
+    private AppointmentSpecifications() {
+    }
+
+    public static Sort keysetSort(boolean descending) {
+        Sort.Direction direction = descending ? Sort.Direction.DESC : Sort.Direction.ASC;
+        return Sort.by(direction, "date").and(Sort.by(direction, "id"));
+    }
+
+    public static Specification<Appointment> forDoctor(int doctorId) {
+        return (root, query, cb) -> cb.equal(root.get("doctorId"), doctorId);
+    }
+
+    public static Specification<Appointment> forPatient(int patientId) {
+        return (root, query, cb) -> cb.equal(root.get("patientId"), patientId);
+    }
+
+    public static Specification<Appointment> statusIn(Collection<String> statuses) {
+        return (root, query, cb) -> root.get("status").in(statuses);
+    }
+
+    public static Specification<Appointment> dateFrom(LocalDate from) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.<LocalDate>get("date"), from);
+    }
+
+    public static Specification<Appointment> dateTo(LocalDate to) {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.<LocalDate>get("date"), to);
+    }
+
+    public static Specification<Appointment> reasonContains(String text) {
+        String pattern = "%" + text.toLowerCase().replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        return (root, query, cb) -> cb.like(cb.lower(root.get("reason")), pattern, '\\');
+    }
+
+    /**
+     * Seek predicate: rows strictly after (date, id) in the sort order.
+     */
+    public static Specification<Appointment> after(LocalDate date, int id, boolean descending) {
+        return (root, query, cb) -> descending
+                ? cb.or(cb.lessThan(root.<LocalDate>get("date"), date),
+                        cb.and(cb.equal(root.<LocalDate>get("date"), date), cb.lessThan(root.<Integer>get("id"), id)))
+                : cb.or(cb.greaterThan(root.<LocalDate>get("date"), date),
+                        cb.and(cb.equal(root.<LocalDate>get("date"), date), cb.greaterThan(root.<Integer>get("id"), id)));
+    }
+}
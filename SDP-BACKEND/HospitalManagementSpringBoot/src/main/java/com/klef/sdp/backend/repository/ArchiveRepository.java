@@ -0,0 +1,196 @@
+package com.klef.sdp.backend.repository;
+
+import com.klef.sdp.backend.model.Appointment;
+import com.klef.sdp.backend.model.Prescription;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * JDBC access to appointment_archive and prescription_archive (see
+ * SchemaMigrations for their layout). Moves copy and delete by primary key
+ * so each chunk touches only the rows it archives.
+ */
+@Repository
+public class ArchiveRepository {
+
+    private static final String APPOINTMENT_COLUMNS = "appointment_id, patient_id, patient_name, patient_contact, "
+            + "doctor_id, doctor_name, `date`, time_range, slot_start, slot_end, reason, status, confirmed_time, "
+            + "doctor_feedback, schedule_id";
+
+    private static final String PRESCRIPTION_COLUMNS = "prescription_id, doctor_id, doctor_name, patient_id, patient_name, "
+            + "appointment_id, `date`, medications, dosage, instructions, diagnosis, notes";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    private volatile Boolean mysql;
+
+    /**
+     * Oldest hot appointments dated before {@code cutoff} with one of the given statuses.
+     */
+    public List<Integer> findArchivableIds(LocalDate cutoff, Collection<String> statuses, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("cutoff", cutoff)
+                .addValue("statuses", statuses)
+                .addValue("limit", limit);
+        return namedJdbcTemplate.queryForList("SELECT appointment_id FROM appointment_table "
+                + "WHERE `date` < :cutoff AND status IN (:statuses) ORDER BY `date`, appointment_id LIMIT :limit",
+                params, Integer.class);
+    }
+
+    public LocalDate findOldestDate(LocalDate cutoff, Collection<String> statuses) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("cutoff", cutoff)
+                .addValue("statuses", statuses);
+        return namedJdbcTemplate.queryForObject("SELECT MIN(`date`) FROM appointment_table "
+                + "WHERE `date` < :cutoff AND status IN (:statuses)", params, LocalDate.class);
+    }
+
+    /**
+     * Copies the appointments and their prescriptions into the archive tables
+     * and deletes them from the hot tables. Must run inside a transaction.
+     * Archived prescriptions lose their line items; their medications text is
+     * kept.
+     *
+     * @return {appointments moved, prescriptions moved}
+     */
+    public int[] move(List<Integer> appointmentIds) {
+        MapSqlParameterSource ids = new MapSqlParameterSource("ids", appointmentIds);
+        namedJdbcTemplate.update("DELETE FROM prescription_item WHERE prescription_id IN "
+                + "(SELECT prescription_id FROM prescription_table WHERE appointment_id IN (:ids))", ids);
+        namedJdbcTemplate.update("INSERT INTO prescription_archive (" + PRESCRIPTION_COLUMNS + ") SELECT "
+                + PRESCRIPTION_COLUMNS + " FROM prescription_table WHERE appointment_id IN (:ids)", ids);
+        int prescriptions = namedJdbcTemplate.update("DELETE FROM prescription_table WHERE appointment_id IN (:ids)", ids);
+        namedJdbcTemplate.update("INSERT INTO appointment_archive (" + APPOINTMENT_COLUMNS + ") SELECT "
+                + APPOINTMENT_COLUMNS + " FROM appointment_table WHERE appointment_id IN (:ids)", ids);
+        int appointments = namedJdbcTemplate.update("DELETE FROM appointment_table WHERE appointment_id IN (:ids)", ids);
+        return new int[] { appointments, prescriptions };
+    }
+
+    // Patients whose prescription list changes when these appointments move
+    public List<Integer> findPrescriptionPatientIds(List<Integer> appointmentIds) {
+        return namedJdbcTemplate.queryForList("SELECT DISTINCT patient_id FROM prescription_table "
+                + "WHERE appointment_id IN (:ids) AND patient_id IS NOT NULL",
+                new MapSqlParameterSource("ids", appointmentIds), Integer.class);
+    }
+
+    // Capacity ledger rows for past dates are never read again
+    public int deleteLedgerRowsBefore(LocalDate cutoff, int limit) {
+        return jdbcTemplate.update("DELETE FROM slot_capacity_table WHERE slot_date < ? LIMIT " + limit, cutoff);
+    }
+
+    public List<Appointment> findAppointmentsByPatient(int patientId) {
+        return jdbcTemplate.query("SELECT " + APPOINTMENT_COLUMNS + " FROM appointment_archive "
+                + "WHERE patient_id = ? ORDER BY `date`, appointment_id", APPOINTMENT_MAPPER, patientId);
+    }
+
+    public boolean hasAppointment(int doctorId, int patientId) {
+        return !jdbcTemplate.queryForList("SELECT 1 FROM appointment_archive WHERE patient_id = ? AND doctor_id = ? LIMIT 1",
+                Integer.class, patientId, doctorId).isEmpty();
+    }
+
+    public List<Prescription> findPrescriptionsByPatient(int patientId) {
+        return jdbcTemplate.query("SELECT " + PRESCRIPTION_COLUMNS + " FROM prescription_archive "
+                + "WHERE patient_id = ? ORDER BY `date`, prescription_id", PRESCRIPTION_MAPPER, patientId);
+    }
+
+    /**
+     * MySQL only: splits the catch-all partition so that every month up to
+     * and including {@code until} has its own partition. Months older than the
+     * first partition simply land in it.
+     */
+    public void ensureMonthPartitions(String table, YearMonth from, YearMonth until) {
+        if (!isMySql()) {
+            return;
+        }
+        Set<String> existing = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT PARTITION_NAME FROM information_schema.PARTITIONS "
+                        + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL",
+                String.class, table));
+        if (!existing.contains("p_max")) {
+            return; // not partitioned
+        }
+        YearMonth newest = null;
+        for (String name : existing) {
+            if (name.matches("p\\d{6}")) {
+                YearMonth month = YearMonth.of(Integer.parseInt(name.substring(1, 5)), Integer.parseInt(name.substring(5)));
+                newest = newest == null || month.isAfter(newest) ? month : newest;
+            }
+        }
+        YearMonth month = newest == null ? from : newest.plusMonths(1);
+        for (; !month.isAfter(until); month = month.plusMonths(1)) {
+            jdbcTemplate.execute("ALTER TABLE " + table + " REORGANIZE PARTITION p_max INTO ("
+                    + "PARTITION " + partitionName(month) + " VALUES LESS THAN ('" + month.plusMonths(1).atDay(1) + "'), "
+                    + "PARTITION p_max VALUES LESS THAN (MAXVALUE))");
+        }
+    }
+
+    private boolean isMySql() {
+        Boolean mysql = this.mysql;
+        if (mysql == null) {
+            mysql = jdbcTemplate.execute((ConnectionCallback<Boolean>) con ->
+                    con.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT).contains("mysql"));
+            this.mysql = mysql;
+        }
+        return mysql;
+    }
+
+    private static String partitionName(YearMonth month) {
+        return String.format("p%04d%02d", month.getYear(), month.getMonthValue());
+    }
+
+    private static final RowMapper<Appointment> APPOINTMENT_MAPPER = (rs, i) -> {
+        Appointment a = new Appointment();
+        a.setId(rs.getInt("appointment_id"));
+        a.setPatientId(rs.getInt("patient_id"));
+        a.setPatientName(rs.getString("patient_name"));
+        a.setPatientContact(rs.getString("patient_contact"));
+        a.setDoctorId(rs.getInt("doctor_id"));
+        a.setDoctorName(rs.getString("doctor_name"));
+        a.setDate(rs.getObject("date", LocalDate.class));
+        a.setTimeRange(rs.getString("time_range"));
+        a.setReason(rs.getString("reason"));
+        a.setStatus(rs.getString("status"));
+        Time confirmed = rs.getTime("confirmed_time");
+        a.setConfirmedTime(confirmed == null ? null : confirmed.toLocalTime());
+        a.setDoctorFeedback(rs.getString("doctor_feedback"));
+        a.setScheduleId((Integer) rs.getObject("schedule_id"));
+        a.setArchived(true);
+        return a;
+    };
+
+    private static final RowMapper<Prescription> PRESCRIPTION_MAPPER = (rs, i) -> {
+        Prescription p = new Prescription();
+        p.setId(rs.getInt("prescription_id"));
+        p.setDoctorId(rs.getInt("doctor_id"));
+        p.setDoctorName(rs.getString("doctor_name"));
+        p.setPatientId((Integer) rs.getObject("patient_id"));
+        p.setPatientName(rs.getString("patient_name"));
+        p.setAppointmentId((Integer) rs.getObject("appointment_id"));
+        p.setDate(rs.getObject("date", LocalDate.class));
+        p.setMedications(rs.getString("medications"));
+        p.setDosage(rs.getString("dosage"));
+        p.setInstructions(rs.getString("instructions"));
+        p.setDiagnosis(rs.getString("diagnosis"));
+        p.setNotes(rs.getString("notes"));
+        p.setArchived(true);
+        return p;
+    };
+}
@@ -1,14 +1,38 @@
 package com.klef.sdp.backend.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import com.klef.sdp.backend.dto.DoctorAdminSummary;
+import com.klef.sdp.backend.dto.DoctorSummary;
 import com.klef.sdp.backend.model.Doctor;
 
+import java.util.List;
+
 @Repository
 public interface DoctorRepository extends JpaRepository<Doctor, Integer>
 {
-    public Doctor findByUsernameAndPassword(String username, String password);
+    // Login looks the user up by name only; the password is checked against its hash
+    public Doctor findByUsername(String username);
+
+    // Rehash on login; only applies if nobody changed the password meanwhile
+    @Modifying
+    @Transactional
+    @Query("update Doctor d set d.password = :hash where d.id = :id and d.password = :old")
+    public int updatePassword(@Param("id") int id, @Param("old") String old, @Param("hash") String hash);
 
     // ✅ check if username already exists
     public boolean existsByUsername(String username);
+
+    // List views select only their columns and return unmanaged records, so nothing is snapshotted for dirty checking
+    @Query("select new com.klef.sdp.backend.dto.DoctorSummary(d.id, d.name, d.specialization, d.location) "
+            + "from Doctor d order by d.id")
+    public List<DoctorSummary> findAllSummaries();
+
+    @Query("select new com.klef.sdp.backend.dto.DoctorAdminSummary(d.id, d.name, d.gender, d.email, d.username, "
+            + "d.mobileno, d.specialization, d.qualification, d.experience, d.location) from Doctor d order by d.id")
+    public List<DoctorAdminSummary> findAllAdminSummaries();
 }
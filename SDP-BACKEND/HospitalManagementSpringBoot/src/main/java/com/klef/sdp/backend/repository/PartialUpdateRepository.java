@@ -0,0 +1,152 @@
+package com.klef.sdp.backend.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.klef.sdp.backend.exception.InvalidPatchException;
+import jakarta.persistence.Column;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.SingularAttribute;
+import org.springframework.beans.DirectFieldAccessor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Partial updates of entities with a @Version attribute. A patch is applied
+ * as one {@code UPDATE ... SET <given columns>, version = version + 1
+ * WHERE id = ? AND version = ?}: no SELECT first, untouched columns are not
+ * written, and an edit based on a version someone else has already moved
+ * past matches no row instead of overwriting their change. A copy of the
+ * row already loaded in the current persistence context is detached once
+ * the patch applies, so it is not mistaken for the new state.
+ */
+@Repository
+public class PartialUpdateRepository {
+
+    public static final String VERSION = "version";
+
+    /**
+     * The version the client last read, and the new attribute values by
+     * entity attribute name (the same as the JSON field names).
+     */
+    public record Patch(long version, Map<String, Object> values) { }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Reads a PATCH body: {@code version} plus any of the {@code patchable}
+     * attributes, each converted the way the entity's own JSON is.
+     *
+     * @throws InvalidPatchException saying what is wrong with the body
+     */
+    public Patch read(Class<?> type, JsonNode body, Set<String> patchable) {
+        if (body == null || !body.isObject()) {
+            throw new InvalidPatchException("Send the fields to change as a JSON object");
+        }
+        JsonNode version = body.get(VERSION);
+        if (version == null || !version.canConvertToExactIntegral()) {
+            throw new InvalidPatchException("version is required: send the version you last read");
+        }
+        Object parsed;
+        try {
+            parsed = objectMapper.treeToValue(body, type);
+        } catch (JsonProcessingException e) {
+            throw new InvalidPatchException("Invalid value: " + e.getOriginalMessage());
+        }
+        DirectFieldAccessor fields = new DirectFieldAccessor(parsed);
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (Iterator<String> names = body.fieldNames(); names.hasNext(); ) {
+            String name = names.next();
+            if (VERSION.equals(name)) {
+                continue;
+            }
+            if (!patchable.contains(name)) {
+                throw new InvalidPatchException(name + " cannot be changed here");
+            }
+            Object value = body.get(name).isNull() ? null : fields.getPropertyValue(name);
+            Column column = column(type, name);
+            if (value == null && column != null && !column.nullable()) {
+                throw new InvalidPatchException(name + " must not be empty");
+            }
+            if (value instanceof String text && column != null && column.columnDefinition().isEmpty()
+                    && text.length() > column.length()) {
+                throw new InvalidPatchException(name + " must be at most " + column.length() + " characters");
+            }
+            values.put(name, value);
+        }
+        return new Patch(version.longValue(), values);
+    }
+
+    /**
+     * Applies {@code patch} to the {@code type} row with this id, provided it
+     * is still at the patch's version.
+     *
+     * @return the row's new version, or null if there is no such row
+     * @throws OptimisticLockingFailureException if the row has been updated
+     *                                           since the patch's version
+     */
+    @Transactional
+    public <T> Long apply(Class<T> type, Object id, Patch patch) {
+        EntityType<T> entity = entityManager.getMetamodel().entity(type);
+        String idName = attribute(entity, true);
+        String versionName = attribute(entity, false);
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+
+        CriteriaUpdate<T> update = cb.createCriteriaUpdate(type);
+        Root<T> root = update.from(type);
+        patch.values().forEach(update::set);
+        update.set(versionName, patch.version() + 1);
+        update.where(cb.equal(root.get(idName), id), cb.equal(root.get(versionName), patch.version()));
+        if (entityManager.createQuery(update).executeUpdate() == 1) {
+            // The bulk UPDATE bypasses the persistence context; drop any copy of the row it holds,
+            // so a find() later in this transaction reads the patched values and version
+            entityManager.detach(entityManager.getReference(type, id));
+            return patch.version() + 1;
+        }
+
+        // Only on failure: a missing row is a 404, a moved-on one a conflict
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<T> row = query.from(type);
+        query.select(row.get(versionName)).where(cb.equal(row.get(idName), id));
+        List<Long> current = entityManager.createQuery(query).getResultList();
+        if (current.isEmpty()) {
+            return null;
+        }
+        throw new OptimisticLockingFailureException(type.getSimpleName() + " " + id + " is at version "
+                + current.get(0) + ", not " + patch.version());
+    }
+
+    private static String attribute(EntityType<?> entity, boolean id) {
+        for (SingularAttribute<?, ?> attribute : entity.getSingularAttributes()) {
+            if (id ? attribute.isId() : attribute.isVersion()) {
+                return attribute.getName();
+            }
+        }
+        throw new IllegalStateException(entity.getName() + " has no " + (id ? "id" : "version") + " attribute");
+    }
+
+    private static Column column(Class<?> type, String name) {
+        Field field = ReflectionUtils.findField(type, name);
+        return field == null ? null : field.getAnnotation(Column.class);
+    }
+}
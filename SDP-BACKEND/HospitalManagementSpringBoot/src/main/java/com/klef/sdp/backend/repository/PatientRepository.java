@@ -1,15 +1,53 @@
 package com.klef.sdp.backend.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import com.klef.sdp.backend.dto.PatientSummary;
 import com.klef.sdp.backend.model.Patient;
 
+import java.util.List;
+import java.util.stream.Stream;
+
 @Repository
 public interface PatientRepository extends JpaRepository<Patient, Integer> 
 {
-    Patient findByUsernameAndPassword(String username, String password);
+    // Login looks the user up by name only; the password is checked against its hash
+    Patient findByUsername(String username);
+
+    // Rehash on login; only applies if nobody changed the password meanwhile
+    @Modifying
+    @Transactional
+    @Query("update Patient p set p.password = :hash where p.id = :id and p.password = :old")
+    int updatePassword(@Param("id") int id, @Param("old") String old, @Param("hash") String hash);
 
     @Query("select count(p) from Patient p")
     long patientCount();
+
+    // Unmanaged records without the password column, for the admin patient list
+    @Query("select new com.klef.sdp.backend.dto.PatientSummary(p.id, p.name, p.gender, p.dob, p.email, p.username, "
+            + "p.mobileno, p.location) from Patient p order by p.id")
+    List<PatientSummary> findAllSummaries();
+
+    // Keyset page: the patients after afterId, in id order
+    @Query("select new com.klef.sdp.backend.dto.PatientSummary(p.id, p.name, p.gender, p.dob, p.email, p.username, "
+            + "p.mobileno, p.location) from Patient p where p.id > :afterId order by p.id")
+    List<PatientSummary> findSummariesAfter(@Param("afterId") int afterId, Limit limit);
+
+    /*
+     * Every patient, fetched 500 rows at a time through a server-side cursor
+     * (useCursorFetch on the MySQL URL). Must be consumed inside a read-only
+     * transaction and closed by the caller.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.klef.sdp.backend.dto.PatientSummary(p.id, p.name, p.gender, p.dob, p.email, p.username, "
+            + "p.mobileno, p.location) from Patient p order by p.id")
+    Stream<PatientSummary> streamAllSummaries();
 }
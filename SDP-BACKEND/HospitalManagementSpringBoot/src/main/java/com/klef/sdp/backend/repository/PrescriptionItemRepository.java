@@ -0,0 +1,43 @@
+package com.klef.sdp.backend.repository;
+
+import com.klef.sdp.backend.dto.DrugCount;
+import com.klef.sdp.backend.dto.DrugPatient;
+import com.klef.sdp.backend.model.PrescriptionItem;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface PrescriptionItemRepository extends JpaRepository<PrescriptionItem, Long> {
+
+    @Modifying
+    @Query("delete from PrescriptionItem i where i.prescriptionId = :prescriptionId")
+    int deleteByPrescriptionId(@Param("prescriptionId") Integer prescriptionId);
+
+    // Served by idx_prescription_item_drug_date; drugKey is an escaped, lower-cased prefix ending in %
+    @Query("select new com.klef.sdp.backend.dto.DrugPatient(i.patientId, max(p.patientName), min(i.drug), max(i.date), "
+            + "count(distinct i.prescriptionId)) from PrescriptionItem i join Prescription p on p.id = i.prescriptionId "
+            + "where i.drugKey like :drugKey escape '\\' and i.date between :from and :to and i.patientId is not null "
+            + "group by i.patientId order by max(i.date) desc, i.patientId")
+    List<DrugPatient> findPatientsByDrug(@Param("drugKey") String drugKey, @Param("from") LocalDate from,
+                                         @Param("to") LocalDate to, Limit limit);
+
+    // Served by idx_prescription_item_doctor_date
+    @Query("select new com.klef.sdp.backend.dto.DrugCount(min(i.drug), count(i), count(distinct i.patientId)) "
+            + "from PrescriptionItem i where i.doctorId = :doctorId and i.date between :from and :to "
+            + "group by i.drugKey order by count(i) desc, i.drugKey")
+    List<DrugCount> findTopDrugsByDoctor(@Param("doctorId") Integer doctorId, @Param("from") LocalDate from,
+                                         @Param("to") LocalDate to, Limit limit);
+
+    // Served by idx_prescription_item_date
+    @Query("select new com.klef.sdp.backend.dto.DrugCount(min(i.drug), count(i), count(distinct i.patientId)) "
+            + "from PrescriptionItem i where i.date between :from and :to "
+            + "group by i.drugKey order by count(i) desc, i.drugKey")
+    List<DrugCount> findTopDrugs(@Param("from") LocalDate from, @Param("to") LocalDate to, Limit limit);
+}
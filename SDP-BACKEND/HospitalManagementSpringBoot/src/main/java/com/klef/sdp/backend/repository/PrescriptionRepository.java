@@ -4,6 +4,8 @@ import com.klef.sdp.backend.model.Prescription;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -11,5 +13,10 @@ public interface PrescriptionRepository extends JpaRepository<Prescription, Inte
     List<Prescription> findByDoctorId(Integer doctorId);
     List<Prescription> findByPatientId(Integer patientId);
     List<Prescription> findByAppointmentId(Integer appointmentId);
+    List<Prescription> findByDoctorIdAndDateBetweenOrderByDateDesc(Integer doctorId, LocalDate from, LocalDate to);
+    List<Prescription> findByPatientIdAndDateBetweenOrderByDateDesc(Integer patientId, LocalDate from, LocalDate to);
+
+    // Anchored on patient_id so it is served by idx_prescription_patient_date
+    List<Prescription> findByPatientIdAndAppointmentIdInOrderByIdAsc(Integer patientId, Collection<Integer> appointmentIds);
 }
 
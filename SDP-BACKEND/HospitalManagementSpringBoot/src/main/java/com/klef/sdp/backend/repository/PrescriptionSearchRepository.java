@@ -0,0 +1,96 @@
+package com.klef.sdp.backend.repository;
+
+import com.klef.sdp.backend.model.Prescription;
+import com.klef.sdp.backend.util.KeysetCursor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Word search over the diagnosis, instructions and notes of one doctor's or
+ * one patient's prescriptions, newest first.
+ *
+ * On MySQL this is MATCH ... AGAINST on the ft_prescription_text FULLTEXT
+ * index (see SchemaMigrations). InnoDB updates that index in the same
+ * transaction as the row, so results never lag behind writes on any
+ * instance. Other databases (H2 in development) fall back to LIKE.
+ */
+@Repository
+public class PrescriptionSearchRepository {
+
+    public enum Owner {
+        DOCTOR("doctor_id"), PATIENT("patient_id");
+
+        private final String column;
+
+        Owner(String column) {
+            this.column = column;
+        }
+    }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private volatile Boolean mySql;
+
+    /**
+     * Prescriptions containing every term as a word prefix, after
+     * {@code after} (null for the first page) in (date, id) descending order.
+     *
+     * @param terms lower-case letters and digits only, at least one
+     */
+    @SuppressWarnings("unchecked")
+    public List<Prescription> search(Owner owner, int ownerId, List<String> terms, KeysetCursor after, int limit) {
+        StringBuilder sql = new StringBuilder("SELECT * FROM prescription_table WHERE ").append(owner.column).append(" = ?");
+        List<Object> params = new ArrayList<>();
+        params.add(ownerId);
+        if (isMySql()) {
+            StringBuilder against = new StringBuilder();
+            for (String term : terms) {
+                against.append(against.isEmpty() ? "" : " ").append('+').append(term).append('*');
+            }
+            sql.append(" AND MATCH (diagnosis, instructions, notes) AGAINST (? IN BOOLEAN MODE)");
+            params.add(against.toString());
+        } else {
+            for (String term : terms) {
+                sql.append(" AND (LOWER(diagnosis) LIKE ? OR LOWER(instructions) LIKE ? OR LOWER(notes) LIKE ?)");
+                String like = "%" + term + "%";
+                params.add(like);
+                params.add(like);
+                params.add(like);
+            }
+        }
+        if (after != null) {
+            sql.append(" AND (`date` < ? OR (`date` = ? AND prescription_id < ?))");
+            params.add(after.date());
+            params.add(after.date());
+            params.add(after.id());
+        }
+        sql.append(" ORDER BY `date` DESC, prescription_id DESC LIMIT ").append(limit);
+
+        Query query = entityManager.createNativeQuery(sql.toString(), Prescription.class);
+        for (int i = 0; i < params.size(); i++) {
+            query.setParameter(i + 1, params.get(i));
+        }
+        return query.getResultList();
+    }
+
+    private boolean isMySql() {
+        if (mySql == null) {
+            mySql = jdbcTemplate.execute((ConnectionCallback<Boolean>) con ->
+                    con.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT).contains("mysql"));
+        }
+        return mySql;
+    }
+}
@@ -1,15 +1,35 @@
 package com.klef.sdp.backend.repository;
 
+import com.klef.sdp.backend.dto.ScheduleSpan;
 import com.klef.sdp.backend.model.Schedule;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface ScheduleRepository extends JpaRepository<Schedule, Integer> {
     List<Schedule> findByDoctorId(Integer doctorId);
     List<Schedule> findByDoctorIdAndDayOfWeek(Integer doctorId, String dayOfWeek);
     List<Schedule> findByDoctorIdAndIsAvailable(Integer doctorId, Boolean isAvailable);
+
+    @Query("select new com.klef.sdp.backend.dto.ScheduleSpan(s.id, s.doctorId, s.dayOfWeek, s.startTime, s.endTime) "
+            + "from Schedule s where s.doctorId = :doctorId")
+    List<ScheduleSpan> findSpansByDoctorId(@Param("doctorId") int doctorId);
+
+    /*
+     * Every schedule, grouped by doctor, through a server-side cursor. Must
+     * be consumed inside a read-only transaction and closed by the caller.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.klef.sdp.backend.dto.ScheduleSpan(s.id, s.doctorId, s.dayOfWeek, s.startTime, s.endTime) "
+            + "from Schedule s order by s.doctorId, s.id")
+    Stream<ScheduleSpan> streamAllSpans();
 }
 
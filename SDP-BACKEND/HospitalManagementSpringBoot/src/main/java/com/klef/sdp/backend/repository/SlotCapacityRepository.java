@@ -0,0 +1,34 @@
+package com.klef.sdp.backend.repository;
+
+import com.klef.sdp.backend.model.SlotCapacity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface SlotCapacityRepository extends JpaRepository<SlotCapacity, Long> {
+
+    Optional<SlotCapacity> findByScheduleIdAndSlotDate(Integer scheduleId, LocalDate slotDate);
+
+    List<SlotCapacity> findBySlotDateGreaterThanEqual(LocalDate slotDate);
+
+    // Conditional increment: returns 0 when the slot is already full
+    @Modifying
+    @Query("update SlotCapacity s set s.booked = s.booked + 1 where s.id = :id and s.booked < s.capacity")
+    int tryReserve(@Param("id") Long id);
+
+    @Modifying
+    @Query("update SlotCapacity s set s.booked = case when s.booked > :count then s.booked - :count else 0 end "
+            + "where s.scheduleId = :scheduleId and s.slotDate = :slotDate")
+    int release(@Param("scheduleId") Integer scheduleId, @Param("slotDate") LocalDate slotDate, @Param("count") int count);
+
+    @Modifying
+    @Query("update SlotCapacity s set s.capacity = :capacity where s.scheduleId = :scheduleId")
+    int updateCapacity(@Param("scheduleId") Integer scheduleId, @Param("capacity") int capacity);
+}
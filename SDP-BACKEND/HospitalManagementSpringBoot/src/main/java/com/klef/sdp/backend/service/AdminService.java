@@ -1,8 +1,10 @@
 package com.klef.sdp.backend.service;
 
+import com.klef.sdp.backend.dto.DoctorAdminSummary;
+import com.klef.sdp.backend.dto.PatientPage;
+import com.klef.sdp.backend.dto.PatientSummary;
 import com.klef.sdp.backend.model.Admin;
 import com.klef.sdp.backend.model.Doctor;
-import com.klef.sdp.backend.model.Patient;
 
 import java.util.List;
 
@@ -12,12 +14,13 @@ public interface AdminService
 
     // Doctor operations
     public String addDoctor(Doctor doctor);
-    public List<Doctor> displayDoctors();
+    public List<DoctorAdminSummary> displayDoctors();
     public String deleteDoctor(int id);
     public long displayDoctorCount();
 
     // Patient operations
-    public List<Patient> displayPatients();
+    public List<PatientSummary> displayPatients();
+    public PatientPage displayPatients(String cursor, int limit);
     public String deletePatient(int id);
     public long displayPatientCount();
 }
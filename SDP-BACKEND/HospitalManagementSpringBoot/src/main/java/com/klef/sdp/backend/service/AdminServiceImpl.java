@@ -1,5 +1,13 @@
 package com.klef.sdp.backend.service;
 
+import com.klef.sdp.backend.audit.AuditAction;
+import com.klef.sdp.backend.audit.AuditLog;
+import com.klef.sdp.backend.auth.PasswordHasher;
+import com.klef.sdp.backend.dto.DoctorAdminSummary;
+import com.klef.sdp.backend.dto.PatientPage;
+import com.klef.sdp.backend.dto.PatientSummary;
+import com.klef.sdp.backend.event.DoctorChangedEvent;
+import com.klef.sdp.backend.event.PatientChangedEvent;
 import com.klef.sdp.backend.model.Admin;
 import com.klef.sdp.backend.model.Doctor;
 import com.klef.sdp.backend.model.Patient;
@@ -7,7 +15,10 @@ import com.klef.sdp.backend.repository.AdminRepository;
 import com.klef.sdp.backend.repository.DoctorRepository;
 import com.klef.sdp.backend.repository.PatientRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -15,6 +26,8 @@ import java.util.Optional;
 @Service
 public class AdminServiceImpl implements AdminService
 {
+    private static final int MAX_PAGE_SIZE = 500;
+
     @Autowired
     private AdminRepository adminRepository;
 
@@ -24,20 +37,40 @@ public class AdminServiceImpl implements AdminService
     @Autowired
     private PatientRepository patientRepository;
 
+    @Autowired
+    private AuditLog auditLog;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PasswordHasher passwordHasher;
+
     @Override
     public Admin checkAdminLogin(String username, String password) {
-        return adminRepository.findByUsernameAndPassword(username, password);
+        Admin a = adminRepository.findByUsername(username);
+        String stored = a == null ? null : a.getPassword();
+        if (!passwordHasher.matches(password, stored)) {
+            return null;
+        }
+        if (passwordHasher.needsUpgrade(stored)) {
+            adminRepository.updatePassword(a.getId(), stored, passwordHasher.hash(password));
+        }
+        return a;
     }
 
     @Override
     public String addDoctor(Doctor doctor) {
-        doctorRepository.save(doctor);
+        doctor.setPassword(passwordHasher.hash(doctor.getPassword()));
+        Doctor saved = doctorRepository.save(doctor);
+        eventPublisher.publishEvent(new DoctorChangedEvent(saved.getId()));
         return "Doctor Added Successfully";
     }
 
     @Override
-    public List<Doctor> displayDoctors() {
-        return doctorRepository.findAll();
+    @Transactional(readOnly = true)
+    public List<DoctorAdminSummary> displayDoctors() {
+        return doctorRepository.findAllAdminSummaries();
     }
 
     @Override
@@ -45,6 +78,8 @@ public class AdminServiceImpl implements AdminService
         Optional<Doctor> doc = doctorRepository.findById(id);
         if (doc.isPresent()) {
             doctorRepository.deleteById(id);
+            auditLog.record(AuditAction.DOCTOR_DELETE, id, doc.get().getUsername());
+            eventPublisher.publishEvent(new DoctorChangedEvent(id));
             return "Doctor Deleted Successfully";
         }
         return "Doctor ID Not Found";
@@ -56,8 +91,31 @@ public class AdminServiceImpl implements AdminService
     }
 
     @Override
-    public List<Patient> displayPatients() {
-        return patientRepository.findAll();
+    @Transactional(readOnly = true)
+    public List<PatientSummary> displayPatients() {
+        return patientRepository.findAllSummaries();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PatientPage displayPatients(String cursor, int limit) {
+        int afterId = 0;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                afterId = Integer.parseInt(cursor.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+        }
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        // One extra row tells whether another page exists without a COUNT query
+        List<PatientSummary> rows = patientRepository.findSummariesAfter(afterId, Limit.of(size + 1));
+        if (rows.size() <= size) {
+            return new PatientPage(rows, null);
+        }
+        List<PatientSummary> page = rows.subList(0, size);
+        return new PatientPage(page, String.valueOf(page.get(size - 1).id()));
     }
 
     @Override
@@ -65,6 +123,8 @@ public class AdminServiceImpl implements AdminService
         Optional<Patient> patient = patientRepository.findById(id);
         if (patient.isPresent()) {
             patientRepository.deleteById(id);
+            auditLog.record(AuditAction.PATIENT_DELETE, id, patient.get().getUsername());
+            eventPublisher.publishEvent(new PatientChangedEvent(PatientChangedEvent.Type.DELETED, id));
             return "Patient Deleted Successfully";
         }
         return "Patient ID Not Found";
@@ -0,0 +1,145 @@
+package com.klef.sdp.backend.service;
+
+import com.klef.sdp.backend.repository.ArchiveRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Background job that keeps appointment_table small by moving finished
+ * appointments dated more than {@code archive.horizon-days} ago, together with
+ * their prescriptions, into the month-partitioned archive tables.
+ *
+ * Work is done in short chunks, each in its own transaction, with a pause
+ * between chunks and a cap per run, so it never holds locks for long or
+ * competes with bookings for I/O. Only one instance runs it at a time.
+ */
+@Component
+public class AppointmentArchiver {
+
+    private static final String JOB = "appointment-archiver";
+
+    // Older rows share the first partition instead of getting one per month
+    private static final int MAX_BACKFILL_MONTHS = 60;
+
+    @Autowired
+    private ArchiveRepository archiveRepository;
+
+    @Autowired
+    private JobLeases jobLeases;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ResourceETags resourceETags;
+
+    @Value("${archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${archive.horizon-days:365}")
+    private int horizonDays;
+
+    @Value("${archive.statuses:APPROVED,RESCHEDULED,COMPLETED,DENIED,REJECTED,CANCELLED}")
+    private List<String> statuses;
+
+    @Value("${archive.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${archive.pause-ms:250}")
+    private long pauseMs;
+
+    @Value("${archive.max-chunks-per-run:200}")
+    private int maxChunksPerRun;
+
+    @Scheduled(fixedDelayString = "${archive.interval-ms:3600000}", initialDelayString = "${archive.initial-delay-ms:300000}")
+    public void scheduledRun() {
+        if (enabled) {
+            run();
+        }
+    }
+
+    /**
+     * Archives one run's worth of chunks.
+     *
+     * @return number of appointments moved, or -1 if another instance holds the job
+     */
+    public int run() {
+        long leaseMs = 60_000 + pauseMs;
+        if (!jobLeases.tryAcquire(JOB, leaseMs)) {
+            return -1;
+        }
+        try {
+            LocalDate cutoff = LocalDate.now().minusDays(horizonDays);
+            int[] moved = moveChunks(cutoff, leaseMs);
+            int ledgerRows = 0;
+            int deleted;
+            do {
+                deleted = archiveRepository.deleteLedgerRowsBefore(cutoff, chunkSize);
+                ledgerRows += deleted;
+            } while (deleted == chunkSize && pause());
+            if (moved[0] > 0 || ledgerRows > 0) {
+                System.out.println("Archived " + moved[0] + " appointments and " + moved[1]
+                        + " prescriptions dated before " + cutoff + ", dropped " + ledgerRows + " capacity ledger rows");
+            }
+            return moved[0];
+        } finally {
+            jobLeases.release(JOB);
+        }
+    }
+
+    // Returns {appointments, prescriptions} moved
+    private int[] moveChunks(LocalDate cutoff, long leaseMs) {
+        int[] moved = new int[2];
+        LocalDate oldest = archiveRepository.findOldestDate(cutoff, statuses);
+        if (oldest == null) {
+            return moved;
+        }
+        YearMonth last = YearMonth.from(cutoff);
+        YearMonth first = YearMonth.from(oldest);
+        if (first.isBefore(last.minusMonths(MAX_BACKFILL_MONTHS))) {
+            first = last.minusMonths(MAX_BACKFILL_MONTHS);
+        }
+        archiveRepository.ensureMonthPartitions("appointment_archive", first, last);
+        archiveRepository.ensureMonthPartitions("prescription_archive", first, last);
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        for (int chunk = 0; chunk < maxChunksPerRun; chunk++) {
+            int[] counts = tx.execute(status -> {
+                List<Integer> ids = archiveRepository.findArchivableIds(cutoff, statuses, chunkSize);
+                if (ids.isEmpty()) {
+                    return null;
+                }
+                resourceETags.changed(archiveRepository.findPrescriptionPatientIds(ids).stream()
+                        .map(ResourceETags::prescriptionsKey).toList());
+                return archiveRepository.move(ids);
+            });
+            if (counts == null) {
+                break;
+            }
+            moved[0] += counts[0];
+            moved[1] += counts[1];
+            if (!jobLeases.tryAcquire(JOB, leaseMs) || !pause()) {
+                break;
+            }
+        }
+        return moved;
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(pauseMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
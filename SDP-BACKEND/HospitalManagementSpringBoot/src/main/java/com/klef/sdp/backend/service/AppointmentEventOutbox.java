@@ -0,0 +1,83 @@
+package com.klef.sdp.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.klef.sdp.backend.event.AppointmentChangedEvent;
+import com.klef.sdp.backend.model.Appointment;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes appointment changes to appointment_event_table inside the transaction
+ * that made them, so an event exists if and only if the change committed.
+ * Rows from one transaction go out as a single JDBC batch just before commit.
+ */
+@Component
+public class AppointmentEventOutbox {
+
+    private static final String INSERT_SQL = "INSERT INTO appointment_event_table "
+            + "(event_type, appointment_id, doctor_id, patient_id, payload, created_at) VALUES (?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Runs synchronously in the publishing transaction, unlike the after-commit listeners
+    @EventListener
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        Object[] row = toRow(event);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            jdbcTemplate.update(INSERT_SQL, row);
+            return;
+        }
+        pendingRows().add(row);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object[]> pendingRows() {
+        List<Object[]> rows = (List<Object[]>) TransactionSynchronizationManager.getResource(this);
+        if (rows == null) {
+            List<Object[]> created = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    jdbcTemplate.batchUpdate(INSERT_SQL, created);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(AppointmentEventOutbox.this);
+                }
+            });
+            rows = created;
+        }
+        return rows;
+    }
+
+    private Object[] toRow(AppointmentChangedEvent event) {
+        Appointment a = event.getAppointment();
+        ObjectNode payload = objectMapper.createObjectNode();
+        payload.put("type", event.getType().name());
+        payload.put("previousStatus", event.getPreviousStatus());
+        payload.set("appointment", objectMapper.valueToTree(a));
+        try {
+            return new Object[] {
+                    event.getType().name(), a.getId(), a.getDoctorId(), a.getPatientId(),
+                    objectMapper.writeValueAsString(payload), System.currentTimeMillis()
+            };
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not serialize appointment event", e);
+        }
+    }
+}
@@ -1,13 +1,29 @@
 package com.klef.sdp.backend.service;
 
 import com.klef.sdp.backend.dto.AppointmentDTO;
+import com.klef.sdp.backend.dto.AppointmentPage;
+import com.klef.sdp.backend.dto.AppointmentQuery;
+import com.klef.sdp.backend.dto.AppointmentStatusUpdate;
+import com.klef.sdp.backend.dto.BatchItemResult;
+import com.klef.sdp.backend.dto.HistoryPage;
 import com.klef.sdp.backend.model.Appointment;
 
+import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.List;
 
 public interface AppointmentService {
     Appointment bookAppointment(AppointmentDTO dto);
     List<Appointment> getAppointmentsByDoctor(int doctorId);
     List<Appointment> getAppointmentsByPatient(int patientId);
-    Appointment updateStatus(int id, String status, String feedback, String confirmedTime);
+    List<Appointment> getAppointmentsByPatient(int patientId, boolean includeArchived);
+    List<Appointment> getAppointmentsByDoctorBetween(int doctorId, LocalDate from, LocalDate to);
+    List<Appointment> getAppointmentsByPatientBetween(int patientId, LocalDate from, LocalDate to);
+    AppointmentPage searchAppointmentsByDoctor(int doctorId, AppointmentQuery query);
+    AppointmentPage searchAppointmentsByPatient(int patientId, AppointmentQuery query);
+    HistoryPage getPatientHistory(int patientId, String cursor, int limit);
+    Appointment getAppointmentById(int id);
+    Appointment updateStatus(int id, String status, String feedback, LocalTime confirmedTime);
+    List<BatchItemResult> bookAppointments(List<AppointmentDTO> dtos);
+    List<BatchItemResult> updateStatuses(List<AppointmentStatusUpdate> updates, Integer doctorId);
 }
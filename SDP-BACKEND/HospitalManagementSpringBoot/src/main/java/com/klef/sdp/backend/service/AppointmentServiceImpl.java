@@ -1,20 +1,52 @@
 package com.klef.sdp.backend.service;
 
+import com.klef.sdp.backend.audit.AuditAction;
+import com.klef.sdp.backend.audit.AuditLog;
 import com.klef.sdp.backend.dto.AppointmentDTO;
+import com.klef.sdp.backend.dto.AppointmentPage;
+import com.klef.sdp.backend.dto.AppointmentQuery;
+import com.klef.sdp.backend.dto.AppointmentStatusUpdate;
+import com.klef.sdp.backend.dto.BatchItemResult;
+import com.klef.sdp.backend.dto.HistoryEntry;
+import com.klef.sdp.backend.dto.HistoryPage;
+import com.klef.sdp.backend.event.AppointmentChangedEvent;
+import com.klef.sdp.backend.exception.SlotUnavailableException;
 import com.klef.sdp.backend.model.Appointment;
+import com.klef.sdp.backend.model.AppointmentStatus;
 import com.klef.sdp.backend.model.Doctor;
 import com.klef.sdp.backend.model.Patient;
+import com.klef.sdp.backend.model.Prescription;
 import com.klef.sdp.backend.repository.AppointmentRepository;
+import com.klef.sdp.backend.repository.AppointmentSpecifications;
+import com.klef.sdp.backend.repository.ArchiveRepository;
 import com.klef.sdp.backend.repository.DoctorRepository;
 import com.klef.sdp.backend.repository.PatientRepository;
+import com.klef.sdp.backend.repository.PrescriptionRepository;
+import com.klef.sdp.backend.util.KeysetCursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class AppointmentServiceImpl implements AppointmentService {
 
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_BATCH_SIZE = 1000;
+    private static final int MAX_RANGE_DAYS = 366;
+
     @Autowired
     private AppointmentRepository appointmentRepository;
 
@@ -24,7 +56,23 @@ public class AppointmentServiceImpl implements AppointmentService {
     @Autowired
     private DoctorRepository doctorRepository;
 
+    @Autowired
+    private ArchiveRepository archiveRepository;
+
+    @Autowired
+    private PrescriptionRepository prescriptionRepository;
+
+    @Autowired
+    private SlotCapacityEngine slotCapacityEngine;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private AuditLog auditLog;
+
     @Override
+    @Transactional
     public Appointment bookAppointment(AppointmentDTO dto) {
         // Debug logging
         System.out.println("Received patientId: " + dto.getPatientId());
@@ -46,6 +94,76 @@ public class AppointmentServiceImpl implements AppointmentService {
         Doctor doctor = doctorRepository.findById(dto.getDoctorId())
                 .orElseThrow(() -> new RuntimeException("Doctor not found with ID: " + dto.getDoctorId()));
 
+        Appointment appointment = newAppointment(dto, patient, doctor);
+
+        // Takes a place in the matching schedule, or throws if it is full
+        appointment.setScheduleId(slotCapacityEngine.reserve(doctor.getId(), dto.getDate(), dto.getTimeRange()));
+
+        Appointment saved = appointmentRepository.save(appointment);
+        eventPublisher.publishEvent(AppointmentChangedEvent.created(saved));
+        return saved;
+    }
+
+    @Override
+    @Transactional
+    public List<BatchItemResult> bookAppointments(List<AppointmentDTO> dtos) {
+        checkBatchSize(dtos.size());
+
+        // One IN query per table instead of two lookups per booking
+        Set<Integer> patientIds = new HashSet<>();
+        Set<Integer> doctorIds = new HashSet<>();
+        for (AppointmentDTO dto : dtos) {
+            if (dto.getPatientId() != null) {
+                patientIds.add(dto.getPatientId());
+            }
+            if (dto.getDoctorId() != null) {
+                doctorIds.add(dto.getDoctorId());
+            }
+        }
+        Map<Integer, Patient> patients = new HashMap<>();
+        patientRepository.findAllById(patientIds).forEach(p -> patients.put(p.getId(), p));
+        Map<Integer, Doctor> doctors = new HashMap<>();
+        doctorRepository.findAllById(doctorIds).forEach(d -> doctors.put(d.getId(), d));
+
+        BatchItemResult[] results = new BatchItemResult[dtos.size()];
+        List<Appointment> accepted = new ArrayList<>();
+        List<Integer> acceptedIndexes = new ArrayList<>();
+        for (int i = 0; i < dtos.size(); i++) {
+            AppointmentDTO dto = dtos.get(i);
+            Patient patient = dto.getPatientId() == null ? null : patients.get(dto.getPatientId());
+            Doctor doctor = dto.getDoctorId() == null ? null : doctors.get(dto.getDoctorId());
+            if (patient == null) {
+                results[i] = BatchItemResult.failed(i, null, "Patient not found with ID: " + dto.getPatientId());
+                continue;
+            }
+            if (doctor == null) {
+                results[i] = BatchItemResult.failed(i, null, "Doctor not found with ID: " + dto.getDoctorId());
+                continue;
+            }
+            Appointment appointment = newAppointment(dto, patient, doctor);
+            try {
+                appointment.setScheduleId(slotCapacityEngine.reserve(doctor.getId(), dto.getDate(), dto.getTimeRange()));
+            } catch (SlotUnavailableException e) {
+                results[i] = BatchItemResult.failed(i, null, e.getMessage());
+                continue;
+            }
+            accepted.add(appointment);
+            acceptedIndexes.add(i);
+        }
+
+        // Inserts go out as JDBC batches thanks to the table-backed id generator
+        appointmentRepository.saveAll(accepted);
+        appointmentRepository.flush();
+
+        for (int j = 0; j < accepted.size(); j++) {
+            Appointment saved = accepted.get(j);
+            results[acceptedIndexes.get(j)] = BatchItemResult.ok(acceptedIndexes.get(j), saved.getId());
+            eventPublisher.publishEvent(AppointmentChangedEvent.created(saved));
+        }
+        return Arrays.asList(results);
+    }
+
+    private Appointment newAppointment(AppointmentDTO dto, Patient patient, Doctor doctor) {
         Appointment appointment = new Appointment();
         appointment.setPatientId(patient.getId());
         appointment.setPatientName(patient.getName());
@@ -57,9 +175,8 @@ public class AppointmentServiceImpl implements AppointmentService {
         appointment.setDate(dto.getDate());
         appointment.setTimeRange(dto.getTimeRange());
         appointment.setReason(dto.getReason());
-        appointment.setStatus("PENDING");
-
-        return appointmentRepository.save(appointment);
+        appointment.setStatus(AppointmentStatus.PENDING);
+        return appointment;
     }
 
     @Override
@@ -72,15 +189,214 @@ public class AppointmentServiceImpl implements AppointmentService {
         return appointmentRepository.findByPatientId(patientId);
     }
 
+    // Archived rows are read only on request, so the usual history stays a hot-table query
+    @Override
+    public List<Appointment> getAppointmentsByPatient(int patientId, boolean includeArchived) {
+        List<Appointment> hot = appointmentRepository.findByPatientId(patientId);
+        if (!includeArchived) {
+            return hot;
+        }
+        List<Appointment> all = new ArrayList<>(archiveRepository.findAppointmentsByPatient(patientId));
+        all.addAll(hot);
+        all.sort(Comparator.comparing(Appointment::getDate).thenComparing(Appointment::getId));
+        return all;
+    }
+
+    @Override
+    public List<Appointment> getAppointmentsByDoctorBetween(int doctorId, LocalDate from, LocalDate to) {
+        checkRange(from, to);
+        return appointmentRepository.findByDoctorIdAndDateBetweenOrderByDateAscSlotStartAscIdAsc(doctorId, from, to);
+    }
+
+    @Override
+    public List<Appointment> getAppointmentsByPatientBetween(int patientId, LocalDate from, LocalDate to) {
+        checkRange(from, to);
+        return appointmentRepository.findByPatientIdAndDateBetweenOrderByDateAscSlotStartAscIdAsc(patientId, from, to);
+    }
+
+    private void checkRange(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("to must not be before from");
+        }
+        if (from.plusDays(MAX_RANGE_DAYS).isBefore(to)) {
+            throw new IllegalArgumentException("At most " + MAX_RANGE_DAYS + " days per range");
+        }
+    }
+
+    @Override
+    public AppointmentPage searchAppointmentsByDoctor(int doctorId, AppointmentQuery query) {
+        return search(AppointmentSpecifications.forDoctor(doctorId), query);
+    }
+
+    @Override
+    public AppointmentPage searchAppointmentsByPatient(int patientId, AppointmentQuery query) {
+        return search(AppointmentSpecifications.forPatient(patientId), query);
+    }
+
+    private AppointmentPage search(Specification<Appointment> owner, AppointmentQuery query) {
+        int limit = Math.max(1, Math.min(query.getLimit(), MAX_PAGE_SIZE));
+        boolean descending = query.isDescending();
+
+        Specification<Appointment> spec = owner;
+        if (query.getStatuses() != null && !query.getStatuses().isEmpty()) {
+            spec = spec.and(AppointmentSpecifications.statusIn(query.getStatuses()));
+        }
+        if (query.getFromDate() != null) {
+            spec = spec.and(AppointmentSpecifications.dateFrom(query.getFromDate()));
+        }
+        if (query.getToDate() != null) {
+            spec = spec.and(AppointmentSpecifications.dateTo(query.getToDate()));
+        }
+        if (query.getReason() != null && !query.getReason().isBlank()) {
+            spec = spec.and(AppointmentSpecifications.reasonContains(query.getReason().trim()));
+        }
+        if (query.getCursor() != null && !query.getCursor().isBlank()) {
+            KeysetCursor key = KeysetCursor.decode(query.getCursor());
+            spec = spec.and(AppointmentSpecifications.after(key.date(), key.id(), descending));
+        }
+
+        // Fetch one extra row to learn whether another page exists without a COUNT query
+        List<Appointment> rows = appointmentRepository.findBy(spec, q -> q
+                .sortBy(AppointmentSpecifications.keysetSort(descending))
+                .limit(limit + 1)
+                .all());
+
+        if (rows.size() <= limit) {
+            return new AppointmentPage(rows, null);
+        }
+        List<Appointment> page = rows.subList(0, limit);
+        Appointment last = page.get(limit - 1);
+        return new AppointmentPage(page, new KeysetCursor(last.getDate(), last.getId()).encode());
+    }
+
+    /**
+     * A page of the patient's appointments, newest first, each with its
+     * prescriptions. Two queries per page whatever its size: the keyset page
+     * of appointments, then the prescriptions of exactly those appointments.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public HistoryPage getPatientHistory(int patientId, String cursor, int limit) {
+        AppointmentQuery query = new AppointmentQuery();
+        query.setCursor(cursor);
+        query.setLimit(limit);
+        query.setDescending(true);
+        AppointmentPage page = search(AppointmentSpecifications.forPatient(patientId), query);
+        List<Appointment> appointments = page.getAppointments();
+        if (appointments.isEmpty()) {
+            return new HistoryPage(List.of(), null);
+        }
+
+        // Join on a sorted int[] of the page's ids: a binary search per row, no boxed keys
+        int[] ids = appointments.stream().mapToInt(Appointment::getId).sorted().toArray();
+        List<List<Prescription>> nested = new ArrayList<>(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            nested.add(new ArrayList<>(1));
+        }
+        List<Integer> keys = Arrays.stream(ids).boxed().toList();
+        for (Prescription p : prescriptionRepository.findByPatientIdAndAppointmentIdInOrderByIdAsc(patientId, keys)) {
+            nested.get(Arrays.binarySearch(ids, p.getAppointmentId())).add(p);
+        }
+
+        List<HistoryEntry> entries = new ArrayList<>(appointments.size());
+        for (Appointment a : appointments) {
+            entries.add(new HistoryEntry(a, nested.get(Arrays.binarySearch(ids, a.getId()))));
+        }
+        return new HistoryPage(entries, page.getNextCursor());
+    }
+
+    @Override
+    public Appointment getAppointmentById(int id) {
+        return appointmentRepository.findById(id).orElse(null);
+    }
+
     @Override
-    public Appointment updateStatus(int id, String status, String feedback, String confirmedTime) {
+    @Transactional
+    public Appointment updateStatus(int id, String status, String feedback, LocalTime confirmedTime) {
         Appointment appointment = appointmentRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Appointment not found"));
 
+        List<Appointment> released = new ArrayList<>();
+        AppointmentChangedEvent event = applyStatus(appointment, status, feedback, confirmedTime, released);
+        slotCapacityEngine.releaseAll(released);
+
+        Appointment saved = appointmentRepository.save(appointment);
+        eventPublisher.publishEvent(event);
+        return saved;
+    }
+
+    @Override
+    @Transactional
+    // doctorId: only that doctor's appointments may change; null (an admin) for any
+    public List<BatchItemResult> updateStatuses(List<AppointmentStatusUpdate> updates, Integer doctorId) {
+        checkBatchSize(updates.size());
+
+        Set<Integer> ids = new HashSet<>();
+        for (AppointmentStatusUpdate update : updates) {
+            if (update.getId() != null) {
+                ids.add(update.getId());
+            }
+        }
+        Map<Integer, Appointment> appointments = new HashMap<>();
+        appointmentRepository.findAllById(ids).forEach(a -> appointments.put(a.getId(), a));
+
+        BatchItemResult[] results = new BatchItemResult[updates.size()];
+        List<Appointment> released = new ArrayList<>();
+        List<AppointmentChangedEvent> events = new ArrayList<>();
+        for (int i = 0; i < updates.size(); i++) {
+            AppointmentStatusUpdate update = updates.get(i);
+            Appointment appointment = update.getId() == null ? null : appointments.get(update.getId());
+            if (appointment == null) {
+                results[i] = BatchItemResult.failed(i, update.getId(), "Appointment not found");
+                continue;
+            }
+            if (doctorId != null && !doctorId.equals(appointment.getDoctorId())) {
+                results[i] = BatchItemResult.failed(i, update.getId(), "Doctors can only update their own appointments");
+                continue;
+            }
+            if (update.getStatus() == null || update.getStatus().isBlank()) {
+                results[i] = BatchItemResult.failed(i, update.getId(), "Status is required");
+                continue;
+            }
+            try {
+                events.add(applyStatus(appointment, update.getStatus(), update.getFeedback(), update.getConfirmedTime(), released));
+                results[i] = BatchItemResult.ok(i, appointment.getId());
+            } catch (SlotUnavailableException e) {
+                results[i] = BatchItemResult.failed(i, update.getId(), e.getMessage());
+            }
+        }
+
+        // One ledger UPDATE per distinct slot, then the dirty rows flush as batched UPDATEs
+        slotCapacityEngine.releaseAll(released);
+        appointmentRepository.flush();
+        events.forEach(eventPublisher::publishEvent);
+        return Arrays.asList(results);
+    }
+
+    // Moves capacity along with the status change; places to give back are collected in released
+    private AppointmentChangedEvent applyStatus(Appointment appointment, String status, String feedback,
+                                                LocalTime confirmedTime, List<Appointment> released) {
+        String previousStatus = appointment.getStatus();
+        Integer previousScheduleId = appointment.getScheduleId();
+        boolean held = AppointmentStatus.holdsCapacity(previousStatus);
+        boolean holds = AppointmentStatus.holdsCapacity(status);
+        if (held && !holds) {
+            released.add(appointment);
+        } else if (!held && holds) {
+            appointment.setScheduleId(slotCapacityEngine.reserve(
+                    appointment.getDoctorId(), appointment.getDate(), appointment.getTimeRange()));
+        }
+
         appointment.setStatus(status);
         appointment.setDoctorFeedback(feedback);
         appointment.setConfirmedTime(confirmedTime);
+        auditLog.record(AuditAction.APPOINTMENT_STATUS, appointment.getId(), previousStatus + " -> " + status);
+        return AppointmentChangedEvent.statusChanged(appointment, previousStatus, previousScheduleId);
+    }
 
-        return appointmentRepository.save(appointment);
+    private void checkBatchSize(int size) {
+        if (size > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_SIZE + " items per batch, got " + size);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,423 @@
+package com.klef.sdp.backend.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes appointment changes to doctors and patients over Server-Sent Events.
+ *
+ * Each instance tails appointment_event_table with one indexed range query per
+ * poll interval and fans new rows out to its own subscribers, which replaces
+ * per-browser polling of the appointment lists. Every subscriber has a bounded
+ * buffer drained on a small shared pool; a subscriber that falls too far
+ * behind is disconnected and catches up from the table when EventSource
+ * reconnects with Last-Event-ID.
+ *
+ * A send blocks until the client's socket takes the bytes, so a client that
+ * stops reading would hold a sender thread until the container's write
+ * timeout. A send in flight longer than send-timeout-ms marks its subscriber
+ * stalled: it gets no more events, the pool grows by a thread for as long as
+ * that send is stuck so other subscribers are not held up, and the stream is
+ * closed once the send returns so the client reconnects and catches up.
+ */
+@Component
+public class AppointmentStreamBroker {
+
+    public static final int REPLAY_LIMIT = 200;
+
+    private static final int POLL_BATCH = 500;
+    private static final long GAP_TIMEOUT_MS = 10_000;
+    private static final long STALLED = -1; // Subscriber.sendingSince once the watchdog gave up on it
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${appointment-stream.buffer-size:256}")
+    private int bufferSize;
+
+    @Value("${appointment-stream.max-subscribers:5000}")
+    private int maxSubscribers;
+
+    @Value("${appointment-stream.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${appointment-stream.retention-hours:24}")
+    private int retentionHours;
+
+    @Value("${appointment-stream.senders:4}")
+    private int senderThreads;
+
+    @Value("${appointment-stream.send-timeout-ms:5000}")
+    private long sendTimeoutMs;
+
+    private final ConcurrentHashMap<String, Set<Subscriber>> topics = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private ThreadPoolExecutor senders;
+    private final AtomicInteger stalledSends = new AtomicInteger();
+
+    // Poller state, only touched from the scheduler thread
+    private volatile long watermark = -1; // every event id <= watermark has been delivered or given up on
+    private final TreeSet<Long> ahead = new TreeSet<>(); // delivered ids above the watermark
+    private long gapSince;
+
+    @PostConstruct
+    void startSenders() {
+        senders = new ThreadPoolExecutor(senderThreads, senderThreads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "appointment-stream");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public static String doctorTopic(int doctorId) { return "doctor:" + doctorId; }
+
+    public static String patientTopic(int patientId) { return "patient:" + patientId; }
+
+    /**
+     * Opens a stream for a topic. With a {@code lastEventId} the subscriber
+     * first receives the events it missed; if too many were missed, or they
+     * have already been purged, it gets a single {@code resync} event telling
+     * the client to reload its list instead.
+     */
+    public SseEmitter subscribe(String topic, Long lastEventId) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new IllegalStateException("Too many open appointment streams");
+        }
+        SseEmitter emitter = newEmitter();
+        Subscriber subscriber = new Subscriber(topic, emitter);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        topics.computeIfAbsent(topic, k -> ConcurrentHashMap.newKeySet()).add(subscriber);
+
+        // Live events arriving during the replay query are held back until it is done
+        Set<Long> replayed = new HashSet<>();
+        if (lastEventId != null) {
+            replay(subscriber, lastEventId, replayed);
+        }
+        subscriber.goLive(replayed);
+        return emitter;
+    }
+
+    // Overridden in tests to watch what is sent
+    SseEmitter newEmitter() {
+        return new SseEmitter(timeoutMs);
+    }
+
+    private void replay(Subscriber subscriber, long lastEventId, Set<Long> replayed) {
+        String column = subscriber.topic.startsWith("doctor:") ? "doctor_id" : "patient_id";
+        int ownerId = Integer.parseInt(subscriber.topic.substring(subscriber.topic.indexOf(':') + 1));
+        Long oldest = jdbcTemplate.queryForObject("SELECT MIN(event_id) FROM appointment_event_table", Long.class);
+        List<Outgoing> missed = jdbcTemplate.query(
+                "SELECT event_id, payload FROM appointment_event_table WHERE " + column + " = ? AND event_id > ? "
+                        + "ORDER BY event_id LIMIT " + (REPLAY_LIMIT + 1),
+                (rs, i) -> new Outgoing(rs.getLong(1), "appointment", rs.getString(2)),
+                ownerId, lastEventId);
+        if (missed.size() > REPLAY_LIMIT || (oldest != null && oldest > lastEventId + 1)) {
+            subscriber.offerReplay(new Outgoing(null, "resync", "{}"));
+            return;
+        }
+        for (Outgoing o : missed) {
+            replayed.add(o.id);
+            subscriber.offerReplay(o);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Long max = jdbcTemplate.queryForObject("SELECT MAX(event_id) FROM appointment_event_table", Long.class);
+        watermark = max == null ? 0 : max;
+    }
+
+    @Scheduled(fixedDelayString = "${appointment-stream.poll-interval-ms:500}")
+    public void poll() {
+        if (watermark < 0) {
+            return;
+        }
+        List<Object[]> rows = jdbcTemplate.query(
+                "SELECT event_id, doctor_id, patient_id, payload FROM appointment_event_table "
+                        + "WHERE event_id > ? ORDER BY event_id LIMIT " + POLL_BATCH,
+                (rs, i) -> new Object[] { rs.getLong(1), rs.getInt(2), rs.getInt(3), rs.getString(4) },
+                watermark);
+        for (Object[] row : rows) {
+            long id = (Long) row[0];
+            if (ahead.add(id)) {
+                Outgoing out = new Outgoing(id, "appointment", (String) row[3]);
+                publish(doctorTopic((Integer) row[1]), out);
+                publish(patientTopic((Integer) row[2]), out);
+            }
+        }
+        advanceWatermark();
+    }
+
+    /*
+     * Auto-increment ids are handed out at insert time but become visible at
+     * commit, so a lower id can appear after a higher one. The watermark only
+     * moves over contiguous ids; a hole that stays open past GAP_TIMEOUT_MS
+     * belongs to a rolled-back transaction and is skipped.
+     */
+    private void advanceWatermark() {
+        while (!ahead.isEmpty() && ahead.first() == watermark + 1) {
+            watermark = ahead.pollFirst();
+        }
+        if (ahead.isEmpty()) {
+            gapSince = 0;
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (gapSince == 0) {
+            gapSince = now;
+        } else if (now - gapSince > GAP_TIMEOUT_MS) {
+            watermark = ahead.first() - 1;
+            gapSince = 0;
+            advanceWatermark();
+        }
+    }
+
+    private void publish(String topic, Outgoing out) {
+        Set<Subscriber> subscribers = topics.get(topic);
+        if (subscribers != null) {
+            for (Subscriber s : subscribers) {
+                s.offer(out);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${appointment-stream.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        Outgoing ping = new Outgoing(null, null, "heartbeat");
+        for (Set<Subscriber> subscribers : topics.values()) {
+            for (Subscriber s : subscribers) {
+                s.offer(ping);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${appointment-stream.stall-check-interval-ms:1000}")
+    public void checkStalledSends() {
+        long now = System.currentTimeMillis();
+        for (Set<Subscriber> subscribers : topics.values()) {
+            for (Subscriber s : subscribers) {
+                s.checkStalled(now);
+            }
+        }
+    }
+
+    // One extra thread per stuck send, so the healthy subscribers keep senderThreads between them
+    private synchronized void resizeSenders(int stalledDelta) {
+        int size = senderThreads + stalledSends.addAndGet(stalledDelta);
+        if (size > senders.getMaximumPoolSize()) {
+            senders.setMaximumPoolSize(size);
+            senders.setCorePoolSize(size);
+        } else {
+            senders.setCorePoolSize(size);
+            senders.setMaximumPoolSize(size);
+        }
+    }
+
+    @Scheduled(fixedDelay = 3_600_000, initialDelay = 60_000)
+    public void purge() {
+        long cutoff = System.currentTimeMillis() - retentionHours * 3_600_000L;
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update("DELETE FROM appointment_event_table WHERE created_at < ? LIMIT 5000", cutoff);
+        } while (deleted == 5000);
+    }
+
+    public int getSubscriberCount() { return subscriberCount.get(); }
+
+    @PreDestroy
+    public void shutdown() {
+        topics.values().forEach(set -> set.forEach(s -> s.emitter.complete()));
+        senders.shutdown();
+    }
+
+    private void remove(Subscriber subscriber) {
+        if (subscriber.closed.compareAndSet(false, true)) {
+            subscriberCount.decrementAndGet();
+            topics.computeIfPresent(subscriber.topic, (k, set) -> {
+                set.remove(subscriber);
+                return set.isEmpty() ? null : set;
+            });
+        }
+    }
+
+    private record Outgoing(Long id, String name, String data) { }
+
+    private final class Subscriber {
+        final String topic;
+        final SseEmitter emitter;
+        final AtomicBoolean closed = new AtomicBoolean();
+        final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicLong sendingSince = new AtomicLong(); // start of the send in progress, 0 if none
+        private final ArrayDeque<Outgoing> queue = new ArrayDeque<>();
+        private ArrayDeque<Outgoing> held = new ArrayDeque<>(); // live events seen during replay
+        private Set<Long> replayed;
+        private boolean closing; // overflowed; guarded by this
+
+        Subscriber(String topic, SseEmitter emitter) {
+            this.topic = topic;
+            this.emitter = emitter;
+        }
+
+        void offerReplay(Outgoing out) {
+            synchronized (this) {
+                queue.add(out);
+            }
+            scheduleDrain();
+        }
+
+        void goLive(Set<Long> replayedIds) {
+            synchronized (this) {
+                replayed = replayedIds;
+                ArrayDeque<Outgoing> pending = held;
+                held = null;
+                for (Outgoing out : pending) {
+                    enqueue(out);
+                }
+            }
+            scheduleDrain();
+        }
+
+        void offer(Outgoing out) {
+            synchronized (this) {
+                if (held != null) {
+                    held.add(out);
+                    if (held.size() > bufferSize) {
+                        overflow();
+                    }
+                    return;
+                }
+                enqueue(out);
+            }
+            scheduleDrain();
+        }
+
+        // Caller holds the lock
+        private void enqueue(Outgoing out) {
+            if (out.id != null && replayed.contains(out.id)) {
+                return;
+            }
+            if (queue.size() >= bufferSize) {
+                overflow();
+                return;
+            }
+            queue.add(out);
+        }
+
+        // complete() waits for a send in progress, so a running drain closes the stream itself
+        private void overflow() {
+            queue.clear();
+            if (held != null) {
+                held.clear();
+            }
+            closing = true;
+            remove(this);
+            if (!draining.get()) {
+                senders.execute(emitter::complete);
+            }
+        }
+
+        private void scheduleDrain() {
+            if (!closed.get() && draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        // The CAS settles a race with the send finishing: either the sender or the watchdog wins
+        void checkStalled(long now) {
+            long since = sendingSince.get();
+            if (since > 0 && now - since > sendTimeoutMs && sendingSince.compareAndSet(since, STALLED)) {
+                remove(this);
+                synchronized (this) {
+                    queue.clear();
+                }
+                resizeSenders(1);
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                Outgoing out;
+                boolean close;
+                synchronized (this) {
+                    close = closing;
+                    out = close ? null : queue.poll();
+                    if (out == null) {
+                        draining.set(false);
+                    }
+                }
+                if (close) {
+                    emitter.complete();
+                    return;
+                }
+                if (out == null) {
+                    break;
+                }
+                Exception failure = null;
+                sendingSince.set(System.currentTimeMillis());
+                try {
+                    send(out);
+                } catch (IOException | IllegalStateException e) {
+                    failure = e;
+                }
+                boolean stalled = sendingSince.getAndSet(0) == STALLED;
+                if (stalled) {
+                    resizeSenders(-1);
+                }
+                if (failure != null || stalled) {
+                    if (failure != null) {
+                        emitter.completeWithError(failure);
+                    } else {
+                        emitter.complete();
+                    }
+                    remove(this);
+                    draining.set(false);
+                    return;
+                }
+            }
+            // An offer may have slipped in after the final poll
+            synchronized (this) {
+                if (queue.isEmpty()) {
+                    return;
+                }
+            }
+            scheduleDrain();
+        }
+
+        private void send(Outgoing out) throws IOException {
+            if (out.name == null) {
+                emitter.send(SseEmitter.event().comment(out.data));
+                return;
+            }
+            SseEmitter.SseEventBuilder event = SseEmitter.event().name(out.name).data(out.data);
+            if (out.id != null) {
+                event.id(String.valueOf(out.id));
+            }
+            emitter.send(event);
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.klef.sdp.backend.service;
+
+import com.klef.sdp.backend.dto.AvailableSlot;
+import com.klef.sdp.backend.event.AppointmentChangedEvent;
+import com.klef.sdp.backend.event.CacheVersionChangedEvent;
+import com.klef.sdp.backend.event.ScheduleChangedEvent;
+import com.klef.sdp.backend.model.Appointment;
+import com.klef.sdp.backend.model.AppointmentStatus;
+import com.klef.sdp.backend.model.Schedule;
+import com.klef.sdp.backend.model.SlotCapacity;
+import com.klef.sdp.backend.repository.ScheduleRepository;
+import com.klef.sdp.backend.repository.SlotCapacityRepository;
+import com.klef.sdp.backend.util.IntBitmapMap;
+import com.klef.sdp.backend.util.ScheduleTimes;
+import com.klef.sdp.backend.util.WeekBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory answer to "when is this doctor free next?".
+ *
+ * Holds every doctor's schedules in compiled form plus the number of live
+ * bookings per schedule and date, so availability queries never touch MySQL.
+ * Schedules are reloaded per doctor when they change, booking counts move with
+ * appointment events, and a periodic refresh from the capacity ledger picks up
+ * bookings taken by other backend instances.
+ *
+ * Each doctor's working hours are also kept as a WeekBitmap, so "who works
+ * on Tuesday at 10:30?" over the whole directory is one AND per doctor.
+ */
+@Component
+public class AvailabilityIndex {
+
+    public static final int MAX_DAYS = 60;
+
+    @Autowired
+    private ScheduleRepository scheduleRepository;
+
+    @Autowired
+    private SlotCapacityRepository slotCapacityRepository;
+
+    private final ConcurrentHashMap<Integer, CompiledSchedule[]> schedulesByDoctor = new ConcurrentHashMap<>();
+
+    // doctorId -> open schedules as a WeekBitmap; replaced whole, never mutated
+    private volatile IntBitmapMap weeks = IntBitmapMap.EMPTY;
+
+    // (scheduleId, epochDay) packed into one long -> live bookings
+    private final ConcurrentHashMap<Long, AtomicInteger> booked = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Map<Integer, List<Schedule>> byDoctor = new HashMap<>();
+        for (Schedule s : scheduleRepository.findAll()) {
+            byDoctor.computeIfAbsent(s.getDoctorId(), k -> new ArrayList<>()).add(s);
+        }
+        schedulesByDoctor.keySet().retainAll(byDoctor.keySet());
+        byDoctor.forEach((doctorId, list) -> schedulesByDoctor.put(doctorId, compile(list)));
+        Map<Integer, long[]> bitmaps = new HashMap<>();
+        byDoctor.forEach((doctorId, list) -> bitmaps.put(doctorId, week(list)));
+        synchronized (this) {
+            weeks = IntBitmapMap.of(bitmaps);
+        }
+        refreshBookings();
+    }
+
+    @Scheduled(fixedDelayString = "${availability.refresh-interval-ms:60000}",
+               initialDelayString = "${availability.refresh-interval-ms:60000}")
+    public void refreshBookings() {
+        Map<Long, AtomicInteger> fresh = new HashMap<>();
+        for (SlotCapacity slot : slotCapacityRepository.findBySlotDateGreaterThanEqual(LocalDate.now())) {
+            fresh.put(key(slot.getScheduleId(), slot.getSlotDate()), new AtomicInteger(slot.getBooked()));
+        }
+        booked.keySet().retainAll(fresh.keySet());
+        booked.putAll(fresh);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onScheduleChanged(ScheduleChangedEvent event) {
+        reload(event.getDoctorId());
+    }
+
+    // Schedules edited through another instance
+    @EventListener
+    public void onCacheVersionChanged(CacheVersionChangedEvent event) {
+        String name = event.getCacheName();
+        if (name.startsWith(ResourceETags.SCHEDULES_PREFIX)) {
+            reload(Integer.parseInt(name.substring(ResourceETags.SCHEDULES_PREFIX.length())));
+        }
+    }
+
+    private void reload(int doctorId) {
+        List<Schedule> schedules = scheduleRepository.findByDoctorId(doctorId);
+        if (schedules.isEmpty()) {
+            schedulesByDoctor.remove(doctorId);
+        } else {
+            schedulesByDoctor.put(doctorId, compile(schedules));
+        }
+        long[] week = week(schedules);
+        synchronized (this) {
+            weeks = schedules.isEmpty() ? weeks.without(doctorId) : weeks.with(doctorId, week);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        Appointment a = event.getAppointment();
+        LocalDate date = a.getDate();
+        if (date == null) {
+            return;
+        }
+        if (event.getType() == AppointmentChangedEvent.Type.STATUS_CHANGED
+                && AppointmentStatus.holdsCapacity(event.getPreviousStatus())
+                && event.getPreviousScheduleId() != null) {
+            AtomicInteger count = booked.get(key(event.getPreviousScheduleId(), date));
+            if (count != null) {
+                count.updateAndGet(c -> Math.max(c - 1, 0));
+            }
+        }
+        if (AppointmentStatus.holdsCapacity(a.getStatus()) && a.getScheduleId() != null) {
+            booked.computeIfAbsent(key(a.getScheduleId(), date), k -> new AtomicInteger()).incrementAndGet();
+        }
+    }
+
+    /**
+     * Open sessions with at least one free place, from {@code from} for {@code days} days.
+     */
+    public List<AvailableSlot> available(int doctorId, LocalDate from, int days) {
+        CompiledSchedule[] schedules = schedulesByDoctor.get(doctorId);
+        List<AvailableSlot> result = new ArrayList<>();
+        if (schedules == null) {
+            return result;
+        }
+        int span = Math.max(1, Math.min(days, MAX_DAYS));
+        for (int i = 0; i < span; i++) {
+            LocalDate date = from.plusDays(i);
+            DayOfWeek day = date.getDayOfWeek();
+            for (CompiledSchedule s : schedules) {
+                if (s.day != day) {
+                    continue;
+                }
+                AtomicInteger count = booked.get(key(s.id, date));
+                int taken = count == null ? 0 : count.get();
+                if (taken < s.capacity) {
+                    result.add(new AvailableSlot(s.id, date, s.dayName, s.startTime, s.endTime, s.capacity, taken));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Bookings and places summed over the doctor's open sessions on the date,
+     * or null when the doctor has no session that day.
+     */
+    public DayLoad dayLoad(int doctorId, LocalDate date) {
+        CompiledSchedule[] schedules = schedulesByDoctor.get(doctorId);
+        if (schedules == null) {
+            return null;
+        }
+        DayOfWeek day = date.getDayOfWeek();
+        int taken = 0;
+        int capacity = 0;
+        boolean works = false;
+        for (CompiledSchedule s : schedules) {
+            if (s.day != day) {
+                continue;
+            }
+            AtomicInteger count = booked.get(key(s.id, date));
+            taken += count == null ? 0 : count.get();
+            capacity += s.capacity;
+            works = true;
+        }
+        return works ? new DayLoad(taken, capacity) : null;
+    }
+
+    /**
+     * True if the doctor's open schedules cover every slot of {@code query}
+     * (see WeekBitmap.query). Working hours only: bookings are not counted.
+     */
+    public boolean worksDuring(int doctorId, long[] query) {
+        long[] week = weeks.get(doctorId);
+        return week != null && WeekBitmap.covers(week, query);
+    }
+
+    public record DayLoad(int booked, int capacity) {
+        public int remaining() { return Math.max(capacity - booked, 0); }
+    }
+
+    private static CompiledSchedule[] compile(List<Schedule> schedules) {
+        List<CompiledSchedule> compiled = new ArrayList<>();
+        for (Schedule s : schedules) {
+            if (!Boolean.TRUE.equals(s.getIsAvailable()) || s.getDayOfWeek() == null) {
+                continue;
+            }
+            DayOfWeek day;
+            try {
+                day = DayOfWeek.valueOf(s.getDayOfWeek().trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+            if (s.getStartTime() == null) {
+                continue;
+            }
+            int start = ScheduleTimes.minutes(s.getStartTime());
+            int capacity = s.getMaxAppointments() == null ? 0 : s.getMaxAppointments();
+            compiled.add(new CompiledSchedule(s.getId(), day, start, s.getStartTime(), s.getEndTime(), capacity));
+        }
+        compiled.sort(Comparator.comparingInt((CompiledSchedule c) -> c.day.getValue()).thenComparingInt(c -> c.startMinute));
+        return compiled.toArray(new CompiledSchedule[0]);
+    }
+
+    private static long[] week(List<Schedule> schedules) {
+        long[] week = WeekBitmap.empty();
+        for (CompiledSchedule s : compile(schedules)) {
+            if (s.endTime == null) {
+                continue;
+            }
+            int end = s.endTime.equals(LocalTime.MAX) ? 24 * 60 : ScheduleTimes.minutes(s.endTime);
+            WeekBitmap.addWorking(week, s.day, s.startMinute, end);
+        }
+        return week;
+    }
+
+    private static long key(int scheduleId, LocalDate date) {
+        return ((long) scheduleId << 32) | (date.toEpochDay() & 0xFFFFFFFFL);
+    }
+
+    private static final class CompiledSchedule {
+        final int id;
+        final DayOfWeek day;
+        final String dayName;
+        final int startMinute;
+        final LocalTime startTime;
+        final LocalTime endTime;
+        final int capacity;
+
+        CompiledSchedule(int id, DayOfWeek day, int startMinute, LocalTime startTime, LocalTime endTime, int capacity) {
+            this.id = id;
+            this.day = day;
+            this.dayName = ScheduleTimes.dayName(day);
+            this.startMinute = startMinute;
+            this.startTime = startTime;
+            this.endTime = endTime;
+            this.capacity = capacity;
+        }
+    }
+}
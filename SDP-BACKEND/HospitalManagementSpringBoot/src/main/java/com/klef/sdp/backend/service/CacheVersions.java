@@ -0,0 +1,85 @@
+package com.klef.sdp.backend.service;
+
+import com.klef.sdp.backend.event.CacheVersionChangedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Version counters in cache_version, one per cached data set or per resource
+ * served with an ETag. An instance that changes the data bumps the counter;
+ * the others see it on their next poll and publish a CacheVersionChangedEvent,
+ * so in-memory caches and ETags agree across replicas within one poll
+ * interval. Reads are served from memory and never query the database.
+ */
+@Component
+public class CacheVersions {
+
+    // Re-read rows a little older than the last poll, in case a bump committed late
+    private static final long POLL_OVERLAP_MS = 30_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private final Map<String, Long> known = new ConcurrentHashMap<>();
+    private volatile long polledAt = -1;
+
+    // Own transaction: callers are often after-commit listeners, whose connection no longer commits
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void bump(String cacheName) {
+        long now = System.currentTimeMillis();
+        String update = "UPDATE cache_version SET version = version + 1, updated_at = ? WHERE cache_name = ?";
+        if (jdbcTemplate.update(update, now, cacheName) == 0) {
+            try {
+                jdbcTemplate.update("INSERT INTO cache_version (cache_name, version, updated_at) VALUES (?, 1, ?)",
+                        cacheName, now);
+            } catch (DuplicateKeyException e) {
+                jdbcTemplate.update(update, now, cacheName);
+            }
+        }
+        // Our own bump is not news. Changes by others up to here committed before
+        // their bump, so whatever the caller reloads next already includes them.
+        Long version = jdbcTemplate.queryForObject("SELECT version FROM cache_version WHERE cache_name = ?",
+                Long.class, cacheName);
+        known.merge(cacheName, version, Math::max);
+    }
+
+    // 0 until the first bump
+    public long current(String cacheName) {
+        if (polledAt < 0) {
+            poll(); // first use before the scheduler has run
+        }
+        return known.getOrDefault(cacheName, 0L);
+    }
+
+    @Scheduled(fixedDelayString = "${cache-version.poll-interval-ms:2000}")
+    public synchronized void poll() {
+        long start = System.currentTimeMillis();
+        boolean initial = polledAt < 0;
+        String sql = "SELECT cache_name, version FROM cache_version" + (initial ? "" : " WHERE updated_at >= ?");
+        Object[] args = initial ? new Object[0] : new Object[] { polledAt - POLL_OVERLAP_MS };
+        jdbcTemplate.query(sql, rs -> {
+            String name = rs.getString(1);
+            long version = rs.getLong(2);
+            Long previous = known.get(name);
+            if (previous == null || version > previous) {
+                known.merge(name, version, Math::max);
+                if (!initial) {
+                    eventPublisher.publishEvent(new CacheVersionChangedEvent(name));
+                }
+            }
+        }, args);
+        polledAt = start;
+    }
+}
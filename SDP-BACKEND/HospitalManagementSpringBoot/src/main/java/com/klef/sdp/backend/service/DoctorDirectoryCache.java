@@ -0,0 +1,138 @@
+package com.klef.sdp.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.klef.sdp.backend.event.CacheVersionChangedEvent;
+import com.klef.sdp.backend.event.DoctorChangedEvent;
+import com.klef.sdp.backend.repository.DoctorRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The doctor lists behind /doctor/all, /doctor/doctors (DIRECTORY view) and
+ * /admin/alldoctors (ADMIN view), kept as ready-to-send JSON so a warm hit
+ * costs neither a query nor serialization. Lists are reloaded after
+ * doctor-directory.ttl-ms, dropped on any local doctor change, and dropped on
+ * other instances through the cache_version counter. A list larger than
+ * doctor-directory.max-bytes is served but not kept.
+ */
+@Component
+public class DoctorDirectoryCache {
+
+    public static final String CACHE_NAME = "doctors";
+
+    public enum View { DIRECTORY, ADMIN }
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private CacheVersions cacheVersions;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${doctor-directory.ttl-ms:300000}")
+    private long ttlMs;
+
+    @Value("${doctor-directory.max-bytes:8388608}")
+    private int maxBytes;
+
+    private final Map<View, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong(); // bumped on every drop, so a load racing a change is not kept
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong oversize = new AtomicLong();
+
+    public byte[] getJson(View view) {
+        Entry e = entries.get(view);
+        if (e != null && System.currentTimeMillis() < e.expiresAt) {
+            hits.incrementAndGet();
+            return e.json;
+        }
+        misses.incrementAndGet();
+        return load(view);
+    }
+
+    // Concurrent misses wait for one query instead of each running their own
+    private synchronized byte[] load(View view) {
+        Entry e = entries.get(view);
+        if (e != null && System.currentTimeMillis() < e.expiresAt) {
+            return e.json;
+        }
+        long gen = generation.get();
+        List<?> doctors = view == View.DIRECTORY
+                ? doctorRepository.findAllSummaries()
+                : doctorRepository.findAllAdminSummaries();
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(doctors);
+        } catch (JsonProcessingException ex) {
+            throw new RuntimeException("Could not serialize doctor list", ex);
+        }
+        loads.incrementAndGet();
+        if (json.length > maxBytes) {
+            oversize.incrementAndGet();
+            return json;
+        }
+        if (generation.get() == gen) {
+            entries.put(view, new Entry(json, doctors.size(), System.currentTimeMillis() + ttlMs));
+        }
+        return json;
+    }
+
+    public void invalidate() {
+        generation.incrementAndGet();
+        entries.clear();
+        invalidations.incrementAndGet();
+    }
+
+    // Every doctor change goes through here, so this is also where other instances are told
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDoctorChanged(DoctorChangedEvent event) {
+        invalidate();
+        try {
+            cacheVersions.bump(CACHE_NAME);
+        } catch (RuntimeException e) {
+            // Other instances still pick the change up when their copy expires
+            System.out.println("Could not bump doctor directory version: " + e.getMessage());
+        }
+    }
+
+    @EventListener
+    public void onCacheVersionChanged(CacheVersionChangedEvent event) {
+        if (CACHE_NAME.equals(event.getCacheName())) {
+            invalidate();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("loads", loads.get());
+        stats.put("invalidations", invalidations.get());
+        stats.put("oversize", oversize.get());
+        for (View view : View.values()) {
+            Entry e = entries.get(view);
+            String name = view.name().toLowerCase();
+            stats.put(name + "Doctors", e == null ? 0 : e.doctorCount);
+            stats.put(name + "Bytes", e == null ? 0 : e.json.length);
+        }
+        return stats;
+    }
+
+    private record Entry(byte[] json, int doctorCount, long expiresAt) { }
+}
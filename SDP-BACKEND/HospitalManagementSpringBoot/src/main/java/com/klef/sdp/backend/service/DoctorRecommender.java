@@ -0,0 +1,76 @@
+package com.klef.sdp.backend.service;
+
+import com.klef.sdp.backend.dto.DoctorRecommendation;
+import com.klef.sdp.backend.dto.DoctorSummary;
+import com.klef.sdp.backend.util.WeekBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Suggests the least loaded doctors of a specialization for a date, so
+ * bookings spread over colleagues instead of piling up on a few names.
+ *
+ * Built from the doctor search index and the per-schedule, per-day booking
+ * counters of the availability index; neither touches the database.
+ */
+@Service
+public class DoctorRecommender {
+
+    @Autowired
+    private DoctorSearchIndex doctorSearchIndex;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    /**
+     * Doctors with a free place on {@code date}, least loaded first: lowest
+     * share of places taken, then most places left, then by name. Doctors
+     * who do not work that day or are fully booked are left out, as a
+     * booking with them would be turned away.
+     */
+    public List<DoctorRecommendation> recommend(String specialization, String location, LocalDate date, int limit) {
+        List<DoctorRecommendation> candidates = new ArrayList<>();
+        for (DoctorSummary d : doctorSearchIndex.findAll(specialization, location)) {
+            AvailabilityIndex.DayLoad load = availabilityIndex.dayLoad(d.id(), date);
+            if (load == null || load.remaining() == 0) {
+                continue;
+            }
+            candidates.add(new DoctorRecommendation(d.id(), d.name(), d.specialization(), d.location(), date,
+                    load.booked(), load.capacity(), load.remaining()));
+        }
+        // Stable sort, so equally loaded doctors keep the index's name order
+        candidates.sort(Comparator.comparingDouble((DoctorRecommendation r) -> (double) r.booked() / r.capacity())
+                .thenComparing(Comparator.comparingInt(DoctorRecommendation::remaining).reversed()));
+        int size = Math.min(Math.max(limit, 1), DoctorSearchIndex.MAX_LIMIT);
+        return candidates.size() > size ? new ArrayList<>(candidates.subList(0, size)) : candidates;
+    }
+
+    /**
+     * Doctors whose open schedules cover the whole of {@code startMinute} to
+     * {@code endMinute} on {@code day}, by name. This is about working
+     * hours: a doctor whose sessions are fully booked is still listed.
+     *
+     * @throws IllegalArgumentException if the times are not a range within the day
+     */
+    public List<DoctorSummary> working(String specialization, String location, DayOfWeek day,
+                                       int startMinute, int endMinute, int limit) {
+        long[] query = WeekBitmap.query(day, startMinute, endMinute);
+        int size = Math.min(Math.max(limit, 1), DoctorSearchIndex.MAX_LIMIT);
+        List<DoctorSummary> result = new ArrayList<>();
+        for (DoctorSummary d : doctorSearchIndex.findAll(specialization, location)) {
+            if (availabilityIndex.worksDuring(d.id(), query)) {
+                result.add(d);
+                if (result.size() == size) {
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,293 @@
+package com.klef.sdp.backend.service;
+
+import com.klef.sdp.backend.dto.DoctorAdminSummary;
+import com.klef.sdp.backend.dto.DoctorSearchResult;
+import com.klef.sdp.backend.dto.DoctorSummary;
+import com.klef.sdp.backend.event.CacheVersionChangedEvent;
+import com.klef.sdp.backend.event.DoctorChangedEvent;
+import com.klef.sdp.backend.model.Doctor;
+import com.klef.sdp.backend.repository.DoctorRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * In-memory doctor search: inverted indexes over specialization,
+ * qualification and location, and a prefix trie over the words of the name.
+ *
+ * Searches read an immutable snapshot without locks and never touch the
+ * database. A local doctor change re-reads that one doctor and swaps in a
+ * rebuilt snapshot; a change on another instance (seen through
+ * cache_version) reloads all doctors.
+ */
+@Component
+public class DoctorSearchIndex {
+
+    public static final int MAX_LIMIT = 100;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    private volatile Snapshot snapshot = Snapshot.build(List.of());
+
+    // Source of truth for rebuilds; only touched under the lock
+    private final Map<Integer, Doc> docs = new HashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        reload();
+    }
+
+    public synchronized void reload() {
+        docs.clear();
+        for (DoctorAdminSummary d : doctorRepository.findAllAdminSummaries()) {
+            docs.put(d.id(), new Doc(d.id(), d.name(), d.specialization(), d.qualification(), d.location()));
+        }
+        snapshot = Snapshot.build(docs.values());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDoctorChanged(DoctorChangedEvent event) {
+        if (event.getDoctorId() == null) {
+            reload();
+            return;
+        }
+        synchronized (this) {
+            Doctor d = doctorRepository.findById(event.getDoctorId()).orElse(null);
+            if (d == null) {
+                docs.remove(event.getDoctorId());
+            } else {
+                docs.put(d.getId(), new Doc(d.getId(), d.getName(), d.getSpecialization(), d.getQualification(), d.getLocation()));
+            }
+            snapshot = Snapshot.build(docs.values());
+        }
+    }
+
+    @EventListener
+    public void onCacheVersionChanged(CacheVersionChangedEvent event) {
+        if (DoctorDirectoryCache.CACHE_NAME.equals(event.getCacheName())) {
+            reload();
+        }
+    }
+
+    /**
+     * Doctors whose name has a word starting with each word of {@code name}
+     * and whose other fields equal the given values (case-insensitive),
+     * ordered by name. Facets count the values of each field over all
+     * matches, not just the returned page.
+     */
+    public DoctorSearchResult search(String name, String specialization, String qualification, String location, int limit) {
+        Snapshot s = snapshot;
+        int[] matches = match(s, name, specialization, qualification, location);
+
+        int size = Math.min(Math.max(limit, 1), MAX_LIMIT);
+        List<DoctorSummary> page = new ArrayList<>(Math.min(size, matches.length));
+        for (int i = 0; i < matches.length && i < size; i++) {
+            page.add(summary(s.docs[matches[i]]));
+        }
+        Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
+        facets.put("specialization", facet(s, matches, d -> d.specialization));
+        facets.put("qualification", facet(s, matches, d -> d.qualification));
+        facets.put("location", facet(s, matches, d -> d.location));
+        return new DoctorSearchResult(matches.length, page, facets);
+    }
+
+    /**
+     * Every doctor with the given specialization and location (either may be
+     * blank), ordered by name.
+     */
+    public List<DoctorSummary> findAll(String specialization, String location) {
+        Snapshot s = snapshot;
+        int[] matches = match(s, null, specialization, null, location);
+        List<DoctorSummary> result = new ArrayList<>(matches.length);
+        for (int i : matches) {
+            result.add(summary(s.docs[i]));
+        }
+        return result;
+    }
+
+    public int size() {
+        return snapshot.docs.length;
+    }
+
+    private static int[] match(Snapshot s, String name, String specialization, String qualification, String location) {
+        List<int[]> lists = new ArrayList<>();
+        if (specialization != null && !specialization.isBlank()) {
+            lists.add(s.specialization.getOrDefault(normalize(specialization), Snapshot.NONE));
+        }
+        if (qualification != null && !qualification.isBlank()) {
+            lists.add(s.qualification.getOrDefault(normalize(qualification), Snapshot.NONE));
+        }
+        if (location != null && !location.isBlank()) {
+            lists.add(s.location.getOrDefault(normalize(location), Snapshot.NONE));
+        }
+        if (name != null) {
+            for (String word : words(name)) {
+                lists.add(s.names.find(word));
+            }
+        }
+        return lists.isEmpty() ? s.all : intersect(lists);
+    }
+
+    private static DoctorSummary summary(Doc d) {
+        return new DoctorSummary(d.id, d.name, d.specialization, d.location);
+    }
+
+    private static Map<String, Integer> facet(Snapshot s, int[] matches, Function<Doc, String> field) {
+        Map<String, Integer> counts = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (int i : matches) {
+            String value = field.apply(s.docs[i]);
+            if (value != null && !value.isBlank()) {
+                counts.merge(value.trim(), 1, Integer::sum);
+            }
+        }
+        return counts;
+    }
+
+    // Posting lists are sorted, so intersect from the shortest with a merge walk
+    private static int[] intersect(List<int[]> lists) {
+        lists.sort(Comparator.comparingInt(a -> a.length));
+        int[] result = lists.get(0);
+        for (int l = 1; l < lists.size() && result.length > 0; l++) {
+            int[] other = lists.get(l);
+            int[] out = new int[result.length];
+            int n = 0;
+            for (int i = 0, j = 0; i < result.length && j < other.length; ) {
+                if (result[i] == other[j]) {
+                    out[n++] = result[i];
+                    i++;
+                    j++;
+                } else if (result[i] < other[j]) {
+                    i++;
+                } else {
+                    j++;
+                }
+            }
+            result = Arrays.copyOf(out, n);
+        }
+        return result;
+    }
+
+    static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    static String[] words(String value) {
+        String normalized = normalize(value).replaceAll("[^\\p{L}\\p{N}]+", " ").trim();
+        return normalized.isEmpty() ? new String[0] : normalized.split(" ");
+    }
+
+    private record Doc(int id, String name, String specialization, String qualification, String location) { }
+
+    /*
+     * Doctors are numbered by name order, so every posting list is sorted and
+     * a search result is already in display order.
+     */
+    private static final class Snapshot {
+        static final int[] NONE = new int[0];
+
+        final Doc[] docs;
+        final int[] all;
+        final Map<String, int[]> specialization;
+        final Map<String, int[]> qualification;
+        final Map<String, int[]> location;
+        final Trie names;
+
+        private Snapshot(Doc[] docs, Map<String, int[]> specialization, Map<String, int[]> qualification,
+                         Map<String, int[]> location, Trie names) {
+            this.docs = docs;
+            this.all = new int[docs.length];
+            for (int i = 0; i < docs.length; i++) {
+                all[i] = i;
+            }
+            this.specialization = specialization;
+            this.qualification = qualification;
+            this.location = location;
+            this.names = names;
+        }
+
+        static Snapshot build(Iterable<Doc> source) {
+            List<Doc> sorted = new ArrayList<>();
+            source.forEach(sorted::add);
+            sorted.sort(Comparator.comparing((Doc d) -> normalize(d.name)).thenComparingInt(d -> d.id));
+            Doc[] docs = sorted.toArray(new Doc[0]);
+
+            Map<String, List<Integer>> bySpecialization = new HashMap<>();
+            Map<String, List<Integer>> byQualification = new HashMap<>();
+            Map<String, List<Integer>> byLocation = new HashMap<>();
+            Trie names = new Trie();
+            for (int i = 0; i < docs.length; i++) {
+                Doc d = docs[i];
+                bySpecialization.computeIfAbsent(normalize(d.specialization), k -> new ArrayList<>()).add(i);
+                byQualification.computeIfAbsent(normalize(d.qualification), k -> new ArrayList<>()).add(i);
+                byLocation.computeIfAbsent(normalize(d.location), k -> new ArrayList<>()).add(i);
+                for (String word : words(d.name)) {
+                    names.add(word, i);
+                }
+            }
+            names.freeze();
+            return new Snapshot(docs, postings(bySpecialization), postings(byQualification), postings(byLocation), names);
+        }
+
+        private static Map<String, int[]> postings(Map<String, List<Integer>> lists) {
+            Map<String, int[]> result = new HashMap<>(lists.size() * 2);
+            lists.forEach((k, v) -> result.put(k, v.stream().mapToInt(Integer::intValue).toArray()));
+            return result;
+        }
+    }
+
+    /*
+     * Character trie over name words. Each node keeps the sorted, distinct doc
+     * numbers of every word passing through it, so a prefix lookup is one walk
+     * down the trie with no subtree traversal.
+     */
+    private static final class Trie {
+        private final Node root = new Node();
+
+        void add(String word, int doc) {
+            Node node = root;
+            for (int i = 0; i < word.length(); i++) {
+                node = node.children.computeIfAbsent(word.charAt(i), c -> new Node());
+                node.pending.add(doc);
+            }
+        }
+
+        void freeze() {
+            root.freeze();
+        }
+
+        int[] find(String prefix) {
+            Node node = root;
+            for (int i = 0; i < prefix.length() && node != null; i++) {
+                node = node.children.get(prefix.charAt(i));
+            }
+            return node == null ? Snapshot.NONE : node.docs;
+        }
+
+        private static final class Node {
+            final Map<Character, Node> children = new HashMap<>(4);
+            List<Integer> pending = new ArrayList<>();
+            int[] docs;
+
+            void freeze() {
+                // Docs are added in ascending order; a doc with two words sharing a prefix appears twice in a row
+                docs = pending.stream().mapToInt(Integer::intValue).distinct().toArray();
+                pending = null;
+                children.values().forEach(Node::freeze);
+            }
+        }
+    }
+}
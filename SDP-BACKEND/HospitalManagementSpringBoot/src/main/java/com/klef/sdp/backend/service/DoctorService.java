@@ -1,5 +1,7 @@
 package com.klef.sdp.backend.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.klef.sdp.backend.dto.DoctorSummary;
 import com.klef.sdp.backend.model.Doctor;
 import java.util.List;
 
@@ -9,6 +11,7 @@ public interface DoctorService
     public Doctor checkDoctorLogin(String username, String password);
     public Doctor getDoctorById(int id);
     public String updateDoctorProfile(Doctor doctor);
+    public Long patchDoctorProfile(int id, JsonNode changes);
 
-    public List<Doctor> getAllDoctors(); 
+    public List<DoctorSummary> getAllDoctors(); 
 }
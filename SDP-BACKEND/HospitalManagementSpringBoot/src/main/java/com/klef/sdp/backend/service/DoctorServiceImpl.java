@@ -1,19 +1,41 @@
 package com.klef.sdp.backend.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.klef.sdp.backend.auth.PasswordHasher;
+import com.klef.sdp.backend.dto.DoctorSummary;
+import com.klef.sdp.backend.event.DoctorChangedEvent;
 import com.klef.sdp.backend.model.Doctor;
 import com.klef.sdp.backend.repository.DoctorRepository;
+import com.klef.sdp.backend.repository.PartialUpdateRepository;
 
 import java.util.List;
+import java.util.Set;
 
 @Service
 public class DoctorServiceImpl implements DoctorService
 {
+    // What PATCH /doctor/{id} may change; the username is the login and stays fixed
+    private static final Set<String> PATCHABLE = Set.of("name", "dob", "gender", "email", "mobileno",
+            "specialization", "qualification", "experience", "location", "password");
+
     @Autowired
     private DoctorRepository doctorRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    @Autowired
+    private PartialUpdateRepository partialUpdates;
+
     @Override
     public String doctorRegistration(Doctor doctor) {
         // ✅ check if username already exists
@@ -21,13 +43,23 @@ public class DoctorServiceImpl implements DoctorService
             return "Username already exists! Please choose another one.";
         }
 
-        doctorRepository.save(doctor);
+        doctor.setPassword(passwordHasher.hash(doctor.getPassword()));
+        Doctor saved = doctorRepository.save(doctor);
+        eventPublisher.publishEvent(new DoctorChangedEvent(saved.getId()));
         return "Doctor Registered Successfully";
     }
 
     @Override
     public Doctor checkDoctorLogin(String username, String password) {
-        return doctorRepository.findByUsernameAndPassword(username, password);
+        Doctor d = doctorRepository.findByUsername(username);
+        String stored = d == null ? null : d.getPassword();
+        if (!passwordHasher.matches(password, stored)) {
+            return null;
+        }
+        if (passwordHasher.needsUpgrade(stored)) {
+            doctorRepository.updatePassword(d.getId(), stored, passwordHasher.hash(password));
+        }
+        return d;
     }
 
     @Override
@@ -39,6 +71,11 @@ public class DoctorServiceImpl implements DoctorService
     public String updateDoctorProfile(Doctor doctor) {
         Doctor existing = doctorRepository.findById(doctor.getId()).orElse(null);
         if (existing != null) {
+            // Clients that send the version they edited get a conflict instead of overwriting a newer save
+            if (doctor.getVersion() != null && !doctor.getVersion().equals(existing.getVersion())) {
+                throw new OptimisticLockingFailureException("Doctor " + existing.getId() + " is at version "
+                        + existing.getVersion() + ", not " + doctor.getVersion());
+            }
             existing.setName(doctor.getName());
             existing.setDob(doctor.getDob());
             existing.setGender(doctor.getGender());
@@ -48,9 +85,13 @@ public class DoctorServiceImpl implements DoctorService
             existing.setQualification(doctor.getQualification());
             existing.setExperience(doctor.getExperience());
             existing.setLocation(doctor.getLocation());
-            existing.setPassword(doctor.getPassword());
+            // A blank password keeps the current one; the profile form never receives it
+            if (doctor.getPassword() != null && !doctor.getPassword().isBlank()) {
+                existing.setPassword(passwordHasher.hash(doctor.getPassword()));
+            }
 
             doctorRepository.save(existing);
+            eventPublisher.publishEvent(new DoctorChangedEvent(existing.getId()));
             return "Doctor Profile Updated Successfully";
         } else {
             return "Doctor Not Found";
@@ -58,7 +99,24 @@ public class DoctorServiceImpl implements DoctorService
     }
 
     @Override
-    public List<Doctor> getAllDoctors() {
-        return doctorRepository.findAll();
+    @Transactional
+    public Long patchDoctorProfile(int id, JsonNode changes) {
+        PartialUpdateRepository.Patch patch = partialUpdates.read(Doctor.class, changes, PATCHABLE);
+        // As on PUT, a blank password keeps the current one
+        Object password = patch.values().remove("password");
+        if (password instanceof String p && !p.isBlank()) {
+            patch.values().put("password", passwordHasher.hash(p));
+        }
+        Long version = partialUpdates.apply(Doctor.class, id, patch);
+        if (version != null) {
+            eventPublisher.publishEvent(new DoctorChangedEvent(id));
+        }
+        return version;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<DoctorSummary> getAllDoctors() {
+        return doctorRepository.findAllSummaries();
     }
 }
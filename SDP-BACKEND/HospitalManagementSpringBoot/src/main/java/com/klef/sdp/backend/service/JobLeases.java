@@ -0,0 +1,46 @@
+package com.klef.sdp.backend.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Time-limited leases in the job_lease table, so a background job scheduled
+ * on every backend instance only runs on one of them at a time. A lease that
+ * is not renewed expires, letting another instance take over after a crash.
+ */
+@Component
+public class JobLeases {
+
+    private final String owner = UUID.randomUUID().toString();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Takes or renews the lease for {@code job} for {@code ttlMs}. Returns false
+     * while another instance holds an unexpired lease.
+     */
+    public boolean tryAcquire(String job, long ttlMs) {
+        long now = System.currentTimeMillis();
+        int updated = jdbcTemplate.update(
+                "UPDATE job_lease SET owner = ?, lease_until = ? WHERE job_name = ? AND (owner = ? OR lease_until < ?)",
+                owner, now + ttlMs, job, owner, now);
+        if (updated > 0) {
+            return true;
+        }
+        try {
+            return jdbcTemplate.update("INSERT INTO job_lease (job_name, owner, lease_until) VALUES (?, ?, ?)",
+                    job, owner, now + ttlMs) > 0;
+        } catch (DuplicateKeyException e) {
+            return false; // someone else holds it
+        }
+    }
+
+    public void release(String job) {
+        jdbcTemplate.update("UPDATE job_lease SET lease_until = 0 WHERE job_name = ? AND owner = ?", job, owner);
+    }
+}
@@ -0,0 +1,108 @@
+package com.klef.sdp.backend.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.klef.sdp.backend.dto.PatientSummary;
+import com.klef.sdp.backend.repository.PatientRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Writes every patient (without passwords) straight to an output stream as
+ * NDJSON or CSV. Rows come from a database cursor and go out one at a time,
+ * so memory use stays flat however many patients there are.
+ */
+@Component
+public class PatientExporter {
+
+    public enum Format { NDJSON, CSV }
+
+    private static final String CSV_HEADER = "id,name,gender,dob,email,username,mobileno,location";
+
+    // Phone numbers and dates may legitimately start with + or -
+    private static final Pattern NUMERIC = Pattern.compile("[+-]?[0-9][0-9 ()./-]*");
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * @return the number of patients written
+     */
+    @Transactional(readOnly = true)
+    public long export(Format format, OutputStream out) throws IOException {
+        try (Stream<PatientSummary> patients = patientRepository.streamAllSummaries()) {
+            return format == Format.CSV ? writeCsv(patients.iterator(), out) : writeNdjson(patients.iterator(), out);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private long writeNdjson(Iterator<PatientSummary> patients, OutputStream out) throws IOException {
+        long count = 0;
+        try (SequenceWriter writer = objectMapper.writerFor(PatientSummary.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("\n")
+                .writeValues(out)) {
+            while (patients.hasNext()) {
+                writer.write(patients.next());
+                count++;
+            }
+        }
+        if (count > 0) {
+            out.write('\n');
+        }
+        out.flush();
+        return count;
+    }
+
+    private long writeCsv(Iterator<PatientSummary> patients, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write("\r\n");
+        long count = 0;
+        while (patients.hasNext()) {
+            PatientSummary p = patients.next();
+            writer.write(String.valueOf(p.id()));
+            for (String value : new String[] { p.name(), p.gender(), p.dob(), p.email(), p.username(), p.mobileno(), p.location() }) {
+                writer.write(',');
+                writer.write(csvField(value));
+            }
+            writer.write("\r\n");
+            count++;
+        }
+        writer.flush();
+        return count;
+    }
+
+    static String csvField(String value) {
+        if (value == null || value.isEmpty()) {
+            return "";
+        }
+        // Keep spreadsheets from evaluating user-entered text as a formula
+        char first = value.charAt(0);
+        if (first == '=' || first == '@' || first == '\t' || first == '\r'
+                || ((first == '+' || first == '-') && !NUMERIC.matcher(value).matches())) {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,425 @@
+package com.klef.sdp.backend.service;
+
+import com.klef.sdp.backend.dto.PatientSearchHit;
+import com.klef.sdp.backend.dto.PatientSearchResult;
+import com.klef.sdp.backend.dto.PatientSummary;
+import com.klef.sdp.backend.event.CacheVersionChangedEvent;
+import com.klef.sdp.backend.event.PatientChangedEvent;
+import com.klef.sdp.backend.model.Patient;
+import com.klef.sdp.backend.repository.PatientRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * In-memory patient lookup by any fragment of name, mobile number or email.
+ *
+ * Each field value is cut into overlapping three-character grams, and every
+ * gram keeps a sorted list of the patients containing it. A query of three
+ * or more characters intersects the lists of its own grams and checks the
+ * few survivors with a substring test, so a lookup reads a handful of short
+ * lists instead of scanning patient_table with LIKE.
+ *
+ * Local patient events keep the index current. Registrations on other
+ * instances are picked up by polling for new ids; their updates and deletes
+ * through a per-patient cache_version counter.
+ */
+@Component
+public class PatientSearchIndex {
+
+    public static final int MIN_QUERY = 3;
+    public static final int MAX_LIMIT = 100;
+
+    private static final String VERSION_PREFIX = "patient:";
+
+    // New ids are re-read this far behind the highest one seen, for registrations that committed out of order
+    private static final int POLL_OVERLAP_IDS = 100;
+    private static final int POLL_BATCH = 1000;
+
+    private static final int NAME = 0;
+    private static final int MOBILE = 1;
+    private static final int EMAIL = 2;
+    private static final String[] FIELD_NAMES = { "name", "mobileno", "email" };
+
+    private static final Pattern PHONE_QUERY = Pattern.compile("[0-9 +()./-]+");
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private CacheVersions cacheVersions;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock
+    private final Map<Integer, Doc> docs = new HashMap<>();
+    private final Map<Long, Postings> grams = new HashMap<>();
+    private int maxId;
+
+    private volatile boolean loaded;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        reload();
+    }
+
+    // Searches wait while this runs; it only runs at startup
+    public void reload() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+        lock.writeLock().lock();
+        try {
+            docs.clear();
+            grams.clear();
+            maxId = 0;
+            tx.executeWithoutResult(status -> {
+                try (Stream<PatientSummary> patients = patientRepository.streamAllSummaries()) {
+                    patients.forEach(p -> put(Doc.of(p)));
+                }
+            });
+            grams.values().forEach(Postings::trim);
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPatientChanged(PatientChangedEvent event) {
+        refresh(event.getPatientId());
+        // New ids reach other instances through their poll; edits and deletes need a nudge
+        if (event.getType() != PatientChangedEvent.Type.REGISTERED) {
+            try {
+                cacheVersions.bump(VERSION_PREFIX + event.getPatientId());
+            } catch (RuntimeException e) {
+                System.out.println("Could not bump version of patient " + event.getPatientId() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    @EventListener
+    public void onCacheVersionChanged(CacheVersionChangedEvent event) {
+        String name = event.getCacheName();
+        if (name.startsWith(VERSION_PREFIX)) {
+            refresh(Integer.valueOf(name.substring(VERSION_PREFIX.length())));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${patient-search.poll-interval-ms:5000}",
+               initialDelayString = "${patient-search.poll-interval-ms:5000}")
+    public void pollNewPatients() {
+        if (!loaded) {
+            return;
+        }
+        int after;
+        lock.readLock().lock();
+        try {
+            after = Math.max(maxId - POLL_OVERLAP_IDS, 0);
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<PatientSummary> rows;
+        do {
+            rows = patientRepository.findSummariesAfter(after, Limit.of(POLL_BATCH));
+            lock.writeLock().lock();
+            try {
+                for (PatientSummary p : rows) {
+                    if (!docs.containsKey(p.id())) {
+                        put(Doc.of(p));
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (!rows.isEmpty()) {
+                after = rows.get(rows.size() - 1).id();
+            }
+        } while (rows.size() == POLL_BATCH);
+    }
+
+    private void refresh(Integer patientId) {
+        if (patientId == null) {
+            return;
+        }
+        Patient p = patientRepository.findById(patientId).orElse(null);
+        lock.writeLock().lock();
+        try {
+            if (p == null) {
+                remove(patientId);
+            } else {
+                put(Doc.of(p));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Patients whose name, mobile number or email contains {@code query},
+     * best first: an exact match, then a match at the end of the mobile
+     * number ("last digits"), then at the start of the value, then at the
+     * start of a name word, then anywhere. Ties go by name.
+     *
+     * @throws IllegalArgumentException if the query has fewer than
+     *         {@link #MIN_QUERY} usable characters
+     */
+    public PatientSearchResult search(String query, int limit) {
+        String[] keys = new String[3];
+        keys[NAME] = nameKey(query);
+        keys[MOBILE] = query != null && PHONE_QUERY.matcher(query.trim()).matches() ? digits(query) : "";
+        keys[EMAIL] = query == null || query.trim().indexOf(' ') >= 0 ? "" : emailKey(query);
+        if (keys[NAME].length() < MIN_QUERY && keys[MOBILE].length() < MIN_QUERY && keys[EMAIL].length() < MIN_QUERY) {
+            throw new IllegalArgumentException("Enter at least " + MIN_QUERY + " characters");
+        }
+
+        Map<Integer, Match> best = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            for (int field = 0; field < 3; field++) {
+                String key = keys[field];
+                if (key.length() < MIN_QUERY) {
+                    continue;
+                }
+                for (int id : candidates(field, key)) {
+                    Doc d = docs.get(id);
+                    String value = d.key(field);
+                    if (!value.contains(key)) {
+                        continue;
+                    }
+                    Match m = new Match(d, field, score(field, value, key));
+                    best.merge(id, m, (a, b) -> b.score > a.score ? b : a);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Match> matches = new ArrayList<>(best.values());
+        matches.sort(Comparator.comparingInt((Match m) -> -m.score)
+                .thenComparing(m -> m.doc.nameKey)
+                .thenComparingInt(m -> m.doc.id));
+        int size = Math.min(Math.max(limit, 1), MAX_LIMIT);
+        List<PatientSearchHit> hits = new ArrayList<>(Math.min(size, matches.size()));
+        for (int i = 0; i < matches.size() && i < size; i++) {
+            Match m = matches.get(i);
+            hits.add(new PatientSearchHit(m.doc.id, m.doc.name, m.doc.gender, m.doc.mobileno, m.doc.email,
+                    FIELD_NAMES[m.field]));
+        }
+        return new PatientSearchResult(matches.size(), hits);
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docs.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static int score(int field, String value, String key) {
+        if (value.equals(key)) {
+            return 100;
+        }
+        if (field == MOBILE && value.endsWith(key)) {
+            return 90;
+        }
+        if (value.startsWith(key)) {
+            return 80;
+        }
+        if (field == NAME && value.contains(" " + key)) {
+            return 70;
+        }
+        return 50;
+    }
+
+    // Ids having every gram of key, from the shortest posting list outwards
+    private int[] candidates(int field, String key) {
+        Set<Long> wanted = new LinkedHashSet<>();
+        for (int i = 0; i + MIN_QUERY <= key.length(); i++) {
+            wanted.add(gram(field, key, i));
+        }
+        List<Postings> lists = new ArrayList<>(wanted.size());
+        for (long g : wanted) {
+            Postings p = grams.get(g);
+            if (p == null) {
+                return new int[0];
+            }
+            lists.add(p);
+        }
+        lists.sort(Comparator.comparingInt(p -> p.size));
+        Postings shortest = lists.get(0);
+        int[] out = new int[shortest.size];
+        int n = 0;
+        next:
+        for (int i = 0; i < shortest.size; i++) {
+            int id = shortest.ids[i];
+            for (int l = 1; l < lists.size(); l++) {
+                if (!lists.get(l).contains(id)) {
+                    continue next;
+                }
+            }
+            out[n++] = id;
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private void put(Doc d) {
+        Doc old = docs.put(d.id, d);
+        if (old != null) {
+            removeGrams(old);
+        }
+        for (int field = 0; field < 3; field++) {
+            String value = d.key(field);
+            for (int i = 0; i + MIN_QUERY <= value.length(); i++) {
+                grams.computeIfAbsent(gram(field, value, i), g -> new Postings()).add(d.id);
+            }
+        }
+        maxId = Math.max(maxId, d.id);
+    }
+
+    private void remove(int id) {
+        Doc old = docs.remove(id);
+        if (old != null) {
+            removeGrams(old);
+        }
+    }
+
+    private void removeGrams(Doc d) {
+        for (int field = 0; field < 3; field++) {
+            String value = d.key(field);
+            for (int i = 0; i + MIN_QUERY <= value.length(); i++) {
+                long g = gram(field, value, i);
+                Postings p = grams.get(g);
+                if (p != null && p.remove(d.id) && p.size == 0) {
+                    grams.remove(g);
+                }
+            }
+        }
+    }
+
+    // Field in the top bits, then three 16-bit chars
+    private static long gram(int field, String s, int i) {
+        return ((long) field << 48) | ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+
+    static String nameKey(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{N}]+", " ").trim();
+    }
+
+    static String digits(String value) {
+        return value == null ? "" : value.replaceAll("[^0-9]", "");
+    }
+
+    static String emailKey(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private record Match(Doc doc, int field, int score) { }
+
+    private static final class Doc {
+        final int id;
+        final String name;
+        final String gender;
+        final String mobileno;
+        final String email;
+        final String nameKey;
+        final String mobileKey;
+        final String emailKey;
+
+        private Doc(int id, String name, String gender, String mobileno, String email) {
+            this.id = id;
+            this.name = name;
+            this.gender = gender == null ? null : gender.intern(); // a handful of distinct values
+            this.mobileno = mobileno;
+            this.email = email;
+            this.nameKey = nameKey(name);
+            this.mobileKey = digits(mobileno);
+            this.emailKey = emailKey(email);
+        }
+
+        static Doc of(PatientSummary p) {
+            return new Doc(p.id(), p.name(), p.gender(), p.mobileno(), p.email());
+        }
+
+        static Doc of(Patient p) {
+            return new Doc(p.getId(), p.getName(), p.getGender(), p.getMobileno(), p.getEmail());
+        }
+
+        String key(int field) {
+            return field == NAME ? nameKey : field == MOBILE ? mobileKey : emailKey;
+        }
+    }
+
+    /*
+     * Sorted, distinct patient ids. Ids mostly arrive in ascending order, so
+     * adding is usually an append.
+     */
+    private static final class Postings {
+        int[] ids = new int[2];
+        int size;
+
+        void add(int id) {
+            if (size > 0 && ids[size - 1] >= id) {
+                int i = Arrays.binarySearch(ids, 0, size, id);
+                if (i >= 0) {
+                    return;
+                }
+                insertAt(-i - 1, id);
+                return;
+            }
+            insertAt(size, id);
+        }
+
+        boolean remove(int id) {
+            int i = Arrays.binarySearch(ids, 0, size, id);
+            if (i < 0) {
+                return false;
+            }
+            System.arraycopy(ids, i + 1, ids, i, size - i - 1);
+            size--;
+            return true;
+        }
+
+        boolean contains(int id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+
+        void trim() {
+            if (ids.length > size) {
+                ids = Arrays.copyOf(ids, Math.max(size, 1));
+            }
+        }
+
+        private void insertAt(int i, int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            }
+            System.arraycopy(ids, i, ids, i + 1, size - i);
+            ids[i] = id;
+            size++;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.klef.sdp.backend.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.klef.sdp.backend.model.Patient;
 
 public interface PatientService 
@@ -7,4 +8,5 @@ public interface PatientService
     public String patientRegistration(Patient patient);
     public Patient checkPatientLogin(String username, String password);
     public String patientUpdateProfile(Patient patient);
+    public Long patchPatientProfile(int id, JsonNode changes);
 }
@@ -1,25 +1,55 @@
 package com.klef.sdp.backend.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.klef.sdp.backend.auth.PasswordHasher;
+import com.klef.sdp.backend.event.PatientChangedEvent;
 import com.klef.sdp.backend.model.Patient;
+import com.klef.sdp.backend.repository.PartialUpdateRepository;
 import com.klef.sdp.backend.repository.PatientRepository;
 
+import java.util.Set;
+
 @Service
 public class PatientServiceImpl implements PatientService
 {
+    private static final Set<String> PATCHABLE = Set.of("name", "gender", "dob", "email", "mobileno", "location", "password");
+
     @Autowired
     private PatientRepository patientRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    @Autowired
+    private PartialUpdateRepository partialUpdates;
+
     @Override
     public String patientRegistration(Patient patient) {
-        patientRepository.save(patient);
+        patient.setPassword(passwordHasher.hash(patient.getPassword()));
+        Patient saved = patientRepository.save(patient);
+        eventPublisher.publishEvent(new PatientChangedEvent(PatientChangedEvent.Type.REGISTERED, saved.getId()));
         return "Patient Registered Successfully";
     }
 
     @Override
     public Patient checkPatientLogin(String username, String password) {
-        return patientRepository.findByUsernameAndPassword(username, password);
+        Patient p = patientRepository.findByUsername(username);
+        String stored = p == null ? null : p.getPassword();
+        if (!passwordHasher.matches(password, stored)) {
+            return null;
+        }
+        if (passwordHasher.needsUpgrade(stored)) {
+            patientRepository.updatePassword(p.getId(), stored, passwordHasher.hash(password));
+        }
+        return p;
     }
 
     @Override
@@ -27,16 +57,39 @@ public class PatientServiceImpl implements PatientService
         Patient existing = patientRepository.findById(patient.getId()).orElse(null);
 
         if (existing != null) {
+            if (patient.getVersion() != null && !patient.getVersion().equals(existing.getVersion())) {
+                throw new OptimisticLockingFailureException("Patient " + existing.getId() + " is at version "
+                        + existing.getVersion() + ", not " + patient.getVersion());
+            }
             existing.setName(patient.getName());
             existing.setDob(patient.getDob());
             existing.setEmail(patient.getEmail());
             existing.setMobileno(patient.getMobileno());
-            existing.setPassword(patient.getPassword());
+            // A blank password keeps the current one; the profile form never receives it
+            if (patient.getPassword() != null && !patient.getPassword().isBlank()) {
+                existing.setPassword(passwordHasher.hash(patient.getPassword()));
+            }
             existing.setLocation(patient.getLocation());
             patientRepository.save(existing);
+            eventPublisher.publishEvent(new PatientChangedEvent(PatientChangedEvent.Type.UPDATED, existing.getId()));
             return "Patient Profile Updated Successfully";
         } else {
             return "Patient ID Not Found to Update";
         }
     }
+
+    @Override
+    @Transactional
+    public Long patchPatientProfile(int id, JsonNode changes) {
+        PartialUpdateRepository.Patch patch = partialUpdates.read(Patient.class, changes, PATCHABLE);
+        Object password = patch.values().remove("password");
+        if (password instanceof String p && !p.isBlank()) {
+            patch.values().put("password", passwordHasher.hash(p));
+        }
+        Long version = partialUpdates.apply(Patient.class, id, patch);
+        if (version != null) {
+            eventPublisher.publishEvent(new PatientChangedEvent(PatientChangedEvent.Type.UPDATED, id));
+        }
+        return version;
+    }
 }
@@ -1,14 +1,26 @@
 package com.klef.sdp.backend.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.klef.sdp.backend.dto.DrugCount;
+import com.klef.sdp.backend.dto.DrugPatient;
+import com.klef.sdp.backend.dto.PrescriptionSearchPage;
 import com.klef.sdp.backend.model.Prescription;
+import com.klef.sdp.backend.repository.PrescriptionSearchRepository;
+
+import java.time.LocalDate;
 import java.util.List;
 
 public interface PrescriptionService {
     Prescription addPrescription(Prescription prescription);
     List<Prescription> getPrescriptionsByDoctor(Integer doctorId);
     List<Prescription> getPrescriptionsByPatient(Integer patientId);
+    List<Prescription> getPrescriptionsByPatient(Integer patientId, boolean includeArchived);
     Prescription updatePrescription(Prescription prescription);
+    Prescription patchPrescription(Integer id, JsonNode changes);
     String deletePrescription(Integer id);
     Prescription getPrescriptionById(Integer id);
+    List<DrugPatient> findPatientsByDrug(String drug, LocalDate from, LocalDate to, int limit);
+    List<DrugCount> findTopDrugs(Integer doctorId, LocalDate from, LocalDate to, int limit);
+    PrescriptionSearchPage searchPrescriptions(PrescriptionSearchRepository.Owner owner, int ownerId, String q, String cursor, int limit);
 }
 
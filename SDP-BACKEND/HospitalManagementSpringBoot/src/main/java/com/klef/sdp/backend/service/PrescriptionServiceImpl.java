@@ -1,22 +1,70 @@
 package com.klef.sdp.backend.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.klef.sdp.backend.audit.AuditAction;
+import com.klef.sdp.backend.audit.AuditLog;
+import com.klef.sdp.backend.dto.DrugCount;
+import com.klef.sdp.backend.dto.DrugPatient;
+import com.klef.sdp.backend.dto.PrescriptionSearchHit;
+import com.klef.sdp.backend.dto.PrescriptionSearchPage;
 import com.klef.sdp.backend.model.Prescription;
+import com.klef.sdp.backend.model.PrescriptionItem;
+import com.klef.sdp.backend.repository.ArchiveRepository;
+import com.klef.sdp.backend.repository.PartialUpdateRepository;
+import com.klef.sdp.backend.repository.PrescriptionItemRepository;
 import com.klef.sdp.backend.repository.PrescriptionRepository;
+import com.klef.sdp.backend.repository.PrescriptionSearchRepository;
+import com.klef.sdp.backend.util.KeysetCursor;
+import com.klef.sdp.backend.util.MedicationParser;
+import com.klef.sdp.backend.util.SearchTerms;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class PrescriptionServiceImpl implements PrescriptionService {
     
+    // What PATCH /prescription/{id} may change; who it is by and for stays fixed
+    private static final Set<String> PATCHABLE = Set.of("date", "medications", "dosage", "instructions", "diagnosis", "notes");
+    
     @Autowired
     private PrescriptionRepository prescriptionRepository;
     
+    @Autowired
+    private PrescriptionItemRepository prescriptionItemRepository;
+    
+    @Autowired
+    private PrescriptionSearchRepository prescriptionSearchRepository;
+    
+    @Autowired
+    private ArchiveRepository archiveRepository;
+    
+    @Autowired
+    private PartialUpdateRepository partialUpdates;
+    
+    @Autowired
+    private AuditLog auditLog;
+    
+    @Autowired
+    private ResourceETags resourceETags;
+    
     @Override
+    @Transactional
     public Prescription addPrescription(Prescription prescription) {
-        return prescriptionRepository.save(prescription);
+        Prescription saved = prescriptionRepository.save(prescription);
+        prescriptionItemRepository.saveAll(PrescriptionItem.of(saved));
+        patientChanged(saved.getPatientId());
+        return saved;
     }
     
     @Override
@@ -30,19 +78,74 @@ public class PrescriptionServiceImpl implements PrescriptionService {
     }
     
     @Override
+    public List<Prescription> getPrescriptionsByPatient(Integer patientId, boolean includeArchived) {
+        List<Prescription> hot = prescriptionRepository.findByPatientId(patientId);
+        if (!includeArchived) {
+            return hot;
+        }
+        List<Prescription> all = new ArrayList<>(archiveRepository.findPrescriptionsByPatient(patientId));
+        all.addAll(hot);
+        return all;
+    }
+    
+    @Override
+    @Transactional
     public Prescription updatePrescription(Prescription prescription) {
         Optional<Prescription> existing = prescriptionRepository.findById(prescription.getId());
         if (existing.isPresent()) {
-            return prescriptionRepository.save(prescription);
+            Integer previousPatient = existing.get().getPatientId();
+            if (prescription.getVersion() == null) {
+                prescription.setVersion(existing.get().getVersion()); // no version sent: last write wins, as before
+            }
+            Prescription saved = prescriptionRepository.save(prescription);
+            prescriptionItemRepository.deleteByPrescriptionId(saved.getId());
+            prescriptionItemRepository.saveAll(PrescriptionItem.of(saved));
+            patientChanged(previousPatient);
+            if (!Objects.equals(previousPatient, saved.getPatientId())) {
+                patientChanged(saved.getPatientId());
+            }
+            auditLog.record(AuditAction.PRESCRIPTION_UPDATE, saved.getId(),
+                    "doctor=" + saved.getDoctorId() + " patient=" + saved.getPatientId());
+            return saved;
         }
         throw new RuntimeException("Prescription not found");
     }
     
+    /**
+     * Writes only the fields in {@code changes}, if the prescription is still
+     * at the version they carry. Line items are rebuilt only when the
+     * medications or date change.
+     *
+     * @return the updated prescription, or null if there is none with this id
+     */
+    @Override
+    @Transactional
+    public Prescription patchPrescription(Integer id, JsonNode changes) {
+        PartialUpdateRepository.Patch patch = partialUpdates.read(Prescription.class, changes, PATCHABLE);
+        if (partialUpdates.apply(Prescription.class, id, patch) == null) {
+            return null;
+        }
+        Prescription saved = prescriptionRepository.findById(id).orElseThrow();
+        if (patch.values().containsKey("medications") || patch.values().containsKey("date")) {
+            prescriptionItemRepository.deleteByPrescriptionId(id);
+            prescriptionItemRepository.saveAll(PrescriptionItem.of(saved));
+        }
+        patientChanged(saved.getPatientId());
+        auditLog.record(AuditAction.PRESCRIPTION_UPDATE, id,
+                "doctor=" + saved.getDoctorId() + " patient=" + saved.getPatientId() + " fields=" + patch.values().keySet());
+        return saved;
+    }
+    
     @Override
+    @Transactional
     public String deletePrescription(Integer id) {
         Optional<Prescription> prescription = prescriptionRepository.findById(id);
         if (prescription.isPresent()) {
+            prescriptionItemRepository.deleteByPrescriptionId(id);
             prescriptionRepository.deleteById(id);
+            patientChanged(prescription.get().getPatientId());
+            auditLog.record(AuditAction.PRESCRIPTION_DELETE, id,
+                    "doctor=" + prescription.get().getDoctorId() + " patient=" + prescription.get().getPatientId());
             return "Prescription deleted successfully";
         }
         return "Prescription not found";
@@ -52,5 +155,65 @@ public class PrescriptionServiceImpl implements PrescriptionService {
     public Prescription getPrescriptionById(Integer id) {
         return prescriptionRepository.findById(id).orElse(null);
     }
+    
+    @Override
+    public List<DrugPatient> findPatientsByDrug(String drug, LocalDate from, LocalDate to, int limit) {
+        String prefix = MedicationParser.drugKey(drug).replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        return prescriptionItemRepository.findPatientsByDrug(prefix, from, to, Limit.of(Math.min(Math.max(limit, 1), 1000)));
+    }
+    
+    @Override
+    public List<DrugCount> findTopDrugs(Integer doctorId, LocalDate from, LocalDate to, int limit) {
+        Limit top = Limit.of(Math.min(Math.max(limit, 1), 100));
+        return doctorId == null
+                ? prescriptionItemRepository.findTopDrugs(from, to, top)
+                : prescriptionItemRepository.findTopDrugsByDoctor(doctorId, from, to, top);
+    }
+    
+    /**
+     * A page of the doctor's or patient's prescriptions whose diagnosis,
+     * instructions or notes contain every word of {@code q} (as a word
+     * prefix), newest first, with the matches highlighted.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public PrescriptionSearchPage searchPrescriptions(PrescriptionSearchRepository.Owner owner, int ownerId,
+                                                      String q, String cursor, int limit) {
+        List<String> terms = SearchTerms.parse(q);
+        if (terms.isEmpty()) {
+            throw new IllegalArgumentException("Search for at least one word of " + SearchTerms.MIN_TERM + " or more characters");
+        }
+        int pageSize = Math.min(Math.max(limit, 1), 100);
+        KeysetCursor after = cursor == null || cursor.isBlank() ? null : KeysetCursor.decode(cursor);
+        // One extra row tells whether another page exists
+        List<Prescription> rows = prescriptionSearchRepository.search(owner, ownerId, terms, after, pageSize + 1);
+        
+        List<PrescriptionSearchHit> hits = new ArrayList<>(Math.min(rows.size(), pageSize));
+        for (Prescription p : rows.subList(0, Math.min(rows.size(), pageSize))) {
+            Map<String, String> highlights = new LinkedHashMap<>();
+            putHighlight(highlights, "diagnosis", p.getDiagnosis(), terms);
+            putHighlight(highlights, "instructions", p.getInstructions(), terms);
+            putHighlight(highlights, "notes", p.getNotes(), terms);
+            hits.add(new PrescriptionSearchHit(p, highlights));
+        }
+        if (rows.size() <= pageSize) {
+            return new PrescriptionSearchPage(hits, null);
+        }
+        Prescription last = rows.get(pageSize - 1);
+        return new PrescriptionSearchPage(hits, new KeysetCursor(last.getDate(), last.getId()).encode());
+    }
+    
+    private static void putHighlight(Map<String, String> highlights, String field, String text, List<String> terms) {
+        String excerpt = SearchTerms.highlight(text, terms, 160);
+        if (excerpt != null) {
+            highlights.put(field, excerpt);
+        }
+    }
+    
+    private void patientChanged(Integer patientId) {
+        if (patientId != null) {
+            resourceETags.changed(ResourceETags.prescriptionsKey(patientId));
+        }
+    }
 }
 
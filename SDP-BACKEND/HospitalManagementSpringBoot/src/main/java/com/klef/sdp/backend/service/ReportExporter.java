@@ -0,0 +1,250 @@
+package com.klef.sdp.backend.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Writes appointments or prescriptions in a date range to an output stream
+ * as CSV or NDJSON, for reporting. Rows are read with plain JDBC from a
+ * forward-only cursor (server-side on MySQL, through useCursorFetch) and
+ * written as they arrive, without entities or a persistence context, so
+ * memory use stays flat however many rows there are.
+ *
+ * With includeArchived the matching archive rows come first, then the live
+ * ones; each part is in date order.
+ */
+@Component
+public class ReportExporter {
+
+    public enum Format { NDJSON, CSV }
+
+    private enum Kind { INT, TEXT, DATE, TIME }
+
+    private record Column(String name, String field, Kind kind) { }
+
+    public enum Dataset {
+        APPOINTMENTS("appointment_table", "appointment_archive", "appointment_id", List.of(
+                new Column("appointment_id", "id", Kind.INT),
+                new Column("patient_id", "patientId", Kind.INT),
+                new Column("patient_name", "patientName", Kind.TEXT),
+                new Column("patient_contact", "patientContact", Kind.TEXT),
+                new Column("doctor_id", "doctorId", Kind.INT),
+                new Column("doctor_name", "doctorName", Kind.TEXT),
+                new Column("date", "date", Kind.DATE),
+                new Column("time_range", "timeRange", Kind.TEXT),
+                new Column("reason", "reason", Kind.TEXT),
+                new Column("status", "status", Kind.TEXT),
+                new Column("confirmed_time", "confirmedTime", Kind.TIME),
+                new Column("doctor_feedback", "doctorFeedback", Kind.TEXT),
+                new Column("schedule_id", "scheduleId", Kind.INT))),
+        PRESCRIPTIONS("prescription_table", "prescription_archive", "prescription_id", List.of(
+                new Column("prescription_id", "id", Kind.INT),
+                new Column("doctor_id", "doctorId", Kind.INT),
+                new Column("doctor_name", "doctorName", Kind.TEXT),
+                new Column("patient_id", "patientId", Kind.INT),
+                new Column("patient_name", "patientName", Kind.TEXT),
+                new Column("appointment_id", "appointmentId", Kind.INT),
+                new Column("date", "date", Kind.DATE),
+                new Column("medications", "medications", Kind.TEXT),
+                new Column("dosage", "dosage", Kind.TEXT),
+                new Column("instructions", "instructions", Kind.TEXT),
+                new Column("diagnosis", "diagnosis", Kind.TEXT),
+                new Column("notes", "notes", Kind.TEXT)));
+
+        private final String table;
+        private final String archiveTable;
+        private final String idColumn;
+        private final List<Column> columns;
+
+        Dataset(String table, String archiveTable, String idColumn, List<Column> columns) {
+            this.table = table;
+            this.archiveTable = archiveTable;
+            this.idColumn = idColumn;
+            this.columns = columns;
+        }
+    }
+
+    private static final int FETCH_SIZE = 1000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * @param doctorId only this doctor's rows, or null for all
+     * @return the number of rows written
+     */
+    public long export(Dataset dataset, Format format, LocalDate from, LocalDate to, Integer doctorId,
+                       boolean includeArchived, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        RowWriter writer = format == Format.CSV ? new CsvWriter(dataset, includeArchived, out) : new NdjsonWriter(dataset, out);
+        long[] count = { 0 };
+        try {
+            if (includeArchived) {
+                count[0] += query(dataset, dataset.archiveTable, from, to, doctorId, writer, true);
+            }
+            count[0] += query(dataset, dataset.table, from, to, doctorId, writer, false);
+            writer.finish();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        long ms = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        System.out.println("Exported " + count[0] + " " + dataset.name().toLowerCase(Locale.ROOT) + " as " + format
+                + " in " + ms + " ms (" + count[0] * 1000 / ms + " rows/s)");
+        return count[0];
+    }
+
+    private long query(Dataset dataset, String table, LocalDate from, LocalDate to, Integer doctorId,
+                       RowWriter writer, boolean archived) {
+        StringBuilder sql = new StringBuilder("SELECT ");
+        for (int i = 0; i < dataset.columns.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append('`').append(dataset.columns.get(i).name()).append('`');
+        }
+        sql.append(" FROM ").append(table).append(" WHERE `date` BETWEEN ? AND ?");
+        if (doctorId != null) {
+            sql.append(" AND doctor_id = ?");
+        }
+        sql.append(" ORDER BY `date`, ").append(dataset.idColumn);
+
+        long[] rows = { 0 };
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql.toString(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(FETCH_SIZE);
+            ps.setObject(1, from);
+            ps.setObject(2, to);
+            if (doctorId != null) {
+                ps.setInt(3, doctorId);
+            }
+            return ps;
+        }, rs -> {
+            try {
+                writer.write(rs, archived);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            rows[0]++;
+        });
+        return rows[0];
+    }
+
+    private interface RowWriter {
+        void write(ResultSet rs, boolean archived) throws IOException, SQLException;
+
+        void finish() throws IOException;
+    }
+
+    private static String text(ResultSet rs, int index, Kind kind) throws SQLException {
+        return switch (kind) {
+            case DATE -> {
+                LocalDate date = rs.getObject(index, LocalDate.class);
+                yield date == null ? null : date.toString();
+            }
+            case TIME -> {
+                LocalTime time = rs.getObject(index, LocalTime.class);
+                yield time == null ? null : time.toString();
+            }
+            default -> rs.getString(index);
+        };
+    }
+
+    private static final class CsvWriter implements RowWriter {
+
+        private final List<Column> columns;
+        private final boolean archivedColumn;
+        private final Writer out;
+
+        CsvWriter(Dataset dataset, boolean archivedColumn, OutputStream out) throws IOException {
+            this.columns = dataset.columns;
+            this.archivedColumn = archivedColumn;
+            this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            List<String> header = new ArrayList<>();
+            columns.forEach(c -> header.add(c.name()));
+            if (archivedColumn) {
+                header.add("archived");
+            }
+            this.out.write(String.join(",", header));
+            this.out.write("\r\n");
+        }
+
+        @Override
+        public void write(ResultSet rs, boolean archived) throws IOException, SQLException {
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                out.write(PatientExporter.csvField(text(rs, i + 1, columns.get(i).kind())));
+            }
+            if (archivedColumn) {
+                out.write(archived ? ",true" : ",false");
+            }
+            out.write("\r\n");
+        }
+
+        @Override
+        public void finish() throws IOException {
+            out.flush();
+        }
+    }
+
+    private final class NdjsonWriter implements RowWriter {
+
+        private final List<Column> columns;
+        private final JsonGenerator json;
+
+        NdjsonWriter(Dataset dataset, OutputStream out) throws IOException {
+            this.columns = dataset.columns;
+            this.json = objectMapper.getFactory().createGenerator(out).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            this.json.setRootValueSeparator(null); // lines are separated by the newline alone
+        }
+
+        @Override
+        public void write(ResultSet rs, boolean archived) throws IOException, SQLException {
+            json.writeStartObject();
+            for (int i = 0; i < columns.size(); i++) {
+                Column column = columns.get(i);
+                json.writeFieldName(column.field());
+                if (column.kind() == Kind.INT) {
+                    int value = rs.getInt(i + 1);
+                    if (rs.wasNull()) {
+                        json.writeNull();
+                    } else {
+                        json.writeNumber(value);
+                    }
+                } else {
+                    json.writeString(text(rs, i + 1, column.kind()));
+                }
+            }
+            if (archived) {
+                json.writeBooleanField("archived", true); // same shape as the list endpoints
+            }
+            json.writeEndObject();
+            json.writeRaw('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            json.close();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.klef.sdp.backend.service;
+
+import com.klef.sdp.backend.event.DoctorChangedEvent;
+import com.klef.sdp.backend.event.ScheduleChangedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Strong ETags for GET endpoints, taken from the in-memory CacheVersions
+ * counter of the resource behind them. Checking If-None-Match therefore
+ * costs no query; the counter is bumped after every committed change to the
+ * resource, on any instance.
+ *
+ * etag.representation is part of every tag; change it when a response's
+ * JSON shape changes so clients do not keep serving the old shape.
+ */
+@Component
+public class ResourceETags {
+
+    @Autowired
+    private CacheVersions cacheVersions;
+
+    @Value("${etag.representation:1}")
+    private String representation;
+
+    public static String doctorKey(int doctorId) { return "doctor:" + doctorId; }
+
+    public static final String SCHEDULES_PREFIX = "schedules:";
+
+    public static String schedulesKey(int doctorId) { return SCHEDULES_PREFIX + doctorId; }
+
+    public static String prescriptionsKey(int patientId) { return "prescriptions:" + patientId; }
+
+    // Read before loading the data, so a change racing the load yields a tag that is already stale
+    public String etag(String key) {
+        return "\"" + representation + "-" + cacheVersions.current(key) + "\"";
+    }
+
+    /**
+     * Bumps the keys once the current transaction commits, or right away
+     * outside a transaction.
+     */
+    public void changed(Collection<String> keys) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bump(keys);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                bump(keys);
+            }
+        });
+    }
+
+    public void changed(String key) {
+        changed(List.of(key));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDoctorChanged(DoctorChangedEvent event) {
+        if (event.getDoctorId() != null) {
+            bump(List.of(doctorKey(event.getDoctorId())));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onScheduleChanged(ScheduleChangedEvent event) {
+        bump(List.of(schedulesKey(event.getDoctorId())));
+    }
+
+    private void bump(Collection<String> keys) {
+        for (String key : keys) {
+            try {
+                cacheVersions.bump(key);
+            } catch (RuntimeException e) {
+                // The change itself is committed; clients may see the old tag until the next change
+                System.out.println("Could not bump version of " + key + ": " + e.getMessage());
+            }
+        }
+    }
+}
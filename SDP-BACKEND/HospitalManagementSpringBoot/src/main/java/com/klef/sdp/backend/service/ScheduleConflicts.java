@@ -0,0 +1,199 @@
+package com.klef.sdp.backend.service;
+
+import com.klef.sdp.backend.dto.ScheduleConflict;
+import com.klef.sdp.backend.dto.ScheduleConflictReport;
+import com.klef.sdp.backend.dto.ScheduleSpan;
+import com.klef.sdp.backend.event.CacheVersionChangedEvent;
+import com.klef.sdp.backend.event.ScheduleChangedEvent;
+import com.klef.sdp.backend.exception.ScheduleConflictException;
+import com.klef.sdp.backend.repository.ScheduleRepository;
+import com.klef.sdp.backend.util.IntervalTree;
+import com.klef.sdp.backend.util.ScheduleTimes;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Keeps a doctor's schedules from overlapping one another: two sessions
+ * over the same time would both hand out places for it, and a booking
+ * could not tell which of them it belongs to.
+ *
+ * Each doctor's schedules are held as one IntervalTree over the week
+ * (day * 1440 + minute), built on first use and dropped when one of their
+ * schedules changes, here or on another instance. Two instances accepting
+ * overlapping schedules for the same doctor at the same moment is not
+ * prevented; sweep() reports such pairs, and any stored before this check.
+ */
+@Component
+public class ScheduleConflicts {
+
+    private static final int DAY = 24 * 60;
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("hh:mm a", Locale.ENGLISH);
+
+    @Autowired
+    private ScheduleRepository scheduleRepository;
+
+    private final ConcurrentHashMap<Integer, IntervalTree> trees = new ConcurrentHashMap<>();
+
+    // Moves on every invalidation, so a tree loaded across one is not kept
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Refuses a schedule that would overlap another of the doctor's. An
+     * unknown day, or times that are not a range, are left to the caller's
+     * field validation.
+     *
+     * @param scheduleId the schedule being changed, or null for a new one
+     * @throws ScheduleConflictException naming the schedule it would overlap
+     */
+    public void check(int doctorId, Integer scheduleId, String dayOfWeek, LocalTime startTime, LocalTime endTime) {
+        int[] span = span(dayOfWeek, startTime, endTime);
+        if (span == null) {
+            return;
+        }
+        IntervalTree tree = tree(doctorId);
+        int i = tree.findOverlap(span[0], span[1], scheduleId == null ? -1 : scheduleId);
+        if (i >= 0) {
+            int day = tree.start(i) / DAY;
+            throw new ScheduleConflictException("Overlaps the " + ScheduleTimes.dayName(DayOfWeek.of(day + 1)) + " "
+                    + format(tree.start(i) - day * DAY) + " - " + format(tree.end(i) - day * DAY) + " schedule");
+        }
+    }
+
+    /**
+     * Every overlapping pair of schedules in the table, read in one pass
+     * doctor by doctor, so only one doctor's schedules are held at a time.
+     */
+    @Transactional(readOnly = true)
+    public ScheduleConflictReport sweep() {
+        List<ScheduleConflict> conflicts = new ArrayList<>();
+        List<Integer> unreadable = new ArrayList<>();
+        int schedules = 0;
+        int doctors = 0;
+        try (Stream<ScheduleSpan> rows = scheduleRepository.streamAllSpans()) {
+            List<ScheduleSpan> doctor = new ArrayList<>();
+            for (Iterator<ScheduleSpan> it = rows.iterator(); it.hasNext(); ) {
+                ScheduleSpan s = it.next();
+                if (!doctor.isEmpty() && doctor.get(0).doctorId() != s.doctorId()) {
+                    addConflicts(doctor, conflicts, unreadable);
+                    doctors++;
+                    doctor.clear();
+                }
+                doctor.add(s);
+                schedules++;
+            }
+            if (!doctor.isEmpty()) {
+                addConflicts(doctor, conflicts, unreadable);
+                doctors++;
+            }
+        }
+        return new ScheduleConflictReport(schedules, doctors, conflicts, unreadable);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onScheduleChanged(ScheduleChangedEvent event) {
+        invalidate(event.getDoctorId());
+    }
+
+    @EventListener
+    public void onCacheVersionChanged(CacheVersionChangedEvent event) {
+        String name = event.getCacheName();
+        if (name.startsWith(ResourceETags.SCHEDULES_PREFIX)) {
+            invalidate(Integer.parseInt(name.substring(ResourceETags.SCHEDULES_PREFIX.length())));
+        }
+    }
+
+    private void invalidate(int doctorId) {
+        generation.incrementAndGet();
+        trees.remove(doctorId);
+    }
+
+    private IntervalTree tree(int doctorId) {
+        IntervalTree tree = trees.get(doctorId);
+        if (tree == null) {
+            long loadedAt = generation.get();
+            tree = build(scheduleRepository.findSpansByDoctorId(doctorId), new ArrayList<>());
+            if (trees.putIfAbsent(doctorId, tree) == null && generation.get() != loadedAt) {
+                trees.remove(doctorId, tree);
+            }
+        }
+        return tree;
+    }
+
+    private static void addConflicts(List<ScheduleSpan> schedules, List<ScheduleConflict> conflicts,
+                                     List<Integer> unreadable) {
+        IntervalTree tree = build(schedules, unreadable);
+        int doctorId = schedules.get(0).doctorId();
+        for (int i = 0; i < tree.size(); i++) {
+            int a = i;
+            tree.forEachOverlap(tree.start(a), tree.end(a), b -> {
+                // Each pair is seen from both sides; report it once
+                if (b > a) {
+                    int day = tree.start(a) / DAY;
+                    conflicts.add(new ScheduleConflict(doctorId, ScheduleTimes.dayName(DayOfWeek.of(day + 1)),
+                            tree.id(a), tree.id(b),
+                            ScheduleTimes.fromMinutes(Math.max(tree.start(a), tree.start(b)) - day * DAY),
+                            ScheduleTimes.fromMinutes(Math.min(tree.end(a), tree.end(b)) - day * DAY)));
+                }
+                return false;
+            });
+        }
+    }
+
+    private static IntervalTree build(List<ScheduleSpan> schedules, List<Integer> unreadable) {
+        int[] ids = new int[schedules.size()];
+        int[] starts = new int[schedules.size()];
+        int[] ends = new int[schedules.size()];
+        int n = 0;
+        for (ScheduleSpan s : schedules) {
+            int[] span = span(s.dayOfWeek(), s.startTime(), s.endTime());
+            if (span == null) {
+                unreadable.add(s.id());
+                continue;
+            }
+            ids[n] = s.id();
+            starts[n] = span[0];
+            ends[n] = span[1];
+            n++;
+        }
+        return IntervalTree.of(Arrays.copyOf(ids, n), Arrays.copyOf(starts, n), Arrays.copyOf(ends, n));
+    }
+
+    // {start, end} in minutes from Monday 00:00, or null if the schedule has no usable day or range
+    private static int[] span(String dayOfWeek, LocalTime startTime, LocalTime endTime) {
+        if (dayOfWeek == null || startTime == null || endTime == null) {
+            return null;
+        }
+        DayOfWeek day;
+        try {
+            day = DayOfWeek.valueOf(dayOfWeek.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        int start = ScheduleTimes.minutes(startTime);
+        int end = endTime.equals(LocalTime.MAX) ? DAY : ScheduleTimes.minutes(endTime);
+        if (end <= start) {
+            return null;
+        }
+        int base = (day.getValue() - 1) * DAY;
+        return new int[] { base + start, base + end };
+    }
+
+    private static String format(int minute) {
+        return ScheduleTimes.fromMinutes(minute).format(TIME);
+    }
+}
@@ -1,13 +1,19 @@
 package com.klef.sdp.backend.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.klef.sdp.backend.dto.AvailableSlot;
 import com.klef.sdp.backend.model.Schedule;
+
+import java.time.LocalDate;
 import java.util.List;
 
 public interface ScheduleService {
     Schedule addSchedule(Schedule schedule);
     List<Schedule> getSchedulesByDoctor(Integer doctorId);
     Schedule updateSchedule(Schedule schedule);
+    Schedule patchSchedule(Integer id, JsonNode changes);
     String deleteSchedule(Integer id);
     Schedule getScheduleById(Integer id);
+    List<AvailableSlot> getAvailableSlots(Integer doctorId, LocalDate from, int days);
 }
 
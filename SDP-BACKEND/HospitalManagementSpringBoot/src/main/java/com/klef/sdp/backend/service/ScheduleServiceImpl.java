@@ -1,22 +1,55 @@
 package com.klef.sdp.backend.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.klef.sdp.backend.dto.AvailableSlot;
+import com.klef.sdp.backend.event.ScheduleChangedEvent;
+import com.klef.sdp.backend.exception.InvalidPatchException;
 import com.klef.sdp.backend.model.Schedule;
+import com.klef.sdp.backend.repository.PartialUpdateRepository;
 import com.klef.sdp.backend.repository.ScheduleRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class ScheduleServiceImpl implements ScheduleService {
     
+    private static final Set<String> PATCHABLE = Set.of("dayOfWeek", "startTime", "endTime", "isAvailable", "maxAppointments");
+    
     @Autowired
     private ScheduleRepository scheduleRepository;
+
+    @Autowired
+    private SlotCapacityEngine slotCapacityEngine;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PartialUpdateRepository partialUpdates;
+
+    @Autowired
+    private ScheduleConflicts scheduleConflicts;
     
     @Override
     public Schedule addSchedule(Schedule schedule) {
-        return scheduleRepository.save(schedule);
+        scheduleConflicts.check(schedule.getDoctorId(), null, schedule.getDayOfWeek(),
+                schedule.getStartTime(), schedule.getEndTime());
+        Schedule saved = scheduleRepository.save(schedule);
+        eventPublisher.publishEvent(new ScheduleChangedEvent(saved.getDoctorId(), saved.getId()));
+        return saved;
     }
     
     @Override
@@ -25,24 +58,84 @@ public class ScheduleServiceImpl implements ScheduleService {
     }
     
     @Override
+    @Transactional
     public Schedule updateSchedule(Schedule schedule) {
         Optional<Schedule> existing = scheduleRepository.findById(schedule.getId());
         if (existing.isPresent()) {
-            return scheduleRepository.save(schedule);
+            Schedule previous = existing.get();
+            Integer previousDoctorId = previous.getDoctorId();
+            // Only when the session moves, so older overlaps do not block other edits
+            boolean moved = !Objects.equals(previousDoctorId, schedule.getDoctorId())
+                    || !Objects.equals(previous.getDayOfWeek(), schedule.getDayOfWeek())
+                    || !Objects.equals(previous.getStartTime(), schedule.getStartTime())
+                    || !Objects.equals(previous.getEndTime(), schedule.getEndTime());
+            if (moved && schedule.getDoctorId() != null) {
+                scheduleConflicts.check(schedule.getDoctorId(), schedule.getId(), schedule.getDayOfWeek(),
+                        schedule.getStartTime(), schedule.getEndTime());
+            }
+            if (schedule.getVersion() == null) {
+                schedule.setVersion(existing.get().getVersion());
+            }
+            Schedule saved = scheduleRepository.save(schedule);
+            slotCapacityEngine.scheduleChanged(saved);
+            eventPublisher.publishEvent(new ScheduleChangedEvent(saved.getDoctorId(), saved.getId()));
+            if (!previousDoctorId.equals(saved.getDoctorId())) {
+                eventPublisher.publishEvent(new ScheduleChangedEvent(previousDoctorId, saved.getId()));
+            }
+            return saved;
         }
         throw new RuntimeException("Schedule not found");
     }
+
+    // Null if there is no such schedule
+    @Override
+    @Transactional
+    public Schedule patchSchedule(Integer id, JsonNode changes) {
+        PartialUpdateRepository.Patch patch = partialUpdates.read(Schedule.class, changes, PATCHABLE);
+        Map<String, Object> values = patch.values();
+        Integer capacity = (Integer) values.get("maxAppointments");
+        if (capacity != null && capacity < 1) {
+            throw new InvalidPatchException("Max appointments must be at least 1");
+        }
+        if (values.containsKey("dayOfWeek") || values.containsKey("startTime") || values.containsKey("endTime")) {
+            Schedule current = scheduleRepository.findById(id).orElse(null);
+            if (current == null) {
+                return null;
+            }
+            String day = (String) values.getOrDefault("dayOfWeek", current.getDayOfWeek());
+            LocalTime start = (LocalTime) values.getOrDefault("startTime", current.getStartTime());
+            LocalTime end = (LocalTime) values.getOrDefault("endTime", current.getEndTime());
+            if (!end.isAfter(start)) {
+                throw new InvalidPatchException("End time must be after start time");
+            }
+            scheduleConflicts.check(current.getDoctorId(), id, day, start, end);
+        }
+        if (partialUpdates.apply(Schedule.class, id, patch) == null) {
+            return null;
+        }
+        Schedule saved = scheduleRepository.findById(id).orElseThrow();
+        slotCapacityEngine.scheduleChanged(saved);
+        eventPublisher.publishEvent(new ScheduleChangedEvent(saved.getDoctorId(), id));
+        return saved;
+    }
     
     @Override
     public String deleteSchedule(Integer id) {
         Optional<Schedule> schedule = scheduleRepository.findById(id);
         if (schedule.isPresent()) {
             scheduleRepository.deleteById(id);
+            slotCapacityEngine.evict(id);
+            eventPublisher.publishEvent(new ScheduleChangedEvent(schedule.get().getDoctorId(), id));
             return "Schedule deleted successfully";
         }
         return "Schedule not found";
     }
     
+    @Override
+    public List<AvailableSlot> getAvailableSlots(Integer doctorId, LocalDate from, int days) {
+        return availabilityIndex.available(doctorId, from, days);
+    }
+
     @Override
     public Schedule getScheduleById(Integer id) {
         return scheduleRepository.findById(id).orElse(null);
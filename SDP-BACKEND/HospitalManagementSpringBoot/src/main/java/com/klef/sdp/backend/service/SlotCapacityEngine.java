@@ -0,0 +1,310 @@
+package com.klef.sdp.backend.service;
+
+import com.klef.sdp.backend.exception.SlotUnavailableException;
+import com.klef.sdp.backend.model.Appointment;
+import com.klef.sdp.backend.model.AppointmentStatus;
+import com.klef.sdp.backend.model.Schedule;
+import com.klef.sdp.backend.model.SlotCapacity;
+import com.klef.sdp.backend.repository.AppointmentRepository;
+import com.klef.sdp.backend.repository.ScheduleRepository;
+import com.klef.sdp.backend.repository.SlotCapacityRepository;
+import com.klef.sdp.backend.util.ScheduleTimes;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Reserves places in a doctor's schedule for a given date.
+ *
+ * The slot_capacity_table ledger is the source of truth: a reservation is a
+ * conditional UPDATE that only succeeds while booked < capacity, so replicas
+ * sharing the database cannot oversell. In front of it each instance keeps an
+ * atomic permit counter per slot, which turns away bookings for a slot it
+ * already knows is full without touching MySQL. Different slots never contend
+ * with each other.
+ *
+ * Must be called inside the booking transaction; the ledger update commits or
+ * rolls back together with the appointment row.
+ */
+@Service
+public class SlotCapacityEngine {
+
+    // How long a "slot is full" observation is trusted before re-reading the ledger
+    private static final long FULL_SNAPSHOT_TTL_MS = 2000;
+
+    @Autowired
+    private ScheduleRepository scheduleRepository;
+
+    @Autowired
+    private SlotCapacityRepository slotCapacityRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ConcurrentHashMap<String, SlotPermits> permits = new ConcurrentHashMap<>();
+
+    /**
+     * Reserves one place for the doctor on the given date and time range.
+     *
+     * @return the id of the schedule the booking counts against, or null when
+     *         the doctor has not published any schedule (capacity not enforced)
+     * @throws SlotUnavailableException if no matching schedule is open or it is full
+     */
+    public Integer reserve(int doctorId, LocalDate date, String timeRange) {
+        List<Schedule> schedules = scheduleRepository.findByDoctorId(doctorId);
+        if (schedules.isEmpty()) {
+            return null;
+        }
+        Schedule schedule = matchSchedule(schedules, date, timeRange);
+        if (schedule == null) {
+            throw new SlotUnavailableException("Doctor is not available on " + date
+                    + (timeRange != null ? " during " + timeRange : ""));
+        }
+
+        SlotPermits local = permitsFor(schedule, date);
+
+        // A recent "full" answer from the ledger is trusted; afterwards go back to the ledger,
+        // since another instance may have freed a place in the meantime
+        boolean admitted = local.tryAcquire();
+        if (!admitted && !local.isStale()) {
+            throw new SlotUnavailableException("No appointments left for " + date + " in this slot");
+        }
+
+        int updated;
+        try {
+            updated = slotCapacityRepository.tryReserve(local.slotId);
+        } catch (RuntimeException e) {
+            if (admitted) {
+                local.release(1);
+            }
+            throw e;
+        }
+        if (updated == 0) {
+            local.markFull();
+            throw new SlotUnavailableException("No appointments left for " + date + " in this slot");
+        }
+        if (admitted) {
+            afterRollback(() -> local.release(1));
+        }
+        return schedule.getId();
+    }
+
+    /**
+     * Returns a place previously taken with {@link #reserve}.
+     */
+    public void release(Integer scheduleId, LocalDate date) {
+        release(scheduleId, date, 1);
+    }
+
+    /**
+     * Returns the places held by the given appointments with one UPDATE per
+     * distinct slot rather than one per appointment.
+     */
+    public void releaseAll(Collection<Appointment> appointments) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (Appointment a : appointments) {
+            if (a.getScheduleId() != null) {
+                counts.merge(key(a.getScheduleId(), a.getDate()), 1, Integer::sum);
+            }
+        }
+        counts.forEach((key, count) -> {
+            int sep = key.indexOf('|');
+            release(Integer.valueOf(key.substring(0, sep)), LocalDate.parse(key.substring(sep + 1)), count);
+        });
+    }
+
+    private void release(Integer scheduleId, LocalDate date, int count) {
+        if (scheduleId == null || slotCapacityRepository.release(scheduleId, date, count) == 0) {
+            return;
+        }
+        SlotPermits local = permits.get(key(scheduleId, date));
+        if (local != null) {
+            local.release(count);
+            afterRollback(() -> local.release(-count));
+        }
+    }
+
+    /**
+     * Applies a changed maxAppointments to every ledger row of the schedule.
+     */
+    public void scheduleChanged(Schedule schedule) {
+        if (schedule.getMaxAppointments() != null) {
+            slotCapacityRepository.updateCapacity(schedule.getId(), schedule.getMaxAppointments());
+        }
+        evict(schedule.getId());
+    }
+
+    public void evict(Integer scheduleId) {
+        String prefix = scheduleId + "|";
+        permits.keySet().removeIf(k -> k.startsWith(prefix));
+    }
+
+    static Schedule matchSchedule(List<Schedule> schedules, LocalDate date, String timeRange) {
+        if (date == null) {
+            throw new SlotUnavailableException("Appointment date is required");
+        }
+        String day = ScheduleTimes.dayName(date.getDayOfWeek());
+        int[] range = ScheduleTimes.parseRange(timeRange);
+
+        Schedule best = null;
+        int bestOverlap = 0;
+        for (Schedule s : schedules) {
+            if (!Boolean.TRUE.equals(s.getIsAvailable()) || !day.equalsIgnoreCase(s.getDayOfWeek())) {
+                continue;
+            }
+            int start = ScheduleTimes.minutes(s.getStartTime());
+            int end = ScheduleTimes.minutes(s.getEndTime());
+            if (start < 0 || end <= start) {
+                continue;
+            }
+            // Without a parseable range any session on that day will do
+            int overlap = range == null ? 1 : Math.min(end, range[1]) - Math.max(start, range[0]);
+            if (overlap > bestOverlap) {
+                best = s;
+                bestOverlap = overlap;
+            }
+        }
+        return best;
+    }
+
+    // The ledger is only read the first time this instance sees a slot
+    private SlotPermits permitsFor(Schedule schedule, LocalDate date) {
+        String key = key(schedule.getId(), date);
+        SlotPermits local = permits.get(key);
+        if (local != null) {
+            return local;
+        }
+        SlotCapacity slot = ledgerRow(schedule, date);
+        return permits.computeIfAbsent(key, k -> new SlotPermits(slot.getId(), slot.getCapacity() - slot.getBooked()));
+    }
+
+    private SlotCapacity ledgerRow(Schedule schedule, LocalDate date) {
+        return slotCapacityRepository.findByScheduleIdAndSlotDate(schedule.getId(), date)
+                .orElseGet(() -> createLedgerRow(schedule, date));
+    }
+
+    /*
+     * Created in its own transaction so the unique key arbitrates concurrent first
+     * bookings. The loser re-reads in a fresh transaction as well: the booking
+     * transaction's snapshot may predate the winner's row, while the conditional
+     * UPDATE that follows always sees the latest version.
+     */
+    private SlotCapacity createLedgerRow(Schedule schedule, LocalDate date) {
+        try {
+            return inNewTransaction(() -> {
+                SlotCapacity slot = new SlotCapacity();
+                slot.setScheduleId(schedule.getId());
+                slot.setDoctorId(schedule.getDoctorId());
+                slot.setSlotDate(date);
+                slot.setCapacity(schedule.getMaxAppointments() == null ? 0 : schedule.getMaxAppointments());
+                slot.setBooked(existingBookings(schedule, date));
+                return slotCapacityRepository.saveAndFlush(slot);
+            });
+        } catch (DataIntegrityViolationException e) {
+            return inNewTransaction(() -> slotCapacityRepository.findByScheduleIdAndSlotDate(schedule.getId(), date)
+                    .orElseThrow(() -> e));
+        }
+    }
+
+    // Seeds a new ledger row with bookings made before capacity was tracked
+    private int existingBookings(Schedule schedule, LocalDate date) {
+        int start = ScheduleTimes.minutes(schedule.getStartTime());
+        int end = ScheduleTimes.minutes(schedule.getEndTime());
+        int count = 0;
+        for (Appointment a : appointmentRepository.findByDoctorIdAndDate(schedule.getDoctorId(), date)) {
+            if (!AppointmentStatus.holdsCapacity(a.getStatus())) {
+                continue;
+            }
+            if (schedule.getId().equals(a.getScheduleId())) {
+                count++;
+            } else if (a.getScheduleId() == null) {
+                int slotStart = ScheduleTimes.minutes(a.getSlotStart());
+                int slotEnd = ScheduleTimes.minutes(a.getSlotEnd());
+                if (slotStart >= 0 && Math.min(end, slotEnd) > Math.max(start, slotStart)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private <T> T inNewTransaction(Supplier<T> work) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return tx.execute(status -> work.get());
+    }
+
+    private static void afterRollback(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        action.run();
+                    }
+                }
+            });
+        }
+    }
+
+    private static String key(Integer scheduleId, LocalDate date) {
+        return scheduleId + "|" + date;
+    }
+
+    /**
+     * Local view of the places left in one slot.
+     */
+    private static final class SlotPermits {
+        private final Long slotId;
+        private final AtomicInteger remaining;
+        private volatile long refreshedAt;
+
+        SlotPermits(Long slotId, int remaining) {
+            this.slotId = slotId;
+            this.remaining = new AtomicInteger(Math.max(remaining, 0));
+            this.refreshedAt = System.currentTimeMillis();
+        }
+
+        boolean tryAcquire() {
+            while (true) {
+                int current = remaining.get();
+                if (current <= 0) {
+                    return false;
+                }
+                if (remaining.compareAndSet(current, current - 1)) {
+                    return true;
+                }
+            }
+        }
+
+        void release(int count) {
+            remaining.addAndGet(count);
+        }
+
+        boolean isStale() {
+            return System.currentTimeMillis() - refreshedAt > FULL_SNAPSHOT_TTL_MS;
+        }
+
+        void markFull() {
+            remaining.set(0);
+            refreshedAt = System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.klef.sdp.backend.util;
+
+import java.util.Map;
+
+/**
+ * Immutable map from int keys to bitmaps, with open addressing over plain
+ * arrays: a lookup neither boxes the key nor follows entry objects.
+ * Changes return a new map, so a holder can publish it through a volatile
+ * field and readers never lock. Each change copies the arrays, which is
+ * fine for data that changes a few times a day and is read constantly.
+ */
+public final class IntBitmapMap {
+
+    public static final IntBitmapMap EMPTY = new IntBitmapMap(new int[8], new long[8][], 0);
+
+    private final int[] keys;
+    private final long[][] values; // null marks a free slot
+    private final int size;
+
+    private IntBitmapMap(int[] keys, long[][] values, int size) {
+        this.keys = keys;
+        this.values = values;
+        this.size = size;
+    }
+
+    public static IntBitmapMap of(Map<Integer, long[]> entries) {
+        int[] keys = new int[capacity(entries.size())];
+        long[][] values = new long[keys.length][];
+        entries.forEach((key, value) -> put(keys, values, key, value));
+        return new IntBitmapMap(keys, values, entries.size());
+    }
+
+    public long[] get(int key) {
+        int mask = keys.length - 1;
+        for (int i = slot(key, mask); values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return values[i];
+            }
+        }
+        return null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public IntBitmapMap with(int key, long[] value) {
+        boolean added = get(key) == null;
+        int capacity = capacity(size + (added ? 1 : 0));
+        int[] newKeys = new int[capacity];
+        long[][] newValues = new long[capacity][];
+        if (capacity == keys.length) {
+            System.arraycopy(keys, 0, newKeys, 0, capacity);
+            System.arraycopy(values, 0, newValues, 0, capacity);
+        } else {
+            copyInto(newKeys, newValues, null);
+        }
+        put(newKeys, newValues, key, value);
+        return new IntBitmapMap(newKeys, newValues, size + (added ? 1 : 0));
+    }
+
+    // Rebuilt rather than tombstoned, so probe chains stay short
+    public IntBitmapMap without(int key) {
+        if (get(key) == null) {
+            return this;
+        }
+        int[] newKeys = new int[capacity(size - 1)];
+        long[][] newValues = new long[newKeys.length][];
+        copyInto(newKeys, newValues, key);
+        return new IntBitmapMap(newKeys, newValues, size - 1);
+    }
+
+    private void copyInto(int[] newKeys, long[][] newValues, Integer except) {
+        for (int i = 0; i < keys.length; i++) {
+            if (values[i] != null && (except == null || keys[i] != except)) {
+                put(newKeys, newValues, keys[i], values[i]);
+            }
+        }
+    }
+
+    private static void put(int[] keys, long[][] values, int key, long[] value) {
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        while (values[i] != null && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+    }
+
+    // At most half full
+    private static int capacity(int size) {
+        int capacity = 8;
+        while (capacity < size * 2) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static int slot(int key, int mask) {
+        return (key * 0x9E3779B9 >>> 16 ^ key * 0x9E3779B9) & mask;
+    }
+}
@@ -0,0 +1,111 @@
+package com.klef.sdp.backend.util;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Immutable set of half-open int intervals [start, end), each with an id,
+ * answering "which intervals overlap [from, to)?" in O(log n + matches).
+ *
+ * The intervals are kept sorted by start; the balanced tree over them is
+ * implicit (the middle of each range is its root), and each node stores
+ * the largest end in its subtree so whole branches that end too early, or
+ * start too late, are skipped.
+ */
+public final class IntervalTree {
+
+    private final int[] ids;
+    private final int[] starts;
+    private final int[] ends;
+    private final int[] maxEnds;
+
+    private IntervalTree(int[] ids, int[] starts, int[] ends) {
+        this.ids = ids;
+        this.starts = starts;
+        this.ends = ends;
+        this.maxEnds = new int[ids.length];
+        augment(0, ids.length);
+    }
+
+    /**
+     * Builds a tree from parallel arrays, which are not kept.
+     * Empty intervals (end <= start) never overlap anything.
+     */
+    public static IntervalTree of(int[] ids, int[] starts, int[] ends) {
+        Integer[] order = new Integer[ids.length];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, (a, b) -> Integer.compare(starts[a], starts[b]));
+        int[] sortedIds = new int[ids.length];
+        int[] sortedStarts = new int[ids.length];
+        int[] sortedEnds = new int[ids.length];
+        for (int i = 0; i < order.length; i++) {
+            sortedIds[i] = ids[order[i]];
+            sortedStarts[i] = starts[order[i]];
+            sortedEnds[i] = ends[order[i]];
+        }
+        return new IntervalTree(sortedIds, sortedStarts, sortedEnds);
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public int id(int index) { return ids[index]; }
+
+    public int start(int index) { return starts[index]; }
+
+    public int end(int index) { return ends[index]; }
+
+    /**
+     * Index of an interval overlapping [from, to) whose id is not
+     * {@code exceptId}, or -1 if there is none.
+     */
+    public int findOverlap(int from, int to, int exceptId) {
+        int[] found = { -1 };
+        visit(0, ids.length, from, to, i -> {
+            if (ids[i] == exceptId) {
+                return false;
+            }
+            found[0] = i;
+            return true;
+        });
+        return found[0];
+    }
+
+    /**
+     * Calls {@code match} with the index of each interval overlapping
+     * [from, to), in start order, until it returns true.
+     */
+    public void forEachOverlap(int from, int to, IntPredicate match) {
+        visit(0, ids.length, from, to, match);
+    }
+
+    private boolean visit(int lo, int hi, int from, int to, IntPredicate match) {
+        if (lo >= hi || from >= to) {
+            return false;
+        }
+        int mid = (lo + hi) >>> 1;
+        if (maxEnds[mid] <= from) {
+            return false;
+        }
+        if (visit(lo, mid, from, to, match)) {
+            return true;
+        }
+        if (starts[mid] >= to) {
+            return false;
+        }
+        if (ends[mid] > from && ends[mid] > starts[mid] && match.test(mid)) {
+            return true;
+        }
+        return visit(mid + 1, hi, from, to, match);
+    }
+
+    private int augment(int lo, int hi) {
+        if (lo >= hi) {
+            return Integer.MIN_VALUE;
+        }
+        int mid = (lo + hi) >>> 1;
+        maxEnds[mid] = Math.max(ends[mid], Math.max(augment(lo, mid), augment(mid + 1, hi)));
+        return maxEnds[mid];
+    }
+}
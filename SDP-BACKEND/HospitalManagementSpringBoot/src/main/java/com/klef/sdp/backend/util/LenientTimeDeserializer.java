@@ -0,0 +1,32 @@
+package com.klef.sdp.backend.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+
+import java.io.IOException;
+import java.time.LocalTime;
+
+/**
+ * Reads "09:00 AM", "9:15 AM", "9AM" or ISO "21:00" into a {@link LocalTime},
+ * so typed time fields keep accepting what the frontend has always sent.
+ */
+public class LenientTimeDeserializer extends StdScalarDeserializer<LocalTime> {
+
+    public LenientTimeDeserializer() {
+        super(LocalTime.class);
+    }
+
+    @Override
+    public LocalTime deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        String text = p.getValueAsString();
+        if (text == null || text.isBlank()) {
+            return null;
+        }
+        LocalTime time = ScheduleTimes.toLocalTime(text);
+        if (time == null) {
+            return (LocalTime) ctxt.handleWeirdStringValue(LocalTime.class, text, "not a time of day");
+        }
+        return time;
+    }
+}
@@ -0,0 +1,139 @@
+package com.klef.sdp.backend.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Splits a prescription's free-text medications into line items. Accepts
+ * what doctors type into the form ("Paracetamol 500mg twice daily for 5
+ * days, Amoxicillin 250mg 1-0-1"), one drug per comma, semicolon or line,
+ * as well as a JSON array of strings or of objects with
+ * drug/name, dose, frequency and duration.
+ *
+ * Best effort: dose, frequency and duration are picked out where they
+ * follow a recognisable pattern and left null otherwise; whatever remains
+ * is the drug name. Lines with no drug name are dropped.
+ */
+public final class MedicationParser {
+
+    public record Line(String drug, String dose, String frequency, String duration) { }
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    // Commas inside numbers ("1,000mg") do not separate drugs
+    private static final Pattern SEPARATOR = Pattern.compile("[;\\n\\r]|(?<!\\d),|,(?!\\d)");
+    private static final Pattern BULLET = Pattern.compile("^\\s*(?:\\d{1,2}[.)]|[-*•])\\s+");
+    private static final Pattern DURATION = Pattern.compile(
+            "(?i)(?:\\bfor\\s+|\\bx\\s*)?\\b(\\d+\\s*(?:days?|weeks?|wks?|months?)|\\d+\\s*d)\\b");
+    private static final Pattern FREQUENCY = Pattern.compile("(?i)"
+            + "\\b(?:once|twice|thrice)(?:\\s+(?:a|per))?\\s+(?:day|daily|week|weekly)\\b"
+            + "|\\b(?:once|twice|thrice)\\b"
+            + "|\\b(?:\\d+|one|two|three|four)\\s+times\\s+(?:a|per)\\s+(?:day|week)\\b"
+            + "|\\bevery\\s+\\d+\\s*(?:hours?|hrs?|h)\\b"
+            + "|\\bq\\d+h\\b"
+            + "|(?<![\\d.])[01][-–][01][-–][01](?![\\d.])"
+            + "|\\b(?:OD|BD|BID|TDS|TID|QID|QDS|HS|SOS|PRN|STAT)\\b"
+            + "|\\b(?:daily|nightly|weekly|at\\s+(?:night|bedtime))\\b");
+    private static final Pattern DOSE = Pattern.compile("(?i)\\b\\d+(?:[.,]\\d+)?\\s*"
+            + "(?:mg|mcg|µg|g|ml|iu|units?|%|tabs?|tablets?|caps?|capsules?|drops?|puffs?)"
+            + "(?:\\s*/\\s*\\d*(?:[.,]\\d+)?\\s*(?:ml|g|dose))?(?![a-z])");
+    private static final String TRIM = "[\\s\\-:()\\[\\],.]+";
+
+    private MedicationParser() {
+    }
+
+    public static List<Line> parse(String medications) {
+        List<Line> lines = new ArrayList<>();
+        if (medications == null || medications.isBlank()) {
+            return lines;
+        }
+        String text = medications.trim();
+        if (text.startsWith("[") || text.startsWith("{")) {
+            try {
+                JsonNode node = JSON.readTree(text);
+                for (JsonNode item : node.isArray() ? node : List.of(node)) {
+                    Line line = item.isObject() ? fromObject(item) : parseLine(item.asText());
+                    if (line != null) {
+                        lines.add(line);
+                    }
+                }
+                return lines;
+            } catch (IOException e) {
+                // Not JSON after all; fall through to plain text
+            }
+        }
+        for (String part : SEPARATOR.split(text)) {
+            Line line = parseLine(part);
+            if (line != null) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    /** Lower-cased drug name with single spaces, the form drug lookups match on. */
+    public static String drugKey(String drug) {
+        return drug.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static Line fromObject(JsonNode item) {
+        String drug = text(item, "drug");
+        if (drug == null) {
+            drug = text(item, "name");
+        }
+        if (drug == null) {
+            return null;
+        }
+        String dose = text(item, "dose");
+        return new Line(drug, dose != null ? dose : text(item, "dosage"), text(item, "frequency"), text(item, "duration"));
+    }
+
+    private static String text(JsonNode item, String field) {
+        JsonNode value = item.get(field);
+        if (value == null || value.isNull() || value.asText().isBlank()) {
+            return null;
+        }
+        return value.asText().trim();
+    }
+
+    static Line parseLine(String part) {
+        String rest = BULLET.matcher(part).replaceFirst("");
+        String duration = null;
+        Matcher m = DURATION.matcher(rest);
+        if (m.find()) {
+            duration = m.group(1).trim();
+            rest = cut(rest, m);
+        }
+        String frequency = null;
+        m = FREQUENCY.matcher(rest);
+        if (m.find()) {
+            frequency = m.group().trim();
+            rest = cut(rest, m);
+        }
+        String dose = null;
+        String drug;
+        m = DOSE.matcher(rest);
+        if (m.find()) {
+            dose = m.group().trim();
+            drug = rest.substring(0, m.start());
+            if (drug.replaceAll(TRIM, "").isEmpty()) {
+                drug = rest.substring(m.end()); // "500mg Paracetamol"
+            }
+        } else {
+            drug = rest;
+        }
+        drug = drug.replaceAll("^" + TRIM + "|" + TRIM + "$", "").replaceAll("\\s+", " ");
+        return drug.isEmpty() ? null : new Line(drug, dose, frequency, duration);
+    }
+
+    private static String cut(String text, Matcher m) {
+        return text.substring(0, m.start()) + " " + text.substring(m.end());
+    }
+}
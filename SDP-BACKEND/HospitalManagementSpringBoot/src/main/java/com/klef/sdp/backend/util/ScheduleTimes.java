@@ -0,0 +1,104 @@
+package com.klef.sdp.backend.util;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.time.format.TextStyle;
+import java.util.Locale;
+
+/**
+ * Parsing helpers for the time formats the frontend sends:
+ * schedule times like "09:00 AM", confirmed times like "9:15 AM" and booking
+ * ranges like "9AM-12PM". Raw parses return minutes since midnight, or -1 when
+ * the text cannot be parsed.
+ */
+public final class ScheduleTimes {
+
+    private ScheduleTimes() {
+    }
+
+    public static int parseTime(String text) {
+        if (text == null) {
+            return -1;
+        }
+        String s = text.trim().toUpperCase(Locale.ROOT).replace(" ", "");
+        boolean pm = s.endsWith("PM");
+        boolean am = s.endsWith("AM");
+        if (pm || am) {
+            s = s.substring(0, s.length() - 2);
+        }
+        try {
+            int hour;
+            int minute = 0;
+            int colon = s.indexOf(':');
+            if (colon >= 0) {
+                hour = Integer.parseInt(s.substring(0, colon));
+                minute = Integer.parseInt(s.substring(colon + 1));
+            } else {
+                hour = Integer.parseInt(s);
+            }
+            if (pm && hour < 12) {
+                hour += 12;
+            } else if (am && hour == 12) {
+                hour = 0;
+            }
+            if (hour < 0 || hour > 24 || minute < 0 || minute > 59) {
+                return -1;
+            }
+            return hour * 60 + minute;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Parses "9AM-12PM" into {start, end} minutes, or null if malformed.
+     */
+    public static int[] parseRange(String range) {
+        if (range == null) {
+            return null;
+        }
+        int dash = range.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        int start = parseTime(range.substring(0, dash));
+        int end = parseTime(range.substring(dash + 1));
+        if (start < 0 || end <= start) {
+            return null;
+        }
+        return new int[] { start, end };
+    }
+
+    /**
+     * Parses a clock time in any of the frontend's formats, or ISO "HH:mm[:ss]".
+     * Returns null when the text is blank or not a time of day.
+     */
+    public static LocalTime toLocalTime(String text) {
+        if (text == null || text.isBlank()) {
+            return null;
+        }
+        int minutes = parseTime(text);
+        if (minutes >= 0 && minutes < 24 * 60) {
+            return fromMinutes(minutes);
+        }
+        try {
+            return LocalTime.parse(text.trim());
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    // 24:00 (end of day) has no LocalTime, so it maps to the last representable instant
+    public static LocalTime fromMinutes(int minutes) {
+        return minutes >= 24 * 60 ? LocalTime.MAX : LocalTime.of(minutes / 60, minutes % 60);
+    }
+
+    public static int minutes(LocalTime time) {
+        return time == null ? -1 : time.getHour() * 60 + time.getMinute();
+    }
+
+    public static String dayName(DayOfWeek day) {
+        return day.getDisplayName(TextStyle.FULL, Locale.ENGLISH);
+    }
+}
@@ -0,0 +1,122 @@
+package com.klef.sdp.backend.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Search terms for free-text queries, and highlighting of the words they
+ * match. A term matches any word it is a prefix of, the way MySQL's boolean
+ * mode treats {@code term*}.
+ */
+public final class SearchTerms {
+
+    // MySQL's default innodb_ft_min_token_size; shorter words are not in the index
+    public static final int MIN_TERM = 3;
+    public static final int MAX_TERMS = 8;
+
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}]+");
+
+    // InnoDB's default full-text stopwords of MIN_TERM or more characters; they are never indexed
+    private static final Set<String> STOPWORDS = Set.of("about", "are", "com", "for", "from", "how", "that", "the",
+            "this", "was", "what", "when", "where", "who", "will", "with", "und", "www");
+
+    private SearchTerms() {
+    }
+
+    /**
+     * The distinct lower-cased words of {@code query} that are long enough to
+     * search for and not stopwords, at most {@link #MAX_TERMS}.
+     */
+    public static List<String> parse(String query) {
+        Set<String> terms = new LinkedHashSet<>();
+        if (query != null) {
+            Matcher m = WORD.matcher(query.toLowerCase(Locale.ROOT));
+            while (m.find() && terms.size() < MAX_TERMS) {
+                if (m.end() - m.start() >= MIN_TERM && !STOPWORDS.contains(m.group())) {
+                    terms.add(m.group());
+                }
+            }
+        }
+        return new ArrayList<>(terms);
+    }
+
+    /**
+     * An HTML-escaped excerpt of {@code text} of about {@code length}
+     * characters around the first matching word, with every matching word in
+     * it wrapped in {@code <mark>}. Null when no word matches.
+     */
+    public static String highlight(String text, List<String> terms, int length) {
+        if (text == null || terms.isEmpty()) {
+            return null;
+        }
+        List<int[]> hits = new ArrayList<>();
+        Matcher m = WORD.matcher(text);
+        while (m.find()) {
+            String word = m.group().toLowerCase(Locale.ROOT);
+            for (String term : terms) {
+                if (word.startsWith(term)) {
+                    hits.add(new int[] { m.start(), m.end() });
+                    break;
+                }
+            }
+        }
+        if (hits.isEmpty()) {
+            return null;
+        }
+        int start = Math.max(0, hits.get(0)[0] - length / 4);
+        int end = Math.min(text.length(), start + length);
+        start = Math.max(0, Math.min(start, end - length));
+        while (start > 0 && start < hits.get(0)[0] && !Character.isWhitespace(text.charAt(start - 1))) {
+            start++; // do not open on half a word
+        }
+        while (start < hits.get(0)[0] && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        while (end < text.length() && end > hits.get(0)[1] && !Character.isWhitespace(text.charAt(end))) {
+            end--; // nor close on one
+        }
+
+        StringBuilder out = new StringBuilder(end - start + 32);
+        if (start > 0) {
+            out.append("…");
+        }
+        int pos = start;
+        for (int[] hit : hits) {
+            if (hit[0] < start) {
+                continue;
+            }
+            if (hit[1] > end) {
+                break;
+            }
+            escape(text, pos, hit[0], out);
+            out.append("<mark>");
+            escape(text, hit[0], hit[1], out);
+            out.append("</mark>");
+            pos = hit[1];
+        }
+        escape(text, pos, end, out);
+        if (end < text.length()) {
+            out.append("…");
+        }
+        return out.toString();
+    }
+
+    private static void escape(String text, int from, int to, StringBuilder out) {
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '&' -> out.append("&amp;");
+                case '"' -> out.append("&quot;");
+                case '\'' -> out.append("&#39;");
+                default -> out.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.klef.sdp.backend.util;
+
+import java.time.DayOfWeek;
+
+/**
+ * A week as 15-minute slots, Monday 00:00 first, one bit per slot in a
+ * {@code long[WORDS]}. A doctor's working week is the OR of their open
+ * schedules; "does this doctor work then?" is an AND against a query
+ * bitmap, touching one or two words for any realistic query.
+ */
+public final class WeekBitmap {
+
+    public static final int SLOT_MINUTES = 15;
+    public static final int SLOTS_PER_DAY = 24 * 60 / SLOT_MINUTES;
+    public static final int WORDS = (7 * SLOTS_PER_DAY + 63) / 64;
+
+    private WeekBitmap() {
+    }
+
+    public static long[] empty() {
+        return new long[WORDS];
+    }
+
+    /**
+     * Marks the slots of {@code day} lying wholly inside
+     * [{@code startMinute}, {@code endMinute}), so a session from 09:10
+     * counts from 09:15. End minutes up to 24 * 60 are allowed.
+     */
+    public static void addWorking(long[] week, DayOfWeek day, int startMinute, int endMinute) {
+        int first = (Math.max(startMinute, 0) + SLOT_MINUTES - 1) / SLOT_MINUTES;
+        int last = Math.min(endMinute, 24 * 60) / SLOT_MINUTES; // exclusive
+        set(week, day, first, last);
+    }
+
+    /**
+     * The slots of {@code day} that overlap [{@code startMinute},
+     * {@code endMinute}): asking for 10:30 to 10:40 needs the whole 10:30
+     * slot to be worked.
+     *
+     * @throws IllegalArgumentException unless 0 <= start < end <= 24 * 60
+     */
+    public static long[] query(DayOfWeek day, int startMinute, int endMinute) {
+        if (startMinute < 0 || endMinute <= startMinute || endMinute > 24 * 60) {
+            throw new IllegalArgumentException("Time range must be within one day");
+        }
+        long[] query = empty();
+        set(query, day, startMinute / SLOT_MINUTES, (endMinute + SLOT_MINUTES - 1) / SLOT_MINUTES);
+        return query;
+    }
+
+    // True if every slot of the query is set in the week
+    public static boolean covers(long[] week, long[] query) {
+        for (int w = 0; w < WORDS; w++) {
+            long q = query[w];
+            if (q != 0 && (week[w] & q) != q) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void set(long[] bits, DayOfWeek day, int firstSlot, int endSlot) {
+        int base = (day.getValue() - 1) * SLOTS_PER_DAY;
+        for (int slot = base + firstSlot; slot < base + endSlot; slot++) {
+            bits[slot >>> 6] |= 1L << slot;
+        }
+    }
+}
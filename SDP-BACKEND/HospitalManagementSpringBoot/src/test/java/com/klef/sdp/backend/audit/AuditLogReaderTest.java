@@ -0,0 +1,111 @@
+package com.klef.sdp.backend.audit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AuditLogReaderTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void rotatesSegmentsAndFiltersByEntityAndTime() throws IOException {
+        try (AuditSegmentWriter writer = new AuditSegmentWriter(dir.resolve("pod-a"), 4096)) {
+            for (int i = 0; i < 200; i++) {
+                writer.append(new AuditRecord(1_000 + i, AuditAction.APPOINTMENT_STATUS, i % 10, "PENDING -> APPROVED"));
+            }
+            writer.append(new AuditRecord(5_000, AuditAction.PRESCRIPTION_DELETE, 3, "doctor=1 patient=2"));
+        }
+        assertTrue(segmentCount() > 1);
+
+        AuditQuery query = new AuditQuery();
+        query.setEntity("appointment");
+        query.setEntityId(3);
+        query.setFrom(1_050L);
+        query.setTo(1_150L);
+        List<AuditRecord> records = AuditLogReader.query(dir, query);
+
+        List<Long> timestamps = new ArrayList<>();
+        records.forEach(r -> timestamps.add(r.getTimestamp()));
+        assertEquals(List.of(1_143L, 1_133L, 1_123L, 1_113L, 1_103L, 1_093L, 1_083L, 1_073L, 1_063L, 1_053L), timestamps);
+        assertEquals("PENDING -> APPROVED", records.get(0).getDetail());
+
+        query.setLimit(3);
+        assertEquals(3, AuditLogReader.query(dir, query).size());
+    }
+
+    @Test
+    void stopsAtTornRecordAndNewRunStartsFreshSegment() throws IOException {
+        try (AuditSegmentWriter writer = new AuditSegmentWriter(dir, 64 * 1024)) {
+            writer.append(new AuditRecord(1, AuditAction.DOCTOR_DELETE, 7, "drsmith"));
+            writer.append(new AuditRecord(2, AuditAction.DOCTOR_DELETE, 8, "drjones"));
+        }
+        // Corrupt the second record's body, as if the process died mid-write
+        Path segment = dir.resolve("audit-0000000001.log");
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            int secondBody = AuditSegmentWriter.HEADER_BYTES + AuditRecord.encodedSize("drsmith".getBytes()) + 4;
+            channel.write(ByteBuffer.wrap(new byte[] { 0x7f }), secondBody + 2);
+        }
+        try (AuditSegmentWriter writer = new AuditSegmentWriter(dir, 64 * 1024)) {
+            writer.append(new AuditRecord(3, AuditAction.PATIENT_DELETE, 9, "jane"));
+        }
+
+        Set<Integer> ids = new HashSet<>();
+        AuditLogReader.query(dir, new AuditQuery()).forEach(r -> ids.add(r.getEntityId()));
+        assertEquals(Set.of(7, 9), ids);
+        assertEquals(2, segmentCount());
+    }
+
+    @Test
+    void ringBufferDeliversEveryRecordFromConcurrentProducers() throws InterruptedException {
+        AuditRingBuffer ring = new AuditRingBuffer(1024);
+        int producers = 4;
+        int perProducer = 10_000;
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int base = p * perProducer;
+            Thread t = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    AuditRecord record = new AuditRecord(i, AuditAction.APPOINTMENT_STATUS, base + i, null);
+                    while (!ring.offer(record)) {
+                        Thread.onSpinWait();
+                    }
+                }
+            });
+            threads.add(t);
+            t.start();
+        }
+        Set<Integer> seen = new HashSet<>();
+        while (seen.size() < producers * perProducer) {
+            AuditRecord record = ring.poll();
+            if (record != null) {
+                assertTrue(seen.add(record.getEntityId()));
+            }
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        assertEquals(null, ring.poll());
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(p -> p.getFileName().toString().startsWith("audit-")).count();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.klef.sdp.backend.auth;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PasswordHasherTest {
+
+    private static PasswordHasher hasher(int iterations) {
+        PasswordHasher hasher = new PasswordHasher();
+        ReflectionTestUtils.setField(hasher, "iterations", iterations);
+        return hasher;
+    }
+
+    @Test
+    void saltsAndVerifies() {
+        PasswordHasher hasher = hasher(1000);
+        String first = hasher.hash("s3cret");
+
+        assertTrue(first.startsWith(PasswordHasher.PREFIX + "1000$"));
+        assertNotEquals(first, hasher.hash("s3cret"));
+        assertTrue(hasher.matches("s3cret", first));
+        assertFalse(hasher.matches("S3cret", first));
+        assertFalse(hasher.matches("s3cret", null));
+        assertFalse(hasher.needsUpgrade(first));
+    }
+
+    @Test
+    void acceptsLegacyPlaintextAndCheaperHashesButFlagsThemForUpgrade() {
+        PasswordHasher hasher = hasher(2000);
+        String cheaper = hasher(1000).hash("s3cret");
+
+        assertTrue(hasher.matches("s3cret", cheaper));
+        assertTrue(hasher.needsUpgrade(cheaper));
+        assertTrue(hasher.matches("admin123", "admin123"));
+        assertFalse(hasher.matches("admin12", "admin123"));
+        assertTrue(hasher.needsUpgrade("admin123"));
+    }
+}
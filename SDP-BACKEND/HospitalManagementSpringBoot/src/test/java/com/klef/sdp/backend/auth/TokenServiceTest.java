@@ -0,0 +1,76 @@
+package com.klef.sdp.backend.auth;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TokenServiceTest {
+
+    private TokenRevocations revocations;
+    private TokenService tokens;
+
+    @BeforeEach
+    void setUp() {
+        revocations = new TokenRevocations();
+        ReflectionTestUtils.setField(revocations, "polledAt", 0L); // no database behind it
+        ReflectionTestUtils.setField(revocations, "jdbcTemplate", new JdbcTemplate() {
+            @Override
+            public int update(String sql, Object... args) {
+                return 1;
+            }
+        });
+        tokens = service("0123456789abcdef0123456789abcdef", 60);
+    }
+
+    private TokenService service(String secret, long ttlMinutes) {
+        TokenService service = new TokenService();
+        ReflectionTestUtils.setField(service, "secret", secret);
+        ReflectionTestUtils.setField(service, "ttlMinutes", ttlMinutes);
+        ReflectionTestUtils.setField(service, "revocations", revocations);
+        service.init();
+        return service;
+    }
+
+    @Test
+    void verifiesItsOwnTokens() {
+        TokenService.IssuedToken issued = tokens.issue(Role.DOCTOR, 42);
+
+        AuthPrincipal principal = tokens.verify(issued.token());
+        assertNotNull(principal);
+        assertEquals(Role.DOCTOR, principal.role());
+        assertEquals(42, principal.id());
+        assertEquals(issued.expiresAt(), principal.expiresAt());
+    }
+
+    @Test
+    void rejectsTamperedForeignExpiredAndRevokedTokens() {
+        String token = tokens.issue(Role.PATIENT, 7).token();
+        String payload = token.substring(0, token.indexOf('.'));
+        String forgedPayload = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("ADMIN:7:9999999999:abc".getBytes());
+
+        assertNull(tokens.verify(forgedPayload + token.substring(payload.length())));
+        assertNull(tokens.verify(token.substring(0, token.length() - 2) + "AA"));
+        assertNull(tokens.verify("garbage"));
+        assertNull(service("another-secret-another-secret-another", 60).verify(token));
+        assertNull(tokens.verify(service("0123456789abcdef0123456789abcdef", -1).issue(Role.PATIENT, 7).token()));
+
+        AuthPrincipal principal = tokens.verify(token);
+        revocations.revoke(principal);
+        assertNull(tokens.verify(token));
+    }
+
+    @Test
+    void refusesShortOrPublishedSecrets() {
+        assertThrows(IllegalStateException.class, () -> service("too-short", 60));
+        assertThrows(IllegalStateException.class, () -> service("change-this-to-a-long-random-string-before-deploying", 60));
+    }
+}
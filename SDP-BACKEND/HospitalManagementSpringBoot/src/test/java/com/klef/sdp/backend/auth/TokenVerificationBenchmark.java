@@ -0,0 +1,56 @@
+package com.klef.sdp.backend.auth;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Cost of establishing identity per request (TokenService.verify: HMAC,
+ * parse, revocation lookup) next to the cost of one login hash. Not a test;
+ * run after mvn test-compile with
+ * <pre>
+ * java -cp target/classes:target/test-classes:$(cat cp.txt) com.klef.sdp.backend.auth.TokenVerificationBenchmark
+ * </pre>
+ * where cp.txt comes from mvn dependency:build-classpath -Dmdep.outputFile=cp.txt.
+ */
+public final class TokenVerificationBenchmark {
+
+    private TokenVerificationBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        TokenRevocations revocations = new TokenRevocations();
+        ReflectionTestUtils.setField(revocations, "polledAt", 0L);
+        TokenService tokens = new TokenService();
+        ReflectionTestUtils.setField(tokens, "secret", "benchmark-secret-benchmark-secret-0123");
+        ReflectionTestUtils.setField(tokens, "ttlMinutes", 60L);
+        ReflectionTestUtils.setField(tokens, "revocations", revocations);
+        tokens.init();
+
+        String token = tokens.issue(Role.PATIENT, 12345).token();
+        int rounds = 2_000_000;
+        long sink = 0;
+        for (int warmup = 0; warmup < 3; warmup++) {
+            for (int i = 0; i < rounds / 4; i++) {
+                sink += tokens.verify(token).id();
+            }
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            sink += tokens.verify(token).id();
+        }
+        double verifyNs = (System.nanoTime() - start) / (double) rounds;
+
+        PasswordHasher hasher = new PasswordHasher();
+        ReflectionTestUtils.setField(hasher, "iterations", 310_000);
+        String hash = hasher.hash("benchmark");
+        int logins = 10;
+        start = System.nanoTime();
+        for (int i = 0; i < logins; i++) {
+            sink += hasher.matches("benchmark", hash) ? 1 : 0;
+        }
+        double loginMs = (System.nanoTime() - start) / 1e6 / logins;
+
+        System.out.printf("token verify: %.0f ns/request (%d rounds)%n", verifyNs, rounds);
+        System.out.printf("password check at 310000 iterations: %.1f ms/login%n", loginMs);
+        System.out.println("(checksum " + sink + ")");
+    }
+}
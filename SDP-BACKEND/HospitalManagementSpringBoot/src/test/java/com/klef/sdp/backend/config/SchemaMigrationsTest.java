@@ -0,0 +1,143 @@
+package com.klef.sdp.backend.config;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SchemaMigrationsTest {
+
+    private JdbcTemplate jdbcTemplate;
+
+    // Tables as the old String mappings left them, with every step but 002 already applied
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:legacy" + System.nanoTime() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE appointment_table (appointment_id INT PRIMARY KEY, "
+                + "`date` VARCHAR(255) NOT NULL, confirmed_time VARCHAR(255), time_range VARCHAR(255) NOT NULL, "
+                + "slot_start TIME, slot_end TIME)");
+        jdbcTemplate.execute("CREATE TABLE schedule_table (schedule_id INT PRIMARY KEY, "
+                + "start_time VARCHAR(255) NOT NULL, end_time VARCHAR(255) NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE prescription_table (prescription_id INT PRIMARY KEY, `date` VARCHAR(255) NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE slot_capacity_table (slot_id BIGINT PRIMARY KEY, slot_date VARCHAR(255) NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE schema_migration (migration_id VARCHAR(100) NOT NULL PRIMARY KEY, "
+                + "applied_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)");
+        for (String id : List.of("001_appointment_table_ids", "003_archive_tables", "004_cache_version",
+                "005_cache_version_updated_at", "006_password_hashes", "007_prescription_items", "008_prescription_fulltext")) {
+            jdbcTemplate.update("INSERT INTO schema_migration (migration_id) VALUES (?)", id);
+        }
+    }
+
+    @Test
+    void convertsLegacyStringsToTypedColumns() {
+        appointment(1, "2024-03-05", "09:15 AM", "9AM-12PM");
+        appointment(2, "05-03-2024", null, "02:00 PM - 04:30 PM");
+        appointment(3, "5/3/2024", "14:05", "9AM-12PM");
+        appointment(4, "2024/3/5", "", "12PM-9AM");
+        appointment(5, "2024-03-05T10:30:00", "half past nine", "whenever");
+        appointment(6, "next tuesday", "9:00 am", "9AM-12PM");
+        jdbcTemplate.update("INSERT INTO schedule_table VALUES (1, '09:00 AM', '05:00 PM'), (2, '12:00 AM', '12:30 PM'), "
+                + "(3, '08:30:00', 'late')");
+        jdbcTemplate.update("INSERT INTO prescription_table VALUES (1, '31-12-2023'), (2, '2023-12-31 08:00:00')");
+        jdbcTemplate.update("INSERT INTO slot_capacity_table VALUES (1, '1/2/2025')");
+
+        migrations().migrate();
+
+        assertEquals("DATE", type("appointment_table", "date"));
+        assertEquals("TIME", type("appointment_table", "confirmed_time"));
+        assertEquals("TIME", type("schedule_table", "start_time"));
+        assertEquals("TIME", type("schedule_table", "end_time"));
+        assertEquals("DATE", type("prescription_table", "date"));
+        assertEquals("DATE", type("slot_capacity_table", "slot_date"));
+
+        LocalDate march5 = LocalDate.of(2024, 3, 5);
+        for (int id = 1; id <= 5; id++) {
+            assertEquals(march5, column("appointment_table", "appointment_id", id, "date", LocalDate.class));
+        }
+        assertEquals(LocalDate.of(1970, 1, 1), column("appointment_table", "appointment_id", 6, "date", LocalDate.class));
+
+        assertEquals(LocalTime.of(9, 15), column("appointment_table", "appointment_id", 1, "confirmed_time", LocalTime.class));
+        assertNull(column("appointment_table", "appointment_id", 2, "confirmed_time", LocalTime.class));
+        assertEquals(LocalTime.of(14, 5), column("appointment_table", "appointment_id", 3, "confirmed_time", LocalTime.class));
+        assertNull(column("appointment_table", "appointment_id", 4, "confirmed_time", LocalTime.class));
+        assertNull(column("appointment_table", "appointment_id", 5, "confirmed_time", LocalTime.class));
+        assertEquals(LocalTime.of(9, 0), column("appointment_table", "appointment_id", 6, "confirmed_time", LocalTime.class));
+
+        assertEquals(LocalTime.of(9, 0), column("schedule_table", "schedule_id", 1, "start_time", LocalTime.class));
+        assertEquals(LocalTime.of(17, 0), column("schedule_table", "schedule_id", 1, "end_time", LocalTime.class));
+        assertEquals(LocalTime.MIDNIGHT, column("schedule_table", "schedule_id", 2, "start_time", LocalTime.class));
+        assertEquals(LocalTime.of(12, 30), column("schedule_table", "schedule_id", 2, "end_time", LocalTime.class));
+        assertEquals(LocalTime.of(8, 30), column("schedule_table", "schedule_id", 3, "start_time", LocalTime.class));
+        assertEquals(LocalTime.MIDNIGHT, column("schedule_table", "schedule_id", 3, "end_time", LocalTime.class));
+
+        assertEquals(LocalDate.of(2023, 12, 31), column("prescription_table", "prescription_id", 1, "date", LocalDate.class));
+        assertEquals(LocalDate.of(2023, 12, 31), column("prescription_table", "prescription_id", 2, "date", LocalDate.class));
+        assertEquals(LocalDate.of(2025, 2, 1), column("slot_capacity_table", "slot_id", 1, "slot_date", LocalDate.class));
+
+        // Slot bounds come from the booked range; ranges that do not parse are left empty
+        assertBounds(1, LocalTime.of(9, 0), LocalTime.of(12, 0));
+        assertBounds(2, LocalTime.of(14, 0), LocalTime.of(16, 30));
+        assertBounds(4, null, null);
+        assertBounds(5, null, null);
+
+        // Every value that changed keeps its original text
+        assertEquals("next tuesday", backup("appointment_table", 6, "date"));
+        assertEquals("half past nine", backup("appointment_table", 5, "confirmed_time"));
+        assertEquals("late", backup("schedule_table", 3, "end_time"));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM temporal_migration_backup "
+                + "WHERE table_name = 'appointment_table' AND row_id = 1 AND column_name = 'date'", Integer.class));
+    }
+
+    @Test
+    void runsOnlyOnce() {
+        appointment(1, "05-03-2024", "09:15 AM", "9AM-12PM");
+        migrations().migrate();
+        jdbcTemplate.update("UPDATE appointment_table SET slot_start = NULL, slot_end = NULL");
+        Integer backups = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM temporal_migration_backup", Integer.class);
+
+        migrations().migrate();
+
+        assertBounds(1, null, null);
+        assertEquals(backups, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM temporal_migration_backup", Integer.class));
+    }
+
+    private SchemaMigrations migrations() {
+        SchemaMigrations migrations = new SchemaMigrations();
+        ReflectionTestUtils.setField(migrations, "jdbcTemplate", jdbcTemplate);
+        return migrations;
+    }
+
+    private void appointment(int id, String date, String confirmedTime, String timeRange) {
+        jdbcTemplate.update("INSERT INTO appointment_table (appointment_id, `date`, confirmed_time, time_range) "
+                + "VALUES (?, ?, ?, ?)", id, date, confirmedTime, timeRange);
+    }
+
+    private <T> T column(String table, String idColumn, int id, String column, Class<T> type) {
+        return jdbcTemplate.queryForObject("SELECT `" + column + "` FROM " + table + " WHERE " + idColumn + " = ?", type, id);
+    }
+
+    private String type(String table, String column) {
+        return jdbcTemplate.queryForObject("SELECT UPPER(data_type) FROM information_schema.columns "
+                + "WHERE table_name = ? AND column_name = ?", String.class, table, column);
+    }
+
+    private void assertBounds(int appointmentId, LocalTime start, LocalTime end) {
+        assertEquals(start, column("appointment_table", "appointment_id", appointmentId, "slot_start", LocalTime.class));
+        assertEquals(end, column("appointment_table", "appointment_id", appointmentId, "slot_end", LocalTime.class));
+    }
+
+    private String backup(String table, long rowId, String column) {
+        return jdbcTemplate.queryForObject("SELECT original_value FROM temporal_migration_backup "
+                + "WHERE table_name = ? AND row_id = ? AND column_name = ?", String.class, table, rowId, column);
+    }
+}
@@ -0,0 +1,58 @@
+package com.klef.sdp.backend.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ImportRowReaderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void readsQuotedMultiLineCsvWithCrlf() throws IOException {
+        ImportRowReader reader = open(ImportRowReader.Format.CSV,
+                "\uFEFFName,Location\r\n\"Rao, \"\"Jr\"\"\",\"Line 1\nLine 2\"\r\n\r\nAnn,Hyderabad\r\nToo,many,fields\n");
+
+        ImportRow first = reader.next();
+        assertEquals(1, first.number());
+        assertEquals("Rao, \"Jr\"", first.values().get("name"));
+        assertEquals("Line 1\nLine 2", first.values().get("location"));
+
+        ImportRow second = reader.next();
+        assertEquals(2, second.number());
+        assertEquals("Hyderabad", second.values().get("location"));
+
+        assertEquals("Expected 2 columns, found 3", reader.next().error());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void readsNdjsonAndFlagsBadLines() throws IOException {
+        ImportRowReader reader = open(ImportRowReader.Format.NDJSON,
+                "{\"Name\":\"Ann\",\"experience\":5,\"location\":null}\n\n[1]\n{oops\n");
+
+        ImportRow first = reader.next();
+        assertEquals("Ann", first.values().get("name"));
+        assertEquals("5", first.values().get("experience"));
+        assertNull(first.values().get("location"));
+        assertEquals("Expected a JSON object", reader.next().error());
+        assertEquals("Not valid JSON", reader.next().error());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void rejectsEmptyCsv() {
+        assertThrows(IllegalArgumentException.class, () -> open(ImportRowReader.Format.CSV, ""));
+    }
+
+    private ImportRowReader open(ImportRowReader.Format format, String content) throws IOException {
+        return ImportRowReader.open(format, new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), objectMapper);
+    }
+}
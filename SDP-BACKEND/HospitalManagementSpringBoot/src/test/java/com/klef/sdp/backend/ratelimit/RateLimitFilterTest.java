@@ -0,0 +1,89 @@
+package com.klef.sdp.backend.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RateLimitFilterTest {
+
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new RateLimitFilter();
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "maxKeys", 100);
+        for (String field : List.of("loginIpCapacity", "loginIpPerMinute", "loginAccountCapacity", "loginAccountPerMinute",
+                "bookingIpCapacity", "bookingIpPerMinute", "bookingAccountCapacity", "bookingAccountPerMinute")) {
+            ReflectionTestUtils.setField(filter, field, 10);
+        }
+        ReflectionTestUtils.setField(filter, "objectMapper", new ObjectMapper());
+        filter.init();
+    }
+
+    @Test
+    void replaysTheLoginBodyToAsyncReaders() throws Exception {
+        String body = "{\"username\":\"ravi\",\"password\":\"secret\"}";
+        List<String> events = new ArrayList<>();
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+
+        filter.doFilter(login(body.getBytes(StandardCharsets.UTF_8)), new MockHttpServletResponse(), (request, response) -> {
+            ServletInputStream in = request.getInputStream();
+            in.setReadListener(new ReadListener() {
+                @Override
+                public void onDataAvailable() throws IOException {
+                    events.add("data");
+                    byte[] buffer = new byte[8];
+                    int n;
+                    while (in.isReady() && (n = in.read(buffer, 0, buffer.length)) > 0) {
+                        read.write(buffer, 0, n);
+                    }
+                }
+
+                @Override
+                public void onAllDataRead() {
+                    events.add("done");
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    events.add("error");
+                }
+            });
+        });
+
+        assertEquals(List.of("data", "done"), events);
+        assertEquals(body, read.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void refusesOversizedLoginBodiesWithAMessage() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(login(new byte[8192]), response, (request, r) -> {
+            throw new AssertionError("should not reach the controller");
+        });
+
+        assertEquals(413, response.getStatus());
+        assertEquals("Request body too large", response.getContentAsString());
+    }
+
+    private static MockHttpServletRequest login(byte[] body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/patient/checklogin");
+        request.setContentType("application/json");
+        request.setContent(body);
+        return request;
+    }
+}
@@ -0,0 +1,54 @@
+package com.klef.sdp.backend.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void allowsTheBurstThenRefillsAtTheConfiguredRate() {
+        RateLimiter limiter = new RateLimiter(3, 60, 10); // one request back per second
+        long now = System.nanoTime();
+
+        assertEquals(0, limiter.tryAcquire("a", now));
+        assertEquals(0, limiter.tryAcquire("a", now));
+        assertEquals(0, limiter.tryAcquire("a", now));
+        assertEquals(SECOND, limiter.tryAcquire("a", now));
+        assertEquals(0, limiter.tryAcquire("b", now)); // other keys are unaffected
+
+        assertEquals(SECOND / 2, limiter.tryAcquire("a", now + SECOND / 2));
+        assertEquals(0, limiter.tryAcquire("a", now + SECOND));
+        assertTrue(limiter.tryAcquire("a", now + SECOND) > 0);
+
+        // Idle long enough to refill completely, but never beyond capacity
+        long later = now + 60 * SECOND;
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire("a", later));
+        }
+        assertTrue(limiter.tryAcquire("a", later) > 0);
+    }
+
+    @Test
+    void evictsIdleKeysAndSharesAnOverflowBucketWhenFull() {
+        RateLimiter limiter = new RateLimiter(1, 60, 2);
+        long now = System.nanoTime() + 2 * SECOND; // past the first sweep
+
+        assertEquals(0, limiter.tryAcquire("a", now));
+        assertEquals(0, limiter.tryAcquire("b", now));
+        assertEquals(0, limiter.tryAcquire("c", now));     // no room: takes the overflow bucket
+        assertTrue(limiter.tryAcquire("d", now) > 0);      // which is now empty
+        assertEquals(2, limiter.size());
+
+        long later = now + 10 * SECOND; // a and b are full again, so they are swept out
+        assertEquals(0, limiter.tryAcquire("c", later));
+        assertEquals(0, limiter.tryAcquire("d", later));
+        assertEquals(2, limiter.size());
+        assertTrue(limiter.tryAcquire("c", later) > 0);
+    }
+}
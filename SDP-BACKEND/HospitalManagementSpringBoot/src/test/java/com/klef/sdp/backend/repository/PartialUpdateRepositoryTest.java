@@ -0,0 +1,125 @@
+package com.klef.sdp.backend.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.klef.sdp.backend.exception.InvalidPatchException;
+import com.klef.sdp.backend.model.Schedule;
+import com.klef.sdp.backend.util.ScheduleTimes;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DataJpaTest
+@Import(PartialUpdateRepository.class)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:partial")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PartialUpdateRepositoryTest {
+
+    private static final Set<String> PATCHABLE = Set.of("dayOfWeek", "startTime", "endTime", "isAvailable", "maxAppointments");
+
+    @Autowired
+    private PartialUpdateRepository partialUpdates;
+
+    @Autowired
+    private ScheduleRepository scheduleRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void patchesFromTheSameVersionDoNotOverwriteEachOther() throws Exception {
+        Schedule schedule = schedule();
+        assertEquals(0L, schedule.getVersion());
+
+        assertEquals(1L, apply(schedule.getId(), "{\"version\": 0, \"maxAppointments\": 4}"));
+        // A second client that also read version 0 is refused rather than undoing the first change
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> apply(schedule.getId(), "{\"version\": 0, \"isAvailable\": false}"));
+        assertEquals(2L, apply(schedule.getId(), "{\"version\": 1, \"isAvailable\": false, \"endTime\": \"11:30 AM\"}"));
+
+        Schedule saved = scheduleRepository.findById(schedule.getId()).orElseThrow();
+        assertEquals(2L, saved.getVersion());
+        assertEquals(4, saved.getMaxAppointments());
+        assertFalse(saved.getIsAvailable());
+        assertEquals(ScheduleTimes.toLocalTime("09:00 AM"), saved.getStartTime());
+        assertEquals(ScheduleTimes.toLocalTime("11:30 AM"), saved.getEndTime());
+        assertEquals("Monday", saved.getDayOfWeek());
+    }
+
+    @Test
+    void rowLoadedBeforeThePatchIsReadBackPatched() {
+        Schedule schedule = schedule();
+        Schedule saved = new TransactionTemplate(transactionManager).execute(status -> {
+            // As when the caller checked the row first, in the same persistence context
+            scheduleRepository.findById(schedule.getId()).orElseThrow();
+            try {
+                assertEquals(1L, apply(schedule.getId(), "{\"version\": 0, \"startTime\": \"10:00 AM\", \"maxAppointments\": 4}"));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            return scheduleRepository.findById(schedule.getId()).orElseThrow();
+        });
+
+        assertEquals(1L, saved.getVersion());
+        assertEquals(ScheduleTimes.toLocalTime("10:00 AM"), saved.getStartTime());
+        assertEquals(4, saved.getMaxAppointments());
+    }
+
+    @Test
+    void missingRowIsNotAConflict() throws Exception {
+        assertNull(apply(987654, "{\"version\": 0, \"maxAppointments\": 4}"));
+    }
+
+    @Test
+    void rejectsBodiesItCannotApply() {
+        assertThrows(InvalidPatchException.class, () -> read("{\"maxAppointments\": 4}"));
+        assertThrows(InvalidPatchException.class, () -> read("{\"version\": 0, \"doctorId\": 7}"));
+        assertThrows(InvalidPatchException.class, () -> read("{\"version\": 0, \"dayOfWeek\": null}"));
+        assertThrows(InvalidPatchException.class, () -> read("{\"version\": 0, \"dayOfWeek\": \"" + "x".repeat(21) + "\"}"));
+        assertThrows(InvalidPatchException.class, () -> read("{\"version\": 0, \"maxAppointments\": \"many\"}"));
+    }
+
+    private Long apply(int id, String body) throws Exception {
+        return partialUpdates.apply(Schedule.class, id, read(body));
+    }
+
+    private PartialUpdateRepository.Patch read(String body) throws Exception {
+        JsonNode json = objectMapper.readTree(body);
+        return partialUpdates.read(Schedule.class, json, PATCHABLE);
+    }
+
+    private Schedule schedule() {
+        Schedule s = new Schedule();
+        s.setDoctorId(201);
+        s.setDayOfWeek("Monday");
+        s.setStartTime(ScheduleTimes.toLocalTime("09:00 AM"));
+        s.setEndTime(ScheduleTimes.toLocalTime("12:00 PM"));
+        s.setMaxAppointments(10);
+        s.setIsAvailable(true);
+        return scheduleRepository.save(s);
+    }
+}
@@ -0,0 +1,129 @@
+package com.klef.sdp.backend.service;
+
+import com.klef.sdp.backend.model.Appointment;
+import com.klef.sdp.backend.model.AppointmentStatus;
+import com.klef.sdp.backend.model.Prescription;
+import com.klef.sdp.backend.repository.AppointmentRepository;
+import com.klef.sdp.backend.repository.PrescriptionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:archiver;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "archive.enabled=false", // runs are driven by the test
+        "archive.horizon-days=30",
+        "archive.chunk-size=2",
+        "archive.pause-ms=0",
+        "audit.enabled=false"
+})
+class AppointmentArchiverTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    @Autowired
+    private AppointmentArchiver archiver;
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private PrescriptionService prescriptionService;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private PrescriptionRepository prescriptionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void movesOnlyOldFinishedAppointmentsOnceAndStillListsThem() {
+        int oldCompleted = appointment(7, TODAY.minusDays(100), AppointmentStatus.COMPLETED);
+        int oldCancelled = appointment(7, TODAY.minusDays(60), AppointmentStatus.CANCELLED);
+        int oldApproved = appointment(7, TODAY.minusDays(90), AppointmentStatus.APPROVED);
+        int oldPending = appointment(7, TODAY.minusDays(100), AppointmentStatus.PENDING);
+        int recentCompleted = appointment(7, TODAY.minusDays(5), AppointmentStatus.COMPLETED);
+        int otherPatient = appointment(8, TODAY.minusDays(200), AppointmentStatus.DENIED);
+        int oldPrescription = prescription(7, oldCompleted);
+        int approvedPrescription = prescription(7, oldApproved);
+        int recentPrescription = prescription(7, recentCompleted);
+
+        // Four appointments in chunks of two
+        assertEquals(4, archiver.run());
+
+        assertEquals(Set.of(oldPending, recentCompleted), ids("SELECT appointment_id FROM appointment_table"));
+        assertEquals(Set.of(oldCompleted, oldCancelled, oldApproved, otherPatient),
+                ids("SELECT appointment_id FROM appointment_archive"));
+        assertEquals(Set.of(recentPrescription), ids("SELECT prescription_id FROM prescription_table"));
+        assertEquals(Set.of(oldPrescription, approvedPrescription), ids("SELECT prescription_id FROM prescription_archive"));
+
+        // A second run finds nothing left and copies nothing twice
+        assertEquals(0, archiver.run());
+        assertEquals(4, count("SELECT COUNT(*) FROM appointment_archive"));
+        assertEquals(2, count("SELECT COUNT(*) FROM prescription_archive"));
+
+        List<Appointment> history = appointmentService.getAppointmentsByPatient(7, true);
+        assertEquals(List.of(oldCompleted, oldPending, oldApproved, oldCancelled, recentCompleted),
+                history.stream().map(Appointment::getId).toList());
+        assertEquals(Set.of(oldCompleted, oldApproved, oldCancelled), history.stream()
+                .filter(Appointment::isArchived).map(Appointment::getId).collect(Collectors.toSet()));
+        assertEquals(Set.of(oldPending, recentCompleted), appointmentService.getAppointmentsByPatient(7, false).stream()
+                .map(Appointment::getId).collect(Collectors.toSet()));
+
+        assertEquals(Set.of(oldPrescription, approvedPrescription, recentPrescription),
+                prescriptionService.getPrescriptionsByPatient(7, true).stream()
+                        .map(Prescription::getId).collect(Collectors.toSet()));
+        assertEquals(3, prescriptionService.getPrescriptionsByPatient(7, true).size());
+        assertEquals(Set.of(recentPrescription), prescriptionService.getPrescriptionsByPatient(7, false).stream()
+                .map(Prescription::getId).collect(Collectors.toSet()));
+    }
+
+    private int appointment(int patientId, LocalDate date, String status) {
+        Appointment a = new Appointment();
+        a.setPatientId(patientId);
+        a.setPatientName("Patient " + patientId);
+        a.setPatientContact("9000000000");
+        a.setDoctorId(3);
+        a.setDoctorName("Dr Rao");
+        a.setDate(date);
+        a.setTimeRange("9AM-12PM");
+        a.setReason("Checkup");
+        a.setStatus(status);
+        return appointmentRepository.save(a).getId();
+    }
+
+    private int prescription(int patientId, int appointmentId) {
+        Prescription p = new Prescription();
+        p.setDoctorId(3);
+        p.setDoctorName("Dr Rao");
+        p.setPatientId(patientId);
+        p.setPatientName("Patient " + patientId);
+        p.setAppointmentId(appointmentId);
+        p.setDate(appointmentRepository.findById(appointmentId).orElseThrow().getDate());
+        p.setMedications("Paracetamol 500mg");
+        return prescriptionRepository.save(p).getId();
+    }
+
+    private Set<Integer> ids(String sql) {
+        return Set.copyOf(jdbcTemplate.queryForList(sql, Integer.class));
+    }
+
+    private int count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Integer.class);
+    }
+}
@@ -0,0 +1,104 @@
+package com.klef.sdp.backend.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AppointmentStreamBrokerTest {
+
+    private final Queue<SseEmitter> emitters = new ArrayDeque<>();
+    private final AppointmentStreamBroker broker = new AppointmentStreamBroker() {
+        @Override
+        SseEmitter newEmitter() {
+            return emitters.remove();
+        }
+    };
+
+    @AfterEach
+    void shutdown() {
+        broker.shutdown();
+    }
+
+    @Test
+    void clientThatStopsReadingDoesNotHoldUpTheOthers() throws Exception {
+        ReflectionTestUtils.setField(broker, "bufferSize", 16);
+        ReflectionTestUtils.setField(broker, "maxSubscribers", 10);
+        ReflectionTestUtils.setField(broker, "senderThreads", 1);
+        ReflectionTestUtils.setField(broker, "sendTimeoutMs", 50L);
+        broker.startSenders();
+
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter blocked = new RecordingEmitter(release);
+        RecordingEmitter healthy = new RecordingEmitter(null);
+        emitters.add(blocked);
+        emitters.add(healthy);
+        broker.subscribe(AppointmentStreamBroker.doctorTopic(1), null);
+        broker.heartbeat();
+        assertTrue(blocked.entered.await(2, TimeUnit.SECONDS));
+
+        // The only sender thread is stuck in the blocked client's write
+        broker.subscribe(AppointmentStreamBroker.doctorTopic(2), null);
+        broker.heartbeat();
+        Thread.sleep(200);
+        assertEquals(0, healthy.sends.get());
+
+        broker.checkStalledSends();
+        assertTrue(waitFor(() -> healthy.sends.get() == 1));
+        assertEquals(1, broker.getSubscriberCount());
+
+        // Once its write returns, the stalled stream is closed rather than fed the events it fell behind on
+        release.countDown();
+        assertTrue(blocked.completed.await(2, TimeUnit.SECONDS));
+        broker.heartbeat();
+        assertTrue(waitFor(() -> healthy.sends.get() == 2));
+        assertEquals(1, blocked.sends.get());
+    }
+
+    private static boolean waitFor(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 200 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(10);
+        }
+        return condition.getAsBoolean();
+    }
+
+    private static final class RecordingEmitter extends SseEmitter {
+        final CountDownLatch release;
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch completed = new CountDownLatch(1);
+        final AtomicInteger sends = new AtomicInteger();
+
+        RecordingEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder event) throws IOException {
+            sends.incrementAndGet();
+            entered.countDown();
+            if (release != null) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed.countDown();
+        }
+    }
+}
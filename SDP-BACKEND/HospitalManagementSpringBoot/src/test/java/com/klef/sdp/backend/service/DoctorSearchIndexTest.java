@@ -0,0 +1,84 @@
+package com.klef.sdp.backend.service;
+
+import com.klef.sdp.backend.dto.DoctorSearchResult;
+import com.klef.sdp.backend.dto.DoctorSummary;
+import com.klef.sdp.backend.event.DoctorChangedEvent;
+import com.klef.sdp.backend.model.Doctor;
+import com.klef.sdp.backend.repository.DoctorRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+@Import(DoctorSearchIndex.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:doctorsearch")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DoctorSearchIndexTest {
+
+    @Autowired
+    private DoctorSearchIndex index;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Test
+    void searchesByNamePrefixAndFieldsAndFollowsChanges() {
+        doctorRepository.deleteAll();
+        Doctor smith = doctor("John Smith", "Cardiology", "Hyderabad", 1);
+        doctor("Joanna Smythe", "Cardiology", "Vijayawada", 2);
+        Doctor kumar = doctor("Ravi Kumar", "Dermatology", "Hyderabad", 3);
+        index.reload();
+
+        assertEquals(List.of("Joanna Smythe", "John Smith"), names(index.search("jo", null, null, null, 10)));
+        assertEquals(List.of("John Smith"), names(index.search("sm jo", null, null, "HYDERABAD", 10)));
+        assertEquals(List.of(), names(index.search("smx", null, null, null, 10)));
+
+        DoctorSearchResult cardiology = index.search(null, "cardiology", null, null, 1);
+        assertEquals(2, cardiology.total());
+        assertEquals(1, cardiology.doctors().size());
+        assertEquals(Map.of("Hyderabad", 1, "Vijayawada", 1), cardiology.facets().get("location"));
+
+        kumar.setSpecialization("Cardiology");
+        doctorRepository.save(kumar);
+        index.onDoctorChanged(new DoctorChangedEvent(kumar.getId()));
+        doctorRepository.delete(smith);
+        index.onDoctorChanged(new DoctorChangedEvent(smith.getId()));
+
+        assertEquals(List.of("Joanna Smythe", "Ravi Kumar"), names(index.search(null, "Cardiology", null, null, 10)));
+        assertEquals(Map.of("Hyderabad", 1, "Vijayawada", 1),
+                index.search(null, "Cardiology", null, null, 10).facets().get("location"));
+    }
+
+    private Doctor doctor(String name, String specialization, String location, int n) {
+        Doctor d = new Doctor();
+        d.setName(name);
+        d.setGender("M");
+        d.setDob("1980-01-01");
+        d.setEmail("doctor" + n + "@example.com");
+        d.setUsername("doctor" + n);
+        d.setPassword("secret");
+        d.setMobileno("90000000" + n);
+        d.setSpecialization(specialization);
+        d.setQualification("MD");
+        d.setExperience(5);
+        d.setLocation(location);
+        return doctorRepository.save(d);
+    }
+
+    private static List<String> names(DoctorSearchResult result) {
+        return result.doctors().stream().map(DoctorSummary::name).toList();
+    }
+}
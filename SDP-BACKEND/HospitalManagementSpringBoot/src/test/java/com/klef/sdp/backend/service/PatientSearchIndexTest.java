@@ -0,0 +1,86 @@
+package com.klef.sdp.backend.service;
+
+import com.klef.sdp.backend.config.SchemaMigrations;
+import com.klef.sdp.backend.dto.PatientSearchHit;
+import com.klef.sdp.backend.dto.PatientSearchResult;
+import com.klef.sdp.backend.event.PatientChangedEvent;
+import com.klef.sdp.backend.model.Patient;
+import com.klef.sdp.backend.repository.PatientRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DataJpaTest
+@Import({ PatientSearchIndex.class, CacheVersions.class, SchemaMigrations.class })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:patientsearch;MODE=MySQL;DATABASE_TO_LOWER=TRUE")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PatientSearchIndexTest {
+
+    @Autowired
+    private PatientSearchIndex index;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Test
+    void findsFragmentsRanksThemAndFollowsChanges() {
+        patientRepository.deleteAll();
+        Patient anna = patient("Anna Reddy", "+91 98480 12345", "anna.r@example.com");
+        patient("Hanna Rao", "9000012399", "hrao@example.com");
+        Patient susan = patient("Susan Annamalai", "9000055555", "susan@example.com");
+        index.reload();
+
+        // Start of a name beats start of a later word, which beats the middle of a word
+        assertEquals(List.of("Anna Reddy", "Susan Annamalai", "Hanna Rao"), names(index.search("ann", 10)));
+        // Last digits of the mobile number, whatever the punctuation
+        assertEquals(List.of("Anna Reddy"), names(index.search("12345", 10)));
+        assertEquals("mobileno", index.search("012-345", 10).patients().get(0).matched());
+        assertEquals(List.of("Hanna Rao"), names(index.search("hrao@", 10)));
+        assertEquals(List.of(), names(index.search("xyz", 10)));
+        assertEquals(1, index.search("ann", 1).patients().size());
+        assertEquals(3, index.search("ann", 1).total());
+        assertThrows(IllegalArgumentException.class, () -> index.search("an", 10));
+
+        susan.setName("Susan Iyer");
+        patientRepository.save(susan);
+        index.onPatientChanged(new PatientChangedEvent(PatientChangedEvent.Type.UPDATED, susan.getId()));
+        patientRepository.delete(anna);
+        index.onPatientChanged(new PatientChangedEvent(PatientChangedEvent.Type.DELETED, anna.getId()));
+        Patient annie = patient("Annie Das", "9111111111", "annie@example.com");
+        index.onPatientChanged(new PatientChangedEvent(PatientChangedEvent.Type.REGISTERED, annie.getId()));
+
+        assertEquals(List.of("Annie Das", "Hanna Rao"), names(index.search("ann", 10)));
+        assertEquals(List.of("Susan Iyer"), names(index.search("iyer", 10)));
+        assertEquals(3, index.size());
+    }
+
+    private Patient patient(String name, String mobileno, String email) {
+        Patient p = new Patient();
+        p.setName(name);
+        p.setGender("FEMALE");
+        p.setDob("1990-01-01");
+        p.setEmail(email);
+        p.setUsername(email);
+        p.setPassword("secret");
+        p.setMobileno(mobileno);
+        p.setLocation("Hyderabad");
+        return patientRepository.save(p);
+    }
+
+    private static List<String> names(PatientSearchResult result) {
+        return result.patients().stream().map(PatientSearchHit::name).toList();
+    }
+}
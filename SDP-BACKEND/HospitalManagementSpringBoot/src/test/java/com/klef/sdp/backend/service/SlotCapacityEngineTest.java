@@ -0,0 +1,168 @@
+package com.klef.sdp.backend.service;
+
+import com.klef.sdp.backend.exception.SlotUnavailableException;
+import com.klef.sdp.backend.model.Schedule;
+import com.klef.sdp.backend.repository.ScheduleRepository;
+import com.klef.sdp.backend.repository.SlotCapacityRepository;
+import com.klef.sdp.backend.util.ScheduleTimes;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+@Import(SlotCapacityEngine.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:capacity;LOCK_TIMEOUT=30000",
+        "spring.datasource.hikari.maximum-pool-size=20"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SlotCapacityEngineTest {
+
+    // 2030-01-07 is a Monday
+    private static final LocalDate MONDAY = LocalDate.of(2030, 1, 7);
+
+    @Autowired
+    private SlotCapacityEngine engine;
+
+    @Autowired
+    private ScheduleRepository scheduleRepository;
+
+    @Autowired
+    private SlotCapacityRepository slotCapacityRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private AutowireCapableBeanFactory beanFactory;
+
+    @Test
+    void concurrentBookingsNeverExceedCapacity() throws Exception {
+        Schedule schedule = schedule(101, "Monday", "09:00 AM", "01:00 PM", 25);
+
+        // Two engines with separate in-memory state model two backend replicas
+        SlotCapacityEngine replicaA = engine;
+        SlotCapacityEngine replicaB = beanFactory.createBean(SlotCapacityEngine.class);
+
+        int attempts = 400;
+        int threads = 64;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < attempts; i++) {
+            SlotCapacityEngine replica = i % 2 == 0 ? replicaA : replicaB;
+            Callable<Boolean> booking = () -> {
+                start.await();
+                return inTransaction(() -> {
+                    try {
+                        replica.reserve(101, MONDAY, "9AM-12PM");
+                        return true;
+                    } catch (SlotUnavailableException e) {
+                        return false;
+                    }
+                });
+            };
+            results.add(pool.submit(booking));
+        }
+        start.countDown();
+
+        int booked = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get(60, TimeUnit.SECONDS)) {
+                booked++;
+            }
+        }
+        pool.shutdown();
+
+        assertEquals(25, booked);
+        assertEquals(25, slotCapacityRepository.findByScheduleIdAndSlotDate(schedule.getId(), MONDAY)
+                .orElseThrow().getBooked());
+    }
+
+    @Test
+    void releasedPlaceCanBeBookedAgain() {
+        Schedule schedule = schedule(102, "Monday", "09:00 AM", "12:00 PM", 1);
+
+        Integer scheduleId = inTransaction(() -> engine.reserve(102, MONDAY, "9AM-12PM"));
+        assertEquals(schedule.getId(), scheduleId);
+        assertThrows(SlotUnavailableException.class,
+                () -> inTransaction(() -> engine.reserve(102, MONDAY, "9AM-12PM")));
+
+        inTransaction(() -> {
+            engine.release(scheduleId, MONDAY);
+            return null;
+        });
+        assertEquals(schedule.getId(), inTransaction(() -> engine.reserve(102, MONDAY, "9AM-12PM")));
+    }
+
+    @Test
+    void rolledBackBookingReturnsItsPlace() {
+        schedule(103, "Monday", "09:00 AM", "12:00 PM", 1);
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            engine.reserve(103, MONDAY, "9AM-12PM");
+            status.setRollbackOnly();
+        });
+
+        assertTrue(inTransaction(() -> engine.reserve(103, MONDAY, "9AM-12PM")) != null);
+    }
+
+    @Test
+    void bookingOutsideScheduleIsRejectedAndUnscheduledDoctorIsNotLimited() {
+        schedule(104, "Tuesday", "09:00 AM", "12:00 PM", 5);
+
+        assertThrows(SlotUnavailableException.class,
+                () -> inTransaction(() -> engine.reserve(104, MONDAY, "9AM-12PM")));
+        assertNull(inTransaction(() -> engine.reserve(999, MONDAY, "9AM-12PM")));
+    }
+
+    private Schedule schedule(int doctorId, String day, String start, String end, int max) {
+        Schedule s = new Schedule();
+        s.setDoctorId(doctorId);
+        s.setDayOfWeek(day);
+        s.setStartTime(ScheduleTimes.toLocalTime(start));
+        s.setEndTime(ScheduleTimes.toLocalTime(end));
+        s.setMaxAppointments(max);
+        s.setIsAvailable(true);
+        return scheduleRepository.save(s);
+    }
+
+    private <T> T inTransaction(Callable<T> work) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            try {
+                return work.call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+}
@@ -0,0 +1,39 @@
+package com.klef.sdp.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class IntBitmapMapTest {
+
+    @Test
+    void changesReturnCopiesAndLeaveTheOriginal() {
+        Map<Integer, long[]> entries = new HashMap<>();
+        for (int id = -3; id < 40; id++) {
+            entries.put(id * 64, new long[] { id });
+        }
+        IntBitmapMap map = IntBitmapMap.of(entries);
+        assertEquals(43, map.size());
+        assertArrayEquals(new long[] { 7 }, map.get(7 * 64));
+        assertNull(map.get(7));
+
+        IntBitmapMap changed = map.with(7 * 64, new long[] { 70 }).with(5000, new long[] { 1 }).without(-3 * 64);
+        assertEquals(43, changed.size());
+        assertArrayEquals(new long[] { 70 }, changed.get(7 * 64));
+        assertArrayEquals(new long[] { 1 }, changed.get(5000));
+        assertNull(changed.get(-3 * 64));
+        for (int id = -2; id < 40; id++) {
+            assertArrayEquals(new long[] { id == 7 ? 70 : id }, changed.get(id * 64));
+        }
+        // The original is untouched
+        assertArrayEquals(new long[] { 7 }, map.get(7 * 64));
+        assertNull(map.get(5000));
+        assertSame(map, map.without(12345));
+    }
+}
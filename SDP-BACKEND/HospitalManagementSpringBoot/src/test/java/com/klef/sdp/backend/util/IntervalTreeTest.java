@@ -0,0 +1,54 @@
+package com.klef.sdp.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class IntervalTreeTest {
+
+    @Test
+    void findsOverlapsButNotTouchingOrExcludedIntervals() {
+        // Monday 09:00-13:00 and 14:00-15:00, in minutes
+        IntervalTree tree = IntervalTree.of(new int[] { 7, 8 }, new int[] { 540, 840 }, new int[] { 780, 900 });
+
+        assertEquals(7, tree.id(tree.findOverlap(660, 900, -1)));
+        assertEquals(8, tree.id(tree.findOverlap(660, 900, 7)));
+        assertEquals(-1, tree.findOverlap(780, 840, -1));
+        assertEquals(-1, tree.findOverlap(600, 700, 7));
+        assertEquals(-1, tree.findOverlap(600, 600, -1));
+    }
+
+    @Test
+    void agreesWithAPairwiseScan() {
+        Random random = new Random(42);
+        int n = 500;
+        int[] ids = new int[n];
+        int[] starts = new int[n];
+        int[] ends = new int[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = i;
+            starts[i] = random.nextInt(10_000);
+            ends[i] = starts[i] + random.nextInt(120);
+        }
+        IntervalTree tree = IntervalTree.of(ids, starts, ends);
+
+        for (int q = 0; q < 200; q++) {
+            int from = random.nextInt(10_000);
+            int to = from + 1 + random.nextInt(60);
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                if (starts[i] < to && ends[i] > from && ends[i] > starts[i]) {
+                    expected.add(i);
+                }
+            }
+            List<Integer> found = new ArrayList<>();
+            tree.forEachOverlap(from, to, i -> !found.add(tree.id(i)));
+            found.sort(null);
+            assertEquals(expected, found);
+        }
+    }
+}
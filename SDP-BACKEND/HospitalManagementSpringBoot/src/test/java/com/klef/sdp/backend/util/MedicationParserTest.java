@@ -0,0 +1,35 @@
+package com.klef.sdp.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MedicationParserTest {
+
+    @Test
+    void parsesFreeTextLines() {
+        List<MedicationParser.Line> lines = MedicationParser.parse(
+                "Paracetamol 500mg twice daily for 5 days, Amoxicillin 250 mg 1-0-1 x 7 days; Vitamin D3 1,000 IU weekly\n"
+                        + "2. Cetirizine");
+
+        assertEquals(List.of(
+                new MedicationParser.Line("Paracetamol", "500mg", "twice daily", "5 days"),
+                new MedicationParser.Line("Amoxicillin", "250 mg", "1-0-1", "7 days"),
+                new MedicationParser.Line("Vitamin D3", "1,000 IU", "weekly", null),
+                new MedicationParser.Line("Cetirizine", null, null, null)), lines);
+    }
+
+    @Test
+    void parsesJsonArraysAndSkipsEmptyLines() {
+        assertEquals(List.of(
+                new MedicationParser.Line("Ibuprofen", "400mg", "TDS", "3 days"),
+                new MedicationParser.Line("Omeprazole", "20mg", "OD", null)),
+                MedicationParser.parse("[{\"name\":\"Ibuprofen\",\"dose\":\"400mg\",\"frequency\":\"TDS\",\"duration\":\"3 days\"},"
+                        + " \"Omeprazole 20mg OD\", {\"dose\":\"5mg\"}]"));
+        assertTrue(MedicationParser.parse(" , ;\n").isEmpty());
+        assertEquals("vitamin d3", MedicationParser.drugKey("  Vitamin   D3 "));
+    }
+}
@@ -0,0 +1,28 @@
+package com.klef.sdp.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SearchTermsTest {
+
+    @Test
+    void keepsDistinctWordsLongEnoughToIndex() {
+        assertEquals(List.of("migraine", "aura"), SearchTerms.parse("Migraine, with  AURA; migraine +\"on\"*"));
+        assertEquals(List.of(), SearchTerms.parse("a b c"));
+    }
+
+    @Test
+    void highlightsMatchingWordsInAnEscapedExcerpt() {
+        List<String> terms = SearchTerms.parse("migr aura");
+
+        assertEquals("Chronic <mark>migraine</mark> &lt;with&gt; <mark>aura</mark>",
+                SearchTerms.highlight("Chronic migraine <with> aura", terms, 160));
+        assertEquals("…<mark>Migraines</mark> since then,…",
+                SearchTerms.highlight("Started two years ago, recurring Migraines since then, worse in the mornings", terms, 30));
+        assertNull(SearchTerms.highlight("tension headache", terms, 160));
+    }
+}
@@ -0,0 +1,31 @@
+package com.klef.sdp.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WeekBitmapTest {
+
+    @Test
+    void coversOnlyWholeSlotsOfTheWorkingDay() {
+        long[] week = WeekBitmap.empty();
+        WeekBitmap.addWorking(week, DayOfWeek.TUESDAY, 9 * 60 + 10, 12 * 60);
+        WeekBitmap.addWorking(week, DayOfWeek.SUNDAY, 22 * 60, 24 * 60);
+
+        assertTrue(WeekBitmap.covers(week, WeekBitmap.query(DayOfWeek.TUESDAY, 10 * 60 + 30, 11 * 60 + 40)));
+        assertTrue(WeekBitmap.covers(week, WeekBitmap.query(DayOfWeek.TUESDAY, 9 * 60 + 15, 12 * 60)));
+        // 09:10 does not give a whole 09:00 slot, and the same hours on another day do not count
+        assertFalse(WeekBitmap.covers(week, WeekBitmap.query(DayOfWeek.TUESDAY, 9 * 60 + 10, 9 * 60 + 20)));
+        assertFalse(WeekBitmap.covers(week, WeekBitmap.query(DayOfWeek.TUESDAY, 11 * 60 + 50, 12 * 60 + 5)));
+        assertFalse(WeekBitmap.covers(week, WeekBitmap.query(DayOfWeek.WEDNESDAY, 10 * 60, 10 * 60 + 15)));
+        // The last slot of the week, in the last word
+        assertTrue(WeekBitmap.covers(week, WeekBitmap.query(DayOfWeek.SUNDAY, 23 * 60 + 45, 24 * 60)));
+
+        assertThrows(IllegalArgumentException.class, () -> WeekBitmap.query(DayOfWeek.MONDAY, 600, 600));
+        assertThrows(IllegalArgumentException.class, () -> WeekBitmap.query(DayOfWeek.MONDAY, 1430, 1445));
+    }
+}
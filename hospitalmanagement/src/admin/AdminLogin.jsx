@@ -2,6 +2,7 @@ import { useState } from "react";
 import axios from "axios";
 import { useNavigate, Link } from "react-router-dom";
 import { useAuth } from "../contextapi/AuthContext";
+import { startSession } from "../contextapi/session";
 import image from "../assets/hms3.png";
 import "./admincss/AdminLogin.css";
 const API_URL = `${import.meta.env.VITE_API_URL}/admin`;
@@ -29,6 +30,7 @@ export default function AdminLogin() {
       );
 
       if (response.status === 200) {
+        startSession(response.data);
         setIsAdminLoggedIn(true);
         navigate("/admin/dashboard");
       } else {
@@ -2,6 +2,7 @@ import { NavLink, useNavigate, Routes, Route } from "react-router-dom";
 import "./admincss/admin.css";
 import "./admincss/AdminSidebar.css";
 import { useAuth } from "../contextapi/AuthContext";
+import { endSession } from "../contextapi/session";
 
 import AdminDashboard from "./AdminDashboard";
 import BillingManagement from "./BillingManagement";
@@ -17,7 +18,7 @@ export default function AdminNavBar() {
   const { setIsAdminLoggedIn } = useAuth();
 
   function handleLogout() {
-    sessionStorage.clear();
+    endSession();
     setIsAdminLoggedIn(false);
     navigate("/admin/login", { replace: true });
   }
@@ -0,0 +1,62 @@
+import { useState } from "react";
+import axios from "axios";
+import "./admincss/BulkImport.css";
+const API_URL = `${import.meta.env.VITE_API_URL}/admin`;
+
+// Uploads a CSV or NDJSON file of patients/doctors and shows the import report
+export default function BulkImport({ kind, onImported }) {
+  const [busy, setBusy] = useState(false);
+  const [report, setReport] = useState(null);
+  const [error, setError] = useState("");
+
+  const upload = async (e) => {
+    const file = e.target.files[0];
+    e.target.value = ""; // allow picking the same file again
+    if (!file) return;
+    const format = file.name.toLowerCase().endsWith(".csv") ? "csv" : "ndjson";
+    setBusy(true);
+    setError("");
+    setReport(null);
+    try {
+      const response = await axios.post(`${API_URL}/import/${kind}`, file, {
+        params: { format },
+        headers: { "Content-Type": format === "csv" ? "text/csv" : "application/x-ndjson" },
+      });
+      setReport(response.data);
+      if (response.data.imported > 0) onImported?.();
+    } catch (err) {
+      const data = err.response?.data;
+      setError("Import failed: " + ((typeof data === "string" && data) || err.message));
+    } finally {
+      setBusy(false);
+    }
+  };
+
+  return (
+    <div className="bulk-import">
+      <label className={busy ? "import-btn disabled" : "import-btn"}>
+        {busy ? "Importing..." : `Import ${kind} (CSV / NDJSON)`}
+        <input type="file" accept=".csv,.ndjson,.jsonl" onChange={upload} disabled={busy} hidden />
+      </label>
+
+      {error && <div className="import-error">{error}</div>}
+
+      {report && (
+        <div className="import-report">
+          Imported {report.imported} of {report.total} rows in {(report.elapsedMs / 1000).toFixed(1)}s
+          {report.failed > 0 && `, ${report.failed} rejected`}
+          {report.errors.length > 0 && (
+            <ul>
+              {report.errors.map((e) => (
+                <li key={e.row}>
+                  Row {e.row}: {e.message}
+                </li>
+              ))}
+              {report.errorsTruncated && <li>…and more</li>}
+            </ul>
+          )}
+        </div>
+      )}
+    </div>
+  );
+}
@@ -1,6 +1,7 @@
 import { useEffect, useState } from "react";
 import axios from "axios";
 import DeleteIcon from "@mui/icons-material/Delete";
+import BulkImport from "./BulkImport";
 import "./admincss/ManageDoctors.css";
 const API_URL = `${import.meta.env.VITE_API_URL}/admin`;
 
@@ -66,6 +67,8 @@ export default function ManageDoctors() {
     <div className="doctor-container">
       <h2 className="doctor-title">Manage Doctors</h2>
 
+      <BulkImport kind="doctors" onImported={() => displayDoctors()} />
+
       {/* 🔍 Filters */}
       <div className="filters">
         <input
@@ -1,6 +1,7 @@
 import { useEffect, useState } from "react";
 import axios from "axios";
 import DeleteIcon from "@mui/icons-material/Delete";
+import BulkImport from "./BulkImport";
 import "./admincss/ManagePatients.css";
 const API_URL = `${import.meta.env.VITE_API_URL}/admin`;
 
@@ -10,13 +11,16 @@ export default function ManagePatients() {
   const [genderFilter, setGenderFilter] = useState("All");
   const [error, setError] = useState("");
   const [loading, setLoading] = useState(false);
+  const [nextCursor, setNextCursor] = useState(null);
+  const [searchResults, setSearchResults] = useState(null); // null = not searching the server
 
-  // Fetch patients
-  const displayPatients = async () => {
+  // Fetch patients one page at a time; a cursor appends the next page
+  const displayPatients = async (cursor) => {
     setLoading(true);
     try {
-      const response = await axios.get(`${API_URL}/allpatients`);
-      setPatients(response.data);
+      const response = await axios.get(`${API_URL}/patients`, { params: { cursor, limit: 200 } });
+      setPatients((prev) => (cursor ? [...prev, ...response.data.patients] : response.data.patients));
+      setNextCursor(response.data.nextCursor);
     } catch (err) {
       setError("Failed to fetch patients... " + err.message);
     } finally {
@@ -28,6 +32,43 @@ export default function ManagePatients() {
     displayPatients();
   }, []);
 
+  // 3+ characters: look the patient up in the server's index instead of the loaded pages
+  useEffect(() => {
+    const query = search.trim();
+    if (query.length < 3) {
+      setSearchResults(null);
+      return;
+    }
+    const timer = setTimeout(() => {
+      axios
+        .get(`${API_URL}/patients/search`, { params: { q: query, limit: 100 } })
+        .then((res) => setSearchResults(res.data.patients))
+        .catch((err) => {
+          console.error("Error searching patients:", err);
+          setSearchResults(null);
+        });
+    }, 200);
+    return () => clearTimeout(timer);
+  }, [search]);
+
+  // Fetched through axios so the token travels in the header, then handed to the browser as a file
+  const exportCsv = async () => {
+    try {
+      const response = await axios.get(`${API_URL}/patients/export`, {
+        params: { format: "csv" },
+        responseType: "blob",
+      });
+      const url = URL.createObjectURL(response.data);
+      const link = document.createElement("a");
+      link.href = url;
+      link.download = "patients.csv";
+      link.click();
+      URL.revokeObjectURL(url);
+    } catch (err) {
+      setError("Failed to export patients... " + err.message);
+    }
+  };
+
   // Delete patient
   const deletePatient = async (id) => {
     try {
@@ -35,6 +76,7 @@ export default function ManagePatients() {
         `${API_URL}/deletepatient/${id}`
       );
       setError(""); // Clear any previous errors
+      setSearchResults((prev) => prev && prev.filter((p) => p.id !== id));
       displayPatients();
       // Success is handled by refreshing the list
     } catch (err) {
@@ -43,10 +85,11 @@ export default function ManagePatients() {
   };
 
   // ✅ Filter patients by search + gender
-  const filteredPatients = patients.filter((p) => {
+  const filteredPatients = (searchResults ?? patients).filter((p) => {
     const query = search.toLowerCase();
 
     const matchesSearch =
+      searchResults !== null ||
       p.name?.toLowerCase().includes(query) ||
       p.email?.toLowerCase().includes(query) ||
       p.username?.toLowerCase().includes(query) ||
@@ -63,6 +106,8 @@ export default function ManagePatients() {
     <div className="patient-container">
       <h2 className="patient-title">Manage Patients</h2>
 
+      <BulkImport kind="patients" onImported={() => displayPatients()} />
+
       {/* 🔍 Filters */}
       <div className="filters">
         <input
@@ -80,12 +125,16 @@ export default function ManagePatients() {
           <option>Female</option>
           <option>Other</option>
         </select>
+
+        <button className="export-btn" onClick={exportCsv}>
+          Export CSV
+        </button>
       </div>
 
       {/* Table Rendering */}
       {error ? (
         <div className="table-error">{error}</div>
-      ) : loading ? (
+      ) : loading && patients.length === 0 ? (
         <div className="table-loading">Loading patients...</div>
       ) : filteredPatients.length === 0 ? (
         <div className="table-empty">No Patient Data Found</div>
@@ -128,6 +177,12 @@ export default function ManagePatients() {
           </tbody>
         </table>
       )}
+
+      {nextCursor && !error && searchResults === null && (
+        <button className="load-more-btn" disabled={loading} onClick={() => displayPatients(nextCursor)}>
+          {loading ? "Loading..." : "Load more patients"}
+        </button>
+      )}
     </div>
   );
 }
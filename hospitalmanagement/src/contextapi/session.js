@@ -0,0 +1,47 @@
+import axios from "axios";
+
+const API_URL = import.meta.env.VITE_API_URL;
+const TOKEN_KEY = "token";
+
+// Keeps the token from a login response; every API call made through axios sends it from then on
+export function startSession(login) {
+  sessionStorage.setItem(TOKEN_KEY, login.token);
+}
+
+// Revokes the token on the server (best effort) and forgets everything about the session
+export function endSession() {
+  const token = sessionStorage.getItem(TOKEN_KEY);
+  sessionStorage.clear();
+  if (token) {
+    axios
+      .post(`${API_URL}/auth/logout`, null, { headers: { Authorization: `Bearer ${token}` } })
+      .catch(() => {});
+  }
+}
+
+// For EventSource, which cannot carry the header; the server only accepts this on the stream endpoints
+export function withToken(url) {
+  const token = sessionStorage.getItem(TOKEN_KEY);
+  if (!token) return url;
+  return `${url}${url.includes("?") ? "&" : "?"}access_token=${encodeURIComponent(token)}`;
+}
+
+axios.interceptors.request.use((config) => {
+  const token = sessionStorage.getItem(TOKEN_KEY);
+  if (token && config.url?.startsWith(API_URL) && !config.headers.Authorization) {
+    config.headers.Authorization = `Bearer ${token}`;
+  }
+  return config;
+});
+
+// An expired or revoked token: drop the session and start over from the home page
+axios.interceptors.response.use(
+  (response) => response,
+  (error) => {
+    if (error.response?.status === 401 && error.config?.headers?.Authorization) {
+      sessionStorage.clear();
+      window.location.assign("/");
+    }
+    return Promise.reject(error);
+  }
+);
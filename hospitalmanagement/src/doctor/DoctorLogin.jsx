@@ -3,6 +3,7 @@ import "../doctor/doctorcss/DoctorLogin.css";
 import axios from "axios";
 import { useNavigate, Link } from "react-router-dom";
 import { useAuth } from "../contextapi/AuthContext";
+import { startSession } from "../contextapi/session";
 const API_URL = `${import.meta.env.VITE_API_URL}/doctor`;
 
 export default function DoctorLogin() {
@@ -29,6 +30,7 @@ export default function DoctorLogin() {
         formData
       );
       if (response.status === 200) {
+        startSession(response.data);
         setIsDoctorLoggedIn(true);
         sessionStorage.setItem('doctor', JSON.stringify(response.data)); // Store doctor data
         navigate("/doctor/dashboard");
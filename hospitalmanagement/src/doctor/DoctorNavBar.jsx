@@ -15,15 +15,17 @@ import ViewAppointment from "./ViewAppointment.jsx";
 import UpcomingAppointments from "./UpcomingAppointments.jsx";
 import ScheduleManagement from "./ScheduleManagement.jsx";
 import PrescriptionManagement from "./PrescriptionManagement.jsx";
+import PatientHistory from "./PatientHistory.jsx";
 import DoctorProfile from "./DoctorProfile.jsx";
 import NotFound from "../main/NotFound.jsx";
 import { useAuth } from "../contextapi/AuthContext";    
+import { endSession } from "../contextapi/session";
 export default function DoctorNavBar() {
   const navigate = useNavigate();
   const { setIsDoctorLoggedIn } = useAuth();   
 
   function handleLogout() {
-    sessionStorage.clear();
+    endSession();
     setIsDoctorLoggedIn(false);  
     navigate("/doctor/login", { replace: true }); //  
   }
@@ -99,6 +101,11 @@ export default function DoctorNavBar() {
                 <FaNotesMedical /> Prescriptions
               </NavLink>
             </li>
+            <li>
+              <NavLink to="/doctor/patient-history">
+                <FaClipboardList /> Patient History
+              </NavLink>
+            </li>
             <li>
               <button 
                 onClick={handleLogout} 
@@ -127,6 +134,7 @@ export default function DoctorNavBar() {
             <Route path="/doctor/upcoming" element={<UpcomingAppointments />} />
             <Route path="/doctor/schedule" element={<ScheduleManagement />} />
             <Route path="/doctor/prescriptions" element={<PrescriptionManagement />} />
+            <Route path="/doctor/patient-history" element={<PatientHistory />} />
             <Route path="/doctor/profile" element={<DoctorProfile />} />
             <Route path="*" element={<NotFound />} />
           </Routes>
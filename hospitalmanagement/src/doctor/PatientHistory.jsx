@@ -1,20 +1,64 @@
+import { useState } from 'react'
+import axios from 'axios'
 import '../admin/admincss/PatientHistory.css'
+const API_URL = import.meta.env.VITE_API_URL
 
 export default function PatientHistory() {
+	const [patientId, setPatientId] = useState('')
+	const [entries, setEntries] = useState([])
+	const [nextCursor, setNextCursor] = useState(null)
+	const [loading, setLoading] = useState(false)
+	const [error, setError] = useState('')
+
+	// Appointments arrive newest first with their prescriptions nested, one request per page
+	const loadHistory = (cursor) => {
+		const id = patientId.trim()
+		if (!/^\d+$/.test(id)) {
+			setError('Enter a numeric patient ID')
+			return
+		}
+		setLoading(true)
+		setError('')
+		axios
+			.get(`${API_URL}/appointments/patient/${id}/history`, { params: { cursor, limit: 20 } })
+			.then((res) => {
+				setEntries((prev) => (cursor ? [...prev, ...res.data.entries] : res.data.entries))
+				setNextCursor(res.data.nextCursor)
+			})
+			.catch((err) => setError(typeof err.response?.data === 'string' ? err.response.data : 'Could not load history'))
+			.finally(() => setLoading(false))
+	}
+
 	return (
 		<div className="patient-history">
 			<h2>Patient History</h2>
 			<div className="filters">
-				<input placeholder="Patient ID or Name" />
-				<button>Search</button>
+				<input placeholder="Patient ID" value={patientId} onChange={(e) => setPatientId(e.target.value)}
+					onKeyDown={(e) => e.key === 'Enter' && loadHistory(null)} />
+				<button disabled={loading} onClick={() => loadHistory(null)}>Search</button>
 			</div>
+			{error && <p className="error">{error}</p>}
 			<div className="list">
-				<div className="row">#1001 | Jane Smith | 2025-08-01 | Prescription: Paracetamol</div>
+				{entries.map((e) => (
+					<div className="row" key={e.id}>
+						<span>#{e.id} | {e.patientName}</span>
+						<span>{e.date} | {e.doctorName}</span>
+						<span>{e.reason}</span>
+						<span>
+							{e.prescriptions.length === 0
+								? 'No prescription'
+								: e.prescriptions.map((p) => p.medications).join('; ')}
+						</span>
+						<span>{e.status}</span>
+					</div>
+				))}
+				{!loading && entries.length === 0 && <div className="row">No appointments to show</div>}
 			</div>
+			{nextCursor && (
+				<button disabled={loading} onClick={() => loadHistory(nextCursor)}>
+					{loading ? 'Loading...' : 'Load older visits'}
+				</button>
+			)}
 		</div>
 	)
 }
-
-
-
-
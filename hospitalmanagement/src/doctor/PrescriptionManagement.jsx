@@ -12,6 +12,9 @@ const PrescriptionManagement = () => {
   const [editingPrescription, setEditingPrescription] = useState(null);
   const [message, setMessage] = useState("");
   const [error, setError] = useState("");
+  const [query, setQuery] = useState("");
+  const [results, setResults] = useState(null); // search hits, or null when showing all prescriptions
+  const [nextCursor, setNextCursor] = useState(null);
   
   const [formData, setFormData] = useState({
     patientId: "",
@@ -51,6 +54,42 @@ const PrescriptionManagement = () => {
     }
   };
 
+  const searchPrescriptions = async (cursor = null) => {
+    if (!query.trim()) {
+      clearSearch();
+      return;
+    }
+    setError("");
+    try {
+      const response = await axios.get(`${API_URL}/prescription/doctor/${doctorId}/search`, {
+        params: { q: query, cursor: cursor || undefined, limit: 20 }
+      });
+      setResults(prev => (cursor && prev ? [...prev, ...response.data.hits] : response.data.hits));
+      setNextCursor(response.data.nextCursor);
+    } catch (err) {
+      setError(typeof err.response?.data === "string" ? err.response.data : "Search failed");
+    }
+  };
+
+  const clearSearch = () => {
+    setQuery("");
+    setResults(null);
+    setNextCursor(null);
+  };
+
+  const refresh = () => {
+    fetchPrescriptions();
+    if (results) {
+      searchPrescriptions();
+    }
+  };
+
+  // Search hits carry server-escaped excerpts with the matched words in <mark>
+  const fieldValue = (prescription, field) =>
+    prescription.highlights?.[field]
+      ? <span className="field-value" dangerouslySetInnerHTML={{ __html: prescription.highlights[field] }} />
+      : <span className="field-value">{prescription[field]}</span>;
+
   const fetchAppointments = async () => {
     try {
       const response = await axios.get(`${API_URL}/appointments/doctor/${doctorId}`);
@@ -121,7 +160,8 @@ const PrescriptionManagement = () => {
         // Update existing prescription
         response = await axios.put(`${API_URL}/prescription/update`, {
           ...prescriptionData,
-          id: editingPrescription.id
+          id: editingPrescription.id,
+          version: editingPrescription.version
         });
         setMessage("Prescription updated successfully!");
       } else {
@@ -134,7 +174,7 @@ const PrescriptionManagement = () => {
         setShowAddModal(false);
         setEditingPrescription(null);
         resetForm();
-        fetchPrescriptions();
+        refresh();
       }
     } catch (err) {
       console.error("Error saving prescription:", err);
@@ -164,7 +204,7 @@ const PrescriptionManagement = () => {
       try {
         await axios.delete(`${API_URL}/prescription/delete/${id}`);
         setMessage("Prescription deleted successfully!");
-        fetchPrescriptions();
+        refresh();
       } catch (err) {
         setError("Failed to delete prescription");
       }
@@ -224,13 +264,29 @@ const PrescriptionManagement = () => {
         </div>
       )}
 
-      {prescriptions.length === 0 ? (
+      <form
+        className="prescription-search"
+        onSubmit={(e) => { e.preventDefault(); searchPrescriptions(); }}
+      >
+        <input
+          type="search"
+          value={query}
+          onChange={(e) => setQuery(e.target.value)}
+          placeholder="Search diagnosis, instructions and notes (e.g. migraine)"
+        />
+        <button type="submit">Search</button>
+        {results && (
+          <button type="button" className="btn-clear-search" onClick={clearSearch}>Show all</button>
+        )}
+      </form>
+
+      {(results ?? prescriptions).length === 0 ? (
         <div className="no-prescriptions">
-          <p>No prescriptions found. Add a prescription to get started.</p>
+          <p>{results ? "No prescriptions match your search." : "No prescriptions found. Add a prescription to get started."}</p>
         </div>
       ) : (
         <div className="prescriptions-list">
-          {prescriptions.map((prescription) => (
+          {(results ?? prescriptions).map((prescription) => (
             <div key={prescription.id} className="prescription-card">
               <div className="prescription-card-header">
                 <div>
@@ -257,7 +313,7 @@ const PrescriptionManagement = () => {
                 {prescription.diagnosis && (
                   <div className="prescription-field">
                     <span className="field-label">Diagnosis:</span>
-                    <span className="field-value">{prescription.diagnosis}</span>
+                    {fieldValue(prescription, "diagnosis")}
                   </div>
                 )}
                 
@@ -276,14 +332,14 @@ const PrescriptionManagement = () => {
                 {prescription.instructions && (
                   <div className="prescription-field">
                     <span className="field-label">Instructions:</span>
-                    <span className="field-value">{prescription.instructions}</span>
+                    {fieldValue(prescription, "instructions")}
                   </div>
                 )}
                 
                 {prescription.notes && (
                   <div className="prescription-field">
                     <span className="field-label">Notes:</span>
-                    <span className="field-value">{prescription.notes}</span>
+                    {fieldValue(prescription, "notes")}
                   </div>
                 )}
               </div>
@@ -292,6 +348,12 @@ const PrescriptionManagement = () => {
         </div>
       )}
 
+      {results && nextCursor && (
+        <button className="btn-load-more" onClick={() => searchPrescriptions(nextCursor)}>
+          Load more
+        </button>
+      )}
+
       {/* Add/Edit Modal */}
       {showAddModal && (
         <div className="modal-overlay" onClick={handleCloseModal}>
@@ -189,7 +189,8 @@ If backend is running, try:
         // Update existing schedule
         response = await axios.put(`${API_URL}/schedule/update`, {
           ...scheduleData,
-          id: editingSchedule.id
+          id: editingSchedule.id,
+          version: editingSchedule.version
         }, axiosConfig);
         setMessage("Schedule updated successfully!");
       } else {
@@ -277,13 +278,17 @@ If backend is running, try:
 
   const toggleAvailability = async (schedule) => {
     try {
-      await axios.put(`${API_URL}/schedule/update`, {
-        ...schedule,
+      // Only the flag changes; a 409 means the schedule was edited elsewhere since it was loaded
+      await axios.patch(`${API_URL}/schedule/${schedule.id}`, {
+        version: schedule.version,
         isAvailable: !schedule.isAvailable
       });
       fetchSchedules();
     } catch (err) {
-      setError("Failed to update availability");
+      setError(err.response?.status === 409 ? err.response.data : "Failed to update availability");
+      if (err.response?.status === 409) {
+        fetchSchedules();
+      }
     }
   };
 
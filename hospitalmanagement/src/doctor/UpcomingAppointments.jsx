@@ -16,24 +16,35 @@ const UpcomingAppointments = () => {
     }
   }, []);
 
+  const [nextCursor, setNextCursor] = useState(null);
+
+  // Status filtering and ordering happen on the server; pages are fetched by cursor
+  const fetchAppointments = (cursor) => {
+    axios
+      .get(`${API_URL}/appointments/doctor/${doctorId}/search`, {
+        params: { status: "APPROVED", limit: 50, cursor: cursor || undefined },
+      })
+      .then((res) => {
+        const approvedAppointments = res.data.appointments
+          .filter(appt => appt.confirmedTime);
+        setAppointments((prev) => {
+          const merged = cursor ? [...prev, ...approvedAppointments] : approvedAppointments;
+          // Sort by date first, then by confirmed time
+          return merged.sort((a, b) => {
+            if (a.date !== b.date) {
+              return new Date(a.date) - new Date(b.date);
+            }
+            return a.confirmedTime.localeCompare(b.confirmedTime);
+          });
+        });
+        setNextCursor(res.data.nextCursor);
+      })
+      .catch((err) => console.error("Error fetching appointments:", err));
+  };
+
   useEffect(() => {
     if (doctorId) {
-      axios
-        .get(`${API_URL}/appointments/doctor/${doctorId}`)
-        .then((res) => {
-          // Filter only approved appointments and sort by confirmed time
-          const approvedAppointments = res.data
-            .filter(appt => appt.status === "APPROVED" && appt.confirmedTime)
-            .sort((a, b) => {
-              // Sort by date first, then by confirmed time
-              if (a.date !== b.date) {
-                return new Date(a.date) - new Date(b.date);
-              }
-              return a.confirmedTime.localeCompare(b.confirmedTime);
-            });
-          setAppointments(approvedAppointments);
-        })
-        .catch((err) => console.error("Error fetching appointments:", err));
+      fetchAppointments(null);
     }
   }, [doctorId]);
 
@@ -107,6 +118,12 @@ const UpcomingAppointments = () => {
           ))}
         </div>
       )}
+
+      {nextCursor && (
+        <button className="load-more-btn" onClick={() => fetchAppointments(nextCursor)}>
+          Load more
+        </button>
+      )}
     </div>
   );
 };
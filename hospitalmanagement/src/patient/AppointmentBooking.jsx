@@ -6,6 +6,11 @@ const API_URL = import.meta.env.VITE_API_URL;
 
 const AppointmentBooking = () => {
   const [doctors, setDoctors] = useState([]);
+  const [doctorSearch, setDoctorSearch] = useState("");
+  const [specialization, setSpecialization] = useState("");
+  const [specializations, setSpecializations] = useState({});
+  const [matches, setMatches] = useState(null); // null = no filter, show every doctor
+  const [suggestions, setSuggestions] = useState([]);
   const [message, setMessage] = useState("");
   const [error, setError] = useState("");
   const [formData, setFormData] = useState({
@@ -41,6 +46,41 @@ const AppointmentBooking = () => {
       });
   }, []);
 
+  // ✅ Narrow the doctor list by name prefix / specialization (served from the backend's in-memory index)
+  useEffect(() => {
+    const timer = setTimeout(() => {
+      axios
+        .get(`${API_URL}/doctor/search`, {
+          params: { name: doctorSearch || undefined, specialization: specialization || undefined, limit: 100 },
+        })
+        .then((res) => {
+          setMatches(doctorSearch || specialization ? res.data.doctors : null);
+          if (!specialization) {
+            setSpecializations(res.data.facets.specialization);
+          }
+        })
+        .catch((err) => {
+          console.error("Error searching doctors:", err);
+        });
+    }, 200);
+    return () => clearTimeout(timer);
+  }, [doctorSearch, specialization]);
+
+  // ✅ Suggest the least busy doctors of the chosen specialization for the chosen date
+  useEffect(() => {
+    if (!specialization || !formData.date) {
+      setSuggestions([]);
+      return;
+    }
+    axios
+      .get(`${API_URL}/doctor/recommend`, { params: { specialization, date: formData.date, limit: 3 } })
+      .then((res) => setSuggestions(res.data))
+      .catch((err) => {
+        console.error("Error fetching recommendations:", err);
+        setSuggestions([]);
+      });
+  }, [specialization, formData.date]);
+
   const handleChange = (e) => {
     setFormData({ ...formData, [e.target.id]: e.target.value });
   };
@@ -91,7 +131,8 @@ const AppointmentBooking = () => {
       });
     } catch (error) {
       console.error("Error booking appointment:", error.response?.data || error.message);
-      const errorMsg = error.response?.data?.message || "Failed to book appointment";
+      const data = error.response?.data;
+      const errorMsg = data?.message || (typeof data === "string" && data) || "Failed to book appointment";
       setError(`Error: ${errorMsg}`);
     }
   };
@@ -122,6 +163,25 @@ const AppointmentBooking = () => {
       )}
       
       <form className="appointment-form" onSubmit={handleSubmit}>
+        {/* Doctor Search */}
+        <div className="form-group">
+          <label>Find a Doctor</label>
+          <input
+            type="text"
+            placeholder="Doctor name"
+            value={doctorSearch}
+            onChange={(e) => setDoctorSearch(e.target.value)}
+          />
+          <select value={specialization} onChange={(e) => setSpecialization(e.target.value)}>
+            <option value="">All specializations</option>
+            {Object.entries(specializations).map(([name, count]) => (
+              <option key={name} value={name}>
+                {name} ({count})
+              </option>
+            ))}
+          </select>
+        </div>
+
         {/* Doctor Dropdown */}
         <div className="form-group">
           <label>Doctor</label>
@@ -134,7 +194,7 @@ const AppointmentBooking = () => {
             required
           >
             <option value="">-- Select Doctor --</option>
-            {doctors.map((doc) => (
+            {(matches ?? doctors).map((doc) => (
               <option key={doc.id || doc.doctorId} value={doc.id || doc.doctorId}>
                 {doc.name} ({doc.specialization})
               </option>
@@ -152,6 +212,21 @@ const AppointmentBooking = () => {
             onChange={handleChange}
             required
           />
+          {suggestions.length > 0 && (
+            <div className="doctor-suggestions">
+              <span>Available that day:</span>
+              {suggestions.map((s) => (
+                <button
+                  type="button"
+                  key={s.id}
+                  className={formData.doctorId === s.id ? "suggestion selected" : "suggestion"}
+                  onClick={() => setFormData({ ...formData, doctorId: s.id })}
+                >
+                  {s.name} ({s.remaining} left)
+                </button>
+              ))}
+            </div>
+          )}
         </div>
 
         {/* Time Range */}
@@ -1,11 +1,142 @@
-import React from 'react'
+import React, { useState, useEffect } from "react";
+import axios from "axios";
+import "./patientcss/MedicalHistory.css";
+const API_URL = import.meta.env.VITE_API_URL;
 
 function MedicalHistory() {
+  const [entries, setEntries] = useState([]);
+  const [nextCursor, setNextCursor] = useState(null);
+  const [loading, setLoading] = useState(true);
+  const [patientId, setPatientId] = useState(null);
+
+  useEffect(() => {
+    const storedPatient = sessionStorage.getItem("patient");
+    if (storedPatient) {
+      setPatientId(JSON.parse(storedPatient).id);
+    } else {
+      setLoading(false);
+    }
+  }, []);
+
+  // One request per page: appointments newest first, prescriptions already nested
+  const loadHistory = (cursor) => {
+    setLoading(true);
+    axios
+      .get(`${API_URL}/appointments/patient/${patientId}/history`, { params: { cursor, limit: 20 } })
+      .then((res) => {
+        setEntries((prev) => (cursor ? [...prev, ...res.data.entries] : res.data.entries));
+        setNextCursor(res.data.nextCursor);
+      })
+      .catch((err) => console.error("Error fetching medical history:", err))
+      .finally(() => setLoading(false));
+  };
+
+  useEffect(() => {
+    if (patientId) loadHistory(null);
+  }, [patientId]);
+
+  const prescriptionCount = entries.reduce((n, e) => n + e.prescriptions.length, 0);
+
   return (
-    <div>
-      <h1 align="center"> Medical History </h1>
+    <div className="medical-history-container">
+      <div className="medical-history-header">
+        <h1 className="medical-history-heading">Medical History</h1>
+        <p className="medical-history-subtitle">Your appointments and the prescriptions written at each visit</p>
+      </div>
+
+      {loading && entries.length === 0 ? (
+        <div className="loading-message">
+          <div className="loading-spinner"></div>
+          Loading your history...
+        </div>
+      ) : entries.length === 0 ? (
+        <div className="no-records">
+          <div className="no-records-icon">📋</div>
+          <h3>No records yet</h3>
+          <p>Your visits will appear here after your first appointment.</p>
+        </div>
+      ) : (
+        <>
+          <div className="records-summary">
+            <div className="summary-card">
+              <div className="summary-icon">📅</div>
+              <div className="summary-content">
+                <h3>Visits shown</h3>
+                <p>{entries.length}</p>
+              </div>
+            </div>
+            <div className="summary-card">
+              <div className="summary-icon">💊</div>
+              <div className="summary-content">
+                <h3>Prescriptions</h3>
+                <p>{prescriptionCount}</p>
+              </div>
+            </div>
+          </div>
+
+          <div className="records-list">
+            {entries.map((entry) => (
+              <div className="record-card" key={entry.id}>
+                <div className="record-header">
+                  <div className="record-date">
+                    <span className="date-icon">📅</span>
+                    {entry.date} · {entry.doctorName}
+                  </div>
+                  <span className={`status-badge ${entry.status === "COMPLETED" ? "resolved" : "pending"}`}>
+                    {entry.status}
+                  </span>
+                </div>
+                <div className="record-content">
+                  <div className="record-info">
+                    <div className="info-item">
+                      <span className="info-label">Reason</span>
+                      <span className="info-value">{entry.reason}</span>
+                    </div>
+                    <div className="info-item">
+                      <span className="info-label">Time</span>
+                      <span className="info-value">{entry.confirmedTime || entry.timeRange}</span>
+                    </div>
+                  </div>
+                  {entry.prescriptions.map((p) => (
+                    <div className="record-info" key={p.id}>
+                      <div className="info-item">
+                        <span className="info-label">Diagnosis</span>
+                        <span className="info-value diagnosis">{p.diagnosis || "-"}</span>
+                      </div>
+                      <div className="info-item">
+                        <span className="info-label">Medications</span>
+                        <span className="info-value treatment">{p.medications}</span>
+                      </div>
+                      <div className="info-item">
+                        <span className="info-label">Dosage</span>
+                        <span className="info-value">{p.dosage || "-"}</span>
+                      </div>
+                      <div className="info-item">
+                        <span className="info-label">Instructions</span>
+                        <span className="info-value followup">{p.instructions || "-"}</span>
+                      </div>
+                    </div>
+                  ))}
+                  {entry.doctorFeedback && (
+                    <div className="record-notes">
+                      <span className="notes-label">Doctor's feedback</span>
+                      <p className="notes-content">{entry.doctorFeedback}</p>
+                    </div>
+                  )}
+                </div>
+              </div>
+            ))}
+          </div>
+
+          {nextCursor && (
+            <button className="load-more-btn" disabled={loading} onClick={() => loadHistory(nextCursor)}>
+              {loading ? "Loading..." : "Load older visits"}
+            </button>
+          )}
+        </>
+      )}
     </div>
-  )
+  );
 }
 
-export default MedicalHistory
+export default MedicalHistory;
@@ -1,6 +1,7 @@
 import React, { useState, useEffect } from "react";
 import axios from "axios";
 import "./patientcss/MyAppointment.css";
+import { withToken } from "../contextapi/session";
 const API_URL = import.meta.env.VITE_API_URL;
 
 
@@ -18,12 +19,27 @@ const MyAppointment = () => {
   }, []);
 
   useEffect(() => {
-    if (patientId) {
+    if (!patientId) return;
+
+    const fetchAppointments = () =>
       axios
         .get(`${API_URL}/appointments/patient/${patientId}`)
         .then((res) => setAppointments(res.data))
         .catch((err) => console.error("Error fetching appointments:", err));
-    }
+
+    fetchAppointments();
+
+    // Live updates; EventSource reconnects by itself and resumes from the last event id
+    const source = new EventSource(withToken(`${API_URL}/appointments/stream/patient/${patientId}`));
+    source.addEventListener("appointment", (e) => {
+      const { appointment } = JSON.parse(e.data);
+      setAppointments((prev) => {
+        const rest = prev.filter((a) => a.id !== appointment.id);
+        return rest.length === prev.length ? [...prev, appointment] : prev.map((a) => (a.id === appointment.id ? appointment : a));
+      });
+    });
+    source.addEventListener("resync", fetchAppointments);
+    return () => source.close();
   }, [patientId]);
 
   return (
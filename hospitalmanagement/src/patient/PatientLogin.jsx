@@ -3,6 +3,7 @@ import "./patientcss/PatientLogin.css";
 import axios from 'axios';
 import { useNavigate, Link } from 'react-router-dom';
 import { useAuth } from '../contextapi/AuthContext';
+import { startSession } from '../contextapi/session';
 
 
 const API_URL = `${import.meta.env.VITE_API_URL}/patient`;
@@ -26,6 +27,7 @@ export default function PatientLogin() {
       // ✅ Use .env URL
       const response = await axios.post(`${API_URL}/checklogin`, formData);
       if (response.status === 200) {
+        startSession(response.data);
         setIsPatientLoggedIn(true);
         sessionStorage.setItem('patient', JSON.stringify(response.data));
         navigate('/patient/dashboard'); 
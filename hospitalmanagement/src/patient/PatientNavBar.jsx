@@ -12,6 +12,7 @@ import "../admin/admincss/admin.css";
 import "./patientcss/PatientSidebar.css";
 
 import { useAuth } from "../contextapi/AuthContext";
+import { endSession } from "../contextapi/session";
 
 // Import patient components
 import PatientDashboard from "./PatientDashboard";
@@ -28,7 +29,7 @@ export default function PatientNavBar() {
   const { setIsPatientLoggedIn } = useAuth();
 
   function handleLogout() {
-    sessionStorage.clear();
+    endSession();
     setIsPatientLoggedIn(false); // ✅ update auth state
     navigate("/patient/login", { replace: true }); // ✅ redirect to main login
   }
@@ -20,14 +20,18 @@ export default function UpcomingAppointments() {
   // Fetch upcoming appointments
   useEffect(() => {
     if (patient?.id) {
+      // The server returns only today onwards (up to a year ahead), ordered by date
+      const to = new Date();
+      to.setFullYear(to.getFullYear() + 1);
       axios
-        .get(`${API_URL}/appointments/patient/${patient.id}`)
+        .get(`${API_URL}/appointments/patient/${patient.id}/range`, {
+          params: { to: to.toISOString().split('T')[0] }
+        })
         .then((res) => {
-          // Filter upcoming appointments (approved with future dates)
+          // Filter upcoming appointments (approved with a confirmed time)
           const upcoming = res.data.filter(appt => 
             appt.status === "APPROVED" && 
-            appt.confirmedTime && 
-            new Date(appt.date) >= new Date()
+            appt.confirmedTime
           ).sort((a, b) => {
             if (a.date !== b.date) {
               return new Date(a.date) - new Date(b.date);
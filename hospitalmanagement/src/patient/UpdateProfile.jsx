@@ -36,13 +36,16 @@ export default function PatientUpdateProfile() {
   const handleSubmit = async (e) => {
     e.preventDefault();
     try {
-      // ✅ updated to use API_URL from .env
-      const response = await axios.put(`${API_URL}/updateprofile`, formData);
+      // Sends only the editable fields; sessions from before versioning have no version and still use PUT
+      const { name, email, password, mobileno, location, version } = formData;
+      const response = version == null
+        ? await axios.put(`${API_URL}/updateprofile`, formData)
+        : await axios.patch(`${API_URL}/${formData.id}`, { version, name, email, password, mobileno, location });
 
       if (response.status === 200) {
-        setMessage(response.data);
+        setMessage(version == null ? response.data : 'Patient Profile Updated Successfully');
         setError('');
-        sessionStorage.setItem('patient', JSON.stringify(formData));
+        sessionStorage.setItem('patient', JSON.stringify({ ...formData, password: '', version: response.data.version ?? version }));
         setTimeout(() => navigate('/patient/profile'), 1000);
       }
     } catch (error) {
@@ -114,13 +117,13 @@ export default function PatientUpdateProfile() {
         </div>
 
         <div>
-          <label>Password</label>
+          <label>New Password</label>
           <input
             type="password"
             id="password"
-            value={formData.password}
+            value={formData.password || ''}
             onChange={handleChange}
-            required
+            placeholder="Leave blank to keep your current password"
           />
         </div>
 